@@ -10,6 +10,17 @@ application {
     mainClass.set("net.sf.dz3r.runtime.standalone.HccApplication")
 }
 
+distributions {
+    main {
+        contents {
+            // Flight Recorder profile, see docs/build/index.md#flight-recorder
+            from("../jfr") {
+                into("jfr")
+            }
+        }
+    }
+}
+
 dependencies {
 
     implementation(libs.jackson.databind)
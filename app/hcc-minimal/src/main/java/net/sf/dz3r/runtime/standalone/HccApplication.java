@@ -10,6 +10,12 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Standalone entry point into HCC Core.
@@ -18,6 +24,11 @@ import java.net.URL;
  */
 public class HccApplication extends ApplicationBase<HccRawConfig> {
 
+    /**
+     * How long the configuration file must stay unchanged before it is reloaded.
+     */
+    private static final Duration SETTLE_DELAY = Duration.ofSeconds(2);
+
     /**
      * Run the application.
      * @param args Configuration location.
@@ -38,7 +49,10 @@ public class HccApplication extends ApplicationBase<HccRawConfig> {
                 return;
             }
 
-            run(loadConfiguration(args[0]));
+            var config = loadConfiguration(args[0]);
+
+            watch(args[0]);
+            run(config);
 
         } catch (Exception ex) {
 
@@ -92,6 +106,85 @@ public class HccApplication extends ApplicationBase<HccRawConfig> {
         }
     }
 
+    /**
+     * Reload the configuration when it changes, if it is a file.
+     *
+     * Editors tend to write files in several steps, so the reload happens after the file has been left alone
+     * for {@link #SETTLE_DELAY}. An invalid configuration is logged and ignored, the system keeps running
+     * with the previous one.
+     *
+     * @param source Configuration source.
+     */
+    private void watch(String source) {
+
+        var path = Path.of(source).toAbsolutePath();
+
+        if (!Files.isRegularFile(path)) {
+            logger.info("{}: not a file, will not reload on change", source);
+            return;
+        }
+
+        var watcher = new Thread(() -> {
+
+            ThreadContext.push("watch(" + source + ")");
+
+            try (var watchService = path.getFileSystem().newWatchService()) {
+
+                path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                logger.info("watching {} for changes", path);
+
+                while (true) {
+
+                    var key = watchService.take();
+                    var changed = pollEvents(key, path);
+
+                    // Drain the rest of the burst
+                    for (var next = watchService.poll(SETTLE_DELAY.toMillis(), TimeUnit.MILLISECONDS); next != null; next = watchService.poll(SETTLE_DELAY.toMillis(), TimeUnit.MILLISECONDS)) {
+                        changed |= pollEvents(next, path);
+                    }
+
+                    if (changed) {
+                        reload(source);
+                    }
+                }
+
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException ex) {
+                logger.error("can't watch {}, will not reload on change", path, ex);
+            } finally {
+                ThreadContext.pop();
+            }
+
+        }, "config-watcher");
+
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private boolean pollEvents(WatchKey key, Path path) {
+
+        var changed = key.pollEvents()
+                .stream()
+                .anyMatch(e -> path.getFileName().equals(e.context()));
+
+        key.reset();
+
+        return changed;
+    }
+
+    private void reload(String source) {
+
+        try {
+
+            logger.warn("{} changed, reloading", source);
+            reload(loadConfiguration(source));
+
+        } catch (Exception ex) {
+            logger.error("failed to reload {}, still running the previous configuration", source, ex);
+        }
+    }
+
     /**
      * Get the stream from the given location.
      *
@@ -53,6 +53,7 @@ dependencies {
     implementation(libs.quarkus.arc)
     implementation(libs.quarkus.config.yaml)
     implementation(libs.quarkus.resteasy.reactive)
+    implementation(libs.quarkus.smallrye.health)
     testImplementation(libs.quarkus.junit5)
 }
 
@@ -3,6 +3,8 @@ package net.sf.dz3r.runtime.config.quarkus;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.smallrye.config.ConfigMapping;
 import net.sf.dz3r.runtime.config.HccRawConfig;
+import net.sf.dz3r.runtime.config.quarkus.cluster.ClusterConfig;
+import net.sf.dz3r.runtime.config.quarkus.cluster.StandbyConfig;
 import net.sf.dz3r.runtime.config.quarkus.connector.ConnectorConfig;
 import net.sf.dz3r.runtime.config.quarkus.filter.FilterConfig;
 import net.sf.dz3r.runtime.config.quarkus.hardware.HvacDeviceConfig;
@@ -10,6 +12,7 @@ import net.sf.dz3r.runtime.config.quarkus.hardware.MockConfig;
 import net.sf.dz3r.runtime.config.quarkus.hardware.UnitControllerConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.ConsoleConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.MeasurementUnits;
+import net.sf.dz3r.runtime.config.quarkus.model.SinkConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.UnitDirectorConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.WebUiConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.ZoneConfig;
@@ -61,4 +64,10 @@ public interface HccRawInterfaceConfig {
     Optional<WebUiConfig> webUi();
     @JsonProperty("console")
     Optional<ConsoleConfig> console();
+    @JsonProperty("sinks")
+    Set<SinkConfig> sinks();
+    @JsonProperty("cluster")
+    Optional<ClusterConfig> cluster();
+    @JsonProperty("standby")
+    Optional<StandbyConfig> standby();
 }
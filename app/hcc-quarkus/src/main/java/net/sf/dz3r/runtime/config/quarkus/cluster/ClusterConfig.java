@@ -0,0 +1,19 @@
+package net.sf.dz3r.runtime.config.quarkus.cluster;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.MqttBrokerConfig;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+public interface ClusterConfig {
+    @JsonProperty("node")
+    String node();
+    @JsonProperty("broker")
+    MqttBrokerConfig broker();
+    @JsonProperty("heartbeat")
+    Optional<Duration> heartbeat();
+    @JsonProperty("nodes")
+    Set<ClusterNodeConfig> nodes();
+}
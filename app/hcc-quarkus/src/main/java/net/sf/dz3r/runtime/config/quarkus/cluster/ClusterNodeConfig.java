@@ -0,0 +1,14 @@
+package net.sf.dz3r.runtime.config.quarkus.cluster;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Set;
+
+public interface ClusterNodeConfig {
+    @JsonProperty("id")
+    String id();
+    @JsonProperty("directors")
+    Set<String> directors();
+    @JsonProperty("sensors")
+    Set<String> sensors();
+}
@@ -0,0 +1,18 @@
+package net.sf.dz3r.runtime.config.quarkus.connector;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import net.sf.dz3r.signal.filter.CompressionSettings;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public interface CompressionConfig {
+    @JsonProperty("method")
+    CompressionSettings.Method method();
+    @JsonProperty("absolute")
+    Optional<Double> absolute();
+    @JsonProperty("relative")
+    Optional<Double> relative();
+    @JsonProperty("max-gap")
+    Optional<Duration> maxGap();
+}
@@ -11,4 +11,6 @@ public interface ConnectorConfig {
     Optional<InfluxCollectorConfig> influx();
     @JsonProperty("home-assistant")
     Optional<HomeAssistantConfig> homeAssistant();
+    @JsonProperty("recorder")
+    Optional<RecorderConfig> recorder();
 }
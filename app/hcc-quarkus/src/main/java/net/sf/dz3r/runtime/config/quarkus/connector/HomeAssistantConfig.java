@@ -3,6 +3,7 @@ package net.sf.dz3r.runtime.config.quarkus.connector;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.MqttBrokerConfig;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
 
@@ -15,4 +16,8 @@ public interface HomeAssistantConfig {
     Optional<String> discoveryPrefix();
     @JsonProperty("zones")
     Set<String> zones();
+    @JsonProperty("pace")
+    Optional<Duration> pace();
+    @JsonProperty("heartbeat")
+    Optional<Duration> heartbeat();
 }
@@ -20,4 +20,6 @@ public interface InfluxCollectorConfig {
     Optional<String> password();
     @JsonProperty("sensor-feed-mapping")
     Map<String, String> sensorFeedMapping();
+    @JsonProperty("compression")
+    Optional<CompressionConfig> compression();
 }
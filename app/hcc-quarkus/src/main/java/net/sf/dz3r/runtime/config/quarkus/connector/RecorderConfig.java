@@ -0,0 +1,12 @@
+package net.sf.dz3r.runtime.config.quarkus.connector;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Optional;
+
+public interface RecorderConfig {
+    @JsonProperty("id")
+    String id();
+    @JsonProperty("directory")
+    Optional<String> directory();
+}
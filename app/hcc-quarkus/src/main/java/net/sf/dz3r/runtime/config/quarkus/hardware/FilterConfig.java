@@ -3,8 +3,13 @@ package net.sf.dz3r.runtime.config.quarkus.hardware;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.Duration;
+import java.util.Optional;
 
 public interface FilterConfig {
     @JsonProperty("lifetime")
     Duration lifetime();
+    @JsonProperty("save-interval")
+    Optional<Duration> saveInterval();
+    @JsonProperty("journal")
+    Optional<Boolean> journal();
 }
@@ -0,0 +1,17 @@
+package net.sf.dz3r.runtime.config.quarkus.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Optional;
+
+public interface SinkConfig {
+
+    @JsonProperty("category")
+    String category();
+
+    @JsonProperty("capacity")
+    Optional<Integer> capacity();
+
+    @JsonProperty("overflow")
+    Optional<String> overflow();
+}
@@ -2,10 +2,15 @@ package net.sf.dz3r.runtime.mapper;
 
 import net.sf.dz3r.runtime.config.HccRawConfig;
 import net.sf.dz3r.runtime.config.quarkus.HccRawInterfaceConfig;
+import net.sf.dz3r.runtime.config.quarkus.cluster.ClusterConfig;
+import net.sf.dz3r.runtime.config.quarkus.cluster.ClusterNodeConfig;
+import net.sf.dz3r.runtime.config.quarkus.cluster.StandbyConfig;
+import net.sf.dz3r.runtime.config.quarkus.connector.CompressionConfig;
 import net.sf.dz3r.runtime.config.quarkus.connector.ConnectorConfig;
 import net.sf.dz3r.runtime.config.quarkus.connector.HomeAssistantConfig;
 import net.sf.dz3r.runtime.config.quarkus.connector.HttpConnectorConfig;
 import net.sf.dz3r.runtime.config.quarkus.connector.InfluxCollectorConfig;
+import net.sf.dz3r.runtime.config.quarkus.connector.RecorderConfig;
 import net.sf.dz3r.runtime.config.quarkus.filter.FilterConfig;
 import net.sf.dz3r.runtime.config.quarkus.filter.MedianFilterConfig;
 import net.sf.dz3r.runtime.config.quarkus.filter.MedianSetFilterConfig;
@@ -26,6 +31,7 @@ import net.sf.dz3r.runtime.config.quarkus.model.HalfLifeConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.MeasurementUnits;
 import net.sf.dz3r.runtime.config.quarkus.model.PidControllerConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.RangeConfig;
+import net.sf.dz3r.runtime.config.quarkus.model.SinkConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.UnitDirectorConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.WebUiConfig;
 import net.sf.dz3r.runtime.config.quarkus.model.ZoneConfig;
@@ -68,6 +74,9 @@ public interface InterfaceRecordMapper {
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.directors(source.directors()))", target = "directors")
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.webUi(source.webUi().orElse(null)))", target = "webUi")
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.console(source.console().orElse(null)))", target = "console")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.sinks(source.sinks()))", target = "sinks")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.cluster(source.cluster().orElse(null)))", target = "cluster")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.standby(source.standby().orElse(null)))", target = "standby")
     HccRawConfig rawConfig(HccRawInterfaceConfig source);
 
     @Mapping(expression = "java(source.temperature().orElse(null))", target = "temperature")
@@ -185,6 +194,7 @@ public interface InterfaceRecordMapper {
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.connector(source.http().orElse(null)))", target = "http")
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.connector(source.influx().orElse(null)))", target = "influx")
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.connector(source.homeAssistant().orElse(null)))", target = "homeAssistant")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.connector(source.recorder().orElse(null)))", target = "recorder")
     net.sf.dz3r.runtime.config.connector.ConnectorConfig connector(ConnectorConfig source);
 
     @Mapping(expression = "java(source.id())", target = "id")
@@ -199,14 +209,27 @@ public interface InterfaceRecordMapper {
     @Mapping(expression = "java(source.username().orElse(null))", target = "username")
     @Mapping(expression = "java(source.password().orElse(null))", target = "password")
     @Mapping(expression = "java(source.sensorFeedMapping())", target = "sensorFeedMapping")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.compression(source.compression().orElse(null)))", target = "compression")
     net.sf.dz3r.runtime.config.connector.InfluxCollectorConfig connector(InfluxCollectorConfig source);
 
+    @Mapping(expression = "java(source.method())", target = "method")
+    @Mapping(expression = "java(source.absolute().orElse(null))", target = "absolute")
+    @Mapping(expression = "java(source.relative().orElse(null))", target = "relative")
+    @Mapping(expression = "java(source.maxGap().orElse(null))", target = "maxGap")
+    net.sf.dz3r.runtime.config.connector.CompressionConfig compression(CompressionConfig source);
+
     @Mapping(expression = "java(source.id())", target = "id")
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.broker(source.broker()))", target = "broker")
     @Mapping(expression = "java(source.discoveryPrefix().orElse(null))", target = "discoveryPrefix")
     @Mapping(expression = "java(source.zones())", target = "zones")
+    @Mapping(expression = "java(source.pace().orElse(null))", target = "pace")
+    @Mapping(expression = "java(source.heartbeat().orElse(null))", target = "heartbeat")
     net.sf.dz3r.runtime.config.connector.HomeAssistantConfig connector(HomeAssistantConfig source);
 
+    @Mapping(expression = "java(source.id())", target = "id")
+    @Mapping(expression = "java(source.directory().orElse(null))", target = "directory")
+    net.sf.dz3r.runtime.config.connector.RecorderConfig connector(RecorderConfig source);
+
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.switchable(source.switchable()))", target = "switchable")
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.heatpumpHat(source.heatpumpHat()))", target = "heatpumpHat")
     @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.heatpump(source.heatpump()))", target = "heatpump")
@@ -214,6 +237,8 @@ public interface InterfaceRecordMapper {
     net.sf.dz3r.runtime.config.hardware.HvacDeviceConfig hvac(HvacDeviceConfig source);
 
     @Mapping(expression = "java(source.lifetime())", target = "lifetime")
+    @Mapping(expression = "java(source.saveInterval().orElse(null))", target = "saveInterval")
+    @Mapping(expression = "java(source.journal().orElse(null))", target = "journal")
     net.sf.dz3r.runtime.config.hardware.FilterConfig filter(net.sf.dz3r.runtime.config.quarkus.hardware.FilterConfig source);
 
     @Mapping(expression = "java(source.id())", target = "id")
@@ -276,6 +301,28 @@ public interface InterfaceRecordMapper {
     @Mapping(expression = "java(source.sensors().orElse(Set.of()))", target = "sensors")
     net.sf.dz3r.runtime.config.model.ConsoleConfig console(ConsoleConfig source);
 
+    @Mapping(expression = "java(source.category())", target = "category")
+    @Mapping(expression = "java(source.capacity().orElse(null))", target = "capacity")
+    @Mapping(expression = "java(source.overflow().orElse(null))", target = "overflow")
+    net.sf.dz3r.runtime.config.model.SinkConfig sink(SinkConfig source);
+
+    @Mapping(expression = "java(source.node())", target = "node")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.broker(source.broker()))", target = "broker")
+    @Mapping(expression = "java(source.heartbeat().orElse(null))", target = "heartbeat")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.clusterNodes(source.nodes()))", target = "nodes")
+    net.sf.dz3r.runtime.config.cluster.ClusterConfig cluster(ClusterConfig source);
+
+    @Mapping(expression = "java(source.id())", target = "id")
+    @Mapping(expression = "java(source.directors())", target = "directors")
+    @Mapping(expression = "java(source.sensors())", target = "sensors")
+    net.sf.dz3r.runtime.config.cluster.ClusterNodeConfig clusterNode(ClusterNodeConfig source);
+
+    @Mapping(expression = "java(source.node())", target = "node")
+    @Mapping(expression = "java(InterfaceRecordMapper.INSTANCE.broker(source.broker()))", target = "broker")
+    @Mapping(expression = "java(source.heartbeat().orElse(null))", target = "heartbeat")
+    @Mapping(expression = "java(source.takeoverAfter().orElse(null))", target = "takeoverAfter")
+    net.sf.dz3r.runtime.config.cluster.StandbyConfig standby(StandbyConfig source);
+
     Set<net.sf.dz3r.runtime.config.hardware.SensorConfig> sensors(Set<SensorConfig> source);
     Set<net.sf.dz3r.runtime.config.hardware.SwitchConfig> switches(Set<SwitchConfig> source);
     Set<net.sf.dz3r.runtime.config.protocol.mqtt.FanConfig> fans(Set<FanConfig> source);
@@ -297,4 +344,6 @@ public interface InterfaceRecordMapper {
     Set<net.sf.dz3r.runtime.config.hardware.SingleStageUnitControllerConfig> singleStage(Set<SingleStageUnitControllerConfig> source);
     Set<net.sf.dz3r.runtime.config.hardware.MultiStageUnitControllerConfig> multiStage(Set<MultiStageUnitControllerConfig> source);
     Set<net.sf.dz3r.runtime.config.model.UnitDirectorConfig> directors(Set<UnitDirectorConfig> source);
+    Set<net.sf.dz3r.runtime.config.model.SinkConfig> sinks(Set<SinkConfig> source);
+    Set<net.sf.dz3r.runtime.config.cluster.ClusterNodeConfig> clusterNodes(Set<ClusterNodeConfig> source);
 }
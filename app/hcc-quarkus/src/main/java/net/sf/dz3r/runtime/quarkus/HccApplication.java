@@ -28,7 +28,19 @@ public class HccApplication extends ApplicationBase<HccRawInterfaceConfig> {
     @Context
     HccRawInterfaceConfig config;
 
+    /**
+     * Why the startup failed, if it did. Reported by {@link HccReadinessCheck}.
+     */
+    private volatile Exception startupFailure;
+
     void onStart(@Observes StartupEvent e) { // NOSONAR StartupEvent is useless
+
+        // run() doesn't return until the application is killed, and Quarkus doesn't consider itself started
+        // (doesn't report it, and doesn't let the integration tests in) until this observer returns
+        new Thread(this::start, "hcc").start();
+    }
+
+    private void start() {
         ThreadContext.push("onStart");
 
         try {
@@ -42,6 +54,7 @@ public class HccApplication extends ApplicationBase<HccRawInterfaceConfig> {
         } catch (Exception ex) {
 
             logger.fatal("Unexpected exception: ", ex);
+            startupFailure = ex;
             Thread.currentThread().interrupt();
 
         } finally {
@@ -64,6 +77,20 @@ public class HccApplication extends ApplicationBase<HccRawInterfaceConfig> {
         });
     }
 
+    /**
+     * @return {@code true} if HCC has started and is running.
+     */
+    boolean isRunning() {
+        return isStarted();
+    }
+
+    /**
+     * @return Exception that stopped HCC from starting, or {@code null} if it is still starting up or has started.
+     */
+    Exception getStartupFailure() {
+        return startupFailure;
+    }
+
     @Override
     protected HccRawConfig mapConfiguration(HccRawInterfaceConfig config) {
         return InterfaceRecordMapper.INSTANCE.rawConfig(config);
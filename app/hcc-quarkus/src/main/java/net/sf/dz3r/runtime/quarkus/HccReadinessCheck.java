@@ -0,0 +1,53 @@
+package net.sf.dz3r.runtime.quarkus;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Reports whether HCC has actually started.
+ *
+ * Quarkus considers itself ready as soon as {@link HccApplication} has spawned the thread HCC runs on, this check
+ * stays down (at {@code /q/health/ready}) until the configuration is parsed and the system is running, and reports
+ * the failure if it never does.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Readiness
+@ApplicationScoped
+public class HccReadinessCheck implements HealthCheck {
+
+    static final String NAME = "hcc";
+
+    @Inject
+    HccApplication application;
+
+    @Override
+    public HealthCheckResponse call() {
+
+        var response = HealthCheckResponse.named(NAME);
+        var failure = application.getStartupFailure();
+
+        if (failure != null) {
+            return response
+                    .down()
+                    .withData("state", "failed")
+                    .withData("failure", failure.toString())
+                    .build();
+        }
+
+        if (!application.isRunning()) {
+            return response
+                    .down()
+                    .withData("state", "starting")
+                    .build();
+        }
+
+        return response
+                .up()
+                .withData("state", "started")
+                .build();
+    }
+}
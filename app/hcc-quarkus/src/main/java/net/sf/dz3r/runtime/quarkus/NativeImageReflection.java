@@ -0,0 +1,179 @@
+package net.sf.dz3r.runtime.quarkus;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import net.sf.dz3r.device.DeviceState;
+import net.sf.dz3r.device.actuator.economizer.EconomizerSettings;
+import net.sf.dz3r.model.PeriodSettings;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.CallingStatus;
+import net.sf.dz3r.signal.hvac.EconomizerStatus;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+import net.sf.dz3r.signal.hvac.HvacDeviceStatus;
+import net.sf.dz3r.signal.hvac.UnitControlSignal;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+
+/**
+ * Classes that are only ever reached via reflection, and would be stripped from the native image otherwise.
+ *
+ * Jackson renders the configuration both as {@link net.sf.dz3r.runtime.config.HccRawConfig records} (the digest
+ * depends on it, see {@link net.sf.dz3r.runtime.ApplicationBase}) and as {@link net.sf.dz3r.runtime.config.quarkus.HccRawInterfaceConfig interfaces},
+ * and the WebUI renders the status signals. Everything else (entity lookups included) is plain code and needs no help.
+ *
+ * Names are used instead of class literals because the record and interface configuration trees share simple names.
+ * {@code NativeImageReflectionTest} makes sure nothing reachable from the configuration roots is missing.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@RegisterForReflection(
+        targets = {
+                Signal.class,
+                ZoneStatus.class,
+                ZoneSettings.class,
+                PeriodSettings.class,
+                EconomizerSettings.class,
+                CallingStatus.class,
+                EconomizerStatus.class,
+                HvacDeviceStatus.class,
+                HvacCommand.class,
+                DeviceState.class,
+                UnitControlSignal.class
+        },
+        classNames = {
+                "net.sf.dz3r.runtime.config.HccRawConfig",
+                "net.sf.dz3r.runtime.config.cluster.ClusterConfig",
+                "net.sf.dz3r.runtime.config.cluster.ClusterNodeConfig",
+                "net.sf.dz3r.runtime.config.cluster.StandbyConfig",
+                "net.sf.dz3r.runtime.config.connector.CompressionConfig",
+                "net.sf.dz3r.runtime.config.connector.ConnectorConfig",
+                "net.sf.dz3r.runtime.config.connector.HomeAssistantConfig",
+                "net.sf.dz3r.runtime.config.connector.HttpConnectorConfig",
+                "net.sf.dz3r.runtime.config.connector.InfluxCollectorConfig",
+                "net.sf.dz3r.runtime.config.connector.RecorderConfig",
+                "net.sf.dz3r.runtime.config.filter.FilterConfig",
+                "net.sf.dz3r.runtime.config.filter.MedianFilterConfig",
+                "net.sf.dz3r.runtime.config.filter.MedianSetFilterConfig",
+                "net.sf.dz3r.runtime.config.hardware.FilterConfig",
+                "net.sf.dz3r.runtime.config.hardware.HeatpumpConfig",
+                "net.sf.dz3r.runtime.config.hardware.HeatpumpHATConfig",
+                "net.sf.dz3r.runtime.config.hardware.HvacDeviceConfig",
+                "net.sf.dz3r.runtime.config.hardware.MockConfig",
+                "net.sf.dz3r.runtime.config.hardware.MultiStageUnitControllerConfig",
+                "net.sf.dz3r.runtime.config.hardware.SensorConfig",
+                "net.sf.dz3r.runtime.config.hardware.SingleStageUnitControllerConfig",
+                "net.sf.dz3r.runtime.config.hardware.SwitchConfig",
+                "net.sf.dz3r.runtime.config.hardware.SwitchableHvacDeviceConfig",
+                "net.sf.dz3r.runtime.config.hardware.UnitControllerConfig",
+                "net.sf.dz3r.runtime.config.hardware.VariableHvacConfig",
+                "net.sf.dz3r.runtime.config.model.ConsoleConfig",
+                "net.sf.dz3r.runtime.config.model.EconomizerConfig",
+                "net.sf.dz3r.runtime.config.model.HalfLifeConfig",
+                "net.sf.dz3r.runtime.config.model.MeasurementUnits",
+                "net.sf.dz3r.runtime.config.model.PidControllerConfig",
+                "net.sf.dz3r.runtime.config.model.RangeConfig",
+                "net.sf.dz3r.runtime.config.model.SinkConfig",
+                "net.sf.dz3r.runtime.config.model.TemperatureUnit",
+                "net.sf.dz3r.runtime.config.model.UnitDirectorConfig",
+                "net.sf.dz3r.runtime.config.model.WebUiConfig",
+                "net.sf.dz3r.runtime.config.model.ZoneConfig",
+                "net.sf.dz3r.runtime.config.model.ZoneSettingsConfig",
+                "net.sf.dz3r.runtime.config.protocol.mqtt.FanConfig",
+                "net.sf.dz3r.runtime.config.protocol.mqtt.MqttBrokerConfig",
+                "net.sf.dz3r.runtime.config.protocol.mqtt.MqttDeviceConfig",
+                "net.sf.dz3r.runtime.config.protocol.onewire.OnewireBusConfig",
+                "net.sf.dz3r.runtime.config.schedule.CalendarConfigEntry",
+                "net.sf.dz3r.runtime.config.schedule.ScheduleConfig",
+                "net.sf.dz3r.runtime.config.quarkus.FanConfigProvider",
+                "net.sf.dz3r.runtime.config.quarkus.HccRawInterfaceConfig",
+                "net.sf.dz3r.runtime.config.quarkus.SensorConfigProvider",
+                "net.sf.dz3r.runtime.config.quarkus.SwitchConfigProvider",
+                "net.sf.dz3r.runtime.config.quarkus.cluster.ClusterConfig",
+                "net.sf.dz3r.runtime.config.quarkus.cluster.ClusterNodeConfig",
+                "net.sf.dz3r.runtime.config.quarkus.cluster.StandbyConfig",
+                "net.sf.dz3r.runtime.config.quarkus.connector.CompressionConfig",
+                "net.sf.dz3r.runtime.config.quarkus.connector.ConnectorConfig",
+                "net.sf.dz3r.runtime.config.quarkus.connector.HomeAssistantConfig",
+                "net.sf.dz3r.runtime.config.quarkus.connector.HttpConnectorConfig",
+                "net.sf.dz3r.runtime.config.quarkus.connector.InfluxCollectorConfig",
+                "net.sf.dz3r.runtime.config.quarkus.connector.RecorderConfig",
+                "net.sf.dz3r.runtime.config.quarkus.filter.FilterConfig",
+                "net.sf.dz3r.runtime.config.quarkus.filter.MedianFilterConfig",
+                "net.sf.dz3r.runtime.config.quarkus.filter.MedianSetFilterConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.FilterConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.HeatpumpConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.HeatpumpHATConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.HvacDeviceConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.MockConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.MultiStageUnitControllerConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.SensorConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.SingleStageUnitControllerConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.SwitchConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.SwitchableHvacDeviceConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.UnitControllerConfig",
+                "net.sf.dz3r.runtime.config.quarkus.hardware.VariableHvacConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.ConsoleConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.EconomizerConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.MeasurementUnits",
+                "net.sf.dz3r.runtime.config.quarkus.model.PidControllerConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.RangeConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.SinkConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.UnitDirectorConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.WebUiConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.ZoneConfig",
+                "net.sf.dz3r.runtime.config.quarkus.model.ZoneSettingsConfig",
+                "net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.FanConfig",
+                "net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.MqttBrokerConfig",
+                "net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.MqttBrokerSpec",
+                "net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.MqttDeviceConfig",
+                "net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.MqttEndpointSpec",
+                "net.sf.dz3r.runtime.config.quarkus.protocol.mqtt.MqttGateway",
+                "net.sf.dz3r.runtime.config.quarkus.protocol.onewire.OnewireBusConfig",
+                "net.sf.dz3r.runtime.config.quarkus.schedule.CalendarConfigEntry",
+                "net.sf.dz3r.runtime.config.quarkus.schedule.ScheduleConfig"
+        })
+public final class NativeImageReflection {
+
+    private NativeImageReflection() {
+        // Holder for the annotation
+    }
+
+    /**
+     * Log4j plugins referenced from {@code log4j2.xml}. Log4j instantiates them reflectively by the element name,
+     * keep this in sync when the logging configuration changes.
+     */
+    @RegisterForReflection(
+            classNames = {
+                    "org.apache.logging.log4j.core.appender.ConsoleAppender",
+                    "org.apache.logging.log4j.core.appender.RollingFileAppender",
+                    "org.apache.logging.log4j.core.appender.rolling.CompositeTriggeringPolicy",
+                    "org.apache.logging.log4j.core.appender.rolling.DefaultRolloverStrategy",
+                    "org.apache.logging.log4j.core.appender.rolling.TimeBasedTriggeringPolicy",
+                    "org.apache.logging.log4j.core.appender.rolling.action.DeleteAction",
+                    "org.apache.logging.log4j.core.appender.rolling.action.IfFileName",
+                    "org.apache.logging.log4j.core.appender.rolling.action.IfLastModified",
+                    "org.apache.logging.log4j.core.config.AppenderRef",
+                    "org.apache.logging.log4j.core.config.AppendersPlugin",
+                    "org.apache.logging.log4j.core.config.LoggerConfig",
+                    "org.apache.logging.log4j.core.config.LoggerConfig$RootLogger",
+                    "org.apache.logging.log4j.core.config.LoggersPlugin",
+                    "org.apache.logging.log4j.core.config.Property",
+                    "org.apache.logging.log4j.core.config.PropertiesPlugin",
+                    "org.apache.logging.log4j.core.filter.CompositeFilter",
+                    "org.apache.logging.log4j.core.filter.ThresholdFilter",
+                    "org.apache.logging.log4j.core.layout.PatternLayout",
+                    "org.apache.logging.log4j.core.pattern.DatePatternConverter",
+                    "org.apache.logging.log4j.core.pattern.HighlightConverter",
+                    "org.apache.logging.log4j.core.pattern.LevelPatternConverter",
+                    "org.apache.logging.log4j.core.pattern.LineSeparatorPatternConverter",
+                    "org.apache.logging.log4j.core.pattern.MessagePatternConverter",
+                    "org.apache.logging.log4j.core.pattern.NdcPatternConverter",
+                    "org.apache.logging.log4j.core.pattern.ClassNamePatternConverter",
+                    "org.apache.logging.log4j.core.pattern.ThreadNamePatternConverter"
+            })
+    static final class Log4j {
+
+        private Log4j() {
+            // Holder for the annotation
+        }
+    }
+}
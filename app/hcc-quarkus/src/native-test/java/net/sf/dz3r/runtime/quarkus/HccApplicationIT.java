@@ -0,0 +1,63 @@
+package net.sf.dz3r.runtime.quarkus;
+
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+import io.quarkus.test.junit.TestProfile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link HccApplicationTest} against the native binary, with the mock configuration.
+ *
+ * This includes the readiness check - the native image may boot just fine and still fail to start HCC
+ * (say, due to a class missing from the image), and only the readiness check will tell.
+ *
+ * Run with {@code ./gradlew :app:hcc-quarkus:testNative}.
+ */
+@QuarkusIntegrationTest
+@TestProfile(MockProfile.class)
+class HccApplicationIT extends HccApplicationTest {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * Generous enough to not be flaky, tight enough to catch the image suddenly dragging in a JVM's worth of heap.
+     */
+    private static final long RSS_LIMIT_KB = 256L * 1024;
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void rss() throws IOException, InterruptedException {
+
+        // Footprint of a running system, not of one still parsing the configuration
+        awaitStartup()
+                .then()
+                .statusCode(200);
+
+        var runner = ProcessHandle
+                .current()
+                .children()
+                .filter(p -> p.info().command().map(c -> c.endsWith("-runner")).orElse(false))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("native runner process not found"));
+
+        var rss = Files.readAllLines(Path.of("/proc", Long.toString(runner.pid()), "status"))
+                .stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElseThrow();
+
+        logger.info("native runner pid={}, RSS={}kB", runner.pid(), rss);
+
+        assertThat(rss).isLessThan(RSS_LIMIT_KB);
+    }
+}
@@ -0,0 +1,65 @@
+package net.sf.dz3r.runtime.quarkus;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+
+@QuarkusTest
+@TestProfile(MockProfile.class)
+class HccApplicationTest {
+
+    /**
+     * Mocks only, it takes seconds; a minute is for a slow CI box.
+     */
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final String READINESS_CHECK = "checks.find { it.name == '" + HccReadinessCheck.NAME + "' }";
+
+    @Test
+    void hello() {
+
+        given()
+                .when().get("/hello")
+                .then()
+                .statusCode(200)
+                .body(is("Oh, hai"));
+    }
+
+    @Test
+    void started() throws InterruptedException {
+
+        awaitStartup()
+                .then()
+                .statusCode(200)
+                .body(READINESS_CHECK + ".status", is("UP"))
+                .body(READINESS_CHECK + ".data.state", is("started"));
+    }
+
+    /**
+     * Wait until HCC, running on a thread of its own, is done starting up one way or another.
+     *
+     * @return The last readiness check response.
+     */
+    protected static Response awaitStartup() throws InterruptedException {
+
+        var deadline = Instant.now().plus(STARTUP_TIMEOUT);
+
+        while (true) {
+
+            var response = given().when().get("/q/health/ready");
+
+            if (!"starting".equals(response.jsonPath().getString(READINESS_CHECK + ".data.state")) || Instant.now().isAfter(deadline)) {
+                return response;
+            }
+
+            Thread.sleep(500);
+        }
+    }
+}
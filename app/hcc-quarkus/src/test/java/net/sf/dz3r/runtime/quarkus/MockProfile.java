@@ -0,0 +1,16 @@
+package net.sf.dz3r.runtime.quarkus;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+/**
+ * Boots the application with {@code application-mock.yaml} - mocks only, no hardware, no external services.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class MockProfile implements QuarkusTestProfile {
+
+    @Override
+    public String getConfigProfile() {
+        return "mock";
+    }
+}
@@ -0,0 +1,72 @@
+package net.sf.dz3r.runtime.quarkus;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import net.sf.dz3r.runtime.config.HccRawConfig;
+import net.sf.dz3r.runtime.config.quarkus.HccRawInterfaceConfig;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Makes sure that adding a configuration entry doesn't silently break the native image.
+ */
+class NativeImageReflectionTest {
+
+    private static final String CONFIG_PACKAGE = "net.sf.dz3r.runtime.config";
+
+    private final Set<String> registered = Set.of(NativeImageReflection.class.getAnnotation(RegisterForReflection.class).classNames());
+
+    @Test
+    void records() {
+
+        var reachable = new TreeSet<String>();
+        walk(HccRawConfig.class, reachable);
+
+        assertThat(reachable).contains(HccRawConfig.class.getName());
+        assertThat(registered).containsAll(reachable);
+    }
+
+    @Test
+    void interfaces() {
+
+        var reachable = new TreeSet<String>();
+        walk(HccRawInterfaceConfig.class, reachable);
+
+        assertThat(reachable).contains(HccRawInterfaceConfig.class.getName());
+        assertThat(registered).containsAll(reachable);
+    }
+
+    @Test
+    void resolvable() {
+
+        assertThat(registered)
+                .allSatisfy(name -> assertThat(Class.forName(name, false, getClass().getClassLoader())).isNotNull());
+    }
+
+    private void walk(Type type, Set<String> reachable) {
+
+        if (type instanceof ParameterizedType p) {
+            Arrays.stream(p.getActualTypeArguments()).forEach(t -> walk(t, reachable));
+            return;
+        }
+
+        if (!(type instanceof Class<?> c) || !c.getName().startsWith(CONFIG_PACKAGE) || !reachable.add(c.getName())) {
+            return;
+        }
+
+        if (c.isRecord()) {
+            Arrays.stream(c.getRecordComponents()).forEach(rc -> walk(rc.getGenericType(), reachable));
+        } else if (c.isInterface()) {
+            Arrays.stream(c.getMethods())
+                    .filter(m -> Modifier.isAbstract(m.getModifiers()) && m.getParameterCount() == 0)
+                    .forEach(m -> walk(m.getGenericReturnType(), reachable));
+        }
+    }
+}
@@ -86,9 +86,23 @@ jib {
         }
     }
 
+    extraDirectories {
+        paths {
+            path {
+                // Flight Recorder profile, see docs/build/index.md#flight-recorder
+                setFrom(file("../jfr"))
+                into = "${jib.container.appRoot}/jfr"
+            }
+        }
+    }
+
     container {
         // VT: FIXME: Hack to see if there is thread starvation when running on boxes with few cores
-        jvmFlags =listOf("-Dreactor.schedulers.defaultPoolSize=20", "-Dreactor.schedulers.defaultBoundedElasticSize=200")
+        jvmFlags =listOf(
+            "-Dreactor.schedulers.defaultPoolSize=20",
+            "-Dreactor.schedulers.defaultBoundedElasticSize=200",
+            // Continuous recording, dumped on exit or on demand with `jcmd 1 JFR.dump`
+            "-XX:StartFlightRecording:name=hcc,settings=default,settings=${jib.container.appRoot}/jfr/hcc.jfc,disk=true,maxage=24h,maxsize=256m,dumponexit=true,filename=${jib.container.appRoot}/app/hcc.jfr")
         // Whatever profiles that are provided on the command line will be added to this one
         args = listOf("--spring.profiles.active=docker")
         workingDirectory = "${jib.container.appRoot}/app/"
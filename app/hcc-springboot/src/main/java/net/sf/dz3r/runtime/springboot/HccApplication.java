@@ -86,7 +86,10 @@ public class HccApplication extends ApplicationBase<HccRawRecordConfig> implemen
                 source.units(),
                 source.directors(),
                 source.webUi(),
-                source.console()
+                source.console(),
+                source.sinks(),
+                source.cluster(),
+                source.standby()
         );
     }
 }
@@ -56,4 +56,5 @@ dependencies {
     testImplementation(libs.assertj.core)
     testImplementation(libs.junit5.api)
     testImplementation(libs.junit5.params)
+    testImplementation(project(":modules:hcc-mqtt-simulator"))
 }
@@ -8,7 +8,9 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import net.sf.dz3r.instrumentation.Marker;
 import net.sf.dz3r.runtime.config.ConfigurationContext;
+import net.sf.dz3r.runtime.config.ConfigurationDigest;
 import net.sf.dz3r.runtime.config.ConfigurationParser;
+import net.sf.dz3r.runtime.config.ConfigurationReloader;
 import net.sf.dz3r.runtime.config.HccRawConfig;
 import net.sf.dz3r.runtime.config.ShutdownHandler;
 import org.apache.logging.log4j.Level;
@@ -19,13 +21,8 @@ import reactor.core.scheduler.Schedulers;
 import reactor.tools.agent.ReactorDebugAgent;
 
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
 import java.util.concurrent.CountDownLatch;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 /**
  * HCC core common logic.
  *
@@ -37,6 +34,11 @@ public abstract class ApplicationBase<C> {
     protected final Logger logger = LogManager.getLogger();
     protected final ObjectMapper objectMapper;
 
+    /**
+     * Available after the startup is complete.
+     */
+    private volatile ConfigurationReloader reloader;
+
     protected ApplicationBase() {
 
         objectMapper = new ObjectMapper(new YAMLFactory());
@@ -109,13 +111,15 @@ public abstract class ApplicationBase<C> {
         try {
 
             var config = mapConfiguration(rawConfig);
-            var configYaml = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(config);
-            var digest = getDigest(configYaml);
+            var digests = new ConfigurationDigest(objectMapper);
+            var digest = digests.getDigest(config);
+            var stateDigest = digests.getControlStateDigest(config);
 
-            logger.debug("configuration: digest={}, YAML:\n{}", digest, configYaml);
+            logger.debug("configuration: digest={}, control state digest={}, YAML:\n{}", digest, stateDigest, digests.render(config));
 
             m.checkpoint("read configuration");
-            var context = new ConfigurationParser().parse(config, digest);
+            var context = new ConfigurationParser().parse(config, digest, stateDigest);
+            reloader = new ConfigurationReloader(context, config, digests);
             m.checkpoint("started");
 
             sleepUntilKilled(context);
@@ -126,19 +130,33 @@ public abstract class ApplicationBase<C> {
         }
     }
 
-    private String getDigest(String source) {
-        var algorithm = "SHA256";
-        try {
-
-            var md = MessageDigest.getInstance(algorithm);
-            md.update(source.getBytes(UTF_8));
-            var digest = md.digest();
+    /**
+     * Apply the configuration changes to the running system, without a restart.
+     *
+     * @param rawConfig New framework dependent configuration.
+     *
+     * @return What was applied, and what requires a restart.
+     *
+     * @see ConfigurationReloader
+     */
+    protected final ConfigurationReloader.Result reload(C rawConfig) {
 
-            return HexFormat.of().formatHex(digest);
+        var target = reloader;
 
-        } catch (NoSuchAlgorithmException ex) {
-            throw new IllegalStateException("Can't get " + algorithm + "? Something is seriously wrong", ex);
+        if (target == null) {
+            throw new IllegalStateException("startup is not complete yet, can't reload");
         }
+
+        return target.reload(mapConfiguration(rawConfig));
+    }
+
+    /**
+     * Find out whether the startup is complete.
+     *
+     * @return {@code true} if the configuration has been parsed and the system is running.
+     */
+    protected final boolean isStarted() {
+        return reloader != null;
     }
 
     private void sleepUntilKilled(ConfigurationContext context) {
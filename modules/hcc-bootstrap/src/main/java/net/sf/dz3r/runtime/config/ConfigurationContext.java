@@ -9,8 +9,11 @@ import net.sf.dz3r.model.UnitController;
 import net.sf.dz3r.model.UnitDirector;
 import net.sf.dz3r.model.Zone;
 import net.sf.dz3r.runtime.config.onewire.EntityProvider;
+import net.sf.dz3r.runtime.snapshot.ControlStateKeeper;
+import net.sf.dz3r.runtime.standby.StandbyCoordinator;
 import net.sf.dz3r.scheduler.ScheduleUpdater;
 import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.cluster.SignalTransport;
 import net.sf.dz3r.view.Connector;
 import net.sf.dz3r.view.MetricsCollector;
 import net.sf.dz3r.view.webui.v2.WebUI;
@@ -24,7 +27,7 @@ import reactor.core.publisher.Flux;
  * Some components (notably MQTT, 1-Wire, XBee, GAE and Calendar) are heavy on startup, and can yield transient errors
  * long after their fluxes can be resolved, hence, all components are exposed as fluxes, for uniformity and just-in-time delivery.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public class ConfigurationContext {
 
@@ -43,4 +46,7 @@ public class ConfigurationContext {
     public final EntityProvider<UnitDirector> directors = new EntityProvider<>("unit director");
     public final EntityProvider<WebUI> webUI = new EntityProvider<>("Web UI");
     public final EntityProvider<EndpointMeta> endpoint = new EntityProvider<>("endpoint");
+    public final EntityProvider<ControlStateKeeper> controlState = new EntityProvider<>("control state");
+    public final EntityProvider<SignalTransport> cluster = new EntityProvider<>("cluster transport");
+    public final EntityProvider<StandbyCoordinator> standby = new EntityProvider<>("standby coordinator");
 }
@@ -0,0 +1,166 @@
+package net.sf.dz3r.runtime.config;
+
+import net.sf.dz3r.runtime.config.connector.ConnectorConfig;
+import net.sf.dz3r.runtime.config.model.UnitDirectorConfig;
+import net.sf.dz3r.runtime.config.model.ZoneConfig;
+import net.sf.dz3r.runtime.config.schedule.ScheduleConfig;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Difference between two configurations.
+ *
+ * Entities that can be {@link ConfigurationReloader reloaded} individually are compared by ID, the rest is compared
+ * section by section.
+ *
+ * @param zones Zone changes, by zone ID.
+ * @param directors Unit director changes, by director ID.
+ * @param connectors Connector and collector changes, by connector ID.
+ * @param schedule Schedule change, {@code null} if unchanged.
+ * @param sections Names of other changed configuration sections.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record ConfigurationDiff(
+        EntityDiff<ZoneConfig> zones,
+        EntityDiff<UnitDirectorConfig> directors,
+        EntityDiff<ConnectorConfig> connectors,
+        Change<ScheduleConfig> schedule,
+        Set<String> sections
+) {
+
+    /**
+     * @param from Old value.
+     * @param to New value.
+     */
+    public record Change<T>(T from, T to) {
+    }
+
+    /**
+     * @param added New entities, by ID.
+     * @param removed Removed entities, by ID.
+     * @param changed Changed entities, by ID.
+     */
+    public record EntityDiff<T>(
+            Map<String, T> added,
+            Map<String, T> removed,
+            Map<String, Change<T>> changed
+    ) {
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+
+        static <T> EntityDiff<T> of(Collection<T> from, Collection<T> to, Function<T, String> id) {
+
+            var before = index(from, id);
+            var after = index(to, id);
+
+            var added = new TreeMap<String, T>();
+            var removed = new TreeMap<String, T>();
+            var changed = new TreeMap<String, Change<T>>();
+
+            after.forEach((k, v) -> {
+                var old = before.get(k);
+                if (old == null) {
+                    added.put(k, v);
+                } else if (!old.equals(v)) {
+                    changed.put(k, new Change<>(old, v));
+                }
+            });
+
+            before.forEach((k, v) -> {
+                if (!after.containsKey(k)) {
+                    removed.put(k, v);
+                }
+            });
+
+            return new EntityDiff<>(added, removed, changed);
+        }
+
+        private static <T> Map<String, T> index(Collection<T> source, Function<T, String> id) {
+
+            var result = new LinkedHashMap<String, T>();
+
+            for (var entity : Optional.ofNullable(source).orElse(Set.of())) {
+                if (result.put(id.apply(entity), entity) != null) {
+                    throw new IllegalArgumentException("duplicate ID: " + id.apply(entity));
+                }
+            }
+
+            return result;
+        }
+    }
+
+    public boolean isEmpty() {
+        return zones.isEmpty() && directors.isEmpty() && connectors.isEmpty() && schedule == null && sections.isEmpty();
+    }
+
+    public static ConfigurationDiff of(HccRawConfig from, HccRawConfig to) {
+
+        var sections = new TreeSet<String>();
+
+        compare(sections, "instance", from.instance(), to.instance());
+        compare(sections, "measurement-units", from.measurementUnits(), to.measurementUnits());
+        compare(sections, "esphome", from.esphome(), to.esphome());
+        compare(sections, "zigbee2mqtt", from.zigbee2mqtt(), to.zigbee2mqtt());
+        compare(sections, "zwave2mqtt", from.zwave2mqtt(), to.zwave2mqtt());
+        compare(sections, "onewire", from.onewire(), to.onewire());
+        compare(sections, "mocks", from.mocks(), to.mocks());
+        compare(sections, "filters", from.filters(), to.filters());
+        compare(sections, "hvac", from.hvac(), to.hvac());
+        compare(sections, "units", from.units(), to.units());
+        compare(sections, "web-ui", from.webUi(), to.webUi());
+        compare(sections, "console", from.console(), to.console());
+        compare(sections, "sinks", from.sinks(), to.sinks());
+        compare(sections, "cluster", from.cluster(), to.cluster());
+        compare(sections, "standby", from.standby(), to.standby());
+
+        return new ConfigurationDiff(
+                EntityDiff.of(from.zones(), to.zones(), ZoneConfig::id),
+                EntityDiff.of(from.directors(), to.directors(), UnitDirectorConfig::id),
+                EntityDiff.of(from.connectors(), to.connectors(), ConfigurationDiff::getId),
+                same(from.schedule(), to.schedule()) ? null : new Change<>(from.schedule(), to.schedule()),
+                sections);
+    }
+
+    /**
+     * Connector entries have no ID of their own, the ID of whatever they contain is used.
+     */
+    static String getId(ConnectorConfig source) {
+        return Stream.of(
+                        Optional.ofNullable(source.http()).map(c -> "http:" + c.id()),
+                        Optional.ofNullable(source.influx()).map(c -> "influx:" + c.id()),
+                        Optional.ofNullable(source.homeAssistant()).map(c -> "home-assistant:" + c.id()),
+                        Optional.ofNullable(source.recorder()).map(c -> "recorder:" + c.id()))
+                .flatMap(Optional::stream)
+                .collect(Collectors.joining(","));
+    }
+
+    private static void compare(Set<String> sections, String name, Object from, Object to) {
+        if (!same(from, to)) {
+            sections.add(name);
+        }
+    }
+
+    /**
+     * Missing and empty sets are the same thing.
+     */
+    private static boolean same(Object from, Object to) {
+        return Objects.equals(normalize(from), normalize(to));
+    }
+
+    private static Object normalize(Object source) {
+        return source instanceof Collection<?> c && c.isEmpty() ? null : source;
+    }
+}
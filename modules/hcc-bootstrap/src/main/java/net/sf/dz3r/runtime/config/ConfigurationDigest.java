@@ -0,0 +1,113 @@
+package net.sf.dz3r.runtime.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.runtime.config.cluster.ClusterConfig;
+import net.sf.dz3r.runtime.config.cluster.StandbyConfig;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Configuration fingerprints.
+ *
+ * There are two of them. {@link #getDigest(HccRawConfig) The configuration digest} identifies this very process
+ * configuration. {@link #getControlStateDigest(HccRawConfig) The control state digest} identifies what the control
+ * state was captured with, and ignores the node identifiers - they must differ between the nodes of an active/passive
+ * pair, but the state replicated between them must stay usable on takeover.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ConfigurationDigest {
+
+    private static final String ALGORITHM = "SHA256";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Create an instance.
+     *
+     * @param objectMapper Mapper to render the configuration with. Must render the same configuration the same way.
+     */
+    public ConfigurationDigest(ObjectMapper objectMapper) {
+        this.objectMapper = HCCObjects.requireNonNull(objectMapper, "objectMapper can't be null");
+    }
+
+    /**
+     * Render the configuration the way the digests see it.
+     *
+     * @param config Configuration to render.
+     *
+     * @return Rendered configuration.
+     */
+    public String render(HccRawConfig config) throws JsonProcessingException {
+        return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(config);
+    }
+
+    /**
+     * @param config Configuration to fingerprint.
+     *
+     * @return Digest of the whole configuration.
+     */
+    public String getDigest(HccRawConfig config) throws JsonProcessingException {
+        return digest(render(config));
+    }
+
+    /**
+     * @param config Configuration to fingerprint.
+     *
+     * @return Digest of the configuration with node identifiers removed.
+     */
+    public String getControlStateDigest(HccRawConfig config) throws JsonProcessingException {
+        return digest(render(withoutNodeIdentity(config)));
+    }
+
+    static HccRawConfig withoutNodeIdentity(HccRawConfig source) {
+
+        var cluster = source.cluster() == null
+                ? null
+                : new ClusterConfig(null, source.cluster().broker(), source.cluster().heartbeat(), source.cluster().nodes());
+        var standby = source.standby() == null
+                ? null
+                : new StandbyConfig(null, source.standby().broker(), source.standby().heartbeat(), source.standby().takeoverAfter());
+
+        return new HccRawConfig(
+                source.instance(),
+                source.measurementUnits(),
+                source.esphome(),
+                source.zigbee2mqtt(),
+                source.zwave2mqtt(),
+                source.onewire(),
+                source.mocks(),
+                source.filters(),
+                source.hvac(),
+                source.zones(),
+                source.schedule(),
+                source.connectors(),
+                source.units(),
+                source.directors(),
+                source.webUi(),
+                source.console(),
+                source.sinks(),
+                cluster,
+                standby);
+    }
+
+    private static String digest(String source) {
+
+        try {
+
+            var md = MessageDigest.getInstance(ALGORITHM);
+            md.update(source.getBytes(UTF_8));
+
+            return HexFormat.of().formatHex(md.digest());
+
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Can't get " + ALGORITHM + "? Something is seriously wrong", ex);
+        }
+    }
+}
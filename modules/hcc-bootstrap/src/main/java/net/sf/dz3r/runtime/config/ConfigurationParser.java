@@ -8,9 +8,12 @@ import com.homeclimatecontrol.hcc.meta.InstrumentClusterMeta;
 import com.homeclimatecontrol.hcc.meta.SimpleClientMeta;
 import com.homeclimatecontrol.hcc.meta.ZoneMeta;
 import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.instrumentation.InstrumentCluster;
 import net.sf.dz3r.instrumentation.Marker;
 import net.sf.dz3r.runtime.InstanceIdProvider;
+import net.sf.dz3r.runtime.config.cluster.ClusterConfigurationParser;
+import net.sf.dz3r.runtime.config.cluster.StandbyConfigurationParser;
 import net.sf.dz3r.runtime.config.connector.ConnectorConfig;
 import net.sf.dz3r.runtime.config.connector.ConnectorConfigurationParser;
 import net.sf.dz3r.runtime.config.connector.HomeAssistantConfig;
@@ -22,20 +25,27 @@ import net.sf.dz3r.runtime.config.hardware.UnitConfigurationParser;
 import net.sf.dz3r.runtime.config.model.ConsoleConfigurationParser;
 import net.sf.dz3r.runtime.config.model.DirectorConfigurationParser;
 import net.sf.dz3r.runtime.config.model.MeasurementUnits;
+import net.sf.dz3r.runtime.config.model.SinkConfig;
 import net.sf.dz3r.runtime.config.model.TemperatureUnit;
 import net.sf.dz3r.runtime.config.model.WebUiConfigurationParser;
 import net.sf.dz3r.runtime.config.model.ZoneConfig;
 import net.sf.dz3r.runtime.config.model.ZoneConfigurationParser;
 import net.sf.dz3r.runtime.config.mqtt.MqttConfigurationParser;
+import net.sf.dz3r.runtime.config.onewire.EntityProvider;
 import net.sf.dz3r.runtime.config.onewire.OnewireConfigurationParser;
 import net.sf.dz3r.runtime.config.schedule.ScheduleConfigurationParser;
+import net.sf.dz3r.runtime.snapshot.ControlStateKeeper;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import reactor.core.publisher.Flux;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -43,13 +53,22 @@ import java.util.stream.Collectors;
 /**
  * Parses {@link HccRawConfig} into a live {@link ConfigurationContext}.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public class ConfigurationParser {
 
     private final Logger logger = LogManager.getLogger();
 
-    public ConfigurationContext parse(HccRawConfig source, String digest) throws IOException {
+    /**
+     * Parse the configuration and bring the system up.
+     *
+     * @param source Configuration to parse.
+     * @param digest Configuration digest, see {@link ConfigurationDigest#getDigest(HccRawConfig)}.
+     * @param stateDigest Control state digest, see {@link ConfigurationDigest#getControlStateDigest(HccRawConfig)}.
+     *
+     * @return Configured context.
+     */
+    public ConfigurationContext parse(HccRawConfig source, String digest, String stateDigest) throws IOException {
 
         Marker m = new Marker(getClass().getSimpleName() + "#parse", Level.INFO);
         try {
@@ -61,8 +80,18 @@ public class ConfigurationParser {
 
             checkUnits(source.measurementUnits());
 
+            // Sinks are created along with the entities, policies must be in place before any of them are
+            configureSinks(source.sinks());
+
             var ctx = new ConfigurationContext();
 
+            // Nothing happens here unless this is one of an active/passive pair. If it is, nothing that can touch
+            // the hardware may be created until this node is the active one; the mirrored state is restored below
+            var standby = new StandbyConfigurationParser(ctx, source.standby());
+            standby.awaitLease(new ControlStateKeeper(getStateFile(source.instance()), stateDigest));
+            ctx.standby.close();
+            m.checkpoint("acquired standby lease");
+
             var mqtt = new MqttConfigurationParser(ctx)
                     .parse(
                             source.esphome(),
@@ -76,6 +105,11 @@ public class ConfigurationParser {
             // There will be no more MQTT adapters after this
             ctx.mqtt.close();
 
+            // Nothing happens here unless this is a cluster node
+            var cluster = new ClusterConfigurationParser(ctx, source.cluster());
+            cluster.connect();
+            ctx.cluster.close();
+
             // VT: FIXME: Add this to the gate when 1-Wire configuration is actually read and parsed
             new OnewireConfigurationParser(ctx).parse(source.onewire()).block();
 
@@ -95,11 +129,15 @@ public class ConfigurationParser {
             // There will be no more switches coming after this
             ctx.switches.close();
 
+            // Sensors attached to other cluster nodes are "is a" raw sensors, too
+            cluster.importSensors();
+
             // Need to have all raw sensor feeds resolved by now
             new FilterConfigurationParser(ctx).parse(source.filters());
 
             // There will be no more sensors coming after this (filters are also "is a" sensors)
             ctx.sensors.close();
+            cluster.exportSensors();
             m.checkpoint("configured filters");
 
             // Need all sensors and switches resolved by now
@@ -114,6 +152,14 @@ public class ConfigurationParser {
             ctx.zones.close();
             m.checkpoint("configured zones");
 
+            // Zones and HVAC devices are all known, but not connected yet - this is the time to restore their state
+            var controlState = new ControlStateKeeper(getStateFile(source.instance()), stateDigest);
+            var zones = collect(ctx.zones);
+            var hvacDevices = collect(ctx.hvacDevices);
+
+            controlState.restore(zones, hvacDevices);
+            m.checkpoint("restored control state");
+
             // VT: FIXME: Need to resolve damper controllers, everything is ready for them
 
             // This may potentially take a long time, we'll close it later right before it's needed
@@ -137,17 +183,24 @@ public class ConfigurationParser {
 
             // Need just about everything resolved by now
 
-            new DirectorConfigurationParser(ctx).parse(source.directors());
+            new DirectorConfigurationParser(ctx).parse(cluster.filterDirectors(source.directors()));
             ctx.directors.close();
+            cluster.publishNode();
             m.checkpoint("configured directors");
 
+            controlState.start(zones, hvacDevices);
+            ctx.controlState.register("control-state", controlState);
+            ctx.controlState.close();
+            standby.replicate(controlState);
+
             var ic = new InstrumentCluster(
                     ctx.sensors.getFlux(),
                     ctx.switches.getFlux(),
                     ctx.schedule.getFlux(),
                     ctx.connectors.getFlux(),
                     ctx.collectors.getFlux(),
-                    ctx.hvacDevices.getFlux());
+                    ctx.hvacDevices.getFlux(),
+                    cluster.getNodeFlux());
 
             ctx.endpoint.register("endpoint", renderMeta(source, digest));
 
@@ -171,6 +224,21 @@ public class ConfigurationParser {
         }
     }
 
+    private static <T> Map<String, T> collect(EntityProvider<T> provider) {
+        return provider
+                .getFlux()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+    }
+
+    private File getStateFile(String instance) {
+
+        // VT: NOTE: Same as counters, $HOME/.dz/state for now.
+
+        var home = new File(System.getProperty("user.home"));
+        return new File(home, ".dz/state/" + instance.replaceAll("[^A-Za-z0-9._-]", "_") + ".state");
+    }
+
     private void checkUnits(MeasurementUnits units) {
 
         if (units != null && units.temperature() != TemperatureUnit.C) {
@@ -180,6 +248,35 @@ public class ConfigurationParser {
         }
     }
 
+    private void configureSinks(Set<SinkConfig> source) {
+
+        var factory = SinkFactory.getInstance();
+
+        for (var s : Optional.ofNullable(source).orElse(Set.of())) {
+
+            var category = parseEnum(SinkFactory.Category.class, HCCObjects.requireNonNull(s.category(), "sinks.category can't be null"));
+            var defaultPolicy = category.defaultPolicy;
+            var policy = new SinkFactory.Policy(
+                    Optional.ofNullable(s.capacity()).orElse(defaultPolicy.capacity()),
+                    Optional.ofNullable(s.overflow()).map(o -> parseEnum(SinkFactory.Overflow.class, o)).orElse(defaultPolicy.overflow()));
+
+            logger.info("sinks: {}: {}", s.category(), policy);
+            factory.setPolicy(category, policy);
+        }
+    }
+
+    /**
+     * Parse {@code latest-wins} into {@code LATEST_WINS}.
+     */
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String source) {
+
+        try {
+            return Enum.valueOf(type, source.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("unknown " + type.getSimpleName() + ": " + source + ", valid values are " + Arrays.toString(type.getEnumConstants()), ex);
+        }
+    }
+
     private EndpointMeta renderMeta(HccRawConfig source, String digest) throws IOException {
 
         var zones = Flux.fromIterable(source.zones())
@@ -0,0 +1,217 @@
+package net.sf.dz3r.runtime.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.instrumentation.Marker;
+import net.sf.dz3r.runtime.config.connector.ConnectorConfig;
+import net.sf.dz3r.runtime.config.connector.ConnectorConfigurationParser;
+import net.sf.dz3r.runtime.config.model.ZoneConfig;
+import net.sf.dz3r.runtime.config.model.ZoneConfigurationParser;
+import net.sf.dz3r.runtime.config.schedule.ScheduleConfig;
+import net.sf.dz3r.runtime.config.schedule.ScheduleConfigurationParser;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Applies configuration changes to the running {@link ConfigurationContext} without a restart.
+ *
+ * The new configuration is {@link ConfigurationDiff compared} to the one the system is running with, and only the
+ * changes are applied; everything else keeps running undisturbed. Changes that can be applied on the fly:
+ *
+ * <ul>
+ *     <li>Zone PID controller tuning and zone settings (except the setpoint range);</li>
+ *     <li>Zone to calendar schedule mapping, as long as the schedule was configured at startup;</li>
+ *     <li>Connectors and collectors - added, removed, or replaced.</li>
+ * </ul>
+ *
+ * Everything else (zones added or removed, unit directors, devices, brokers, and so on) is wired into the control
+ * pipelines at startup, and is reported as {@link Result#restartRequired() requiring a restart}. Such changes stay
+ * reported until the restart, even if a later reload doesn't contain them anymore.
+ *
+ * If all the changes were applied, the {@link net.sf.dz3r.runtime.snapshot.ControlStateKeeper control state keepers}
+ * are switched to the new configuration's control state digest, so that the next restart picks up the state.
+ * Otherwise, the running system doesn't match the new configuration, and the old digest is kept so that the state
+ * is discarded on restart.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ConfigurationReloader {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final ConfigurationContext context;
+    private final ConfigurationDigest digests;
+    private final Set<String> restartRequired = new TreeSet<>();
+
+    private HccRawConfig running;
+
+    /**
+     * Reload result.
+     *
+     * @param applied Changes applied on the fly.
+     * @param restartRequired Changes that will only take effect after a restart.
+     */
+    public record Result(
+            List<String> applied,
+            Set<String> restartRequired
+    ) {
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param context Context produced by {@link ConfigurationParser#parse(HccRawConfig, String, String)}.
+     * @param running Configuration the {@code context} was produced from.
+     * @param digests Digest calculator the {@code context} control state digest was produced with.
+     */
+    public ConfigurationReloader(ConfigurationContext context, HccRawConfig running, ConfigurationDigest digests) {
+
+        this.context = HCCObjects.requireNonNull(context, "context can't be null");
+        this.running = HCCObjects.requireNonNull(running, "running can't be null");
+        this.digests = HCCObjects.requireNonNull(digests, "digests can't be null");
+    }
+
+    /**
+     * Apply the changes.
+     *
+     * @param next New configuration.
+     *
+     * @return What was applied, and what requires a restart.
+     */
+    public synchronized Result reload(HccRawConfig next) {
+
+        HCCObjects.requireNonNull(next, "next can't be null");
+
+        ThreadContext.push("reload");
+        var m = new Marker("reload", Level.INFO);
+
+        try {
+
+            var diff = ConfigurationDiff.of(running, next);
+            var applied = new ArrayList<String>();
+
+            if (diff.isEmpty()) {
+                logger.info("no changes");
+            }
+
+            diff.sections().forEach(s -> restartRequired.add(s + ": changed"));
+
+            diff.directors().added().keySet().forEach(id -> restartRequired.add("directors." + id + ": added"));
+            diff.directors().removed().keySet().forEach(id -> restartRequired.add("directors." + id + ": removed"));
+            diff.directors().changed().keySet().forEach(id -> restartRequired.add("directors." + id + ": changed"));
+
+            reloadZones(diff.zones(), applied);
+            m.checkpoint("zones");
+
+            reloadSchedule(diff.schedule(), applied);
+            m.checkpoint("schedule");
+
+            reloadConnectors(diff.connectors(), applied);
+            m.checkpoint("connectors");
+
+            running = next;
+
+            if (restartRequired.isEmpty()) {
+                updateStateDigest(next);
+            }
+
+            applied.forEach(c -> logger.info("applied: {}", c));
+            restartRequired.forEach(c -> logger.warn("restart required: {}", c));
+
+            return new Result(List.copyOf(applied), Set.copyOf(restartRequired));
+
+        } finally {
+            m.close();
+            ThreadContext.pop();
+        }
+    }
+
+    private void updateStateDigest(HccRawConfig next) {
+
+        try {
+
+            var digest = digests.getControlStateDigest(next);
+
+            context.controlState.getCurrent().values().forEach(k -> k.setDigest(digest));
+            logger.info("control state digest={}", digest);
+
+        } catch (JsonProcessingException ex) {
+            logger.error("failed to compute the control state digest, the state will be discarded on restart", ex);
+        }
+    }
+
+    private void reloadZones(ConfigurationDiff.EntityDiff<ZoneConfig> diff, List<String> applied) {
+
+        // Zones are baked into unit directors, schedule, and connectors at startup
+        diff.added().keySet().forEach(id -> restartRequired.add("zones." + id + ": added"));
+        diff.removed().keySet().forEach(id -> restartRequired.add("zones." + id + ": removed"));
+
+        var parser = new ZoneConfigurationParser(context);
+
+        diff.changed().forEach((id, change) -> {
+
+            try {
+
+                if (parser.reconfigure(change.from(), change.to())) {
+                    applied.add("zones." + id + ": reconfigured");
+                } else {
+                    restartRequired.add("zones." + id + ": changed");
+                }
+
+            } catch (IllegalArgumentException ex) {
+                logger.error("zones.{}: failed to reconfigure", id, ex);
+                restartRequired.add("zones." + id + ": " + ex.getMessage());
+            }
+        });
+    }
+
+    private void reloadSchedule(ConfigurationDiff.Change<ScheduleConfig> change, List<String> applied) {
+
+        if (change == null) {
+            return;
+        }
+
+        if (new ScheduleConfigurationParser(context).remap(change.to())) {
+            applied.add("schedule: remapped");
+        } else {
+            restartRequired.add("schedule: changed");
+        }
+    }
+
+    private void reloadConnectors(ConfigurationDiff.EntityDiff<ConnectorConfig> diff, List<String> applied) {
+
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        var removed = new HashSet<>(diff.removed().values());
+        var added = new HashSet<>(diff.added().values());
+
+        diff.changed().values().forEach(c -> {
+            removed.add(c.from());
+            added.add(c.to());
+        });
+
+        try {
+
+            new ConnectorConfigurationParser(context).replace(removed, added);
+
+            diff.added().keySet().forEach(id -> applied.add("connectors." + id + ": added"));
+            diff.removed().keySet().forEach(id -> applied.add("connectors." + id + ": removed"));
+            diff.changed().keySet().forEach(id -> applied.add("connectors." + id + ": replaced"));
+
+        } catch (IllegalArgumentException | IOException ex) {
+            logger.error("connectors: failed to replace", ex);
+            restartRequired.add("connectors: " + ex.getMessage());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
+import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
@@ -43,10 +44,9 @@ public class ShutdownHandler implements AutoCloseable {
             // Disable controls - console and WebUI
             logger.error("FIXME: shut off controls");
 
-            // Close connectors
+            // Close connectors, including those swapped in by a configuration reload
 
-            context.connectors
-                    .getFlux()
+            Flux.fromIterable(context.connectors.getCurrent().entrySet())
                     .parallel()
                     .runOn(Schedulers.boundedElastic())
                     .doOnNext(kv -> {
@@ -80,6 +80,28 @@ public class ShutdownHandler implements AutoCloseable {
 
             m.checkpoint("stopped directors");
 
+            // Collectors holding resources (recorders, mostly) need to flush them now that nothing is coming in
+            Flux.fromIterable(context.collectors.getCurrent().values())
+                    .filter(AutoCloseable.class::isInstance)
+                    .doOnNext(c -> {
+                        try {
+                            ((AutoCloseable) c).close();
+                        } catch (Exception ex) {
+                            apologize(ex);
+                        }
+                    })
+                    .blockLast();
+
+            m.checkpoint("stopped collectors");
+
+            // Capture the control state for the next start while it is still intact
+            context.controlState
+                    .getFlux()
+                    .doOnNext(kv -> kv.getValue().close())
+                    .blockLast();
+
+            m.checkpoint("saved control state");
+
             // Same for the schedule
             logger.error("FIXME: stop the scheduler");
 
@@ -113,6 +135,14 @@ public class ShutdownHandler implements AutoCloseable {
                     .blockLast();
             m.checkpoint("HVAC devices off");
 
+            // Only now is it safe for the passive node to take over
+            context.standby
+                    .getFlux()
+                    .doOnNext(kv -> kv.getValue().close())
+                    .blockLast();
+
+            m.checkpoint("released standby lease");
+
             // Put switches into "safe" state, if provided
             logger.error("FIXME: put switches into safe state");
 
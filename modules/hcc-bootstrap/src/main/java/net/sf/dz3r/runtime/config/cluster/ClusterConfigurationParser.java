@@ -0,0 +1,246 @@
+package net.sf.dz3r.runtime.config.cluster;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.mqtt.cluster.MqttSignalTransport;
+import net.sf.dz3r.device.mqtt.v1.MqttEndpoint;
+import net.sf.dz3r.device.mqtt.v2async.MqttAdapterImpl;
+import net.sf.dz3r.model.UnitDirector;
+import net.sf.dz3r.runtime.config.ConfigurationContext;
+import net.sf.dz3r.runtime.config.ConfigurationContextAware;
+import net.sf.dz3r.runtime.config.model.UnitDirectorConfig;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.cluster.NodeStatus;
+import net.sf.dz3r.signal.cluster.SignalTransport;
+import reactor.core.publisher.Flux;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Partitions a shared configuration between cluster nodes.
+ *
+ * Every node reads the same configuration, but only runs the unit directors assigned to it. Sensors assigned to
+ * other nodes are consumed over the {@link SignalTransport}, unless they can be read directly (MQTT sensors usually can).
+ *
+ * The calls must be made in this order, at the points of {@link net.sf.dz3r.runtime.config.ConfigurationParser#parse}
+ * where the entities they need become available: {@link #connect()}, {@link #importSensors()},
+ * {@link #exportSensors()}, {@link #filterDirectors(Set)}, {@link #publishNode()}. All of them do nothing if
+ * the cluster is not configured.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ClusterConfigurationParser extends ConfigurationContextAware {
+
+    private final ClusterConfig config;
+
+    /**
+     * This node configuration, {@code null} if the cluster is not configured.
+     */
+    private final ClusterNodeConfig self;
+
+    private SignalTransport transport;
+
+    public ClusterConfigurationParser(ConfigurationContext context, ClusterConfig config) {
+        super(context);
+
+        this.config = config;
+        this.self = config == null ? null : validate(config);
+    }
+
+    public boolean isEnabled() {
+        return config != null;
+    }
+
+    /**
+     * Connect to the cluster broker.
+     *
+     * The cluster gets its own MQTT connection so that cluster traffic doesn't queue up behind device traffic.
+     */
+    public void connect() {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        var broker = HCCObjects.requireNonNull(config.broker(), "cluster.broker can't be null");
+        var adapter = new MqttAdapterImpl(
+                new MqttEndpoint(broker.host(), Optional.ofNullable(broker.port()).orElse(MqttEndpoint.DEFAULT_PORT)),
+                broker.username(),
+                broker.password(),
+                broker.autoReconnect());
+
+        connect(new MqttSignalTransport(
+                adapter,
+                HCCObjects.requireNonNull(broker.rootTopic(), "cluster.broker.root-topic can't be null"),
+                self.id(),
+                config.heartbeat()));
+    }
+
+    void connect(SignalTransport transport) {
+
+        this.transport = transport;
+        context.cluster.register(self.id(), transport);
+    }
+
+    /**
+     * Register the sensors owned by other nodes, unless they are already available locally.
+     *
+     * Must be called after all the raw sensors are registered, and before the filters are configured.
+     */
+    public void importSensors() {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        for (var node : config.nodes()) {
+
+            if (node.id().equals(self.id())) {
+                continue;
+            }
+
+            for (var id : Optional.ofNullable(node.sensors()).orElse(Set.of())) {
+
+                if (context.sensors.isRegistered(id)) {
+                    logger.info("{}: sensor {} belongs to {}, but is available locally, reading it directly", self.id(), id, node.id());
+                    continue;
+                }
+
+                context.sensors.register(id, transport.getSensorFlux(id));
+            }
+        }
+    }
+
+    /**
+     * Publish the sensors owned by this node.
+     *
+     * Must be called after the sensors are closed, so that filters can be published as well.
+     */
+    public void exportSensors() {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        for (var id : Optional.ofNullable(self.sensors()).orElse(Set.of())) {
+            transport.publishSensor(id, getSensorBlocking(id));
+        }
+    }
+
+    /**
+     * Select the unit directors to run on this node.
+     *
+     * @param source All unit director configurations.
+     *
+     * @return Configurations of directors assigned to this node, or all of them if the cluster is not configured.
+     */
+    public Set<UnitDirectorConfig> filterDirectors(Set<UnitDirectorConfig> source) {
+
+        var all = Optional.ofNullable(source).orElse(Set.of());
+
+        if (!isEnabled()) {
+            return all;
+        }
+
+        var assigned = config.nodes()
+                .stream()
+                .flatMap(n -> Optional.ofNullable(n.directors()).orElse(Set.of()).stream())
+                .collect(Collectors.toSet());
+        var result = new LinkedHashSet<UnitDirectorConfig>();
+
+        for (var d : all) {
+
+            if (!assigned.contains(d.id())) {
+                logger.error("{}: director {} is not assigned to any node, it is not running anywhere", self.id(), d.id());
+                continue;
+            }
+
+            if (Optional.ofNullable(self.directors()).orElse(Set.of()).contains(d.id())) {
+                result.add(d);
+            }
+        }
+
+        logger.info("{}: running directors {}", self.id(), result.stream().map(UnitDirectorConfig::id).sorted().toList());
+
+        return result;
+    }
+
+    /**
+     * Start publishing this node status.
+     *
+     * Must be called after the directors are closed.
+     */
+    public void publishNode() {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        var directors = context.directors
+                .getFlux()
+                .map(Map.Entry::getValue)
+                .collectList()
+                .block();
+
+        var ids = directors.stream().map(UnitDirector::getAddress).collect(Collectors.toSet());
+        var zones = Flux.merge(directors.stream().map(d -> d.getFeed().aggregateZoneFlux).toList());
+
+        transport.publishNode(ids, zones);
+    }
+
+    /**
+     * @return Status flux of all cluster nodes, or {@code null} if the cluster is not configured.
+     */
+    public Flux<Signal<NodeStatus, String>> getNodeFlux() {
+        return isEnabled() ? transport.getNodeFlux() : null;
+    }
+
+    /**
+     * Make sure the configuration is consistent.
+     *
+     * @return This node configuration.
+     */
+    private static ClusterNodeConfig validate(ClusterConfig config) {
+
+        HCCObjects.requireNonNull(config.node(), "cluster.node can't be null, set it for every process (HOME_CLIMATE_CONTROL_CLUSTER_NODE)");
+        HCCObjects.requireNonNull(config.nodes(), "cluster.nodes can't be null");
+
+        var director2node = new TreeMap<String, String>();
+        var sensor2node = new TreeMap<String, String>();
+        ClusterNodeConfig self = null;
+
+        for (var node : config.nodes()) {
+
+            HCCObjects.requireNonNull(node.id(), "cluster.nodes.id can't be null");
+
+            if (node.id().equals(config.node())) {
+                self = node;
+            }
+
+            claim(node, node.directors(), director2node, "director");
+            claim(node, node.sensors(), sensor2node, "sensor");
+        }
+
+        if (self == null) {
+            throw new IllegalArgumentException("cluster.node=" + config.node() + " is not among cluster.nodes");
+        }
+
+        return self;
+    }
+
+    private static void claim(ClusterNodeConfig node, Set<String> ids, Map<String, String> id2node, String kind) {
+
+        for (var id : Optional.ofNullable(ids).orElse(Set.of())) {
+
+            var owner = id2node.putIfAbsent(id, node.id());
+
+            if (owner != null) {
+                throw new IllegalArgumentException(kind + " " + id + " is assigned to both " + owner + " and " + node.id());
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package net.sf.dz3r.runtime.config.cluster;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.mqtt.v1.MqttEndpoint;
+import net.sf.dz3r.device.mqtt.v2async.MqttAdapterImpl;
+import net.sf.dz3r.runtime.config.ConfigurationContext;
+import net.sf.dz3r.runtime.config.ConfigurationContextAware;
+import net.sf.dz3r.runtime.snapshot.ControlStateKeeper;
+import net.sf.dz3r.runtime.standby.StandbyCoordinator;
+
+import java.util.Optional;
+
+/**
+ * Holds the startup until this node becomes the active one of the pair.
+ *
+ * Does nothing if the standby is not configured.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class StandbyConfigurationParser extends ConfigurationContextAware {
+
+    private final StandbyConfig config;
+
+    private StandbyCoordinator coordinator;
+
+    public StandbyConfigurationParser(ConfigurationContext context, StandbyConfig config) {
+        super(context);
+
+        this.config = config;
+    }
+
+    public boolean isEnabled() {
+        return config != null;
+    }
+
+    /**
+     * Block until this node takes the lease.
+     *
+     * Must be called before anything that can drive the hardware is created. The coordinator gets its own MQTT
+     * connection, for the lease not to queue up behind device traffic.
+     *
+     * @param mirror Keeper to mirror the active node state to while waiting.
+     */
+    public void awaitLease(ControlStateKeeper mirror) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        var node = HCCObjects.requireNonNull(config.node(), "standby.node can't be null");
+        var broker = HCCObjects.requireNonNull(config.broker(), "standby.broker can't be null");
+        var adapter = new MqttAdapterImpl(
+                new MqttEndpoint(broker.host(), Optional.ofNullable(broker.port()).orElse(MqttEndpoint.DEFAULT_PORT)),
+                broker.username(),
+                broker.password(),
+                broker.autoReconnect());
+
+        coordinator = new StandbyCoordinator(
+                adapter,
+                HCCObjects.requireNonNull(broker.rootTopic(), "standby.broker.root-topic can't be null"),
+                node,
+                config.heartbeat(),
+                config.takeoverAfter());
+
+        coordinator.awaitLease(mirror);
+        context.standby.register(node, coordinator);
+    }
+
+    /**
+     * Start replicating the control state to the passive node.
+     *
+     * @param keeper Started control state keeper.
+     */
+    public void replicate(ControlStateKeeper keeper) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        coordinator.replicate(keeper);
+    }
+}
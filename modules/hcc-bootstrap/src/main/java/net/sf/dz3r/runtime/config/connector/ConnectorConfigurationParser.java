@@ -2,12 +2,14 @@ package net.sf.dz3r.runtime.config.connector;
 
 import net.sf.dz3r.common.HCCObjects;
 import net.sf.dz3r.instrumentation.Marker;
+import net.sf.dz3r.instrumentation.recorder.SignalRecorder;
 import net.sf.dz3r.model.Zone;
 import net.sf.dz3r.runtime.GitProperties;
 import net.sf.dz3r.runtime.config.ConfigurationContext;
 import net.sf.dz3r.runtime.config.ConfigurationContextAware;
 import net.sf.dz3r.runtime.config.ConfigurationMapper;
 import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.filter.CompressionSettings;
 import net.sf.dz3r.view.ha.HomeAssistantConnector;
 import net.sf.dz3r.view.http.gae.v3.HttpConnectorGAE;
 import net.sf.dz3r.view.influxdb.v3.InfluxDbLogger;
@@ -17,6 +19,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -53,6 +56,7 @@ public class ConnectorConfigurationParser extends ConfigurationContextAware {
                         Optional.ofNullable(entry.homeAssistant()).ifPresent(this::parseHomeAssistant);
                         Optional.ofNullable(entry.http()).ifPresent(this::parseHttp);
                         Optional.ofNullable(entry.influx()).ifPresent(this::parseInflux);
+                        Optional.ofNullable(entry.recorder()).ifPresent(this::parseRecorder);
 
                         sink.success("done: " + entry.toString());
                     }
@@ -73,6 +77,68 @@ public class ConnectorConfigurationParser extends ConfigurationContextAware {
         return flux;
     }
 
+    /**
+     * Replace connectors and collectors at runtime, and connect the new ones to the running unit directors.
+     *
+     * Must only be called after the startup is complete.
+     *
+     * @param removed Configurations of connectors and collectors to close.
+     * @param added Configurations of connectors and collectors to create.
+     *
+     * @throws IllegalArgumentException if the new configuration can't be applied without a restart. Nothing is
+     * changed in this case.
+     */
+    public void replace(Set<ConnectorConfig> removed, Set<ConnectorConfig> added) {
+
+        for (var cf : added) {
+            Optional.ofNullable(cf.homeAssistant()).ifPresent(ha -> {
+                var signature = ConfigurationMapper.INSTANCE.parseEndpoint(ha.parse()).signature();
+                if (!context.mqtt.isRegistered(signature)) {
+                    throw new IllegalArgumentException("connectors.home-assistant." + ha.id() + ": new MQTT broker " + signature + ", restart required");
+                }
+            });
+        }
+
+        for (var cf : removed) {
+            Optional.ofNullable(cf.homeAssistant()).ifPresent(ha -> close(context.connectors.remove(ha.parse().signature())));
+            Optional.ofNullable(cf.http()).ifPresent(http -> close(context.connectors.remove(http.id())));
+            Optional.ofNullable(cf.influx()).ifPresent(influx -> close(context.collectors.remove(influx.id())));
+            Optional.ofNullable(cf.recorder()).ifPresent(recorder -> close(context.collectors.remove(recorder.id())));
+        }
+
+        var connectorsBefore = context.connectors.getCurrent().keySet();
+        var collectorsBefore = context.collectors.getCurrent().keySet();
+
+        parse(added).blockLast();
+
+        var directors = context.directors.getCurrent().values();
+
+        context.connectors.getCurrent().forEach((key, connector) -> {
+            if (!connectorsBefore.contains(key)) {
+                directors.forEach(d -> connector.connect(d.getAddress(), d.getFeed()));
+            }
+        });
+
+        context.collectors.getCurrent().forEach((key, collector) -> {
+            if (!collectorsBefore.contains(key)) {
+                directors.forEach(d -> collector.connect(d.getAddress(), d.getFeed()));
+            }
+        });
+    }
+
+    private void close(Object target) {
+
+        if (!(target instanceof AutoCloseable closeable)) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (Exception ex) {
+            logger.warn("failed to close {}, nothing we can do about it now", target, ex);
+        }
+    }
+
     /**
      * Parse HA configuration and register the instance.
      *
@@ -117,7 +183,14 @@ public class ConnectorConfigurationParser extends ConfigurationContextAware {
                     .collect(Collectors.toSet())
                     .block();
 
-            context.connectors.register(brokerConfig.signature(), new HomeAssistantConnector(softwareVersion, cf.id(), mqttAdapter, brokerConfig.rootTopic(), zones));
+            context.connectors.register(brokerConfig.signature(), new HomeAssistantConnector(
+                    softwareVersion,
+                    cf.id(),
+                    mqttAdapter,
+                    brokerConfig.rootTopic(),
+                    zones,
+                    cf.pace(),
+                    cf.heartbeat()));
 
         } finally {
             m.close();
@@ -165,7 +238,40 @@ public class ConnectorConfigurationParser extends ConfigurationContextAware {
                             cf.uri(),
                             cf.username(),
                             cf.password(),
-                            getSensorFeed2IdMapping(cf.id(), cf.sensorFeedMapping())));
+                            getSensorFeed2IdMapping(cf.id(), cf.sensorFeedMapping()),
+                            getCompression(cf.compression())));
+        } finally {
+            m.close();
+        }
+    }
+
+    private CompressionSettings getCompression(CompressionConfig cf) {
+
+        if (cf == null) {
+            return null;
+        }
+
+        return new CompressionSettings(
+                HCCObjects.requireNonNull(cf.method(), "connectors.influx.compression.method is missing"),
+                Optional.ofNullable(cf.absolute()).orElse(0d),
+                Optional.ofNullable(cf.relative()).orElse(0d),
+                cf.maxGap());
+    }
+
+    private void parseRecorder(RecorderConfig cf) {
+
+        Marker m = new Marker("parseRecorder");
+        try {
+            HCCObjects.requireNonNull(cf.id(), "connectors.recorder.id is missing");
+
+            // VT: NOTE: Same as counters and control state, $HOME/.dz/recordings by default
+            var directory = Optional
+                    .ofNullable(cf.directory())
+                    .map(File::new)
+                    .orElseGet(() -> new File(System.getProperty("user.home"), ".dz/recordings"));
+
+            context.collectors.register(cf.id(), new SignalRecorder(directory));
+
         } finally {
             m.close();
         }
@@ -37,14 +37,20 @@ public class HvacConfigurationParser extends ConfigurationContextAware {
 
         try {
 
-            var lifetime = Optional.ofNullable(config).map(FilterConfig::lifetime).orElse(Duration.ofHours(200));
+            var filter = Optional.ofNullable(config);
+            var lifetime = filter.map(FilterConfig::lifetime).orElse(Duration.ofHours(200));
+            var saveInterval = filter.map(FilterConfig::saveInterval).orElse(FileTimeUsageCounter.DEFAULT_SAVE_INTERVAL);
+            var journal = filter.map(FilterConfig::journal).orElse(false);
+
             return new FileTimeUsageCounter(
                     id,
                     lifetime,
                     new File(countersRoot, id),
                     Set.of(
                             new LoggerTimeUsageReporter(id)
-                    ));
+                    ),
+                    saveInterval,
+                    journal);
 
         } catch (IOException ex) {
 
@@ -16,6 +16,7 @@ import reactor.core.publisher.Flux;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
@@ -44,6 +45,40 @@ public class ZoneConfigurationParser extends ConfigurationContextAware {
                 .subscribe(kv -> context.zones.register(kv.getKey(), kv.getValue()));
     }
 
+    /**
+     * Apply the changed zone configuration to the running zone.
+     *
+     * Only the PID controller tuning and the zone settings (except the setpoint range) can be changed on the fly.
+     * The rest is baked into the thermostat and the economizer at creation time.
+     *
+     * @param from Configuration the zone is running with.
+     * @param to New configuration.
+     *
+     * @return {@code true} if applied, {@code false} if nothing was changed because a restart is required.
+     */
+    public boolean reconfigure(ZoneConfig from, ZoneConfig to) {
+
+        var tunable = new ZoneConfig(from.id(), from.name(), to.controller(), from.sensitivity(), to.settings(), from.economizer());
+
+        if (!tunable.equals(to) || !Objects.equals(from.settings().setpointRange(), to.settings().setpointRange())) {
+            return false;
+        }
+
+        var zone = HCCObjects.requireNonNull(context.zones.getCurrent().get(to.id()), "zone is not running: " + to.id());
+
+        if (!from.controller().equals(to.controller())) {
+            var cf = to.controller();
+            zone.retune(cf.p(), cf.i(), cf.d(), cf.limit());
+        }
+
+        if (!from.settings().equals(to.settings())) {
+            // Economizer settings are left alone
+            zone.setSettingsSync(map(to.settings(), null));
+        }
+
+        return true;
+    }
+
     private Map.Entry<String, Zone> createZone(ZoneConfig cf) {
 
         var ts = createThermostat(
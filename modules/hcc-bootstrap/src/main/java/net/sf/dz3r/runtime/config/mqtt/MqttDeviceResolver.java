@@ -3,6 +3,7 @@ package net.sf.dz3r.runtime.config.mqtt;
 import net.sf.dz3r.device.actuator.VariableOutputDevice;
 import net.sf.dz3r.device.mqtt.MqttAdapter;
 import net.sf.dz3r.device.mqtt.v2.AbstractMqttCqrsSwitch;
+import net.sf.dz3r.instrumentation.jfr.SensorSignalEvent;
 import net.sf.dz3r.runtime.config.ConfigurationMapper;
 import net.sf.dz3r.runtime.config.DeviceResolver;
 import net.sf.dz3r.runtime.config.Id2Flux;
@@ -78,10 +79,13 @@ public abstract class MqttDeviceResolver<A extends MqttGateway, L extends Signal
 
                     // ID takes precedence over address
                     var key = id == null ? address : id;
+                    var driver = c2l.listener.getClass().getSimpleName();
 
                     return new Id2Flux(
                             key,
-                            guarded(flux, c2l.config)
+                            guarded(
+                                    flux.doOnNext(s -> SensorSignalEvent.record(driver, key, s.timestamp, s.getValue(), s.isError())),
+                                    c2l.config)
                     );
                 })
                 .sequential();
@@ -71,10 +71,56 @@ public class EntityProvider<T> implements AutoCloseable {
         }
     }
 
+    /**
+     * Find out if the entity is already registered, without waiting for it.
+     *
+     * @param key Entity key.
+     *
+     * @return {@code true} if the entity with this key was {@link #register(String, Object) registered} by now.
+     */
+    public boolean isRegistered(String key) {
+        return address2entity.containsKey(key);
+    }
+
     public Flux<Map.Entry<String, T>> getFlux() {
         return flux;
     }
 
+    /**
+     * Forget the entity replaced or removed by a configuration reload.
+     *
+     * The {@link #getFlux() flux} keeps replaying everything registered before it was {@link #close() closed},
+     * consumers interested in what is running right now must use {@link #getCurrent()}.
+     *
+     * @param key Entity key.
+     *
+     * @return The entity that was registered under this key, or {@code null} if there was none.
+     */
+    public T remove(String key) {
+
+        ThreadContext.push(kind + "#" + Integer.toHexString(hashCode()));
+        try {
+
+            var removed = address2entity.remove(key);
+
+            if (removed != null) {
+                logger.info("{} removed: {}", kind, key);
+            }
+
+            return removed;
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * @return Entities registered right now, including those registered after {@link #close()} by a configuration reload.
+     */
+    public Map<String, T> getCurrent() {
+        return Map.copyOf(address2entity);
+    }
+
     public T getById(String consumer, String id) {
 
         // VT: FIXME: Swap getById() and getMonoById() logic so both are more reactive
@@ -33,7 +33,50 @@ public class ScheduleConfigurationParser extends ConfigurationContextAware {
             return;
         }
 
-        var mapping = Flux
+        var mapping = resolve(source);
+
+        if (mapping == null || mapping.isEmpty()) {
+            logger.warn("schedule.google-calendar: no mappable zones found, not creating the updater");
+            return;
+        }
+
+        Flux.just(mapping)
+                .map(this::createUpdater)
+                .subscribe(this::register);
+    }
+
+    /**
+     * Apply the changed schedule configuration to the running updater.
+     *
+     * @param cf New schedule configuration.
+     *
+     * @return {@code true} if applied, {@code false} if there's no running updater to apply it to (the schedule
+     * was not configured at startup, or had no mappable zones), and a restart is required.
+     */
+    public boolean remap(ScheduleConfig cf) {
+
+        var updater = context.schedule.getCurrent().get("google-calendar");
+
+        if (!(updater instanceof GCalScheduleUpdater gcal)) {
+            return false;
+        }
+
+        var source = cf == null ? null : cf.googleCalendar();
+        var mapping = source == null || source.isEmpty() ? Map.<String, String>of() : resolve(source);
+
+        gcal.setMapping(mapping == null ? Map.of() : mapping);
+
+        return true;
+    }
+
+    /**
+     * Resolve zone IDs into zone names the updater works with.
+     *
+     * @return Zone name to calendar name mapping, skipping zones that can't be resolved.
+     */
+    private Map<String, String> resolve(Set<CalendarConfigEntry> source) {
+
+        return Flux
                 .fromIterable(source)
                 // This will not be fast
                 .publishOn(Schedulers.boundedElastic())
@@ -46,15 +89,6 @@ public class ScheduleConfigurationParser extends ConfigurationContextAware {
                 })
                 .collectMap(CalendarConfigEntry::zone, CalendarConfigEntry::calendar)
                 .block();
-
-        if (mapping == null || mapping.isEmpty()) {
-            logger.warn("schedule.google-calendar: no mappable zones found, not creating the updater");
-            return;
-        }
-
-        Flux.just(mapping)
-                .map(this::createUpdater)
-                .subscribe(this::register);
     }
 
 
@@ -0,0 +1,25 @@
+package net.sf.dz3r.runtime.snapshot;
+
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.model.Zone;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Control state worth preserving across restarts.
+ *
+ * @param timestamp Moment the state was captured.
+ * @param digest Digest of the configuration the state was captured with.
+ * @param zones Zone states, by zone ID.
+ * @param devices Requested HVAC device modes, by device ID. Only devices that have a mode requested are present.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record ControlState(
+        Instant timestamp,
+        String digest,
+        Map<String, Zone.Snapshot> zones,
+        Map<String, HvacMode> devices
+) {
+}
@@ -0,0 +1,208 @@
+package net.sf.dz3r.runtime.snapshot;
+
+import net.sf.dz3r.controller.HalfLifeController;
+import net.sf.dz3r.controller.pid.SimplePidController;
+import net.sf.dz3r.device.actuator.economizer.AbstractEconomizer;
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettingsCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary representation of the {@link ControlState}.
+ *
+ * The layout is a fixed header (magic, version, timestamp, configuration digest), followed by zone and device records,
+ * followed by a CRC32 of everything before it. Nullable values are preceded by a presence flag.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+class ControlStateCodec {
+
+    /**
+     * "HCCS".
+     */
+    static final int MAGIC = 0x48434353;
+
+    /**
+     * Format version. Must be incremented on any layout change, older snapshots will be discarded.
+     */
+    static final short VERSION = 1;
+
+    byte[] encode(ControlState state) throws IOException {
+
+        var buffer = new ByteArrayOutputStream();
+        var out = new DataOutputStream(buffer);
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(state.timestamp().toEpochMilli());
+        out.writeUTF(state.digest());
+
+        out.writeInt(state.zones().size());
+
+        for (var kv : state.zones().entrySet()) {
+            out.writeUTF(kv.getKey());
+            writeZone(out, kv.getValue());
+        }
+
+        out.writeInt(state.devices().size());
+
+        for (var kv : state.devices().entrySet()) {
+            out.writeUTF(kv.getKey());
+            out.writeUTF(kv.getValue().name());
+        }
+
+        out.flush();
+
+        var crc = new CRC32();
+        crc.update(buffer.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Decode the state.
+     *
+     * @param source Bytes produced by {@link #encode(ControlState)}.
+     *
+     * @return Decoded state.
+     *
+     * @throws IOException if the source is truncated, corrupted, or has a different format version.
+     */
+    ControlState decode(byte[] source) throws IOException {
+
+        if (source.length < 4) {
+            throw new IOException("truncated: " + source.length + " bytes");
+        }
+
+        var crc = new CRC32();
+        crc.update(source, 0, source.length - 4);
+
+        var stored = ((source[source.length - 4] & 0xFF) << 24)
+                | ((source[source.length - 3] & 0xFF) << 16)
+                | ((source[source.length - 2] & 0xFF) << 8)
+                | (source[source.length - 1] & 0xFF);
+
+        if (stored != (int) crc.getValue()) {
+            throw new IOException("CRC mismatch");
+        }
+
+        var in = new DataInputStream(new ByteArrayInputStream(source, 0, source.length - 4));
+
+        var magic = in.readInt();
+
+        if (magic != MAGIC) {
+            throw new IOException("bad magic: " + Integer.toHexString(magic));
+        }
+
+        var version = in.readShort();
+
+        if (version != VERSION) {
+            throw new IOException("unsupported version " + version + ", expected " + VERSION);
+        }
+
+        var timestamp = Instant.ofEpochMilli(in.readLong());
+        var digest = in.readUTF();
+
+        var zoneCount = in.readInt();
+        var zones = new LinkedHashMap<String, Zone.Snapshot>();
+
+        for (var count = 0; count < zoneCount; count++) {
+            zones.put(in.readUTF(), readZone(in));
+        }
+
+        var deviceCount = in.readInt();
+        var devices = new LinkedHashMap<String, HvacMode>();
+
+        for (var count = 0; count < deviceCount; count++) {
+
+            var id = in.readUTF();
+
+            try {
+                devices.put(id, HvacMode.valueOf(in.readUTF()));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("unknown mode for " + id, ex);
+            }
+        }
+
+        return new ControlState(timestamp, digest, Map.copyOf(zones), Map.copyOf(devices));
+    }
+
+    private void writeZone(DataOutputStream out, Zone.Snapshot zone) throws IOException {
+
+        ZoneSettingsCodec.write(out, zone.settings());
+
+        var ts = zone.thermostat();
+
+        writePid(out, ts.controller());
+
+        out.writeBoolean(ts.sensitivity() != null);
+
+        if (ts.sensitivity() != null) {
+
+            var s = ts.sensitivity();
+
+            out.writeLong(s.start().toEpochMilli());
+            out.writeDouble(s.value());
+            out.writeLong(s.pvTimestamp().toEpochMilli());
+            out.writeDouble(s.pv());
+        }
+
+        out.writeBoolean(ts.calling());
+
+        out.writeBoolean(zone.economizer() != null);
+
+        if (zone.economizer() != null) {
+            writePid(out, zone.economizer().controller());
+            out.writeBoolean(zone.economizer().calling());
+        }
+    }
+
+    private Zone.Snapshot readZone(DataInputStream in) throws IOException {
+
+        var settings = ZoneSettingsCodec.read(in);
+        var controller = readPid(in);
+
+        HalfLifeController.Snapshot sensitivity = null;
+
+        if (in.readBoolean()) {
+            sensitivity = new HalfLifeController.Snapshot(
+                    Instant.ofEpochMilli(in.readLong()),
+                    in.readDouble(),
+                    Instant.ofEpochMilli(in.readLong()),
+                    in.readDouble());
+        }
+
+        var thermostat = new Thermostat.Snapshot(controller, sensitivity, in.readBoolean());
+
+        AbstractEconomizer.Snapshot economizer = null;
+
+        if (in.readBoolean()) {
+            economizer = new AbstractEconomizer.Snapshot(readPid(in), in.readBoolean());
+        }
+
+        return new Zone.Snapshot(settings, thermostat, economizer);
+    }
+
+    private void writePid(DataOutputStream out, SimplePidController.Snapshot pid) throws IOException {
+        out.writeDouble(pid.integral());
+        out.writeDouble(pid.integralComponent());
+        out.writeDouble(pid.lastError());
+    }
+
+    private SimplePidController.Snapshot readPid(DataInputStream in) throws IOException {
+        return new SimplePidController.Snapshot(in.readDouble(), in.readDouble(), in.readDouble());
+    }
+}
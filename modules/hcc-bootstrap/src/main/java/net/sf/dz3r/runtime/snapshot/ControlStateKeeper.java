@@ -0,0 +1,324 @@
+package net.sf.dz3r.runtime.snapshot;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.actuator.HeatPump;
+import net.sf.dz3r.device.actuator.HvacDevice;
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.model.Zone;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the control state (PID integrals, sensitivity decay, hysteresis states, zone settings and hold flags,
+ * economizer state, heat pump modes) across restarts.
+ *
+ * The state is captured periodically and on {@link #close()}, and written asynchronously in a compact binary form
+ * (see {@link ControlStateCodec}) via a temporary file and an atomic move. On startup, the state is
+ * {@link #restore(Map, Map) restored} before the pipeline is connected, so that the control resumes where it left off
+ * instead of converging from scratch. The state is discarded if it was captured with a different configuration,
+ * or is older than {@link #staleAfter}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ControlStateKeeper implements AutoCloseable {
+
+    public static final Duration DEFAULT_SAVE_INTERVAL = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_STALE_AFTER = Duration.ofMinutes(15);
+
+    private final Logger logger = LogManager.getLogger();
+    private final ControlStateCodec codec = new ControlStateCodec();
+    private final Scheduler writer = Schedulers.newSingle("control-state", true);
+
+    private final Clock clock;
+    private final Path target;
+    private final Path temporary;
+    private volatile String digest;
+    private final Duration saveInterval;
+    private final Duration staleAfter;
+
+    private Map<String, Zone> zones = Map.of();
+    private Map<String, HvacDevice> devices = Map.of();
+    private Disposable subscription;
+
+    /**
+     * Create an instance with default save interval and staleness limit.
+     *
+     * @param target File to keep the state in.
+     * @param digest Current configuration digest.
+     */
+    public ControlStateKeeper(File target, String digest) {
+        this(Clock.systemUTC(), target, digest, DEFAULT_SAVE_INTERVAL, DEFAULT_STALE_AFTER);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param clock Clock to use.
+     * @param target File to keep the state in.
+     * @param digest Current configuration digest.
+     * @param saveInterval Interval to capture and write the state at.
+     * @param staleAfter Maximum age of the state that is still worth restoring.
+     */
+    public ControlStateKeeper(Clock clock, File target, String digest, Duration saveInterval, Duration staleAfter) {
+
+        this.clock = HCCObjects.requireNonNull(clock, "clock can't be null");
+        this.target = HCCObjects.requireNonNull(target, "target can't be null").toPath().toAbsolutePath();
+        this.temporary = this.target.resolveSibling(this.target.getFileName() + ".tmp");
+        this.digest = HCCObjects.requireNonNull(digest, "digest can't be null");
+        this.saveInterval = HCCObjects.requireNonNull(saveInterval, "saveInterval can't be null");
+        this.staleAfter = HCCObjects.requireNonNull(staleAfter, "staleAfter can't be null");
+
+        if (saveInterval.isNegative() || saveInterval.isZero()) {
+            throw new IllegalArgumentException("saveInterval must be positive: " + saveInterval);
+        }
+    }
+
+    /**
+     * Change the configuration digest the state is captured with. Used when the configuration is reloaded
+     * on the fly, so that the next restart with the new configuration doesn't discard the state.
+     *
+     * @param digest Configuration digest to use from the next save on.
+     */
+    public void setDigest(String digest) {
+        this.digest = HCCObjects.requireNonNull(digest, "digest can't be null");
+    }
+
+    /**
+     * Restore the state, if there is a valid one. Must be called before the pipeline is connected.
+     *
+     * @param zones Zones to restore, by ID.
+     * @param devices HVAC devices to restore, by ID.
+     *
+     * @return Number of entities restored.
+     */
+    public int restore(Map<String, Zone> zones, Map<String, HvacDevice> devices) {
+
+        ThreadContext.push("restore");
+
+        try {
+
+            var state = read();
+
+            if (state == null) {
+                return 0;
+            }
+
+            var age = Duration.between(state.timestamp(), clock.instant());
+
+            if (age.isNegative() || age.compareTo(staleAfter) > 0) {
+                logger.warn("{}: captured at {}, {} old, stale, ignored", target, state.timestamp(), age);
+                return 0;
+            }
+
+            if (!digest.equals(state.digest())) {
+                logger.warn("{}: captured with a different configuration, ignored", target);
+                return 0;
+            }
+
+            var restored = 0;
+
+            for (var kv : state.zones().entrySet()) {
+                restored += restoreZone(zones.get(kv.getKey()), kv.getKey(), kv.getValue());
+            }
+
+            for (var kv : state.devices().entrySet()) {
+                restored += restoreDevice(devices.get(kv.getKey()), kv.getKey(), kv.getValue());
+            }
+
+            logger.info("{}: restored {} entities from state captured {} ago", target, restored, age);
+
+            return restored;
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    private int restoreZone(Zone zone, String id, Zone.Snapshot snapshot) {
+
+        if (zone == null) {
+            logger.warn("zone {}: gone, ignored", id);
+            return 0;
+        }
+
+        try {
+
+            zone.restore(snapshot);
+            return 1;
+
+        } catch (IllegalArgumentException ex) {
+            logger.warn("zone {}: can't restore {}, ignored", id, snapshot, ex);
+            return 0;
+        }
+    }
+
+    private int restoreDevice(HvacDevice device, String id, HvacMode mode) {
+
+        if (!(device instanceof HeatPump heatPump)) {
+            logger.warn("HVAC device {}: gone or doesn't keep the mode, ignored", id);
+            return 0;
+        }
+
+        heatPump.restoreMode(mode);
+        return 1;
+    }
+
+    private ControlState read() {
+
+        try {
+
+            return codec.decode(Files.readAllBytes(target));
+
+        } catch (NoSuchFileException ex) {
+
+            logger.info("{}: doesn't exist, starting cold", target);
+            return null;
+
+        } catch (IOException ex) {
+
+            logger.warn("{}: can't read, starting cold", target, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Start capturing the state periodically.
+     *
+     * @param zones Zones to capture, by ID.
+     * @param devices HVAC devices to capture, by ID.
+     */
+    public synchronized void start(Map<String, Zone> zones, Map<String, HvacDevice> devices) {
+
+        if (subscription != null) {
+            throw new IllegalStateException("already started");
+        }
+
+        this.zones = Map.copyOf(zones);
+        this.devices = Map.copyOf(devices);
+
+        subscription = Flux
+                .interval(saveInterval, writer)
+                .subscribe(ignored -> save());
+    }
+
+    /**
+     * Capture the state and write it. Runs on the {@link #writer} thread.
+     */
+    private void save() {
+
+        ThreadContext.push("save");
+
+        try {
+
+            write(codec.encode(capture()));
+
+        } catch (Exception ex) {
+            // Not fatal, the next restart will just be a cold one
+            logger.error("{}: can't save", target, ex);
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Capture the state right now, for replication to a standby peer.
+     *
+     * @return Encoded state, in the same form as the state file.
+     */
+    public byte[] snapshot() throws IOException {
+        return codec.encode(capture());
+    }
+
+    /**
+     * Write the state replicated from the active peer, so that {@link #restore(Map, Map)} picks it up on takeover.
+     *
+     * Only to be used on an instance that was not {@link #start(Map, Map) started}.
+     *
+     * @param content State produced by {@link #snapshot()} on the peer.
+     *
+     * @throws IOException if the state can't be decoded or written.
+     */
+    public void replicate(byte[] content) throws IOException {
+
+        // Don't let garbage overwrite a good state
+        codec.decode(content);
+
+        write(content);
+    }
+
+    ControlState capture() {
+
+        var zoneStates = new LinkedHashMap<String, Zone.Snapshot>();
+        var deviceModes = new LinkedHashMap<String, HvacMode>();
+
+        zones.forEach((id, zone) -> zoneStates.put(id, zone.getSnapshot()));
+
+        devices.forEach((id, device) -> {
+            if (device instanceof HeatPump heatPump && heatPump.getRequestedMode() != null) {
+                deviceModes.put(id, heatPump.getRequestedMode());
+            }
+        });
+
+        return new ControlState(clock.instant(), digest, zoneStates, deviceModes);
+    }
+
+    private void write(byte[] content) throws IOException {
+
+        Files.createDirectories(target.getParent());
+
+        try (var out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            out.write(ByteBuffer.wrap(content));
+            out.force(true);
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        logger.debug("{}: saved {} bytes", target, content.length);
+    }
+
+    /**
+     * Stop capturing the state periodically, and capture it one last time. Blocks until done.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (subscription == null) {
+            return;
+        }
+
+        subscription.dispose();
+        subscription = null;
+
+        Mono.fromRunnable(this::save)
+                .subscribeOn(writer)
+                .block();
+
+        writer.dispose();
+    }
+}
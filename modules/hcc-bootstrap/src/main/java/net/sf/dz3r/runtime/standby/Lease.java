@@ -0,0 +1,44 @@
+package net.sf.dz3r.runtime.standby;
+
+/**
+ * Active node lease.
+ *
+ * Carried as {@code <epoch> <node>[ released]} text - it's tiny, and easy to read with any MQTT client.
+ *
+ * @param epoch Fencing token, incremented on every takeover.
+ * @param node Node holding the lease.
+ * @param released {@code true} if the node gave the lease up on shutdown, and the peer may take over right away.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+record Lease(long epoch, String node, boolean released) {
+
+    private static final String RELEASED = "released";
+
+    static Lease parse(String source) {
+
+        var parts = source.trim().split(" ");
+
+        if (parts.length < 2 || parts.length > 3 || (parts.length == 3 && !RELEASED.equals(parts[2]))) {
+            throw new IllegalArgumentException("malformed lease: '" + source + "'");
+        }
+
+        try {
+            return new Lease(Long.parseLong(parts[0]), parts[1], parts.length == 3);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("malformed lease: '" + source + "'", ex);
+        }
+    }
+
+    String render() {
+        return epoch + " " + node + (released ? " " + RELEASED : "");
+    }
+
+    /**
+     * @return {@code true} if this lease supersedes the other. Equal epochs can only come from a simultaneous start,
+     * the lower node ID wins then.
+     */
+    boolean supersedes(Lease other) {
+        return epoch > other.epoch || (epoch == other.epoch && node.compareTo(other.node) < 0);
+    }
+}
@@ -0,0 +1,358 @@
+package net.sf.dz3r.runtime.standby;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.mqtt.MqttAdapter;
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import net.sf.dz3r.runtime.snapshot.ControlStateKeeper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Active/passive pair coordinator.
+ *
+ * Exactly one node of the pair holds the lease, and runs the control logic. It publishes the lease, and its
+ * {@link ControlStateKeeper#snapshot() control state}, every {@link #heartbeat}, off the control path. The passive
+ * node doesn't build anything that could drive the hardware; it {@link #awaitLease(ControlStateKeeper) waits}, mirroring
+ * the state into its own state file, and takes over when the lease isn't renewed for {@link #takeoverAfter}. Startup
+ * then continues as usual, and the mirrored state is {@link ControlStateKeeper#restore(java.util.Map, java.util.Map) restored}.
+ *
+ * Fencing: the lease carries an epoch incremented on every takeover. The active node {@link #fence fences} itself if
+ * it sees a lease that supersedes its own, or if it hasn't heard its own lease back from the broker for
+ * {@link #takeoverAfter} minus one heartbeat - that is, before the peer can possibly take over.
+ *
+ * Topics used: {@code <root>/lease} and {@code <root>/state}, both retained.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class StandbyCoordinator implements AutoCloseable {
+
+    private final Logger logger = LogManager.getLogger();
+
+    public static final Duration DEFAULT_HEARTBEAT = Duration.ofSeconds(5);
+    public static final int DEFAULT_TAKEOVER_HEARTBEATS = 3;
+
+    /**
+     * Exit code of a node that {@link #fence(String) fenced} itself, for the process supervisor to tell it apart.
+     */
+    public static final int FENCED_EXIT_CODE = 75;
+
+    private final MqttAdapter adapter;
+    private final String leaseTopic;
+    private final String stateTopic;
+    private final String node;
+    private final Duration heartbeat;
+    private final Duration takeoverAfter;
+    private final Runnable fence;
+    private final Clock clock;
+
+    private final Scheduler scheduler = Schedulers.newSingle("standby", true);
+    /**
+     * Replays the latest one, the retained lease may well arrive before {@link #awaitLease(ControlStateKeeper)} is called.
+     */
+    private final Sinks.Many<Lease> foreignLeases = Sinks.many().replay().latest();
+
+    private final AtomicLong maxEpoch = new AtomicLong();
+    private final AtomicBoolean fenced = new AtomicBoolean();
+
+    private final Disposable subscription;
+
+    private volatile ControlStateKeeper mirror;
+    private volatile ControlStateKeeper keeper;
+    private volatile Lease lease;
+    private volatile Instant lastEcho;
+    private Disposable heartbeats;
+
+    /**
+     * Create an instance with the default fencing action: halt the JVM without running shutdown hooks, so that
+     * not a single command more goes out.
+     *
+     * @see #StandbyCoordinator(MqttAdapter, String, String, Duration, Duration, Runnable, Clock)
+     */
+    public StandbyCoordinator(MqttAdapter adapter, String rootTopic, String node, Duration heartbeat, Duration takeoverAfter) {
+        this(adapter, rootTopic, node, heartbeat, takeoverAfter, () -> Runtime.getRuntime().halt(FENCED_EXIT_CODE), Clock.systemUTC());
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param adapter MQTT adapter to use. Owned by this instance from now on, and closed by {@link #close()}.
+     * @param rootTopic Pair root topic, shared by both nodes.
+     * @param node This node ID.
+     * @param heartbeat Lease and state publishing interval, {@link #DEFAULT_HEARTBEAT} if {@code null}.
+     * @param takeoverAfter Take over if the lease isn't renewed for this long.
+     * {@link #DEFAULT_TAKEOVER_HEARTBEATS} heartbeats if {@code null}. Must be at least two heartbeats.
+     * @param fence Action to take when this node must stop driving the hardware immediately.
+     * @param clock Clock to use.
+     */
+    public StandbyCoordinator(
+            MqttAdapter adapter,
+            String rootTopic,
+            String node,
+            Duration heartbeat,
+            Duration takeoverAfter,
+            Runnable fence,
+            Clock clock) {
+
+        this.adapter = HCCObjects.requireNonNull(adapter, "adapter can't be null");
+        this.node = HCCObjects.requireNonNull(node, "node can't be null");
+        this.fence = HCCObjects.requireNonNull(fence, "fence can't be null");
+        this.clock = HCCObjects.requireNonNull(clock, "clock can't be null");
+        this.heartbeat = heartbeat == null ? DEFAULT_HEARTBEAT : heartbeat;
+        this.takeoverAfter = takeoverAfter == null ? this.heartbeat.multipliedBy(DEFAULT_TAKEOVER_HEARTBEATS) : takeoverAfter;
+
+        if (node.contains(" ")) {
+            throw new IllegalArgumentException("node can't contain spaces: '" + node + "'");
+        }
+
+        if (this.heartbeat.isNegative() || this.heartbeat.isZero()) {
+            throw new IllegalArgumentException("heartbeat must be positive: " + heartbeat);
+        }
+
+        if (this.takeoverAfter.compareTo(this.heartbeat.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("takeoverAfter must be at least two heartbeats: " + takeoverAfter);
+        }
+
+        var root = HCCObjects.requireNonNull(rootTopic, "rootTopic can't be null");
+        root = root.endsWith("/") ? root.substring(0, root.length() - 1) : root;
+
+        leaseTopic = root + "/lease";
+        stateTopic = root + "/state";
+
+        subscription = adapter
+                .getFlux(root, true)
+                .subscribe(this::receive);
+    }
+
+    /**
+     * @return {@code true} if this node holds the lease.
+     */
+    public boolean isActive() {
+        return lease != null;
+    }
+
+    /**
+     * Block until this node can take the lease, mirroring the active node's state in the meanwhile, then take it.
+     *
+     * @param mirror Keeper to write the replicated state through. Must not be {@link ControlStateKeeper#start started}.
+     */
+    public void awaitLease(ControlStateKeeper mirror) {
+
+        ThreadContext.push("standby");
+
+        try {
+
+            this.mirror = mirror;
+
+            logger.info("{}: waiting for {} of silence from the active node", node, takeoverAfter);
+
+            foreignLeases
+                    .asFlux()
+                    .doOnNext(l -> logger.debug("{}: active node: {}", node, l.render()))
+                    .takeUntil(Lease::released)
+                    .timeout(takeoverAfter)
+                    .onErrorResume(TimeoutException.class, ex -> Mono.empty())
+                    .blockLast();
+
+            this.mirror = null;
+
+            takeLease();
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Start replicating the control state.
+     *
+     * @param keeper Keeper to take the state snapshots from.
+     */
+    public void replicate(ControlStateKeeper keeper) {
+
+        if (!isActive()) {
+            throw new IllegalStateException("not holding the lease, can't replicate");
+        }
+
+        this.keeper = keeper;
+    }
+
+    private synchronized void takeLease() {
+
+        lease = new Lease(maxEpoch.get() + 1, node, false);
+        lastEcho = clock.instant();
+
+        logger.warn("{}: taking over, epoch {}", node, lease.epoch());
+
+        heartbeats = Flux
+                .interval(Duration.ZERO, heartbeat, scheduler)
+                .subscribe(ignored -> beat());
+    }
+
+    private void beat() {
+
+        var current = lease;
+
+        if (current == null) {
+            // Fenced or closed, the subscription is being disposed of
+            return;
+        }
+
+        var silence = Duration.between(lastEcho, clock.instant());
+
+        if (silence.compareTo(takeoverAfter.minus(heartbeat)) >= 0) {
+            fence("haven't heard back from the broker for " + silence + ", the peer may be taking over");
+            return;
+        }
+
+        adapter.publish(leaseTopic, current.render(), MqttQos.AT_LEAST_ONCE, true);
+        publishState();
+    }
+
+    private void publishState() {
+
+        var source = keeper;
+
+        if (source == null) {
+            return;
+        }
+
+        try {
+            adapter.publish(stateTopic, Base64.getEncoder().encodeToString(source.snapshot()), MqttQos.AT_LEAST_ONCE, true);
+        } catch (Exception ex) {
+            // Not fatal, the peer still has the previous state
+            logger.error("{}: can't replicate the state", node, ex);
+        }
+    }
+
+    private void receive(MqttSignal message) {
+
+        if (leaseTopic.equals(message.topic())) {
+            receiveLease(message.message());
+        } else if (stateTopic.equals(message.topic())) {
+            receiveState(message.message());
+        }
+    }
+
+    private void receiveLease(String message) {
+
+        Lease received;
+
+        try {
+            received = Lease.parse(message);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("{}: {}, ignored", node, ex.getMessage());
+            return;
+        }
+
+        maxEpoch.accumulateAndGet(received.epoch(), Math::max);
+
+        var current = lease;
+
+        if (current == null) {
+
+            if (!received.node().equals(node)) {
+                foreignLeases.tryEmitNext(received);
+            }
+
+            return;
+        }
+
+        if (received.equals(current)) {
+            lastEcho = clock.instant();
+            return;
+        }
+
+        if (!received.released() && received.supersedes(current)) {
+            fence("lease taken over: " + received.render() + ", ours was " + current.render());
+        }
+    }
+
+    private void receiveState(String message) {
+
+        var target = mirror;
+
+        if (target == null) {
+            // Either active, or done waiting
+            return;
+        }
+
+        try {
+            target.replicate(Base64.getDecoder().decode(message));
+        } catch (IOException | IllegalArgumentException ex) {
+            logger.warn("{}: can't mirror the replicated state, ignored", node, ex);
+        }
+    }
+
+    private void fence(String reason) {
+
+        if (!fenced.compareAndSet(false, true)) {
+            return;
+        }
+
+        logger.fatal("{}: FENCING: {}", node, reason);
+
+        synchronized (this) {
+            if (heartbeats != null) {
+                heartbeats.dispose();
+            }
+            lease = null;
+        }
+
+        fence.run();
+    }
+
+    /**
+     * Publish the final state and release the lease, so that the peer can take over right away, then close the adapter.
+     *
+     * Must be called after the HVAC devices are shut off, otherwise the two nodes will be fighting over them.
+     */
+    @Override
+    public synchronized void close() {
+
+        subscription.dispose();
+
+        try {
+
+            if (heartbeats == null || lease == null) {
+                return;
+            }
+
+            heartbeats.dispose();
+            publishState();
+
+            adapter.publish(leaseTopic, new Lease(lease.epoch(), node, true).render(), MqttQos.AT_LEAST_ONCE, true);
+            logger.warn("{}: released the lease, epoch {}", node, lease.epoch());
+
+            lease = null;
+
+        } finally {
+            scheduler.dispose();
+            closeAdapter();
+        }
+    }
+
+    private void closeAdapter() {
+        try {
+            adapter.close();
+        } catch (Exception ex) {
+            logger.warn("{}: failed to close the adapter, nothing we can do about it now", node, ex);
+        }
+    }
+}
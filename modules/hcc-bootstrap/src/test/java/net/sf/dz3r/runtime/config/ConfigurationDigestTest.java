@@ -0,0 +1,81 @@
+package net.sf.dz3r.runtime.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.sf.dz3r.runtime.config.cluster.ClusterConfig;
+import net.sf.dz3r.runtime.config.cluster.StandbyConfig;
+import net.sf.dz3r.runtime.config.protocol.mqtt.MqttBrokerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigurationDigestTest {
+
+    private static final MqttBrokerConfig BROKER = new MqttBrokerConfig(null, "localhost", null, null, null, "hcc", false);
+
+    private final ConfigurationDigest digest = new ConfigurationDigest(
+            new ObjectMapper(new YAMLFactory())
+                    .registerModule(new Jdk8Module())
+                    .registerModule(new JavaTimeModule()));
+
+    @Test
+    void stable() throws JsonProcessingException {
+
+        assertThat(digest.getDigest(config("house", "a", "a"))).isEqualTo(digest.getDigest(config("house", "a", "a")));
+        assertThat(digest.getControlStateDigest(config("house", "a", "a"))).isEqualTo(digest.getControlStateDigest(config("house", "a", "a")));
+    }
+
+    @Test
+    void nodeIdentityIgnoredByControlState() throws JsonProcessingException {
+
+        var a = config("house", "a", "active");
+        var b = config("house", "b", "passive");
+
+        assertThat(digest.getDigest(a)).isNotEqualTo(digest.getDigest(b));
+        assertThat(digest.getControlStateDigest(a)).isEqualTo(digest.getControlStateDigest(b));
+    }
+
+    @Test
+    void restOfConfigurationCounts() throws JsonProcessingException {
+
+        assertThat(digest.getControlStateDigest(config("house", "a", "a"))).isNotEqualTo(digest.getControlStateDigest(config("garage", "a", "a")));
+    }
+
+    @Test
+    void noClusterNoStandby() throws JsonProcessingException {
+
+        var source = config("house", null, null);
+
+        assertThat(ConfigurationDigest.withoutNodeIdentity(source)).isEqualTo(source);
+        assertThat(digest.getControlStateDigest(source)).isEqualTo(digest.getDigest(source));
+    }
+
+    private static HccRawConfig config(String instance, String clusterNode, String standbyNode) {
+        return new HccRawConfig(
+                instance,
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                null,
+                null,
+                clusterNode == null ? null : new ClusterConfig(clusterNode, BROKER, Duration.ofSeconds(30), Set.of()),
+                standbyNode == null ? null : new StandbyConfig(standbyNode, BROKER, Duration.ofSeconds(5), Duration.ofSeconds(15)));
+    }
+}
@@ -0,0 +1,183 @@
+package net.sf.dz3r.runtime.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.runtime.config.model.PidControllerConfig;
+import net.sf.dz3r.runtime.config.model.RangeConfig;
+import net.sf.dz3r.runtime.config.model.ZoneConfig;
+import net.sf.dz3r.runtime.config.model.ZoneSettingsConfig;
+import net.sf.dz3r.runtime.snapshot.ControlStateKeeper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigurationReloaderTest {
+
+    private static final ConfigurationDigest DIGEST = new ConfigurationDigest(
+            new ObjectMapper(new YAMLFactory())
+                    .registerModule(new Jdk8Module())
+                    .registerModule(new JavaTimeModule()));
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path root;
+
+    private final ConfigurationContext context = new ConfigurationContext();
+    private final Zone zone = new Zone(new Thermostat("Kitchen", 20d, 1, 0.001, 0, 0), new ZoneSettings(20d));
+
+    @BeforeEach
+    void register() {
+        context.zones.register("kitchen", zone);
+        context.zones.close();
+    }
+
+    @Test
+    void noChanges() {
+
+        var running = config("home", Set.of(zone("kitchen", "Kitchen", 1, 20d)));
+        var next = config("home", Set.of(zone("kitchen", "Kitchen", 1, 20d)));
+
+        assertThat(ConfigurationDiff.of(running, next).isEmpty()).isTrue();
+
+        var result = new ConfigurationReloader(context, running, DIGEST).reload(next);
+
+        assertThat(result.applied()).isEmpty();
+        assertThat(result.restartRequired()).isEmpty();
+    }
+
+    @Test
+    void retune() {
+
+        var reloader = new ConfigurationReloader(context, config("home", Set.of(zone("kitchen", "Kitchen", 1, 20d))), DIGEST);
+        var result = reloader.reload(config("home", Set.of(zone("kitchen", "Kitchen", 2, 22d))));
+
+        assertThat(result.applied()).containsExactly("zones.kitchen: reconfigured");
+        assertThat(result.restartRequired()).isEmpty();
+        assertThat(zone.getSettings().setpoint).isEqualTo(22d);
+    }
+
+    @Test
+    void restartRequired() {
+
+        var reloader = new ConfigurationReloader(context, config("home", Set.of(zone("kitchen", "Kitchen", 1, 20d))), DIGEST);
+        var result = reloader.reload(config("cottage", Set.of(
+                zone("kitchen", "Galley", 2, 22d),
+                zone("pantry", "Pantry", 1, 20d))));
+
+        assertThat(result.applied()).isEmpty();
+        assertThat(result.restartRequired()).containsExactlyInAnyOrder(
+                "instance: changed",
+                "zones.kitchen: changed",
+                "zones.pantry: added");
+
+        // Nothing must have been applied to a zone that can't be fully reconfigured
+        assertThat(zone.getSettings().setpoint).isEqualTo(20d);
+
+        // Still pending until restart
+        assertThat(reloader.reload(config("cottage", Set.of(zone("kitchen", "Galley", 2, 22d), zone("pantry", "Pantry", 1, 20d)))).restartRequired())
+                .containsExactlyInAnyOrder(
+                        "instance: changed",
+                        "zones.kitchen: changed",
+                        "zones.pantry: added");
+    }
+
+    @Test
+    void stateSurvivesReload() throws JsonProcessingException {
+
+        var running = config("home", Set.of(zone("kitchen", "Kitchen", 1, 20d)));
+        var next = config("home", Set.of(zone("kitchen", "Kitchen", 2, 22d)));
+
+        try (var keeper = keeper(running)) {
+
+            context.controlState.register("control-state", keeper);
+            context.controlState.close();
+            keeper.start(Map.of("kitchen", zone), Map.of());
+
+            assertThat(new ConfigurationReloader(context, running, DIGEST).reload(next).restartRequired()).isEmpty();
+        }
+
+        // Restarted with the new configuration
+        var restarted = new Zone(new Thermostat("Kitchen", 22d, 2, 0.001, 0, 0), new ZoneSettings(22d));
+
+        assertThat(keeper(next).restore(Map.of("kitchen", restarted), Map.of())).isEqualTo(1);
+    }
+
+    @Test
+    void stateDiscardedIfRestartRequired() throws JsonProcessingException {
+
+        var running = config("home", Set.of(zone("kitchen", "Kitchen", 1, 20d)));
+        var next = config("home", Set.of(zone("kitchen", "Kitchen", 1, 20d), zone("pantry", "Pantry", 1, 20d)));
+
+        try (var keeper = keeper(running)) {
+
+            context.controlState.register("control-state", keeper);
+            context.controlState.close();
+            keeper.start(Map.of("kitchen", zone), Map.of());
+
+            assertThat(new ConfigurationReloader(context, running, DIGEST).reload(next).restartRequired()).containsExactly("zones.pantry: added");
+        }
+
+        // The running system didn't match the new configuration, its state is not good for it
+        var restarted = new Zone(new Thermostat("Kitchen", 20d, 1, 0.001, 0, 0), new ZoneSettings(20d));
+
+        assertThat(keeper(next).restore(Map.of("kitchen", restarted), Map.of())).isZero();
+    }
+
+    private ControlStateKeeper keeper(HccRawConfig config) throws JsonProcessingException {
+        return new ControlStateKeeper(
+                CLOCK,
+                root.resolve("state").toFile(),
+                DIGEST.getControlStateDigest(config),
+                Duration.ofHours(1),
+                Duration.ofMinutes(15));
+    }
+
+    private static ZoneConfig zone(String id, String name, double p, double setpoint) {
+        return new ZoneConfig(
+                id,
+                name,
+                new PidControllerConfig(p, 0.001, 0, 0),
+                null,
+                new ZoneSettingsConfig(null, setpoint, new RangeConfig(10d, 40d), null, null, null),
+                null);
+    }
+
+    private static HccRawConfig config(String instance, Set<ZoneConfig> zones) {
+        return new HccRawConfig(
+                instance,
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                zones,
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                null,
+                null,
+                null,
+                null);
+    }
+}
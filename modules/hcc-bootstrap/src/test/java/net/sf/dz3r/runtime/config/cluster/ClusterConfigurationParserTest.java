@@ -0,0 +1,131 @@
+package net.sf.dz3r.runtime.config.cluster;
+
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.runtime.config.ConfigurationContext;
+import net.sf.dz3r.runtime.config.model.UnitDirectorConfig;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.cluster.NodeStatus;
+import net.sf.dz3r.signal.cluster.SignalTransport;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ClusterConfigurationParserTest {
+
+    private final Set<ClusterNodeConfig> nodes = Set.of(
+            new ClusterNodeConfig("a", Set.of("d1"), Set.of("s1", "shared")),
+            new ClusterNodeConfig("b", Set.of("d2"), Set.of("s2")));
+
+    private final Set<UnitDirectorConfig> directors = Set.of(
+            director("d1"),
+            director("d2"),
+            director("orphan"));
+
+    @Test
+    void disabled() {
+
+        var parser = new ClusterConfigurationParser(new ConfigurationContext(), null);
+
+        assertThat(parser.isEnabled()).isFalse();
+        assertThat(parser.filterDirectors(directors)).isEqualTo(directors);
+        assertThat(parser.getNodeFlux()).isNull();
+    }
+
+    @Test
+    void filterDirectors() {
+
+        var parser = new ClusterConfigurationParser(new ConfigurationContext(), new ClusterConfig("b", null, null, nodes));
+
+        assertThat(parser.filterDirectors(directors)).extracting(UnitDirectorConfig::id).containsExactly("d2");
+    }
+
+    @Test
+    void importSensors() {
+
+        var ctx = new ConfigurationContext();
+        var parser = new ClusterConfigurationParser(ctx, new ClusterConfig("b", null, null, nodes));
+        var local = Flux.just(new Signal<Double, Void>(Instant.now(), 20.0));
+
+        ctx.sensors.register("shared", local);
+        ctx.sensors.register("s2", local);
+
+        parser.connect(new StubTransport("b"));
+        parser.importSensors();
+        ctx.sensors.close();
+
+        var sensors = ctx.sensors.getFlux().collectMap(Map.Entry::getKey, Map.Entry::getValue).block();
+
+        assertThat(sensors).containsOnlyKeys("shared", "s2", "s1");
+
+        // Readable locally, no need to go over the network
+        assertThat(sensors.get("shared")).isSameAs(local);
+        assertThat(sensors.get("s1").blockFirst().getValue()).isEqualTo(-1.0);
+    }
+
+    @Test
+    void unknownNode() {
+
+        var ctx = new ConfigurationContext();
+        var config = new ClusterConfig("c", null, null, nodes);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new ClusterConfigurationParser(ctx, config));
+    }
+
+    @Test
+    void doubleAssignment() {
+
+        var ctx = new ConfigurationContext();
+        var config = new ClusterConfig(
+                "a",
+                null,
+                null,
+                Set.of(
+                        new ClusterNodeConfig("a", Set.of("d1"), Set.of()),
+                        new ClusterNodeConfig("b", Set.of("d1"), Set.of())));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new ClusterConfigurationParser(ctx, config))
+                .withMessageContaining("d1");
+    }
+
+    private static UnitDirectorConfig director(String id) {
+        return new UnitDirectorConfig(id, Set.of(), Map.of(), "unit", "hvac", HvacMode.COOLING);
+    }
+
+    private record StubTransport(String getNode) implements SignalTransport {
+
+        @Override
+        public Disposable publishSensor(String id, Flux<Signal<Double, Void>> source) {
+            return Disposables.single();
+        }
+
+        @Override
+        public Flux<Signal<Double, Void>> getSensorFlux(String id) {
+            return Flux.just(new Signal<>(Instant.now(), -1.0));
+        }
+
+        @Override
+        public Disposable publishNode(Set<String> directors, Flux<Signal<ZoneStatus, String>> zones) {
+            return Disposables.single();
+        }
+
+        @Override
+        public Flux<Signal<NodeStatus, String>> getNodeFlux() {
+            return Flux.empty();
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package net.sf.dz3r.runtime.snapshot;
+
+import net.sf.dz3r.controller.HalfLifeController;
+import net.sf.dz3r.controller.pid.SimplePidController;
+import net.sf.dz3r.device.actuator.economizer.AbstractEconomizer;
+import net.sf.dz3r.device.actuator.economizer.EconomizerSettings;
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+class ControlStateCodecTest {
+
+    private final ControlStateCodec codec = new ControlStateCodec();
+
+    @Test
+    void roundtrip() throws IOException {
+
+        var now = Instant.ofEpochMilli(1_700_000_000_000L);
+
+        var full = new Zone.Snapshot(
+                new ZoneSettings(true, 22.5, false, true, 3, new EconomizerSettings(1.5, 21, true, 0.7)),
+                new Thermostat.Snapshot(
+                        new SimplePidController.Snapshot(1234.5, 1.2345, -0.25),
+                        new HalfLifeController.Snapshot(now.minusSeconds(60), 0.5, now.minusSeconds(10), 22.5),
+                        true),
+                new AbstractEconomizer.Snapshot(new SimplePidController.Snapshot(-10, -0.1, 0.75), false));
+
+        var sparse = new Zone.Snapshot(
+                new ZoneSettings(null, 19d, null, null, null, null),
+                new Thermostat.Snapshot(new SimplePidController.Snapshot(0, 0, 0), null, false),
+                null);
+
+        var source = new ControlState(
+                now,
+                "0123456789abcdef",
+                Map.of("full", full, "sparse", sparse),
+                Map.of("heatpump", HvacMode.HEATING));
+
+        var decoded = codec.decode(codec.encode(source));
+
+        assertThat(decoded.timestamp()).isEqualTo(source.timestamp());
+        assertThat(decoded.digest()).isEqualTo(source.digest());
+        assertThat(decoded.devices()).isEqualTo(source.devices());
+        assertThat(decoded.zones()).containsOnlyKeys("full", "sparse");
+
+        // ZoneSettings doesn't compare economizer settings by value, so records can't be compared directly
+        assertSame(decoded.zones().get("full"), full);
+        assertSame(decoded.zones().get("sparse"), sparse);
+    }
+
+    private void assertSame(Zone.Snapshot actual, Zone.Snapshot expected) {
+
+        var a = actual.settings();
+        var e = expected.settings();
+
+        assertThat(a.enabled).isEqualTo(e.enabled);
+        assertThat(a.setpoint).isEqualTo(e.setpoint);
+        assertThat(a.voting).isEqualTo(e.voting);
+        assertThat(a.hold).isEqualTo(e.hold);
+        assertThat(a.dumpPriority).isEqualTo(e.dumpPriority);
+        assertThat(a.economizerSettings).usingRecursiveComparison().isEqualTo(e.economizerSettings);
+        assertThat(actual.thermostat()).isEqualTo(expected.thermostat());
+        assertThat(actual.economizer()).isEqualTo(expected.economizer());
+    }
+
+    @Test
+    void corrupted() throws IOException {
+
+        var source = codec.encode(new ControlState(Instant.now(), "digest", Map.of(), Map.of()));
+
+        source[source.length / 2] ^= 0x01;
+
+        assertThatIOException()
+                .isThrownBy(() -> codec.decode(source))
+                .withMessage("CRC mismatch");
+    }
+
+    @Test
+    void truncated() throws IOException {
+
+        var source = codec.encode(new ControlState(Instant.now(), "digest", Map.of(), Map.of()));
+        var truncated = Arrays.copyOf(source, source.length - 1);
+
+        assertThatIOException().isThrownBy(() -> codec.decode(truncated));
+    }
+}
@@ -0,0 +1,102 @@
+package net.sf.dz3r.runtime.snapshot;
+
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ControlStateKeeperTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-15T10:00:00Z");
+    private static final Duration SAVE_INTERVAL = Duration.ofHours(1);
+    private static final Duration STALE_AFTER = Duration.ofMinutes(15);
+
+    @TempDir
+    Path root;
+
+    private File target;
+
+    @BeforeEach
+    void save() {
+
+        target = root.resolve("state").toFile();
+
+        var zone = createZone();
+        zone.setSettingsSync(new ZoneSettings(true, 25d, false, true, 2, null));
+
+        var keeper = new ControlStateKeeper(Clock.fixed(NOW, ZoneOffset.UTC), target, "digest", SAVE_INTERVAL, STALE_AFTER);
+
+        keeper.start(Map.of("zone", zone), Map.of());
+
+        // Nothing is written until the interval expires, or until closed
+        keeper.close();
+    }
+
+    @Test
+    void restore() {
+
+        var zone = createZone();
+        var keeper = new ControlStateKeeper(Clock.fixed(NOW.plusSeconds(30), ZoneOffset.UTC), target, "digest", SAVE_INTERVAL, STALE_AFTER);
+
+        assertThat(keeper.restore(Map.of("zone", zone), Map.of())).isEqualTo(1);
+
+        var settings = zone.getSettings();
+
+        assertThat(settings.setpoint).isEqualTo(25d);
+        assertThat(settings.voting).isFalse();
+        assertThat(settings.hold).isTrue();
+        assertThat(settings.dumpPriority).isEqualTo(2);
+    }
+
+    @Test
+    void stale() {
+
+        var zone = createZone();
+        var keeper = new ControlStateKeeper(Clock.fixed(NOW.plus(STALE_AFTER).plusSeconds(1), ZoneOffset.UTC), target, "digest", SAVE_INTERVAL, STALE_AFTER);
+
+        assertThat(keeper.restore(Map.of("zone", zone), Map.of())).isZero();
+        assertThat(zone.getSettings().setpoint).isEqualTo(20d);
+    }
+
+    @Test
+    void configurationChanged() {
+
+        var zone = createZone();
+        var keeper = new ControlStateKeeper(Clock.fixed(NOW, ZoneOffset.UTC), target, "another digest", SAVE_INTERVAL, STALE_AFTER);
+
+        assertThat(keeper.restore(Map.of("zone", zone), Map.of())).isZero();
+        assertThat(zone.getSettings().setpoint).isEqualTo(20d);
+    }
+
+    @Test
+    void zoneGone() {
+
+        var keeper = new ControlStateKeeper(Clock.fixed(NOW, ZoneOffset.UTC), target, "digest", SAVE_INTERVAL, STALE_AFTER);
+
+        assertThat(keeper.restore(Map.of("another", createZone()), Map.of())).isZero();
+    }
+
+    @Test
+    void missing() {
+
+        var keeper = new ControlStateKeeper(Clock.fixed(NOW, ZoneOffset.UTC), root.resolve("missing").toFile(), "digest", SAVE_INTERVAL, STALE_AFTER);
+
+        assertThat(keeper.restore(Map.of("zone", createZone()), Map.of())).isZero();
+    }
+
+    private static Zone createZone() {
+        return new Zone(new Thermostat("zone", 20d, 1, 0.001, 0, 0), new ZoneSettings(20d));
+    }
+}
@@ -0,0 +1,209 @@
+package net.sf.dz3r.runtime.standby;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.sf.dz3r.device.mqtt.simulator.InProcessMqttBroker;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.runtime.config.ConfigurationDigest;
+import net.sf.dz3r.runtime.config.HccRawConfig;
+import net.sf.dz3r.runtime.config.cluster.StandbyConfig;
+import net.sf.dz3r.runtime.config.protocol.mqtt.MqttBrokerConfig;
+import net.sf.dz3r.runtime.snapshot.ControlStateKeeper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class StandbyCoordinatorTest {
+
+    private static final String ROOT = "hcc/standby";
+    private static final Duration HEARTBEAT = Duration.ofMillis(50);
+    private static final Duration TAKEOVER_AFTER = Duration.ofMillis(300);
+    private static final ConfigurationDigest DIGEST = new ConfigurationDigest(
+            new ObjectMapper(new YAMLFactory())
+                    .registerModule(new Jdk8Module())
+                    .registerModule(new JavaTimeModule()));
+
+    @TempDir
+    Path root;
+
+    private final InProcessMqttBroker broker = new InProcessMqttBroker();
+    private final AtomicInteger fenced = new AtomicInteger();
+
+    @Test
+    void takeoverWhenAlone() {
+
+        try (var a = create("a")) {
+
+            var start = System.nanoTime();
+
+            a.awaitLease(keeper("a"));
+
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(TAKEOVER_AFTER);
+            assertThat(a.isActive()).isTrue();
+            assertThat(broker.getRetained(ROOT + "/lease")).isEqualTo("1 a");
+        }
+    }
+
+    @Test
+    void failover() throws Exception {
+
+        var zone = new Zone(new Thermostat("zone", 20d, 1, 0.001, 0, 0), new ZoneSettings(20d));
+        var active = keeper("a");
+        var a = create("a");
+
+        a.awaitLease(keeper("a"));
+        active.start(Map.of("zone", zone), Map.of());
+        a.replicate(active);
+
+        zone.setSettingsSync(new ZoneSettings(true, 25d, false, true, 2, null));
+
+        try (var b = create("b")) {
+
+            var mirror = keeper("b");
+            var passive = CompletableFuture.runAsync(() -> b.awaitLease(mirror));
+
+            // Heard from the active node, not going anywhere
+            Thread.sleep(TAKEOVER_AFTER.multipliedBy(2).toMillis());
+            assertThat(passive).isNotDone();
+
+            // Released lease is a signal to take over immediately
+            var start = System.nanoTime();
+
+            a.close();
+            passive.get(TAKEOVER_AFTER.toMillis(), TimeUnit.MILLISECONDS);
+
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(TAKEOVER_AFTER);
+            assertThat(b.isActive()).isTrue();
+            assertThat(broker.getRetained(ROOT + "/lease")).isEqualTo("2 b");
+
+            // The mirrored state survives the takeover, even though the node configurations differ
+            assertThat(DIGEST.getDigest(config("a"))).isNotEqualTo(DIGEST.getDigest(config("b")));
+            var restored = new Zone(new Thermostat("zone", 20d, 1, 0.001, 0, 0), new ZoneSettings(20d));
+
+            assertThat(mirror.restore(Map.of("zone", restored), Map.of())).isEqualTo(1);
+            assertThat(restored.getSettings().setpoint).isEqualTo(25d);
+            assertThat(fenced).hasValue(0);
+
+        } finally {
+            active.close();
+        }
+    }
+
+    @Test
+    void fenceOnHigherEpoch() {
+
+        try (var a = create("a")) {
+
+            a.awaitLease(keeper("a"));
+
+            broker.publish(ROOT + "/lease", "5 b", true);
+
+            assertThat(fenced).hasValue(1);
+            assertThat(a.isActive()).isFalse();
+        }
+    }
+
+    @Test
+    void tieBreak() {
+
+        try (var b = create("b")) {
+
+            b.awaitLease(keeper("b"));
+
+            // Same epoch, loses to us
+            broker.publish(ROOT + "/lease", "1 c", true);
+            assertThat(fenced).hasValue(0);
+
+            // Same epoch, wins over us
+            broker.publish(ROOT + "/lease", "1 a", true);
+            assertThat(fenced).hasValue(1);
+        }
+    }
+
+    @Test
+    void fenceOnSilence() throws InterruptedException {
+
+        try (var a = create("a")) {
+
+            a.awaitLease(keeper("a"));
+
+            broker.setPartitioned(true);
+
+            // Must fence before the peer can possibly take over
+            var deadline = System.nanoTime() + TAKEOVER_AFTER.toNanos();
+
+            while (fenced.get() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(fenced).hasValue(1);
+        }
+    }
+
+    @Test
+    void invalidTimings() {
+
+        var adapter = broker.connect();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new StandbyCoordinator(adapter, ROOT, "a", HEARTBEAT, HEARTBEAT, fenced::incrementAndGet, Clock.systemUTC()));
+        assertThatIllegalArgumentException().isThrownBy(() -> new StandbyCoordinator(adapter, ROOT, "a b", HEARTBEAT, TAKEOVER_AFTER, fenced::incrementAndGet, Clock.systemUTC()));
+    }
+
+    private StandbyCoordinator create(String node) {
+        return new StandbyCoordinator(broker.connect(), ROOT, node, HEARTBEAT, TAKEOVER_AFTER, fenced::incrementAndGet, Clock.systemUTC());
+    }
+
+    private ControlStateKeeper keeper(String node) {
+        try {
+            return new ControlStateKeeper(root.resolve(node).resolve("state").toFile(), DIGEST.getControlStateDigest(config(node)));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @return Configuration as the given node sees it - the same as its peer's, except for the node identifier.
+     */
+    private static HccRawConfig config(String node) {
+        return new HccRawConfig(
+                "house",
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                Set.of(),
+                null,
+                null,
+                null,
+                null,
+                new StandbyConfig(
+                        node,
+                        new MqttBrokerConfig(null, "localhost", null, null, null, ROOT, false),
+                        HEARTBEAT,
+                        TAKEOVER_AFTER));
+    }
+}
@@ -0,0 +1,155 @@
+package net.sf.dz3r.common;
+
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Sink with a bounded buffer, and a {@link SinkFactory.Overflow policy} to apply when the buffer is full.
+ *
+ * The buffer is a queue owned by this class, so that the overflow policy can evict buffered signals. Multicast
+ * sinks are built on top of the same unicast buffer with {@link Flux#publish(int)}, which adds up to
+ * {@link Queues#XS_BUFFER_SIZE} signals of prefetch to the capacity.
+ *
+ * Overflows are logged (first, second, fourth, and so on), and counted by the {@code hcc_sink_overflows} metric.
+ * Signals discarded by the overflow policy are passed to the {@code onDrop} callback, if any, so that the owner
+ * can account for them.
+ * Created by {@link SinkFactory}.
+ *
+ * @param <T> Signal type.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class BoundedSink<T> {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final String name;
+    private final SinkFactory.Category category;
+    private final SinkFactory.Policy policy;
+    private final MetricsRegistry registry;
+    private final Consumer<T> onDrop;
+
+    private final Queue<T> buffer;
+    private final Sinks.Many<T> sink;
+    private final Flux<T> flux;
+
+    private final AtomicLong overflows = new AtomicLong();
+
+    BoundedSink(String name, SinkFactory.Category category, SinkFactory.Policy policy, boolean multicast, MetricsRegistry registry, Consumer<T> onDrop) {
+
+        this.name = HCCObjects.requireNonNull(name, "name can't be null");
+        this.category = HCCObjects.requireNonNull(category, "category can't be null");
+        this.policy = HCCObjects.requireNonNull(policy, "policy can't be null");
+        this.registry = registry;
+        this.onDrop = onDrop == null ? v -> {} : onDrop;
+
+        buffer = new ArrayBlockingQueue<>(policy.capacity());
+        sink = Sinks.many().unicast().onBackpressureBuffer(buffer);
+
+        flux = multicast
+                ? sink.asFlux().publish(Math.min(policy.capacity(), Queues.XS_BUFFER_SIZE)).autoConnect()
+                : sink.asFlux();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SinkFactory.Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Emit the signal, applying the overflow policy if the buffer is full.
+     *
+     * @param value Signal to emit.
+     *
+     * @return Emit result. {@link Sinks.EmitResult#FAIL_OVERFLOW} means the signal was dropped.
+     */
+    public Sinks.EmitResult tryEmitNext(T value) {
+
+        var result = sink.tryEmitNext(value);
+
+        if (result != Sinks.EmitResult.FAIL_OVERFLOW) {
+            return result;
+        }
+
+        var count = overflows.incrementAndGet();
+        registry.counter(
+                "hcc_sink_overflows", "Signals that found the sink buffer full.",
+                "category", category.name().toLowerCase(Locale.ROOT),
+                "sink", name).increment();
+
+        if (Long.bitCount(count) == 1) {
+            logger.warn("{}: overflow #{}, capacity={}, overflow={}", name, count, policy.capacity(), policy.overflow());
+        }
+
+        switch (policy.overflow()) {
+            case LATEST_WINS -> {
+                for (var dropped = buffer.poll(); dropped != null; dropped = buffer.poll()) {
+                    onDrop.accept(dropped);
+                }
+            }
+            case DROP_OLDEST -> {
+                var dropped = buffer.poll();
+                if (dropped != null) {
+                    onDrop.accept(dropped);
+                }
+            }
+            case FAIL -> {
+                onDrop.accept(value);
+                sink.tryEmitError(Exceptions.failWithOverflow(name + ": buffer overflow, capacity=" + policy.capacity()));
+                return Sinks.EmitResult.FAIL_OVERFLOW;
+            }
+        }
+
+        result = sink.tryEmitNext(value);
+
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            // The buffer got refilled in the meanwhile
+            onDrop.accept(value);
+        }
+
+        return result;
+    }
+
+    public Sinks.EmitResult tryEmitComplete() {
+        return sink.tryEmitComplete();
+    }
+
+    public Sinks.EmitResult tryEmitError(Throwable error) {
+        return sink.tryEmitError(error);
+    }
+
+    /**
+     * @return The flux, same instance every time. Only one subscriber is allowed if this is a unicast sink.
+     */
+    public Flux<T> asFlux() {
+        return flux;
+    }
+
+    /**
+     * @return Number of signals currently buffered.
+     */
+    public int getBuffered() {
+        return buffer.size();
+    }
+
+    /**
+     * @return Number of signals that found the buffer full so far.
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+}
@@ -0,0 +1,179 @@
+package net.sf.dz3r.common;
+
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Central source of {@link BoundedSink bounded sinks} for internal hand-offs.
+ *
+ * Every sink belongs to a {@link Category}, and the category {@link Policy} decides how much the sink may buffer,
+ * and what happens when a consumer can't keep up. The policy is taken at creation time, so
+ * {@link #setPolicy(Category, Policy) changes} only apply to sinks created afterwards - configure the factory
+ * before the entities that use it.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class SinkFactory {
+
+    public enum Category {
+
+        /**
+         * Control loop feedback and setpoints.
+         */
+        CONTROL(new Policy(256, Overflow.DROP_OLDEST)),
+
+        /**
+         * Commands to devices. A newer command supersedes whatever is still queued.
+         */
+        COMMAND(new Policy(64, Overflow.LATEST_WINS)),
+
+        /**
+         * Device state and status broadcasts.
+         */
+        STATE(new Policy(256, Overflow.DROP_OLDEST)),
+
+        /**
+         * Incoming messages from external systems.
+         */
+        INPUT(new Policy(1024, Overflow.DROP_OLDEST)),
+
+        /**
+         * Instrumentation and system status.
+         */
+        INSTRUMENTATION(new Policy(256, Overflow.DROP_OLDEST)),
+
+        /**
+         * Persistent state to save. Every state supersedes the previous one.
+         */
+        STORAGE(new Policy(16, Overflow.LATEST_WINS));
+
+        public final Policy defaultPolicy;
+
+        Category(Policy defaultPolicy) {
+            this.defaultPolicy = defaultPolicy;
+        }
+    }
+
+    public enum Overflow {
+
+        /**
+         * Discard everything buffered, and keep just the latest signal.
+         */
+        LATEST_WINS,
+
+        /**
+         * Discard the oldest buffered signal to make room for the latest.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Terminate the sink with an overflow error.
+         */
+        FAIL
+    }
+
+    /**
+     * Sink policy.
+     *
+     * @param capacity Maximum number of signals buffered for the slowest consumer.
+     * @param overflow What to do when the buffer is full.
+     */
+    public record Policy(int capacity, Overflow overflow) {
+
+        public Policy {
+
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive: " + capacity);
+            }
+
+            HCCObjects.requireNonNull(overflow, "overflow can't be null");
+        }
+    }
+
+    private static final SinkFactory instance = new SinkFactory(MetricsRegistry.getInstance());
+
+    private final MetricsRegistry registry;
+    private final Map<Category, Policy> category2policy = new EnumMap<>(Category.class);
+
+    public static SinkFactory getInstance() {
+        return instance;
+    }
+
+    SinkFactory(MetricsRegistry registry) {
+
+        this.registry = HCCObjects.requireNonNull(registry, "registry can't be null");
+
+        for (var category : Category.values()) {
+            category2policy.put(category, category.defaultPolicy);
+        }
+    }
+
+    /**
+     * Set the policy for sinks created from now on.
+     *
+     * @param category Category to set the policy for.
+     * @param policy Policy to set, {@code null} to restore the default.
+     */
+    public synchronized void setPolicy(Category category, Policy policy) {
+
+        HCCObjects.requireNonNull(category, "category can't be null");
+        category2policy.put(category, policy == null ? category.defaultPolicy : policy);
+    }
+
+    public synchronized Policy getPolicy(Category category) {
+        return category2policy.get(HCCObjects.requireNonNull(category, "category can't be null"));
+    }
+
+    /**
+     * Create a sink for a single consumer.
+     *
+     * @param category Sink category.
+     * @param name Sink name, to use in logs and metrics.
+     *
+     * @return A bounded sink that buffers for its only consumer.
+     */
+    public <T> BoundedSink<T> unicast(Category category, String name) {
+        return unicast(category, name, null);
+    }
+
+    /**
+     * Create a sink for a single consumer.
+     *
+     * @param category Sink category.
+     * @param name Sink name, to use in logs and metrics.
+     * @param onDrop Called with every signal the overflow policy discards. May be {@code null}.
+     *
+     * @return A bounded sink that buffers for its only consumer.
+     */
+    public <T> BoundedSink<T> unicast(Category category, String name, Consumer<T> onDrop) {
+        return new BoundedSink<>(name, category, getPolicy(category), false, registry, onDrop);
+    }
+
+    /**
+     * Create a sink for multiple consumers.
+     *
+     * @param category Sink category.
+     * @param name Sink name, to use in logs and metrics.
+     *
+     * @return A bounded sink that buffers until the first consumer arrives, and then for the slowest one.
+     */
+    public <T> BoundedSink<T> multicast(Category category, String name) {
+        return multicast(category, name, null);
+    }
+
+    /**
+     * Create a sink for multiple consumers.
+     *
+     * @param category Sink category.
+     * @param name Sink name, to use in logs and metrics.
+     * @param onDrop Called with every signal the overflow policy discards. May be {@code null}.
+     *
+     * @return A bounded sink that buffers until the first consumer arrives, and then for the slowest one.
+     */
+    public <T> BoundedSink<T> multicast(Category category, String name, Consumer<T> onDrop) {
+        return new BoundedSink<>(name, category, getPolicy(category), true, registry, onDrop);
+    }
+}
@@ -0,0 +1,412 @@
+package net.sf.dz3r.counter;
+
+import net.sf.dz3r.common.DurationParser;
+import net.sf.dz3r.common.HCCObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Write-behind, crash consistent storage for {@link FileTimeUsageCounter}.
+ *
+ * States are not written as they come, but at most once per {@link #saveInterval}, and only the latest one.
+ * All instances share a single writer thread.
+ *
+ * The snapshot is never modified in place: it is written to a temporary file which is synced and then atomically
+ * moved over the old one, so a crash at any moment leaves either the old or the new snapshot behind.
+ *
+ * If the journal is enabled, the snapshot is only rewritten at startup, at shutdown, and when the journal grows
+ * past {@link #JOURNAL_LIMIT} records; in between, states are appended to the journal as one short line each.
+ * At startup, the journal is replayed and compacted into the snapshot. Incomplete last line, if any, is ignored.
+ *
+ * Pending states are written out on {@link #close()}, or at JVM shutdown for instances that weren't closed.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+class CounterStorage implements AutoCloseable {
+
+    /**
+     * Compact the journal into the snapshot when it gets this many records.
+     */
+    static final int JOURNAL_LIMIT = 1024;
+
+    private static final String CF_THRESHOLD = "threshold";
+    private static final String CF_CURRENT = "current";
+
+    /**
+     * The writer thread shared by all instances.
+     */
+    private static final Scheduler writer = Schedulers.newSingle("counter-writer", true);
+
+    /**
+     * Instances to {@link #close()} at JVM shutdown.
+     */
+    private static final Set<CounterStorage> open = createOpenSet();
+
+    private final Logger logger = LogManager.getLogger();
+    private final DurationParser durationParser = new DurationParser();
+
+    private final String marker;
+    private final Path snapshot;
+    private final Path temporary;
+    private final Path journal;
+    private final Duration saveInterval;
+    private final boolean journalEnabled;
+
+    private final AtomicReference<ResourceUsageCounter.State<Duration>> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Number of records in the journal. Only accessed from the {@link #writer} thread after {@link #load(Duration)}.
+     */
+    private int journalSize;
+
+    /**
+     * The last state appended to the journal. Only accessed from the {@link #writer} thread.
+     */
+    private ResourceUsageCounter.State<Duration> lastJournaled;
+
+    private static Set<CounterStorage> createOpenSet() {
+
+        Set<CounterStorage> result = ConcurrentHashMap.newKeySet();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> result.forEach(CounterStorage::close), "counter-shutdown"));
+
+        return result;
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param marker Marker to use when logging.
+     * @param storage Snapshot file.
+     * @param saveInterval Minimum interval between writes.
+     * @param journalEnabled {@code true} if states need to be appended to the journal rather than rewrite the snapshot.
+     */
+    CounterStorage(String marker, File storage, Duration saveInterval, boolean journalEnabled) {
+
+        this.marker = HCCObjects.requireNonNull(marker, "marker can't be null");
+        this.saveInterval = HCCObjects.requireNonNull(saveInterval, "saveInterval can't be null");
+
+        if (saveInterval.isNegative()) {
+            throw new IllegalArgumentException("saveInterval can't be negative: " + saveInterval);
+        }
+
+        this.snapshot = HCCObjects.requireNonNull(storage, "storage can't be null").toPath().toAbsolutePath();
+        this.temporary = sibling(".tmp");
+        this.journal = sibling(".journal");
+        this.journalEnabled = journalEnabled;
+
+        open.add(this);
+    }
+
+    private Path sibling(String suffix) {
+        return snapshot.resolveSibling(snapshot.getFileName() + suffix);
+    }
+
+    /**
+     * Read the snapshot, replay the journal on top of it, and compact the journal if there is one.
+     *
+     * @param defaultThreshold Threshold to use if there's no snapshot yet.
+     *
+     * @return Last known state.
+     */
+    ResourceUsageCounter.State<Duration> load(Duration defaultThreshold) throws IOException {
+
+        ThreadContext.push("load#" + marker);
+
+        try {
+
+            var state = readSnapshot(defaultThreshold);
+            var replayed = replayJournal(state);
+
+            if (replayed != null) {
+
+                logger.info("replayed journal, current {} => {}", state.current(), replayed.current());
+
+                writeSnapshot(replayed);
+                Files.delete(journal);
+                syncDirectory();
+
+                state = replayed;
+            }
+
+            return state;
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    private ResourceUsageCounter.State<Duration> readSnapshot(Duration defaultThreshold) throws IOException {
+
+        logger.info("reading from {}", snapshot);
+
+        var source = snapshot.toFile();
+
+        if (!source.exists()) {
+
+            // Older versions renamed the snapshot to this before rewriting it, and could've crashed in between
+            var backup = sibling("-").toFile();
+
+            if (!backup.exists()) {
+                logger.info("{} doesn't exist, will initialize with 0/{}", source, defaultThreshold);
+                return new ResourceUsageCounter.State<>(Duration.ZERO, defaultThreshold);
+            }
+
+            logger.warn("{} doesn't exist, recovering from {}", source, backup);
+            source = backup;
+        }
+
+        var p = new Properties();
+
+        try (var in = new FileInputStream(source)) {
+
+            p.load(in);
+
+            var thresholdString = p.getProperty(CF_THRESHOLD);
+            var currentString = p.getProperty(CF_CURRENT);
+
+            if (thresholdString == null) {
+                // Not fatal, just unusual
+                logger.warn("No '{}=NN' found in {}, assuming no threshold", CF_THRESHOLD, source);
+            }
+
+            if (currentString == null) {
+                // Fatal
+                throw new IllegalArgumentException("No '" + CF_CURRENT + "=NN' found in " + source);
+            }
+
+            var threshold = Optional.ofNullable(thresholdString).map(Duration::parse).orElse(Duration.ZERO);
+            var current = durationParser.parse(currentString);
+
+            return new ResourceUsageCounter.State<>(current, threshold);
+        }
+    }
+
+    /**
+     * Replay the journal.
+     *
+     * @return State after the last complete journal record, or {@code null} if there's no journal.
+     */
+    private ResourceUsageCounter.State<Duration> replayJournal(ResourceUsageCounter.State<Duration> state) throws IOException {
+
+        if (!Files.exists(journal)) {
+            return null;
+        }
+
+        var content = Files.readString(journal, StandardCharsets.UTF_8);
+        var current = state.current();
+        var records = 0;
+        var offset = 0;
+
+        while (true) {
+
+            var eol = content.indexOf('\n', offset);
+
+            if (eol < 0) {
+
+                if (offset < content.length()) {
+                    logger.warn("{}: ignoring incomplete last record: {}", journal, content.substring(offset));
+                }
+
+                break;
+            }
+
+            var line = content.substring(offset, eol).trim();
+            offset = eol + 1;
+
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            try {
+                current = Duration.parse(line);
+                records++;
+            } catch (DateTimeParseException ex) {
+                logger.warn("{}: ignoring malformed record: {}", journal, line);
+            }
+        }
+
+        logger.info("{}: {} records", journal, records);
+
+        return new ResourceUsageCounter.State<>(current, state.threshold());
+    }
+
+    /**
+     * Record the state. It will be written no sooner than {@link #saveInterval} from now, unless superseded.
+     *
+     * @param state State to record.
+     */
+    void save(ResourceUsageCounter.State<Duration> state) {
+
+        pending.set(state);
+
+        if (scheduled.compareAndSet(false, true)) {
+            writer.schedule(this::flush, saveInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+
+        // Must be cleared before taking the state, or a concurrent save() may not be written until the next one
+        scheduled.set(false);
+
+        var state = pending.getAndSet(null);
+
+        if (state != null) {
+            write(state, false);
+        }
+    }
+
+    /**
+     * Write the state.
+     *
+     * @param state State to write.
+     * @param compact {@code true} to write the snapshot and drop the journal even if it is not full yet.
+     */
+    private void write(ResourceUsageCounter.State<Duration> state, boolean compact) {
+
+        ThreadContext.push("save#" + marker);
+
+        try {
+
+            if (journalEnabled && !compact && journalSize < JOURNAL_LIMIT) {
+                appendJournal(state);
+                return;
+            }
+
+            writeSnapshot(state);
+
+            if (journalSize > 0) {
+
+                Files.deleteIfExists(journal);
+                syncDirectory();
+
+                journalSize = 0;
+                lastJournaled = null;
+            }
+
+        } catch (IOException ex) {
+            // VT: NOTE: Nothing we can do about it now, let's pester the user with error logs,
+            // they're bound to notice eventually
+            logger.error("can't save to {}", snapshot, ex);
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    private void appendJournal(ResourceUsageCounter.State<Duration> state) throws IOException {
+
+        try (var out = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+
+            out.write(ByteBuffer.wrap((state.current() + "\n").getBytes(StandardCharsets.UTF_8)));
+            out.force(false);
+        }
+
+        journalSize++;
+        lastJournaled = state;
+
+        logger.debug("journaled to {}", journal);
+    }
+
+    private void writeSnapshot(ResourceUsageCounter.State<Duration> state) throws IOException {
+
+        try (var out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            out.write(ByteBuffer.wrap(render(state).getBytes(StandardCharsets.UTF_8)));
+            out.force(true);
+        }
+
+        try {
+            Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            logger.warn("{}: atomic move not supported, falling back to replace", snapshot);
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        syncDirectory();
+        logger.debug("saved to {}", snapshot);
+    }
+
+    /**
+     * Make the rename durable. Not all platforms allow this, it's fine if it fails.
+     */
+    private void syncDirectory() {
+
+        try (var dir = FileChannel.open(snapshot.getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ex) {
+            logger.trace("can't sync {}", snapshot.getParent(), ex);
+        }
+    }
+
+    private String render(ResourceUsageCounter.State<Duration> state) {
+
+        var usage = state.threshold().toMillis() == 0
+                ? 0
+                : (double) state.current().toMillis() / (double) state.threshold().toMillis();
+
+        var sb = new StringBuilder();
+
+        sb.append("# Resource Usage Counter: ").append(marker).append('\n');
+        sb.append("#\n");
+        sb.append(String.format("# Relative usage %2.0f%%", usage * 100)).append(usage > 1 ? " (OVERDUE)" : "").append('\n');
+        sb.append("#\n");
+        sb.append("# " + CF_THRESHOLD + "=").append(FileTimeUsageCounter.getHumanReadableTime(state.threshold())).append('\n');
+        sb.append("# " + CF_CURRENT + "=").append(FileTimeUsageCounter.getHumanReadableTime(state.current())).append('\n');
+        sb.append("#\n");
+        sb.append(CF_THRESHOLD + "=").append(state.threshold()).append('\n');
+        sb.append(CF_CURRENT + "=").append(state.current()).append('\n');
+
+        return sb.toString();
+    }
+
+    /**
+     * Write the pending state, if any, and compact the journal, if any. Blocks until done.
+     */
+    @Override
+    public void close() {
+
+        if (!open.remove(this)) {
+            return;
+        }
+
+        Mono
+                .fromRunnable(() -> {
+
+                    var state = Optional.ofNullable(pending.getAndSet(null)).orElse(lastJournaled);
+
+                    if (state != null) {
+                        write(state, true);
+                    }
+                })
+                .subscribeOn(writer)
+                .block();
+    }
+}
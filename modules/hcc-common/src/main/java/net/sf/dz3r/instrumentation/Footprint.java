@@ -0,0 +1,114 @@
+package net.sf.dz3r.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+
+/**
+ * Memory footprint probes - allocation by the current thread, and heap retained after garbage collection.
+ *
+ * Used by soak runs and allocation regression tests to tell a steady state from a slow leak that would only
+ * show up after weeks of uptime.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class Footprint {
+
+    /**
+     * Number of collections {@link #getRetainedHeap()} asks for before sampling.
+     * One is not always enough for finalizable and weakly reachable objects to go away.
+     */
+    private static final int SETTLE_PASSES = 3;
+
+    private Footprint() {
+
+    }
+
+    /**
+     * @return {@code true} if the JVM can count bytes allocated per thread.
+     */
+    public static boolean isAllocationCounted() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx
+                && mx.isThreadAllocatedMemorySupported()
+                && mx.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread so far.
+     *
+     * Only the difference between two calls on the same thread is meaningful.
+     *
+     * @return Bytes allocated by the current thread since it started.
+     *
+     * @throws IllegalStateException if the JVM doesn't {@link #isAllocationCounted() count} allocations.
+     */
+    public static long getAllocatedBytes() {
+
+        if (!isAllocationCounted()) {
+            throw new IllegalStateException("thread allocation counting is not supported or disabled");
+        }
+
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Get the number of bytes allocated by all live threads so far.
+     *
+     * Use this when the work being measured hops threads. Threads that terminate between two calls take their count
+     * with them, so the difference may be smaller than the actual allocation, but never larger.
+     *
+     * @return Bytes allocated by all live threads since they started.
+     *
+     * @throws IllegalStateException if the JVM doesn't {@link #isAllocationCounted() count} allocations.
+     */
+    public static long getTotalAllocatedBytes() {
+
+        if (!isAllocationCounted()) {
+            throw new IllegalStateException("thread allocation counting is not supported or disabled");
+        }
+
+        var mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var result = 0L;
+
+        for (var allocated : mx.getThreadAllocatedBytes(mx.getAllThreadIds())) {
+            // -1 for threads that are gone by now
+            result += Math.max(allocated, 0);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return Heap used after the last collection, or current heap usage if there was no collection yet.
+     */
+    public static long getPostGcHeap() {
+
+        var result = 0L;
+
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+
+            var usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+
+            if (usage != null) {
+                result += usage.getUsed();
+            }
+        }
+
+        return result > 0 ? result : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Collect the garbage, and then get the heap that survived.
+     *
+     * This is expensive, and is a hint to the JVM at best - compare samples taken far apart, never adjacent ones.
+     *
+     * @return Heap used after an explicitly requested collection.
+     */
+    public static long getRetainedHeap() {
+
+        for (var pass = 0; pass < SETTLE_PASSES; pass++) {
+            System.gc(); // NOSONAR Forcing the collection is the whole point
+        }
+
+        return getPostGcHeap();
+    }
+}
@@ -0,0 +1,50 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * CQRS device executed a command.
+ *
+ * Duration event: {@link #begin()} before the command execution, {@link #end(String, Object, int)} after it.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Name("hcc.DeviceCommand")
+@Label("Device Command")
+@Category({"HCC", "Device"})
+@Description("CQRS device executed a command")
+@Enabled(false)
+@StackTrace(false)
+public class DeviceCommandEvent extends Event {
+
+    @Label("Device")
+    String device;
+
+    @Label("Command")
+    String command;
+
+    @Label("Queue Depth")
+    @Description("Commands accepted, but not yet executed")
+    int queueDepth;
+
+    /**
+     * Finish and record the event, if enabled.
+     */
+    public void end(String device, Object command, int queueDepth) {
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        this.device = device;
+        this.command = String.valueOf(command);
+        this.queueDepth = queueDepth;
+        commit();
+    }
+}
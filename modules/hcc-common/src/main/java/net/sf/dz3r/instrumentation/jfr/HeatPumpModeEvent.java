@@ -0,0 +1,51 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Heat pump changed its operating mode.
+ *
+ * Duration event, covers the whole mode change sequence including the condenser shutdown and settle delay, if any:
+ * {@link #begin()} when the sequence starts, {@link #end(String, Object, boolean)} when it completes.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Name("hcc.HeatPumpMode")
+@Label("Heat Pump Mode Change")
+@Category({"HCC", "Device"})
+@Description("Heat pump changed its operating mode")
+@Enabled(false)
+@StackTrace(false)
+public class HeatPumpModeEvent extends Event {
+
+    @Label("Device")
+    String device;
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Delayed")
+    @Description("Whether the condenser had to be stopped and allowed to settle first")
+    boolean delayed;
+
+    /**
+     * Finish and record the event, if enabled.
+     */
+    public void end(String device, Object mode, boolean delayed) {
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        this.device = device;
+        this.mode = String.valueOf(mode);
+        this.delayed = delayed;
+        commit();
+    }
+}
@@ -0,0 +1,62 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * MQTT message published or received.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Name("hcc.MqttMessage")
+@Label("MQTT Message")
+@Category({"HCC", "MQTT"})
+@Description("MQTT message published or received")
+@Enabled(false)
+@StackTrace(false)
+public class MqttMessageEvent extends Event {
+
+    public static final String PUBLISH = "publish";
+    public static final String RECEIVE = "receive";
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Topic")
+    String topic;
+
+    @Label("Length")
+    @Description("Payload length, in characters")
+    int length;
+
+    /**
+     * Record the event, if enabled.
+     *
+     * @param direction {@link #PUBLISH} or {@link #RECEIVE}.
+     * @param endpoint Broker endpoint.
+     * @param topic Message topic.
+     * @param length Payload length, in characters.
+     */
+    public static void record(String direction, Object endpoint, String topic, int length) {
+
+        var event = new MqttMessageEvent();
+
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.direction = direction;
+        event.endpoint = String.valueOf(endpoint);
+        event.topic = topic;
+        event.length = length;
+        event.commit();
+    }
+}
@@ -0,0 +1,59 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Zone moved from one schedule period to another.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Name("hcc.ScheduleTransition")
+@Label("Schedule Transition")
+@Category({"HCC", "Schedule"})
+@Description("Zone moved from one schedule period to another")
+@Enabled(false)
+@StackTrace(false)
+public class ScheduleTransitionEvent extends Event {
+
+    @Label("Zone")
+    String zone;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("On Hold")
+    @Description("Zone is on hold, the period is recorded, but the settings are left alone")
+    boolean onHold;
+
+    /**
+     * Record the event, if enabled.
+     *
+     * @param zone Zone name.
+     * @param from Period name the zone was at, {@code null} if none.
+     * @param to Period name the zone is now at, {@code null} if none.
+     * @param onHold Whether the zone is on hold.
+     */
+    public static void record(String zone, String from, String to, boolean onHold) {
+
+        var event = new ScheduleTransitionEvent();
+
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.zone = zone;
+        event.from = from;
+        event.to = to;
+        event.onHold = onHold;
+        event.commit();
+    }
+}
@@ -0,0 +1,71 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Sensor signal arrived from a driver.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Name("hcc.SensorSignal")
+@Label("Sensor Signal")
+@Category({"HCC", "Signal"})
+@Description("Sensor signal arrived from a driver")
+@Enabled(false)
+@StackTrace(false)
+public class SensorSignalEvent extends Event {
+
+    private static final Clock clock = Clock.systemUTC();
+
+    @Label("Driver")
+    String driver;
+
+    @Label("Sensor")
+    String sensor;
+
+    @Label("Value")
+    double value;
+
+    @Label("Error")
+    boolean error;
+
+    @Label("Age")
+    @Description("Time between the signal timestamp and its arrival")
+    @Timespan(Timespan.MILLISECONDS)
+    long age;
+
+    /**
+     * Record the event, if enabled.
+     *
+     * @param driver Driver name.
+     * @param sensor Sensor address or ID.
+     * @param timestamp Signal timestamp.
+     * @param value Signal value. Anything but a number is recorded as {@code NaN}.
+     * @param error {@code true} if the signal is an error signal.
+     */
+    public static void record(String driver, String sensor, Instant timestamp, Object value, boolean error) {
+
+        var event = new SensorSignalEvent();
+
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.driver = driver;
+        event.sensor = sensor;
+        event.value = value instanceof Number n ? n.doubleValue() : Double.NaN;
+        event.error = error;
+        event.age = clock.millis() - timestamp.toEpochMilli();
+        event.commit();
+    }
+}
@@ -0,0 +1,58 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Unit controller issued a command to the HVAC device.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Name("hcc.UnitCommand")
+@Label("Unit Command")
+@Category({"HCC", "Control"})
+@Description("Unit controller issued a command to the HVAC device")
+@Enabled(false)
+@StackTrace(false)
+public class UnitCommandEvent extends Event {
+
+    @Label("Unit")
+    String unit;
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Demand")
+    double demand;
+
+    @Label("Fan Speed")
+    double fanSpeed;
+
+    /**
+     * Record the event, if enabled.
+     *
+     * @param unit Unit name.
+     * @param mode Requested mode, {@code null} if unchanged.
+     * @param demand Requested demand, {@code null} if unchanged (recorded as {@code NaN}).
+     * @param fanSpeed Requested fan speed, {@code null} if unchanged (recorded as {@code NaN}).
+     */
+    public static void record(String unit, Object mode, Double demand, Double fanSpeed) {
+
+        var event = new UnitCommandEvent();
+
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.unit = unit;
+        event.mode = mode == null ? null : mode.toString();
+        event.demand = demand == null ? Double.NaN : demand;
+        event.fanSpeed = fanSpeed == null ? Double.NaN : fanSpeed;
+        event.commit();
+    }
+}
@@ -0,0 +1,54 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Zone controller computed the unit demand.
+ *
+ * Duration event: {@link #begin()} before the computation, {@link #end(String, double, int, int)} after it.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Name("hcc.ZoneCompute")
+@Label("Zone Compute")
+@Category({"HCC", "Control"})
+@Description("Zone controller computed the unit demand")
+@Enabled(false)
+@StackTrace(false)
+public class ZoneComputeEvent extends Event {
+
+    @Label("Zone")
+    @Description("Zone whose signal triggered the computation")
+    String zone;
+
+    @Label("Demand")
+    double demand;
+
+    @Label("Unhappy")
+    int unhappy;
+
+    @Label("Unhappy Voting")
+    int unhappyVoting;
+
+    /**
+     * Finish and record the event, if enabled.
+     */
+    public void end(String zone, double demand, int unhappy, int unhappyVoting) {
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        this.zone = zone;
+        this.demand = demand;
+        this.unhappy = unhappy;
+        this.unhappyVoting = unhappyVoting;
+        commit();
+    }
+}
@@ -0,0 +1,41 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonically increasing counter.
+ *
+ * Updates are contention free and never block.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class Counter extends Metric {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name, String labels) {
+        super(name, labels);
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counters can't go down, amount=" + amount);
+        }
+
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    void write(StringBuilder sb) {
+        writeSample(sb, name, "_total", labels, value.sum());
+    }
+}
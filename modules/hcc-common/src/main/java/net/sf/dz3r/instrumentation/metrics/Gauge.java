@@ -0,0 +1,40 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Gauge reading its value from the owner at scrape time.
+ *
+ * The supplier is called on the scraping thread, it must be fast and must not block
+ * (reading an atomic or a volatile field is the intended use).
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class Gauge extends Metric {
+
+    private final DoubleSupplier supplier;
+
+    Gauge(String name, String labels, DoubleSupplier supplier) {
+        super(name, labels);
+        this.supplier = supplier;
+    }
+
+    public double get() {
+        return supplier.getAsDouble();
+    }
+
+    @Override
+    void write(StringBuilder sb) {
+
+        double value;
+
+        try {
+            value = supplier.getAsDouble();
+        } catch (RuntimeException ex) {
+            // The owner is in no state to report; absence of a sample is the correct way to say it
+            return;
+        }
+
+        writeSample(sb, name, "", labels, value);
+    }
+}
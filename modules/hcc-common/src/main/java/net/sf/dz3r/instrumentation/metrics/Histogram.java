@@ -0,0 +1,98 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram with fixed bucket boundaries.
+ *
+ * Updates are contention free and never block.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class Histogram extends Metric {
+
+    /**
+     * Upper bucket boundaries, inclusive, ascending. The implicit {@code +Inf} bucket is not included.
+     */
+    private final double[] bounds;
+
+    /**
+     * Rendered labels for each bucket, including the {@code le} label.
+     */
+    private final String[] bucketLabels;
+
+    /**
+     * Non-cumulative bucket counts, the last one is the {@code +Inf} bucket.
+     */
+    private final LongAdder[] counts;
+
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(String name, String labels, double[] bounds) {
+        super(name, labels);
+
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("need at least one bucket");
+        }
+
+        for (var offset = 1; offset < bounds.length; offset++) {
+            if (bounds[offset] <= bounds[offset - 1]) {
+                throw new IllegalArgumentException("bucket boundaries must be ascending: " + Arrays.toString(bounds));
+            }
+        }
+
+        this.bounds = bounds.clone();
+        this.bucketLabels = new String[bounds.length + 1];
+        this.counts = new LongAdder[bounds.length + 1];
+
+        for (var offset = 0; offset <= bounds.length; offset++) {
+
+            var le = new StringBuilder();
+
+            if (offset < bounds.length) {
+                writeValue(le, bounds[offset]);
+            } else {
+                le.append("+Inf");
+            }
+
+            bucketLabels[offset] = MetricsRegistry.renderLabels(labels, "le", le.toString());
+            counts[offset] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+
+        var offset = Arrays.binarySearch(bounds, value);
+
+        // Not found: insertion point is the first boundary above the value, or bounds.length for +Inf
+        counts[offset >= 0 ? offset : -offset - 1].increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+
+        var result = 0L;
+
+        for (var c : counts) {
+            result += c.sum();
+        }
+
+        return result;
+    }
+
+    @Override
+    void write(StringBuilder sb) {
+
+        var cumulative = 0L;
+
+        for (var offset = 0; offset < counts.length; offset++) {
+            cumulative += counts[offset].sum();
+            writeSample(sb, name, "_bucket", bucketLabels[offset], cumulative);
+        }
+
+        writeSample(sb, name, "_count", labels, cumulative);
+        writeSample(sb, name, "_sum", labels, sum.sum());
+    }
+}
@@ -0,0 +1,184 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed memory log-linear latency histogram.
+ *
+ * Values are recorded in microseconds. Every power of two range is split into {@link #SUB_BUCKETS} linear sub-buckets,
+ * so the relative error of any reported value is within 1/{@link #SUB_BUCKETS}, and the memory footprint
+ * doesn't depend on either the number of values recorded or their spread.
+ *
+ * Recording never blocks and never allocates; reading may observe a recording in progress, which is fine for the purpose.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * Number of linear sub-buckets per power of two.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Largest value distinguishable from the rest, in microseconds (about 19 hours). Larger values are clamped to it.
+     */
+    public static final long MAX_VALUE = (1L << 36) - 1;
+
+    private static final int BUCKET_COUNT = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a value.
+     *
+     * @param latency Value to record. Negative values (which happen when clocks disagree) are recorded as zero.
+     */
+    public void record(Duration latency) {
+        recordMicros(latency.isNegative() ? 0 : toMicros(latency));
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param micros Value to record, in microseconds. Negative values are recorded as zero.
+     */
+    public void recordMicros(long micros) {
+
+        var value = Math.min(Math.max(micros, 0), MAX_VALUE);
+
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(max.get() * 1000);
+    }
+
+    /**
+     * Get the value at the given percentile.
+     *
+     * @param percentile Percentile, {@code 0 < percentile <= 100}.
+     *
+     * @return The highest value equivalent to the value at the given percentile (never more than {@link #getMax()}),
+     * or {@link Duration#ZERO} if nothing was recorded yet.
+     */
+    public Duration getPercentile(double percentile) {
+
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile out of (0, 100] range: " + percentile);
+        }
+
+        var total = 0L;
+        var counts = new long[BUCKET_COUNT];
+
+        for (var offset = 0; offset < BUCKET_COUNT; offset++) {
+            counts[offset] = buckets.get(offset);
+            total += counts[offset];
+        }
+
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+
+        var rank = (long) Math.ceil(total * percentile / 100);
+        var seen = 0L;
+
+        for (var offset = 0; offset < BUCKET_COUNT; offset++) {
+
+            seen += counts[offset];
+
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(highestEquivalent(offset), max.get()) * 1000);
+            }
+        }
+
+        // Can only get here if a value was recorded between the two loops
+        return getMax();
+    }
+
+    /**
+     * Get the summary.
+     *
+     * @return Count, p50, p90, p99 and max.
+     */
+    public Summary getSummary() {
+        return new Summary(getCount(), getPercentile(50), getPercentile(90), getPercentile(99), getMax());
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+
+        for (var offset = 0; offset < BUCKET_COUNT; offset++) {
+            buckets.set(offset, 0);
+        }
+
+        count.reset();
+        max.reset();
+    }
+
+    static int index(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        var shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        // (value >> shift) is in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return (int) (SUB_BUCKETS * (shift + 1) + (value >> shift) - SUB_BUCKETS);
+    }
+
+    static long highestEquivalent(int index) {
+
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        var shift = index / SUB_BUCKETS - 1;
+        var top = (long) index % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((top + 1) << shift) - 1;
+    }
+
+    private static long toMicros(Duration d) {
+        try {
+            return d.toNanos() / 1000;
+        } catch (ArithmeticException ex) {
+            return MAX_VALUE;
+        }
+    }
+
+    /**
+     * Latency summary.
+     *
+     * @param count Number of values recorded.
+     * @param p50 Median.
+     * @param p90 90th percentile.
+     * @param p99 99th percentile.
+     * @param max Maximum recorded value.
+     */
+    public record Summary(
+            long count,
+            Duration p50,
+            Duration p90,
+            Duration p99,
+            Duration max
+    ) {
+
+    }
+}
@@ -0,0 +1,64 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+/**
+ * Base class for metrics that can be {@link MetricsRegistry registered} and exposed.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public abstract class Metric {
+
+    /**
+     * Metric family name.
+     */
+    public final String name;
+
+    /**
+     * Rendered label set, including the braces, or empty string if there are no labels.
+     *
+     * Rendered once so that scrapes don't have to.
+     */
+    final String labels;
+
+    protected Metric(String name, String labels) {
+        this.name = name;
+        this.labels = labels;
+    }
+
+    /**
+     * Write the samples for this metric in OpenMetrics text format.
+     *
+     * Implementations must not block, and should not allocate more than necessary.
+     *
+     * @param sb Buffer to write to.
+     */
+    abstract void write(StringBuilder sb);
+
+    /**
+     * Write a single sample line.
+     *
+     * @param sb Buffer to write to.
+     * @param suffix Sample name suffix, like {@code _total}, or empty string.
+     * @param labels Rendered labels.
+     * @param value Sample value.
+     */
+    static void writeSample(StringBuilder sb, String name, String suffix, String labels, double value) {
+
+        sb.append(name).append(suffix).append(labels).append(' ');
+        writeValue(sb, value);
+        sb.append('\n');
+    }
+
+    static void writeValue(StringBuilder sb, double value) {
+
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            // Avoid the trailing ".0" for the most common case
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of runtime metrics, exposed in <a href="https://openmetrics.io/">OpenMetrics</a> text format.
+ *
+ * Components register their metrics with {@link #getInstance() the shared instance} once, and update them
+ * as they go; updates never block. {@link #scrape()} only reads current values, and doesn't interfere with updates.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class MetricsRegistry {
+
+    /**
+     * Content type to serve {@link #scrape()} output with.
+     */
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL_NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private static final MetricsRegistry instance = createShared();
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final Map<String, Family> name2family = new ConcurrentSkipListMap<>();
+
+    /**
+     * Reused between scrapes.
+     */
+    private final StringBuilder scrapeBuffer = new StringBuilder(4096);
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    private static MetricsRegistry createShared() {
+
+        var result = new MetricsRegistry();
+
+        var threads = ManagementFactory.getThreadMXBean();
+
+        result.gauge("hcc_jvm_threads", "Live JVM threads.", threads::getThreadCount);
+        result.gauge(
+                "hcc_reactor_scheduler_workers", "Reactor scheduler workers, busy and idle.",
+                () -> scan(Schedulers.boundedElastic(), Scannable.Attr.BUFFERED),
+                "scheduler", "boundedElastic");
+        result.gauge(
+                "hcc_reactor_scheduler_capacity", "Reactor scheduler worker limit.",
+                () -> scan(Schedulers.boundedElastic(), Scannable.Attr.CAPACITY),
+                "scheduler", "boundedElastic");
+
+        return result;
+    }
+
+    private static double scan(Object target, Scannable.Attr<Integer> attr) {
+
+        var value = Scannable.from(target).scan(attr);
+        return value == null ? Double.NaN : value;
+    }
+
+    /**
+     * Get or create a counter.
+     *
+     * @param name Metric family name, without the {@code _total} suffix.
+     * @param help Metric family description.
+     * @param labels Label names and values, alternating.
+     *
+     * @return Counter, shared with other callers asking for the same name and labels.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) register(name, Type.COUNTER, help, labels, rendered -> new Counter(name, rendered), false);
+    }
+
+    /**
+     * Register a gauge, replacing a gauge with the same name and labels, if any.
+     *
+     * @param name Metric family name.
+     * @param help Metric family description.
+     * @param supplier Value supplier. Called at scrape time, must not block.
+     * @param labels Label names and values, alternating.
+     *
+     * @return The gauge, to {@link #unregister(Metric)} when the owner goes away.
+     */
+    public Gauge gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        return (Gauge) register(name, Type.GAUGE, help, labels, rendered -> new Gauge(name, rendered, supplier), true);
+    }
+
+    /**
+     * Get or create a histogram.
+     *
+     * @param name Metric family name.
+     * @param help Metric family description.
+     * @param bounds Upper bucket boundaries, ascending. {@code +Inf} is implied.
+     * @param labels Label names and values, alternating.
+     *
+     * @return Histogram, shared with other callers asking for the same name and labels.
+     */
+    public Histogram histogram(String name, String help, double[] bounds, String... labels) {
+        return (Histogram) register(name, Type.HISTOGRAM, help, labels, rendered -> new Histogram(name, rendered, bounds), false);
+    }
+
+    private Metric register(String name, Type type, String help, String[] labels, Function<String, Metric> factory, boolean replace) {
+
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("invalid metric name: " + name);
+        }
+
+        var rendered = renderLabels(labels);
+        var family = name2family.computeIfAbsent(name, k -> new Family(type, help));
+
+        if (family.type != type) {
+            throw new IllegalArgumentException(name + ": already registered as " + family.type + ", can't register as " + type);
+        }
+
+        if (replace) {
+            var metric = factory.apply(rendered);
+            family.labels2metric.put(rendered, metric);
+            return metric;
+        }
+
+        return family.labels2metric.computeIfAbsent(rendered, factory);
+    }
+
+    /**
+     * Remove the metric from the registry. Does nothing if it was already removed or replaced.
+     *
+     * @param metric Metric to remove.
+     */
+    public void unregister(Metric metric) {
+
+        var family = name2family.get(metric.name);
+
+        if (family != null) {
+            family.labels2metric.remove(metric.labels, metric);
+        }
+    }
+
+    /**
+     * Render all registered metrics.
+     *
+     * @return All metrics in OpenMetrics text format, including the terminating {@code # EOF}.
+     */
+    public synchronized String scrape() {
+
+        var sb = scrapeBuffer;
+        sb.setLength(0);
+
+        for (var kv : name2family.entrySet()) {
+
+            var family = kv.getValue();
+
+            if (family.labels2metric.isEmpty()) {
+                continue;
+            }
+
+            var name = kv.getKey();
+
+            sb.append("# TYPE ").append(name).append(' ').append(family.type.text).append('\n');
+            sb.append("# HELP ").append(name).append(' ');
+            escape(sb, family.help, false);
+            sb.append('\n');
+
+            for (var metric : family.labels2metric.values()) {
+                metric.write(sb);
+            }
+        }
+
+        sb.append("# EOF\n");
+
+        logger.trace("scrape: {} bytes", sb.length());
+
+        return sb.toString();
+    }
+
+    /**
+     * Render the label set.
+     *
+     * @param labels Label names and values, alternating.
+     *
+     * @return Rendered label set, or empty string if there are no labels.
+     */
+    static String renderLabels(String... labels) {
+
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must come in name/value pairs");
+        }
+
+        if (labels.length == 0) {
+            return "";
+        }
+
+        var sb = new StringBuilder("{");
+
+        for (var offset = 0; offset < labels.length; offset += 2) {
+
+            if (!LABEL_NAME.matcher(labels[offset]).matches()) {
+                throw new IllegalArgumentException("invalid label name: " + labels[offset]);
+            }
+
+            if (offset > 0) {
+                sb.append(',');
+            }
+
+            sb.append(labels[offset]).append("=\"");
+            escape(sb, labels[offset + 1], true);
+            sb.append('"');
+        }
+
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Add a label to an already rendered label set.
+     */
+    static String renderLabels(String rendered, String name, String value) {
+
+        var extra = renderLabels(name, value);
+
+        return rendered.isEmpty() ? extra : rendered.substring(0, rendered.length() - 1) + "," + extra.substring(1);
+    }
+
+    private static void escape(StringBuilder sb, String source, boolean quotes) {
+
+        for (var offset = 0; offset < source.length(); offset++) {
+
+            var c = source.charAt(offset);
+
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '"' -> sb.append(quotes ? "\\\"" : "\"");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    private enum Type {
+
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        HISTOGRAM("histogram");
+
+        final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static class Family {
+
+        final Type type;
+        final String help;
+        final Map<String, Metric> labels2metric = new ConcurrentSkipListMap<>();
+
+        Family(Type type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+}
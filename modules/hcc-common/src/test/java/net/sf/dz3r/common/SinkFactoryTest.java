@@ -0,0 +1,131 @@
+package net.sf.dz3r.common;
+
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SinkFactoryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final SinkFactory factory = new SinkFactory(registry);
+
+    @Test
+    void defaults() {
+
+        for (var category : SinkFactory.Category.values()) {
+            assertThat(factory.getPolicy(category)).isEqualTo(category.defaultPolicy);
+        }
+    }
+
+    @Test
+    void setPolicy() {
+
+        var policy = new SinkFactory.Policy(3, SinkFactory.Overflow.FAIL);
+
+        factory.setPolicy(SinkFactory.Category.STATE, policy);
+        assertThat(factory.<Integer>unicast(SinkFactory.Category.STATE, "s").getPolicy()).isEqualTo(policy);
+
+        factory.setPolicy(SinkFactory.Category.STATE, null);
+        assertThat(factory.getPolicy(SinkFactory.Category.STATE)).isEqualTo(SinkFactory.Category.STATE.defaultPolicy);
+    }
+
+    @Test
+    void invalidPolicy() {
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new SinkFactory.Policy(0, SinkFactory.Overflow.FAIL));
+        assertThatIllegalArgumentException().isThrownBy(() -> new SinkFactory.Policy(1, null));
+    }
+
+    @Test
+    void dropOldest() {
+
+        factory.setPolicy(SinkFactory.Category.CONTROL, new SinkFactory.Policy(3, SinkFactory.Overflow.DROP_OLDEST));
+
+        var sink = factory.<Integer>unicast(SinkFactory.Category.CONTROL, "drop-oldest");
+
+        // Nobody is listening yet, everything is buffered
+        for (var value = 1; value <= 5; value++) {
+            assertThat(sink.tryEmitNext(value)).isEqualTo(Sinks.EmitResult.OK);
+        }
+
+        sink.tryEmitComplete();
+
+        StepVerifier
+                .create(sink.asFlux())
+                .expectNext(3, 4, 5)
+                .verifyComplete();
+
+        assertThat(sink.getOverflows()).isEqualTo(2);
+        assertThat(registry.scrape()).contains("hcc_sink_overflows_total{category=\"control\",sink=\"drop-oldest\"} 2");
+    }
+
+    @Test
+    void latestWins() {
+
+        factory.setPolicy(SinkFactory.Category.COMMAND, new SinkFactory.Policy(3, SinkFactory.Overflow.LATEST_WINS));
+
+        var dropped = new ArrayList<Integer>();
+        var sink = factory.<Integer>unicast(SinkFactory.Category.COMMAND, "latest-wins", dropped::add);
+
+        for (var value = 1; value <= 5; value++) {
+            assertThat(sink.tryEmitNext(value)).isEqualTo(Sinks.EmitResult.OK);
+        }
+
+        sink.tryEmitComplete();
+
+        StepVerifier
+                .create(sink.asFlux())
+                .expectNext(4, 5)
+                .verifyComplete();
+
+        assertThat(sink.getOverflows()).isEqualTo(1);
+        assertThat(dropped).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void fail() {
+
+        factory.setPolicy(SinkFactory.Category.INPUT, new SinkFactory.Policy(2, SinkFactory.Overflow.FAIL));
+
+        var sink = factory.<Integer>unicast(SinkFactory.Category.INPUT, "fail");
+
+        assertThat(sink.tryEmitNext(1)).isEqualTo(Sinks.EmitResult.OK);
+        assertThat(sink.tryEmitNext(2)).isEqualTo(Sinks.EmitResult.OK);
+        assertThat(sink.tryEmitNext(3)).isEqualTo(Sinks.EmitResult.FAIL_OVERFLOW);
+        assertThat(sink.tryEmitNext(4)).isEqualTo(Sinks.EmitResult.FAIL_TERMINATED);
+
+        StepVerifier
+                .create(sink.asFlux())
+                .thenConsumeWhile(v -> true)
+                .verifyErrorMatches(Exceptions::isOverflow);
+
+        assertThat(sink.getOverflows()).isEqualTo(1);
+    }
+
+    @Test
+    void multicast() {
+
+        var sink = factory.<Integer>multicast(SinkFactory.Category.STATE, "multicast");
+
+        var a = new ArrayList<Integer>();
+        var b = new ArrayList<Integer>();
+
+        sink.asFlux().subscribe(a::add);
+        sink.asFlux().subscribe(b::add);
+
+        sink.tryEmitNext(1);
+        sink.tryEmitNext(2);
+        sink.tryEmitComplete();
+
+        assertThat(a).containsExactly(1, 2);
+        assertThat(b).containsExactly(1, 2);
+        assertThat(sink.getBuffered()).isZero();
+    }
+}
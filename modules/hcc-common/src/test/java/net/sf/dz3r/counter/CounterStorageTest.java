@@ -0,0 +1,118 @@
+package net.sf.dz3r.counter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CounterStorageTest {
+
+    private static final Duration THRESHOLD = Duration.ofHours(200);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void roundtrip() throws IOException {
+
+        var target = root.resolve("counter");
+
+        try (var storage = new CounterStorage("roundtrip", target.toFile(), Duration.ofHours(1), false)) {
+
+            assertThat(storage.load(THRESHOLD)).isEqualTo(new ResourceUsageCounter.State<>(Duration.ZERO, THRESHOLD));
+
+            storage.save(new ResourceUsageCounter.State<>(Duration.ofMinutes(1), THRESHOLD));
+            storage.save(new ResourceUsageCounter.State<>(Duration.ofMinutes(2), THRESHOLD));
+
+            // Debounced, nothing is written for another hour
+            assertThat(target).doesNotExist();
+        }
+
+        // ...but close() writes the latest state out
+        assertThat(target).exists();
+        assertThat(root.resolve("counter.tmp")).doesNotExist();
+
+        try (var storage = new CounterStorage("roundtrip", target.toFile(), Duration.ofHours(1), false)) {
+            assertThat(storage.load(Duration.ofHours(1))).isEqualTo(new ResourceUsageCounter.State<>(Duration.ofMinutes(2), THRESHOLD));
+        }
+    }
+
+    @Test
+    void legacyBackup() throws IOException {
+
+        // Older versions could crash after renaming the snapshot to the backup, but before writing the new one
+        Files.writeString(root.resolve("counter-"), "threshold=PT10H\ncurrent=PT3H\n", StandardCharsets.UTF_8);
+
+        try (var storage = new CounterStorage("legacy", root.resolve("counter").toFile(), Duration.ZERO, false)) {
+            assertThat(storage.load(THRESHOLD)).isEqualTo(new ResourceUsageCounter.State<>(Duration.ofHours(3), Duration.ofHours(10)));
+        }
+    }
+
+    @Test
+    void journalReplay() throws IOException {
+
+        var target = root.resolve("counter");
+        var journal = root.resolve("counter.journal");
+
+        Files.writeString(target, "threshold=PT10H\ncurrent=PT1H\n", StandardCharsets.UTF_8);
+
+        // Last record torn by a crash
+        Files.writeString(journal, "PT1H30M\nPT2H\nPT2H3", StandardCharsets.UTF_8);
+
+        try (var storage = new CounterStorage("replay", target.toFile(), Duration.ZERO, true)) {
+
+            assertThat(storage.load(THRESHOLD)).isEqualTo(new ResourceUsageCounter.State<>(Duration.ofHours(2), Duration.ofHours(10)));
+
+            // Compacted at startup
+            assertThat(journal).doesNotExist();
+            assertThat(Files.readString(target, StandardCharsets.UTF_8)).contains("current=PT2H\n");
+        }
+    }
+
+    @Test
+    void journalCompactedOnClose() throws IOException, InterruptedException {
+
+        var target = root.resolve("counter");
+        var journal = root.resolve("counter.journal");
+
+        try (var storage = new CounterStorage("compact", target.toFile(), Duration.ZERO, true)) {
+
+            storage.load(THRESHOLD);
+
+            storage.save(new ResourceUsageCounter.State<>(Duration.ofMinutes(5), THRESHOLD));
+            awaitFlush(journal);
+
+            // Journaled, the snapshot wasn't touched
+            assertThat(target).doesNotExist();
+            assertThat(Files.readString(journal, StandardCharsets.UTF_8)).isEqualTo("PT5M\n");
+        }
+
+        assertThat(journal).doesNotExist();
+        assertThat(Files.readString(target, StandardCharsets.UTF_8)).contains("current=PT5M\n");
+    }
+
+    @Test
+    void negativeInterval() {
+
+        var target = root.resolve("counter").toFile();
+        var interval = Duration.ofSeconds(-1);
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new CounterStorage("negative", target, interval, false))
+                .withMessageStartingWith("saveInterval can't be negative");
+    }
+
+    private static void awaitFlush(Path target) throws IOException, InterruptedException {
+
+        for (var count = 0; count < 100 && !(Files.exists(target) && Files.size(target) > 0); count++) {
+            Thread.sleep(10);
+        }
+    }
+}
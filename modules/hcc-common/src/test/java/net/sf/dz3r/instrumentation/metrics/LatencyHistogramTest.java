@@ -0,0 +1,93 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class LatencyHistogramTest {
+
+    @Test
+    void empty() {
+
+        var h = new LatencyHistogram();
+
+        assertThat(h.getCount()).isZero();
+        assertThat(h.getPercentile(99)).isEqualTo(Duration.ZERO);
+        assertThat(h.getMax()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void indexContinuity() {
+
+        // Every value maps to a bucket whose range contains it, and buckets follow each other without gaps
+        var lastIndex = 0;
+
+        for (var value = 0L; value < 100_000; value++) {
+
+            var index = LatencyHistogram.index(value);
+
+            assertThat(index).isBetween(lastIndex, lastIndex + 1);
+            assertThat(LatencyHistogram.highestEquivalent(index)).isGreaterThanOrEqualTo(value);
+
+            lastIndex = index;
+        }
+    }
+
+    @Test
+    void percentiles() {
+
+        var h = new LatencyHistogram();
+
+        for (var ms = 1; ms <= 100; ms++) {
+            h.record(Duration.ofMillis(ms));
+        }
+
+        var summary = h.getSummary();
+
+        assertThat(summary.count()).isEqualTo(100);
+        assertWithin(summary.p50(), Duration.ofMillis(50));
+        assertWithin(summary.p90(), Duration.ofMillis(90));
+        assertWithin(summary.p99(), Duration.ofMillis(99));
+        assertThat(summary.max()).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void clamp() {
+
+        var h = new LatencyHistogram();
+
+        h.record(Duration.ofSeconds(-1));
+        h.record(Duration.ofDays(365));
+
+        assertThat(h.getPercentile(50)).isEqualTo(Duration.ZERO);
+        assertThat(h.getMax()).isEqualTo(Duration.ofNanos(LatencyHistogram.MAX_VALUE * 1000));
+    }
+
+    @Test
+    void reset() {
+
+        var h = new LatencyHistogram();
+
+        h.record(Duration.ofMillis(5));
+        h.reset();
+
+        assertThat(h.getCount()).isZero();
+        assertThat(h.getMax()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void invalidPercentile() {
+        var h = new LatencyHistogram();
+        assertThatIllegalArgumentException().isThrownBy(() -> h.getPercentile(0));
+    }
+
+    private static void assertWithin(Duration actual, Duration expected) {
+
+        // Reported value is the highest equivalent, never below the actual one, and within the bucket resolution above it
+        assertThat(actual).isGreaterThanOrEqualTo(expected);
+        assertThat(actual.toNanos()).isLessThanOrEqualTo(expected.toNanos() + expected.toNanos() / LatencyHistogram.SUB_BUCKETS);
+    }
+}
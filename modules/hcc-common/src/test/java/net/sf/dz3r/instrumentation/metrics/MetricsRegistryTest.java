@@ -0,0 +1,137 @@
+package net.sf.dz3r.instrumentation.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void empty() {
+        assertThat(registry.scrape()).isEqualTo("# EOF\n");
+    }
+
+    @Test
+    void counter() {
+
+        var a = registry.counter("hcc_test_events", "Test events.", "device", "a");
+        var b = registry.counter("hcc_test_events", "Test events.", "device", "b");
+
+        // Same name and labels, same counter
+        assertThat(registry.counter("hcc_test_events", "Test events.", "device", "a")).isSameAs(a);
+
+        a.increment();
+        a.add(2);
+        b.increment();
+
+        assertThat(registry.scrape()).isEqualTo("""
+                # TYPE hcc_test_events counter
+                # HELP hcc_test_events Test events.
+                hcc_test_events_total{device="a"} 3
+                hcc_test_events_total{device="b"} 1
+                # EOF
+                """);
+    }
+
+    @Test
+    void counterNegative() {
+
+        var c = registry.counter("hcc_test_events", "Test events.");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> c.add(-1));
+    }
+
+    @Test
+    void gauge() {
+
+        registry.gauge("hcc_test_level", "Test level.", () -> 0.5);
+        registry.gauge("hcc_test_broken", "Broken gauge.", () -> {
+            throw new IllegalStateException("not now");
+        });
+
+        assertThat(registry.scrape()).isEqualTo("""
+                # TYPE hcc_test_broken gauge
+                # HELP hcc_test_broken Broken gauge.
+                # TYPE hcc_test_level gauge
+                # HELP hcc_test_level Test level.
+                hcc_test_level 0.5
+                # EOF
+                """);
+    }
+
+    @Test
+    void histogram() {
+
+        var h = registry.histogram("hcc_test_latency_seconds", "Test latency.", new double[] { 0.5, 1 }, "stage", "x");
+
+        h.observe(0.25);
+        h.observe(0.5);
+        h.observe(0.75);
+        h.observe(5);
+
+        assertThat(h.getCount()).isEqualTo(4);
+        assertThat(registry.scrape()).isEqualTo("""
+                # TYPE hcc_test_latency_seconds histogram
+                # HELP hcc_test_latency_seconds Test latency.
+                hcc_test_latency_seconds_bucket{stage="x",le="0.5"} 2
+                hcc_test_latency_seconds_bucket{stage="x",le="1"} 3
+                hcc_test_latency_seconds_bucket{stage="x",le="+Inf"} 4
+                hcc_test_latency_seconds_count{stage="x"} 4
+                hcc_test_latency_seconds_sum{stage="x"} 6.5
+                # EOF
+                """);
+    }
+
+    @Test
+    void histogramBounds() {
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.histogram("hcc_test_bad", "Bad.", new double[] { 1, 1 }));
+    }
+
+    @Test
+    void escape() {
+
+        registry.counter("hcc_test_escape", "Help with \\ and\nnewline.", "path", "C:\\\"x\"\n");
+
+        assertThat(registry.scrape()).isEqualTo("""
+                # TYPE hcc_test_escape counter
+                # HELP hcc_test_escape Help with \\\\ and\\nnewline.
+                hcc_test_escape_total{path="C:\\\\\\"x\\"\\n"} 0
+                # EOF
+                """);
+    }
+
+    @Test
+    void invalidNames() {
+
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.counter("0bad", "Bad."));
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.counter("hcc_test", "Bad.", "bad-label", "x"));
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.counter("hcc_test", "Bad.", "odd"));
+    }
+
+    @Test
+    void typeConflict() {
+
+        registry.counter("hcc_test_conflict", "Counter.");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.gauge("hcc_test_conflict", "Gauge.", () -> 0));
+    }
+
+    @Test
+    void unregister() {
+
+        var old = registry.gauge("hcc_test_level", "Test level.", () -> 1, "device", "a");
+        var replacement = registry.gauge("hcc_test_level", "Test level.", () -> 2, "device", "a");
+
+        // The old owner going away must not take the replacement with it
+        registry.unregister(old);
+
+        assertThat(registry.scrape()).contains("hcc_test_level{device=\"a\"} 2");
+
+        registry.unregister(replacement);
+
+        assertThat(registry.scrape()).isEqualTo("# EOF\n");
+    }
+}
@@ -3,6 +3,8 @@ package net.sf.dz3r.runtime.config;
 import com.fasterxml.jackson.annotation.JsonRootName;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import net.sf.dz3r.runtime.config.cluster.ClusterConfig;
+import net.sf.dz3r.runtime.config.cluster.StandbyConfig;
 import net.sf.dz3r.runtime.config.connector.ConnectorConfig;
 import net.sf.dz3r.runtime.config.filter.FilterConfig;
 import net.sf.dz3r.runtime.config.hardware.HvacDeviceConfig;
@@ -10,6 +12,7 @@ import net.sf.dz3r.runtime.config.hardware.MockConfig;
 import net.sf.dz3r.runtime.config.hardware.UnitControllerConfig;
 import net.sf.dz3r.runtime.config.model.ConsoleConfig;
 import net.sf.dz3r.runtime.config.model.MeasurementUnits;
+import net.sf.dz3r.runtime.config.model.SinkConfig;
 import net.sf.dz3r.runtime.config.model.UnitDirectorConfig;
 import net.sf.dz3r.runtime.config.model.WebUiConfig;
 import net.sf.dz3r.runtime.config.model.ZoneConfig;
@@ -40,6 +43,9 @@ import java.util.Set;
  * @param directors Entities tying configuration details together.
  * @param webUi WebUI representation of the whole system.
  * @param console Console representation of the whole system.
+ * @param sinks Internal sink buffering policies.
+ * @param cluster Multi-node deployment configuration. Optional, everything runs in this process if absent.
+ * @param standby Active/passive failover configuration. Optional, this process is always active if absent.
  *
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
  */
@@ -61,5 +67,8 @@ public record HccRawConfig(
         Set<UnitControllerConfig> units,
         Set<UnitDirectorConfig> directors,
         WebUiConfig webUi,
-        ConsoleConfig console) {
+        ConsoleConfig console,
+        Set<SinkConfig> sinks,
+        ClusterConfig cluster,
+        StandbyConfig standby) {
 }
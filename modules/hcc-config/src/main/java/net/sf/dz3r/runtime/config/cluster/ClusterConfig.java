@@ -0,0 +1,25 @@
+package net.sf.dz3r.runtime.config.cluster;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import net.sf.dz3r.runtime.config.protocol.mqtt.MqttBrokerConfig;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Cluster configuration. Shared by all the nodes, except for {@link #node}.
+ *
+ * @param node This node identifier. Usually provided per process by the environment rather than the shared file.
+ * @param broker MQTT broker to exchange signals over. {@link MqttBrokerConfig#rootTopic()} is the cluster root topic.
+ * @param heartbeat Node status heartbeat interval. Optional, defaults to 30 seconds.
+ * @param nodes What runs where.
+ */
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+public record ClusterConfig(
+        String node,
+        MqttBrokerConfig broker,
+        Duration heartbeat,
+        Set<ClusterNodeConfig> nodes
+) {
+}
@@ -0,0 +1,22 @@
+package net.sf.dz3r.runtime.config.cluster;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import net.sf.dz3r.runtime.config.Identifiable;
+
+import java.util.Set;
+
+/**
+ * Cluster node configuration.
+ *
+ * @param id Node identifier. Must be a valid MQTT topic level.
+ * @param directors Unit directors to run on this node.
+ * @param sensors Sensors physically attached to this node, to be published for other nodes to consume.
+ */
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+public record ClusterNodeConfig(
+        String id,
+        Set<String> directors,
+        Set<String> sensors
+) implements Identifiable {
+}
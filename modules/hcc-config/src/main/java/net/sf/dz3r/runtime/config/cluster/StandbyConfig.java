@@ -0,0 +1,25 @@
+package net.sf.dz3r.runtime.config.cluster;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import net.sf.dz3r.runtime.config.protocol.mqtt.MqttBrokerConfig;
+
+import java.time.Duration;
+
+/**
+ * Active/passive failover configuration. Shared by both nodes of the pair, except for {@link #node}.
+ *
+ * @param node This node identifier. Usually provided per process by the environment rather than the shared file.
+ * @param broker MQTT broker to coordinate over. {@link MqttBrokerConfig#rootTopic()} is the pair root topic.
+ * @param heartbeat Lease renewal and state replication interval. Optional, defaults to 5 seconds.
+ * @param takeoverAfter The passive node takes over if the lease isn't renewed for this long. Optional, defaults to
+ * three heartbeats.
+ */
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+public record StandbyConfig(
+        String node,
+        MqttBrokerConfig broker,
+        Duration heartbeat,
+        Duration takeoverAfter
+) {
+}
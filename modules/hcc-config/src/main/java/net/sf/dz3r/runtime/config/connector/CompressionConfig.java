@@ -0,0 +1,26 @@
+package net.sf.dz3r.runtime.config.connector;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import net.sf.dz3r.signal.filter.CompressionSettings;
+
+import java.time.Duration;
+
+/**
+ * Exported time series compression configuration.
+ *
+ * @param method Compression method.
+ * @param absolute Absolute deviation, {@code 0} if missing.
+ * @param relative Relative deviation, {@code 0} if missing.
+ * @param maxGap Maximum time between exported samples, no limit if missing.
+ *
+ * @see CompressionSettings
+ */
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+public record CompressionConfig(
+        CompressionSettings.Method method,
+        Double absolute,
+        Double relative,
+        Duration maxGap
+) {
+}
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.annotation.JsonNaming;
 public record ConnectorConfig(
         HttpConnectorConfig http,
         InfluxCollectorConfig influx,
-        HomeAssistantConfig homeAssistant
+        HomeAssistantConfig homeAssistant,
+        RecorderConfig recorder
 ) {
 }
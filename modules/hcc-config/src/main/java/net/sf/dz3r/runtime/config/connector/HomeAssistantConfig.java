@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import net.sf.dz3r.runtime.config.Identifiable;
 import net.sf.dz3r.runtime.config.protocol.mqtt.MqttBrokerConfig;
 
+import java.time.Duration;
 import java.util.Set;
 
 /**
@@ -22,12 +23,16 @@ import java.util.Set;
  * @param broker MQTT broker configuration.
  * @param discoveryPrefix Optional, defaults to {@code homeassistant} (no leading slash).
  * @param zones Zones to expose to Home Assistant.
+ * @param pace Send different state messages for the same zone at most this often. Optional.
+ * @param heartbeat Send identical state messages for the same zone at least this often. Optional.
  */
 @JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
 public record HomeAssistantConfig(
         String id,
         MqttBrokerConfig broker,
         String discoveryPrefix,
-        Set<String> zones
+        Set<String> zones,
+        Duration pace,
+        Duration heartbeat
 ) implements HomeAssistantConfigParser, Identifiable {
 }
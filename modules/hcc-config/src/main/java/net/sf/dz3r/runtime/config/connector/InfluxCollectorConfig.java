@@ -14,6 +14,7 @@ public record InfluxCollectorConfig(
         String uri,
         String username,
         String password,
-        Map<String, String> sensorFeedMapping
+        Map<String, String> sensorFeedMapping,
+        CompressionConfig compression
 ) implements Identifiable {
 }
@@ -0,0 +1,15 @@
+package net.sf.dz3r.runtime.config.connector;
+
+import net.sf.dz3r.runtime.config.Identifiable;
+
+/**
+ * Signal recorder configuration.
+ *
+ * @param id Unique identifier.
+ * @param directory Directory to write the logs to, {@code $HOME/.dz/recordings} if missing.
+ */
+public record RecorderConfig(
+        String id,
+        String directory
+) implements Identifiable {
+}
@@ -1,5 +1,8 @@
 package net.sf.dz3r.runtime.config.hardware;
 
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
 import java.time.Duration;
 
 /**
@@ -8,8 +11,13 @@ import java.time.Duration;
  * Do not confuse with {@link net.sf.dz3r.runtime.config.filter.FilterConfig}.
  *
  * @param lifetime Time from the moment the filter is installed to the moment it needs to be replaced.
+ * @param saveInterval Minimum interval between writing the usage counter to disk.
+ * @param journal {@code true} to append usage to a journal instead of rewriting the counter file every time.
  */
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
 public record FilterConfig(
-        Duration lifetime
+        Duration lifetime,
+        Duration saveInterval,
+        Boolean journal
 ) {
 }
@@ -0,0 +1,22 @@
+package net.sf.dz3r.runtime.config.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Internal sink buffering policy for a category of sinks.
+ *
+ * @param category Sink category: {@code control}, {@code command}, {@code state}, {@code input},
+ * {@code instrumentation}, or {@code storage}.
+ * @param capacity Maximum number of signals buffered. Category default if omitted.
+ * @param overflow What to do when the buffer is full: {@code latest-wins}, {@code drop-oldest}, or {@code fail}.
+ * Category default if omitted.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@JsonNaming(PropertyNamingStrategies.KebabCaseStrategy.class)
+public record SinkConfig(
+        String category,
+        Integer capacity,
+        String overflow) {
+}
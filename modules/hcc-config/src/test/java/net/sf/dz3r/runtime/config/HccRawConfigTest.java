@@ -71,6 +71,9 @@ class HccRawConfigTest {
                 Set.of(),
                 Set.of(),
                 null,
+                null,
+                Set.of(),
+                null,
                 null);
 
         var objectMapper = getMapper();
@@ -1,9 +1,12 @@
 package net.sf.dz3r.instrumentation;
 
+import net.sf.dz3r.common.BoundedSink;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.device.actuator.CqrsSwitch;
 import net.sf.dz3r.device.actuator.HvacDevice;
 import net.sf.dz3r.scheduler.ScheduleUpdater;
 import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.cluster.NodeStatus;
 import net.sf.dz3r.signal.health.SystemStatus;
 import net.sf.dz3r.signal.hvac.HvacDeviceStatus;
 import net.sf.dz3r.view.Connector;
@@ -11,7 +14,6 @@ import net.sf.dz3r.view.MetricsCollector;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
@@ -19,6 +21,7 @@ import java.util.AbstractMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -36,6 +39,7 @@ public class InstrumentCluster {
     private final Flux<Map.Entry<String, Connector>> connectors;
     private final Flux<Map.Entry<String, MetricsCollector>> collectors;
     private final Flux<Map.Entry<String, HvacDevice>> hvacDevices;
+    private final Flux<Signal<NodeStatus, String>> nodes;
 
     private final Map<String, SensorStatusProcessor> sensorProcessors = new HashMap<>();
     private final Map<String, SwitchStatusProcessor> switchProcessors = new HashMap<>();
@@ -47,7 +51,12 @@ public class InstrumentCluster {
      */
     private final SystemStatus currentStatus = createEmptyStatus();
 
-    private final Sinks.Many<Signal<SystemStatus, Void>> statusSink = Sinks.many().multicast().onBackpressureBuffer();
+    private final BoundedSink<Signal<SystemStatus, Void>> statusSink = SinkFactory.getInstance().multicast(SinkFactory.Category.INSTRUMENTATION, "(status) InstrumentCluster");
+
+    /**
+     * Sources must be connected only once no matter how many times {@link #getFlux()} is called.
+     */
+    private final AtomicBoolean connected = new AtomicBoolean();
 
     public InstrumentCluster(
             Flux<Map.Entry<String, Flux<Signal<Double, Void>>>> sensors,
@@ -57,6 +66,23 @@ public class InstrumentCluster {
             Flux<Map.Entry<String, MetricsCollector>> collectors,
             Flux<Map.Entry<String, HvacDevice>> hvacDevices
             ) {
+        this(sensors, switches, schedule, connectors, collectors, hvacDevices, null);
+    }
+
+    /**
+     * Create an instance aware of other cluster nodes.
+     *
+     * @param nodes Cluster node status flux, with the node ID as the payload. {@code null} if this is not a cluster.
+     */
+    public InstrumentCluster(
+            Flux<Map.Entry<String, Flux<Signal<Double, Void>>>> sensors,
+            Flux<Map.Entry<String, CqrsSwitch<?>>> switches,
+            Flux<Map.Entry<String, ScheduleUpdater>> schedule,
+            Flux<Map.Entry<String, Connector>> connectors,
+            Flux<Map.Entry<String, MetricsCollector>> collectors,
+            Flux<Map.Entry<String, HvacDevice>> hvacDevices,
+            Flux<Signal<NodeStatus, String>> nodes
+            ) {
 
         this.sensors = sensors;
         this.switches = switches;
@@ -64,6 +90,7 @@ public class InstrumentCluster {
         this.connectors = connectors;
         this.collectors = collectors;
         this.hvacDevices = hvacDevices;
+        this.nodes = nodes == null ? Flux.empty() : nodes;
     }
 
     /**
@@ -72,19 +99,38 @@ public class InstrumentCluster {
      */
     public Flux<Signal<SystemStatus, Void>> getFlux() {
 
-        connectSensors();
-        connectSwitches();
+        if (connected.compareAndSet(false, true)) {
 
-        logger.error("FIXME: NOT IMPLEMENTED: getFlux(dampers)");
-        logger.error("FIXME: NOT IMPLEMENTED: getFlux(schedule)");
-        logger.error("FIXME: NOT IMPLEMENTED: getFlux(collectors)");
-        logger.error("FIXME: NOT IMPLEMENTED: getFlux(connectors)");
+            connectSensors();
+            connectSwitches();
 
-        connectHvacDevices();
+            logger.error("FIXME: NOT IMPLEMENTED: getFlux(dampers)");
+            logger.error("FIXME: NOT IMPLEMENTED: getFlux(schedule)");
+            logger.error("FIXME: NOT IMPLEMENTED: getFlux(collectors)");
+            logger.error("FIXME: NOT IMPLEMENTED: getFlux(connectors)");
+
+            connectHvacDevices();
+            connectNodes();
+        }
 
         return statusSink.asFlux();
     }
 
+    /**
+     * @return Copy of the accumulated system status. Only meaningful after {@link #getFlux()} was called.
+     */
+    public SystemStatus getStatus() {
+        synchronized (currentStatus) {
+            return new SystemStatus(
+                    new TreeMap<>(currentStatus.sensors()),
+                    new TreeMap<>(currentStatus.switches()),
+                    new TreeMap<>(currentStatus.hvacDevices()),
+                    new TreeMap<>(currentStatus.connectors()),
+                    new TreeMap<>(currentStatus.collectors()),
+                    new TreeMap<>(currentStatus.nodes()));
+        }
+    }
+
     private void connectSensors() {
         sensors
                 .map(kv -> {
@@ -104,7 +150,9 @@ public class InstrumentCluster {
                                 logger.debug("update/sensor: id={}, status={}", id, s);
 
                                 // Update the accumulated status
-                                currentStatus.sensors().put(id, s);
+                                synchronized (currentStatus) {
+                                    currentStatus.sensors().put(id, s);
+                                }
 
                                 // Send an incremental update
                                 var incrementalStatus = createEmptyStatus();
@@ -136,7 +184,9 @@ public class InstrumentCluster {
                                 logger.debug("update/switch: id={}, status={}", id, s);
 
                                 // Update the accumulated status
-                                currentStatus.switches().put(id, s);
+                                synchronized (currentStatus) {
+                                    currentStatus.switches().put(id, s);
+                                }
 
                                 // Send an incremental update
                                 var incrementalStatus = createEmptyStatus();
@@ -174,7 +224,9 @@ public class InstrumentCluster {
                                 logger.debug("update/hvacDevice: id={}, status={}", id, s);
 
                                 // Update the accumulated status
-                                currentStatus.hvacDevices().put(id, (Signal<HvacDeviceStatus, Void>) s);
+                                synchronized (currentStatus) {
+                                    currentStatus.hvacDevices().put(id, (Signal<HvacDeviceStatus, Void>) s);
+                                }
 
                                 // Send an incremental update
                                 var incrementalStatus = createEmptyStatus();
@@ -186,12 +238,33 @@ public class InstrumentCluster {
 
     }
 
+    private void connectNodes() {
+
+        nodes
+                .subscribe(s -> {
+
+                    logger.debug("update/node: id={}, status={}", s.payload, s);
+
+                    // Update the accumulated status
+                    synchronized (currentStatus) {
+                        currentStatus.nodes().put(s.payload, s);
+                    }
+
+                    // Send an incremental update
+                    var incrementalStatus = createEmptyStatus();
+                    incrementalStatus.nodes().put(s.payload, s);
+
+                    statusSink.tryEmitNext(new Signal<>(Instant.now(), incrementalStatus));
+                });
+    }
+
     private SystemStatus createEmptyStatus() {
         return new SystemStatus(
                 new TreeMap<>(),
                 new TreeMap<>(),
                 new TreeMap<>(),
                 new TreeMap<>(),
+                new TreeMap<>(),
                 new TreeMap<>());
     }
 }
@@ -0,0 +1,231 @@
+package net.sf.dz3r.instrumentation;
+
+import net.sf.dz3r.instrumentation.metrics.LatencyHistogram;
+import net.sf.dz3r.signal.Signal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency taps for the {@link net.sf.dz3r.model.UnitDirector} pipeline.
+ *
+ * Every tap carries the originating sensor signal timestamp forward to the next one, which allows to measure
+ * both the time spent at every stage and the total time it takes a sensor reading to reach the HVAC device.
+ * Stages are matched by the originating timestamp, which all stages up to the unit controller preserve;
+ * the HVAC device doesn't, so its output is attributed to the last command that reached it.
+ *
+ * Readings that don't produce a command (because they got filtered out, or because nothing changed)
+ * only contribute to the stages they passed.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class PipelineLatency {
+
+    public enum Stage {
+
+        /**
+         * Sensor reading to the zone aggregate. Measured against the wall clock, so it includes whatever
+         * skew the sensor clock may have.
+         */
+        AGGREGATE_SENSOR("aggregate-sensor"),
+
+        /**
+         * Zone aggregate to the zone controller output.
+         */
+        ZONE_CONTROLLER("zone-controller"),
+
+        /**
+         * Zone controller output to the unit controller output.
+         */
+        UNIT_CONTROLLER("unit-controller"),
+
+        /**
+         * Unit controller output to the HVAC device output.
+         */
+        HVAC_DEVICE("hvac-device"),
+
+        /**
+         * Sensor reading to the HVAC device output, against the wall clock.
+         */
+        SENSOR_TO_ACTUATOR("sensor-to-actuator");
+
+        public final String text;
+
+        Stage(String text) {
+            this.text = text;
+        }
+    }
+
+    public final String unit;
+
+    private final Clock clock;
+    private final LongSupplier nanoTime;
+
+    private final Map<Stage, LatencyHistogram> unitHistograms = createHistograms();
+    private final Map<String, Map<Stage, LatencyHistogram>> zone2histograms = new ConcurrentHashMap<>();
+
+    private final AtomicReference<Mark> aggregated = new AtomicReference<>();
+    private final AtomicReference<Mark> zoneComputed = new AtomicReference<>();
+    private final AtomicReference<Mark> unitComputed = new AtomicReference<>();
+
+    public PipelineLatency(String unit) {
+        this(unit, Clock.systemUTC(), System::nanoTime);
+    }
+
+    PipelineLatency(String unit, Clock clock, LongSupplier nanoTime) {
+        this.unit = unit;
+        this.clock = clock;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Tap the aggregate sensor flux.
+     *
+     * @param signal Zone signal, payload is the zone name.
+     */
+    public void aggregateSensor(Signal<?, String> signal) {
+
+        var zone = signal.payload;
+
+        record(zone, Stage.AGGREGATE_SENSOR, Duration.between(signal.timestamp, clock.instant()));
+        aggregated.set(new Mark(signal.timestamp, zone, nanoTime.getAsLong()));
+    }
+
+    /**
+     * Tap the zone controller flux.
+     *
+     * @param signal Zone controller output.
+     */
+    public void zoneController(Signal<?, ?> signal) {
+        advance(aggregated, zoneComputed, signal.timestamp, Stage.ZONE_CONTROLLER);
+    }
+
+    /**
+     * Tap the unit controller flux.
+     *
+     * @param signal Unit controller output.
+     */
+    public void unitController(Signal<?, ?> signal) {
+        advance(zoneComputed, unitComputed, signal.timestamp, Stage.UNIT_CONTROLLER);
+    }
+
+    /**
+     * Tap the HVAC device flux.
+     *
+     * @param ignoredSignal HVAC device output. Its timestamp is the device's own, not the originating one.
+     */
+    public void hvacDevice(Signal<?, ?> ignoredSignal) {
+
+        // Consumed, so that device status updates not caused by a command are not counted
+        var mark = unitComputed.getAndSet(null);
+
+        if (mark == null) {
+            return;
+        }
+
+        record(mark.zone, Stage.HVAC_DEVICE, elapsedSince(mark));
+        record(mark.zone, Stage.SENSOR_TO_ACTUATOR, Duration.between(mark.origin, clock.instant()));
+    }
+
+    private void advance(AtomicReference<Mark> from, AtomicReference<Mark> to, Instant origin, Stage stage) {
+
+        var mark = from.get();
+
+        if (mark == null || !mark.origin.equals(origin)) {
+            // Not caused by the reading we know about (a schedule change, for example)
+            return;
+        }
+
+        record(mark.zone, stage, elapsedSince(mark));
+        to.set(new Mark(origin, mark.zone, nanoTime.getAsLong()));
+    }
+
+    private Duration elapsedSince(Mark mark) {
+        return Duration.ofNanos(nanoTime.getAsLong() - mark.nanoTime);
+    }
+
+    private void record(String zone, Stage stage, Duration latency) {
+
+        unitHistograms.get(stage).record(latency);
+
+        if (zone != null) {
+            zone2histograms.computeIfAbsent(zone, k -> createHistograms()).get(stage).record(latency);
+        }
+    }
+
+    /**
+     * Get the unit latency summary.
+     *
+     * @return Latency summary for all readings from all zones of this unit, by stage.
+     */
+    public Map<Stage, LatencyHistogram.Summary> getUnitSummary() {
+        return summarize(unitHistograms);
+    }
+
+    /**
+     * Get the zone latency summary.
+     *
+     * @return Latency summary for readings from the given zone, by stage. Empty if no readings from this zone were seen yet.
+     */
+    public Map<Stage, LatencyHistogram.Summary> getZoneSummary(String zone) {
+        var histograms = zone2histograms.get(zone);
+        return histograms == null ? Map.of() : summarize(histograms);
+    }
+
+    /**
+     * Get the latency summary for all zones.
+     *
+     * @return Mapping from the zone name to its latency summary by stage.
+     */
+    public Map<String, Map<Stage, LatencyHistogram.Summary>> getZoneSummary() {
+
+        var result = new TreeMap<String, Map<Stage, LatencyHistogram.Summary>>();
+
+        zone2histograms.forEach((zone, histograms) -> result.put(zone, summarize(histograms)));
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static Map<Stage, LatencyHistogram> createHistograms() {
+
+        var result = new EnumMap<Stage, LatencyHistogram>(Stage.class);
+
+        for (var stage : Stage.values()) {
+            result.put(stage, new LatencyHistogram());
+        }
+
+        return result;
+    }
+
+    private static Map<Stage, LatencyHistogram.Summary> summarize(Map<Stage, LatencyHistogram> histograms) {
+
+        var result = new EnumMap<Stage, LatencyHistogram.Summary>(Stage.class);
+
+        histograms.forEach((stage, h) -> result.put(stage, h.getSummary()));
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * A reading passing a tap.
+     *
+     * @param origin Originating sensor signal timestamp.
+     * @param zone Zone the reading came from.
+     * @param nanoTime {@link System#nanoTime()} at the time the reading passed the tap.
+     */
+    private record Mark(
+            Instant origin,
+            String zone,
+            long nanoTime
+    ) {
+
+    }
+}
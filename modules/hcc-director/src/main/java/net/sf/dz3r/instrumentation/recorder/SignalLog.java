@@ -0,0 +1,202 @@
+package net.sf.dz3r.instrumentation.recorder;
+
+import net.sf.dz3r.model.PeriodSettings;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.model.ZoneSettingsCodec;
+import net.sf.dz3r.signal.Signal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contents of a log produced by {@link SignalRecorder}.
+ *
+ * The layout is a header (magic, version, unit name), followed by a stream of records, each starting with the record
+ * type and a timestamp. Zone names are written once, in a {@link #ZONE definition} record, and referred to by index
+ * afterwards. A record torn by a crash at the tail of the log is ignored.
+ *
+ * @param unit Name of the unit the log was recorded for.
+ * @param entries Log entries, in the order they were recorded.
+ * @param truncated {@code true} if the log ended with a partial record.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record SignalLog(
+        String unit,
+        List<Entry> entries,
+        boolean truncated
+) {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * "HCCR".
+     */
+    static final int MAGIC = 0x48434352;
+
+    /**
+     * Format version. Must be incremented on any layout change, including {@link ZoneSettingsCodec} changes.
+     */
+    static final short VERSION = 1;
+
+    static final byte ZONE = 0;
+    static final byte SENSOR = 1;
+    static final byte SETTINGS = 2;
+    static final byte SCHEDULE = 3;
+
+    /**
+     * Log entry.
+     */
+    public sealed interface Entry permits Sensor, Settings, Schedule {
+
+        Instant timestamp();
+
+        String zone();
+    }
+
+    /**
+     * Raw sensor signal, as it arrived to the zone.
+     *
+     * @param timestamp Signal timestamp.
+     * @param zone Zone name.
+     * @param status Signal status.
+     * @param value Signal value, {@code null} for error signals without a value.
+     */
+    public record Sensor(Instant timestamp, String zone, Signal.Status status, Double value) implements Entry {
+
+        /**
+         * Convert back into a signal, as it would be fed into the zone.
+         *
+         * @return Signal with the zone name as payload. The error, if any, is a placeholder, the original is not recorded.
+         */
+        public Signal<Double, String> toSignal() {
+            return new Signal<>(
+                    timestamp,
+                    value,
+                    zone,
+                    status,
+                    status == Signal.Status.OK ? null : new IllegalStateException("recorded " + status));
+        }
+    }
+
+    /**
+     * Zone settings change not caused by the schedule.
+     *
+     * @param timestamp Time the change was observed at.
+     * @param zone Zone name.
+     * @param settings New zone settings.
+     */
+    public record Settings(Instant timestamp, String zone, ZoneSettings settings) implements Entry {
+    }
+
+    /**
+     * Schedule period change.
+     *
+     * @param timestamp Time the change was observed at.
+     * @param zone Zone name.
+     * @param periodSettings New period and its settings, {@code null} if no period is active anymore.
+     */
+    public record Schedule(Instant timestamp, String zone, PeriodSettings periodSettings) implements Entry {
+    }
+
+    /**
+     * Read the log.
+     *
+     * @param source Log file.
+     *
+     * @return Log contents.
+     *
+     * @throws IOException if the log can't be read, has a wrong format version, or is corrupted before the tail.
+     */
+    public static SignalLog read(Path source) throws IOException {
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+
+            var magic = in.readInt();
+
+            if (magic != MAGIC) {
+                throw new IOException(source + ": bad magic: " + Integer.toHexString(magic));
+            }
+
+            var version = in.readShort();
+
+            if (version != VERSION) {
+                throw new IOException(source + ": unsupported version " + version + ", expected " + VERSION);
+            }
+
+            var unit = in.readUTF();
+            var zones = new ArrayList<String>();
+            var entries = new ArrayList<Entry>();
+
+            while (true) {
+
+                int type = in.read();
+
+                if (type < 0) {
+                    return new SignalLog(unit, entries, false);
+                }
+
+                try {
+
+                    var entry = readEntry(in, (byte) type, zones);
+
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+
+                } catch (EOFException ex) {
+
+                    logger.warn("{}: torn record at the tail, ignored", source);
+                    return new SignalLog(unit, entries, true);
+                }
+            }
+        }
+    }
+
+    private static Entry readEntry(DataInputStream in, byte type, List<String> zones) throws IOException {
+
+        if (type == ZONE) {
+            zones.add(in.readUTF());
+            return null;
+        }
+
+        var timestamp = Instant.ofEpochMilli(in.readLong());
+        var index = in.readUnsignedShort();
+
+        if (index >= zones.size()) {
+            throw new IOException("undefined zone index " + index);
+        }
+
+        var zone = zones.get(index);
+
+        return switch (type) {
+            case SENSOR -> readSensor(in, timestamp, zone);
+            case SETTINGS -> new Settings(timestamp, zone, ZoneSettingsCodec.read(in));
+            case SCHEDULE -> new Schedule(timestamp, zone, ZoneSettingsCodec.readPeriod(in));
+            default -> throw new IOException("unknown record type " + type);
+        };
+    }
+
+    private static Sensor readSensor(DataInputStream in, Instant timestamp, String zone) throws IOException {
+
+        var ordinal = in.readByte();
+        var statuses = Signal.Status.values();
+
+        if (ordinal < 0 || ordinal >= statuses.length) {
+            throw new IOException("unknown signal status " + ordinal);
+        }
+
+        var value = in.readBoolean() ? in.readDouble() : null;
+
+        return new Sensor(timestamp, zone, statuses[ordinal], value);
+    }
+}
@@ -0,0 +1,99 @@
+package net.sf.dz3r.instrumentation.recorder;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.model.ZoneSettingsCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the {@link SignalLog} format.
+ *
+ * Not thread safe, {@link SignalRecorder} makes sure all the writes happen on one thread.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+class SignalLogWriter implements AutoCloseable {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> zone2index = new HashMap<>();
+
+    SignalLogWriter(Path target, String unit) throws IOException {
+
+        HCCObjects.requireNonNull(target, "target can't be null");
+        HCCObjects.requireNonNull(unit, "unit can't be null");
+
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)));
+
+        out.writeInt(SignalLog.MAGIC);
+        out.writeShort(SignalLog.VERSION);
+        out.writeUTF(unit);
+    }
+
+    void write(SignalLog.Entry entry) throws IOException {
+
+        var index = resolve(entry.zone());
+
+        if (entry instanceof SignalLog.Sensor sensor) {
+
+            writeHeader(SignalLog.SENSOR, entry, index);
+            out.writeByte(sensor.status().ordinal());
+            out.writeBoolean(sensor.value() != null);
+
+            if (sensor.value() != null) {
+                out.writeDouble(sensor.value());
+            }
+
+        } else if (entry instanceof SignalLog.Settings settings) {
+
+            writeHeader(SignalLog.SETTINGS, entry, index);
+            ZoneSettingsCodec.write(out, settings.settings());
+
+        } else if (entry instanceof SignalLog.Schedule schedule) {
+
+            writeHeader(SignalLog.SCHEDULE, entry, index);
+            ZoneSettingsCodec.write(out, schedule.periodSettings());
+        }
+    }
+
+    private int resolve(String zone) throws IOException {
+
+        var index = zone2index.get(zone);
+
+        if (index != null) {
+            return index;
+        }
+
+        if (zone2index.size() > 0xFFFF) {
+            throw new IOException("too many zones");
+        }
+
+        index = zone2index.size();
+        zone2index.put(zone, index);
+
+        out.writeByte(SignalLog.ZONE);
+        out.writeUTF(zone);
+
+        return index;
+    }
+
+    private void writeHeader(byte type, SignalLog.Entry entry, int index) throws IOException {
+        out.writeByte(type);
+        out.writeLong(entry.timestamp().toEpochMilli());
+        out.writeShort(index);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
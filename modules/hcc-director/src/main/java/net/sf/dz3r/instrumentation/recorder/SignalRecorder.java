@@ -0,0 +1,244 @@
+package net.sf.dz3r.instrumentation.recorder;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.model.PeriodSettings;
+import net.sf.dz3r.model.UnitDirector;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import net.sf.dz3r.view.MetricsCollector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Records everything that is needed to replay the unit pipeline into a compact binary {@link SignalLog}.
+ *
+ * Recorded are the raw sensor signals from {@link UnitDirector.Feed#sensorFlux2zone}, and schedule period and zone
+ * settings changes. The latter are derived from {@link UnitDirector.Feed#aggregateZoneFlux} - the schedule flux
+ * is cold, and subscribing to it again would apply the schedule twice. Each {@link #connect(String, UnitDirector.Feed)}
+ * starts a new log in the {@link #directory}; see {@link SignalReplay} for playing it back.
+ *
+ * All the writes happen on one thread, the log is flushed every {@link #flushInterval} and on {@link #close()}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class SignalRecorder implements MetricsCollector, AutoCloseable {
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(30);
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Logger logger = LogManager.getLogger();
+    private final Scheduler writer = Schedulers.newSingle("signal-recorder", true);
+
+    private final Clock clock;
+    private final Path directory;
+    private final Duration flushInterval;
+
+    private final List<Recording> recordings = new ArrayList<>();
+
+    /**
+     * Create an instance with the default flush interval.
+     *
+     * @param directory Directory to write logs to.
+     */
+    public SignalRecorder(File directory) {
+        this(Clock.systemUTC(), directory, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param clock Clock to timestamp settings changes and name the logs with.
+     * @param directory Directory to write logs to.
+     * @param flushInterval Interval to flush the logs at.
+     */
+    public SignalRecorder(Clock clock, File directory, Duration flushInterval) {
+
+        this.clock = HCCObjects.requireNonNull(clock, "clock can't be null");
+        this.directory = HCCObjects.requireNonNull(directory, "directory can't be null").toPath().toAbsolutePath();
+        this.flushInterval = HCCObjects.requireNonNull(flushInterval, "flushInterval can't be null");
+
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("flushInterval must be positive: " + flushInterval);
+        }
+    }
+
+    @Override
+    public synchronized void connect(String unitId, UnitDirector.Feed feed) {
+
+        ThreadContext.push("connect");
+
+        try {
+
+            Files.createDirectories(directory);
+
+            var target = directory.resolve(unitId.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + TIMESTAMP.format(clock.instant()) + ".hccr");
+            var recording = new Recording(target, new SignalLogWriter(target, unitId));
+
+            var sensors = Flux.merge(
+                    feed.sensorFlux2zone
+                            .entrySet()
+                            .stream()
+                            .map(kv -> {
+                                var zone = kv.getValue().getAddress();
+                                return kv.getKey().map(s -> new SignalLog.Sensor(s.timestamp, zone, s.status, s.getValue()));
+                            })
+                            .toList());
+
+            // Merged before switching threads, so that the entries are written in the order they have arrived in
+            recording.subscriptions.add(Flux
+                    .merge(
+                            sensors.map(e -> (Runnable) () -> recording.write(e)),
+                            feed.aggregateZoneFlux.map(s -> (Runnable) () -> recording.detectChanges(s)))
+                    .publishOn(writer)
+                    .subscribe(Runnable::run));
+
+            recording.subscriptions.add(Flux
+                    .interval(flushInterval, writer)
+                    .subscribe(ignored -> recording.flush()));
+
+            recordings.add(recording);
+
+            logger.info("{}: recording to {}", unitId, target);
+
+        } catch (IOException ex) {
+            logger.error("{}: can't record to {}, not recording", unitId, directory, ex);
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Stop recording and flush the logs. Blocks until done.
+     */
+    @Override
+    public synchronized void close() {
+
+        // Let the writes already queued complete, they would be dropped on dispose()
+        Mono.empty()
+                .subscribeOn(writer)
+                .block();
+
+        recordings.forEach(r -> r.subscriptions.forEach(Disposable::dispose));
+
+        Mono.fromRunnable(() -> recordings.forEach(Recording::close))
+                .subscribeOn(writer)
+                .block();
+
+        recordings.clear();
+        writer.dispose();
+    }
+
+    /**
+     * Single log state. All the methods except the constructor are called on the {@link #writer} thread.
+     */
+    private class Recording {
+
+        private final Path target;
+        private final SignalLogWriter out;
+        private final List<Disposable> subscriptions = new ArrayList<>();
+
+        private final Map<String, ZoneSettings> zone2settings = new HashMap<>();
+        private final Map<String, PeriodSettings> zone2period = new HashMap<>();
+
+        private boolean failed = false;
+
+        Recording(Path target, SignalLogWriter out) {
+            this.target = target;
+            this.out = out;
+        }
+
+        /**
+         * Record a schedule or settings change, if the zone status indicates there was one.
+         *
+         * @param signal Zone status.
+         */
+        void detectChanges(Signal<ZoneStatus, String> signal) {
+
+            var status = signal.getValue();
+
+            if (status == null || status.settings == null) {
+                return;
+            }
+
+            var zone = signal.payload;
+
+            if (!zone2settings.containsKey(zone)) {
+
+                // First status: the period goes first, so that the actual settings override the period's on replay
+                zone2period.put(zone, status.periodSettings);
+
+                if (status.periodSettings != null) {
+                    write(new SignalLog.Schedule(clock.instant(), zone, status.periodSettings));
+                }
+
+            } else if (!Objects.equals(zone2period.get(zone), status.periodSettings)) {
+
+                // Replaying the period change will apply its settings as well, unless on hold
+                zone2period.put(zone, status.periodSettings);
+                zone2settings.put(zone, status.settings);
+                write(new SignalLog.Schedule(clock.instant(), zone, status.periodSettings));
+
+                return;
+            }
+
+            if (!status.settings.equals(zone2settings.get(zone))) {
+                zone2settings.put(zone, status.settings);
+                write(new SignalLog.Settings(clock.instant(), zone, status.settings));
+            }
+        }
+
+        void write(SignalLog.Entry entry) {
+
+            if (failed) {
+                return;
+            }
+
+            try {
+                out.write(entry);
+            } catch (IOException ex) {
+                failed = true;
+                logger.error("{}: can't write, recording stopped", target, ex);
+            }
+        }
+
+        void flush() {
+
+            try {
+                out.flush();
+            } catch (IOException ex) {
+                logger.warn("{}: can't flush", target, ex);
+            }
+        }
+
+        void close() {
+
+            try {
+                out.close();
+            } catch (IOException ex) {
+                logger.warn("{}: can't close", target, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package net.sf.dz3r.instrumentation.recorder;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.TestClock;
+import net.sf.dz3r.model.UnitController;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneController;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Plays a {@link SignalLog} back through a freshly built pipeline, as fast as it can.
+ *
+ * The pipeline ({@link Zone zones}, {@link ZoneController}, {@link UnitController}) is driven synchronously from the
+ * calling thread, and the {@link #getClock() clock} is moved to the timestamp of every entry before it is played,
+ * so the same log and the same pipeline configuration always produce the same {@link HvacCommand} sequence,
+ * regardless of the host speed. A week worth of signals takes seconds.
+ *
+ * Zones must be built with {@link #getClock()}, and without economizers - the ambient feed is not recorded,
+ * and the economizer works on its own schedule.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class SignalReplay {
+
+    private final Logger logger = LogManager.getLogger();
+    private final TestClock clock = new TestClock(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+
+    /**
+     * Get the clock following the log timestamps.
+     *
+     * @return Clock to build the zones with.
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Play the log back.
+     *
+     * @param log Log to play back.
+     * @param zones Zones to feed. Must be fresh, the zone can't be {@link Zone#compute(Flux) computed} more than once.
+     * Zones missing from the log don't receive any signals, log entries for zones missing here are skipped.
+     * @param unitController Unit controller to feed.
+     *
+     * @return Unit controller output, in the order it was produced.
+     */
+    public List<Signal<HvacCommand, Void>> replay(SignalLog log, Collection<Zone> zones, UnitController unitController) {
+
+        HCCObjects.requireNonNull(log, "log can't be null");
+        HCCObjects.requireNonNull(zones, "zones can't be null");
+        HCCObjects.requireNonNull(unitController, "unitController can't be null");
+
+        ThreadContext.push("replay");
+
+        try {
+
+            var name2zone = new TreeMap<String, Zone>();
+            var name2sink = new TreeMap<String, Sinks.Many<Signal<Double, String>>>();
+            var zoneFluxes = new ArrayList<Flux<Signal<ZoneStatus, String>>>();
+
+            for (var zone : zones) {
+
+                Sinks.Many<Signal<Double, String>> sink = Sinks.many().unicast().onBackpressureBuffer();
+
+                name2zone.put(zone.getAddress(), zone);
+                name2sink.put(zone.getAddress(), sink);
+                zoneFluxes.add(zone.compute(sink.asFlux()));
+            }
+
+            var zoneController = new ZoneController(zones);
+            var result = unitController
+                    .compute(zoneController
+                            .compute(Flux.merge(zoneFluxes))
+                            .map(s -> new Signal<>(s.timestamp, s.getValue(), (Void) null, s.status, s.error)))
+                    .collectList()
+                    .toFuture();
+
+            var skipped = new TreeSet<String>();
+            var entries = log.entries();
+
+            var offset = 0;
+
+            while (offset < entries.size()) {
+
+                var entry = entries.get(offset);
+
+                clock.setOffset(Duration.between(Instant.EPOCH, entry.timestamp()));
+
+                if (!name2zone.containsKey(entry.zone())) {
+                    skipped.add(entry.zone());
+                    offset++;
+                    continue;
+                }
+
+                if (entry instanceof SignalLog.Sensor sensor) {
+                    name2sink.get(sensor.zone()).tryEmitNext(sensor.toSignal()).orThrow();
+                    offset++;
+                } else if (entry instanceof SignalLog.Settings settings) {
+                    applySettings(name2zone.get(settings.zone()), settings);
+                    offset++;
+                } else {
+                    offset = applySchedule(zoneController, name2zone, entries, offset);
+                }
+            }
+
+            if (!skipped.isEmpty()) {
+                logger.warn("{}: skipped entries for unknown zones: {}", log.unit(), skipped);
+            }
+
+            name2sink.values().forEach(sink -> sink.tryEmitComplete().orThrow());
+
+            var commands = result.join();
+
+            logger.info("{}: replayed {} entries, {} commands", log.unit(), entries.size(), commands.size());
+
+            return commands;
+
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("replay failed", ex.getCause());
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    private void applySettings(Zone zone, SignalLog.Settings entry) {
+
+        try {
+            zone.setSettingsSync(entry.settings());
+        } catch (IllegalArgumentException ex) {
+            logger.warn("{}: can't apply {} at {}, skipped", entry.zone(), entry.settings(), entry.timestamp(), ex);
+        }
+    }
+
+    /**
+     * Apply consecutive schedule entries as one batch, the way {@code Scheduler} does.
+     *
+     * @return Offset of the first entry not applied.
+     */
+    private int applySchedule(ZoneController zoneController, Map<String, Zone> name2zone, List<SignalLog.Entry> entries, int offset) {
+
+        var end = offset;
+
+        while (end < entries.size() && entries.get(end) instanceof SignalLog.Schedule) {
+            end++;
+        }
+
+        var batch = entries.subList(offset, end);
+
+        zoneController.applyBatch(() -> batch
+                .stream()
+                .map(SignalLog.Schedule.class::cast)
+                .filter(s -> name2zone.containsKey(s.zone()))
+                .forEach(s -> name2zone.get(s.zone()).setPeriodSettings(s.periodSettings())));
+
+        return end;
+    }
+}
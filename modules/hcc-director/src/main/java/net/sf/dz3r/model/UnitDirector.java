@@ -2,6 +2,8 @@ package net.sf.dz3r.model;
 
 import net.sf.dz3r.device.Addressable;
 import net.sf.dz3r.device.actuator.HvacDevice;
+import net.sf.dz3r.instrumentation.PipelineLatency;
+import net.sf.dz3r.instrumentation.jfr.UnitCommandEvent;
 import net.sf.dz3r.scheduler.ScheduleUpdater;
 import net.sf.dz3r.scheduler.Scheduler;
 import net.sf.dz3r.signal.Signal;
@@ -37,8 +39,12 @@ public class UnitDirector implements Addressable<String>, AutoCloseable {
 
     private final String name;
 
+    private final ZoneController zoneController;
+
     private final Feed feed;
 
+    private final PipelineLatency latency;
+
     private final CountDownLatch sigTerm = new CountDownLatch(1);
     private final CountDownLatch shutdownComplete = new CountDownLatch(1);
 
@@ -66,6 +72,8 @@ public class UnitDirector implements Addressable<String>, AutoCloseable {
     ) {
 
         this.name = name;
+        this.latency = new PipelineLatency(name);
+        this.zoneController = new ZoneController(sensorFlux2zone.values());
 
         var scheduleFlux = Optional.ofNullable(scheduleUpdater)
                 .map(u -> connectScheduler(sensorFlux2zone.values(), u))
@@ -129,15 +137,19 @@ public class UnitDirector implements Addressable<String>, AutoCloseable {
 
         var aggregateZoneFlux = Flux
                 .merge(extractSensorFluxes(sensorFlux2zone))
+                .doOnNext(latency::aggregateSensor)
                 .publish().autoConnect()
                 .checkpoint("aggregate-sensor");
-        var zoneControllerFlux = new ZoneController(sensorFlux2zone.values())
+        var zoneControllerFlux = zoneController
                 .compute(aggregateZoneFlux)
+                .doOnNext(latency::zoneController)
                 .publish().autoConnect()
                 .checkpoint("zone-controller")
                 .map(this::stripZoneName);
         var unitControllerFlux = unitController
                 .compute(zoneControllerFlux)
+                .doOnNext(latency::unitController)
+                .doOnNext(this::recordCommand)
                 .publish().autoConnect()
                 .checkpoint("unit-controller");
         var hvacDeviceFlux = hvacDevice
@@ -145,7 +157,9 @@ public class UnitDirector implements Addressable<String>, AutoCloseable {
                         Flux.concat(
                                 Flux.just(new Signal<>(Instant.now(), new HvacCommand(hvacMode, null, null))),
                                 unitControllerFlux
-                        )).publish().autoConnect()
+                        ))
+                .doOnNext(latency::hvacDevice)
+                .publish().autoConnect()
                 .checkpoint("hvac-device");
 
         return new Feed(
@@ -170,7 +184,7 @@ public class UnitDirector implements Addressable<String>, AutoCloseable {
 
         logger.info("{}: connected schedules: {}", getAddress(), name2zone);
 
-        var scheduler = new Scheduler(name2zone);
+        var scheduler = new Scheduler(name2zone, zoneController);
 
         return scheduler.connect(scheduleUpdater.update());
     }
@@ -206,6 +220,15 @@ public class UnitDirector implements Addressable<String>, AutoCloseable {
                         .map(s -> new Signal<>(s.timestamp, s.getValue(), zoneName, s.status, s.error)), zone);
     }
 
+    private void recordCommand(Signal<HvacCommand, Void> s) {
+
+        var command = s.getValue();
+
+        if (command != null) {
+            UnitCommandEvent.record(name, command.mode, command.demand, command.fanSpeed);
+        }
+    }
+
     private Signal<UnitControlSignal, Void> stripZoneName(Signal<UnitControlSignal, String> s) {
         return new Signal<>(s.timestamp, s.getValue(), null, s.status, s.error);
     }
@@ -251,6 +274,30 @@ public class UnitDirector implements Addressable<String>, AutoCloseable {
         return feed;
     }
 
+    /**
+     * Get the pipeline latency taps.
+     *
+     * @return Latency histograms for this unit and its zones, by stage.
+     */
+    public PipelineLatency getLatency() {
+        return latency;
+    }
+
+    /**
+     * Apply settings to several zones at once, with a single unit recompute.
+     *
+     * @param name2settings Mapping from the zone name to settings to apply to it.
+     *
+     * @return Mapping from the zone name to the new settings.
+     *
+     * @throws IllegalArgumentException if the settings can't be applied. No changes are applied in this case.
+     *
+     * @see ZoneController#setSettingsSync(Map)
+     */
+    public Map<String, ZoneSettings> setSettingsSync(Map<String, ZoneSettings> name2settings) {
+        return zoneController.setSettingsSync(name2settings);
+    }
+
     @Override
     public void close() throws Exception {
         logger.warn("Shutting down: {}", getAddress());
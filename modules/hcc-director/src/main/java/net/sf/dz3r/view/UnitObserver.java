@@ -13,30 +13,48 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Keeps track on the state of everything connected to a given {@link net.sf.dz3r.model.UnitDirector}.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2021
+ * The state is kept in an immutable {@link Snapshot} which is replaced as a whole on every update, readers never
+ * block and never see a partially updated state. Zone names are known at construction time, and the snapshot keeps
+ * the signals in arrays indexed by zone, making point lookups O(1) and updates O(number of zones).
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public class UnitObserver {
 
     private final Logger logger = LogManager.getLogger();
 
-    private final UnitDirector source;
+    private final UnitDirector.Feed feed;
 
-    private final Map<String, Signal<Double, Void>> zone2sensor = new TreeMap<>();
-    private final Map<String, Signal<ZoneStatus, String>> zone2status = new TreeMap<>();
-    private Signal<HvacDeviceStatus, Void> unitStatus;
+    private final AtomicReference<Snapshot> snapshot;
 
     private final Set<Disposable> terminators = new LinkedHashSet<>();
 
     public UnitObserver(UnitDirector source) {
-        this.source = source;
+        this(source.getFeed());
+    }
+
+    public UnitObserver(UnitDirector.Feed feed) {
+        this.feed = feed;
+
+        var zones = new TreeSet<String>();
+        feed.sensorFlux2zone.values().forEach(z -> zones.add(z.getAddress()));
+
+        snapshot = new AtomicReference<>(new Snapshot(new ZoneIndex(zones)));
 
         init();
     }
@@ -48,15 +66,13 @@ public class UnitObserver {
 
             logger.info("Observer feeds: initializing...");
 
-            var feed = source.getFeed();
-
             Flux.fromIterable(feed.sensorFlux2zone.entrySet())
                     .map(kv -> new AbstractMap.SimpleEntry<>(
                             kv.getValue().getAddress(),
                             kv.getKey()))
                     .map(kv -> {
                         return kv.getValue()
-                                .doOnNext(kv2 -> zone2sensor.put(kv.getKey(), kv2))
+                                .doOnNext(kv2 -> snapshot.updateAndGet(s -> s.withSensor(kv.getKey(), kv2)))
                                 .publishOn(Schedulers.boundedElastic())
                                 .subscribe();
                     })
@@ -66,7 +82,7 @@ public class UnitObserver {
             terminators.add(feed.aggregateZoneFlux
                     .doOnNext(s -> {
                         logger.trace("Zone status: {}: {}", s.payload, s);
-                        zone2status.put(s.payload, s);
+                        snapshot.updateAndGet(current -> current.withZone(s.payload, s));
                     })
                     .publishOn(Schedulers.boundedElastic())
                     .subscribe());
@@ -75,7 +91,7 @@ public class UnitObserver {
                     feed.hvacDeviceFlux
                             .doOnNext(s -> {
                                 logger.trace("Unit status: {}", s);
-                                this.unitStatus = s;
+                                snapshot.updateAndGet(current -> current.withUnitStatus(s));
                             })
                             .publishOn(Schedulers.boundedElastic())
                             .subscribe());
@@ -96,31 +112,311 @@ public class UnitObserver {
         }
     }
 
+    /**
+     * Get the current state.
+     *
+     * Use this instead of individual accessors if a consistent view across zones, sensors and the unit is needed.
+     *
+     * @return Current state snapshot. Never changes, a new one is created on every update.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
     public Flux<Map.Entry<String, Signal<ZoneStatus, String>>> getZones() {
-        return Flux.fromIterable(zone2status.entrySet());
+        return Flux.fromIterable(getSnapshot().getZones().entrySet());
     }
 
     public Mono<Signal<ZoneStatus, String>> getZone(String name) {
-        // Inefficient, but simpler to implement. Tolerable on this set size.
-        return getZones()
-                .filter(kv -> kv.getKey().equals(name))
-                .map(Map.Entry::getValue)
-                .next();
+        return Mono.justOrEmpty(getSnapshot().getZones().get(name));
     }
 
     public Flux<Map.Entry<String, Signal<Double, Void>>> getSensors() {
-        return Flux.fromIterable(zone2sensor.entrySet());
+        return Flux.fromIterable(getSnapshot().getSensors().entrySet());
     }
 
     public Mono<Signal<Double, Void>> getSensor(String name) {
-        // Inefficient, but simpler to implement. Tolerable on this set size.
-        return getSensors()
-                .filter(kv -> kv.getKey().equals(name))
-                .map(Map.Entry::getValue)
-                .next();
+        return Mono.justOrEmpty(getSnapshot().getSensors().get(name));
     }
 
     public Signal<HvacDeviceStatus, Void> getUnitStatus() {
-        return unitStatus;
+        return getSnapshot().getUnitStatus();
+    }
+
+    /**
+     * @return A number that changes every time {@link #getSensors()} content changes.
+     */
+    public long getSensorVersion() {
+        return getSnapshot().sensorVersion;
+    }
+
+    /**
+     * @return A number that changes every time {@link #getZones()} content changes.
+     */
+    public long getZoneVersion() {
+        return getSnapshot().zoneVersion;
+    }
+
+    /**
+     * @return A number that changes every time {@link #getUnitStatus()} changes.
+     */
+    public long getUnitVersion() {
+        return getSnapshot().unitVersion;
+    }
+
+    /**
+     * Sorted zone names, and their positions.
+     */
+    private static class ZoneIndex {
+
+        final String[] names;
+        final Map<String, Integer> name2offset;
+
+        ZoneIndex(Set<String> sortedNames) {
+
+            names = sortedNames.toArray(new String[0]);
+
+            var index = new HashMap<String, Integer>();
+
+            for (var offset = 0; offset < names.length; offset++) {
+                index.put(names[offset], offset);
+            }
+
+            name2offset = Map.copyOf(index);
+        }
+
+        int offsetOf(String name) {
+            return name == null ? -1 : name2offset.getOrDefault(name, -1);
+        }
+
+        /**
+         * @return A new index with the name added.
+         */
+        ZoneIndex with(String name) {
+
+            var sorted = new TreeSet<>(Arrays.asList(names));
+            sorted.add(name);
+
+            return new ZoneIndex(sorted);
+        }
+    }
+
+    /**
+     * Immutable state of everything observed.
+     */
+    public static class Snapshot {
+
+        private final ZoneIndex index;
+        private final Signal<Double, Void>[] sensors;
+        private final Signal<ZoneStatus, String>[] zones;
+        private final Signal<HvacDeviceStatus, Void> unitStatus;
+
+        /**
+         * Incremented every time anything changes.
+         */
+        public final long version;
+
+        /**
+         * Incremented every time {@link #getSensors()} changes.
+         */
+        public final long sensorVersion;
+
+        /**
+         * Incremented every time {@link #getZones()} changes.
+         */
+        public final long zoneVersion;
+
+        /**
+         * Incremented every time {@link #getUnitStatus()} changes.
+         */
+        public final long unitVersion;
+
+        @SuppressWarnings("unchecked")
+        private Snapshot(ZoneIndex index) {
+            this(index, new Signal[index.names.length], new Signal[index.names.length], null, 0, 0, 0, 0);
+        }
+
+        private Snapshot(
+                ZoneIndex index,
+                Signal<Double, Void>[] sensors,
+                Signal<ZoneStatus, String>[] zones,
+                Signal<HvacDeviceStatus, Void> unitStatus,
+                long version,
+                long sensorVersion,
+                long zoneVersion,
+                long unitVersion) {
+
+            this.index = index;
+            this.sensors = sensors;
+            this.zones = zones;
+            this.unitStatus = unitStatus;
+            this.version = version;
+            this.sensorVersion = sensorVersion;
+            this.zoneVersion = zoneVersion;
+            this.unitVersion = unitVersion;
+        }
+
+        /**
+         * @return Zone name to latest sensor signal mapping, sorted by zone name. Zones that haven't reported yet are
+         * not included.
+         */
+        public Map<String, Signal<Double, Void>> getSensors() {
+            return new SlotMap<>(index, sensors);
+        }
+
+        /**
+         * @return Zone name to latest zone status mapping, sorted by zone name. Zones that haven't reported yet are
+         * not included.
+         */
+        public Map<String, Signal<ZoneStatus, String>> getZones() {
+            return new SlotMap<>(index, zones);
+        }
+
+        public Signal<HvacDeviceStatus, Void> getUnitStatus() {
+            return unitStatus;
+        }
+
+        Snapshot withSensor(String zone, Signal<Double, Void> signal) {
+
+            var target = expand(zone);
+            var copy = target.sensors.clone();
+
+            copy[target.index.offsetOf(zone)] = signal;
+
+            return new Snapshot(target.index, copy, target.zones, unitStatus, version + 1, sensorVersion + 1, zoneVersion, unitVersion);
+        }
+
+        Snapshot withZone(String zone, Signal<ZoneStatus, String> signal) {
+
+            var target = expand(zone);
+            var copy = target.zones.clone();
+
+            copy[target.index.offsetOf(zone)] = signal;
+
+            return new Snapshot(target.index, target.sensors, copy, unitStatus, version + 1, sensorVersion, zoneVersion + 1, unitVersion);
+        }
+
+        Snapshot withUnitStatus(Signal<HvacDeviceStatus, Void> signal) {
+            return new Snapshot(index, sensors, zones, signal, version + 1, sensorVersion, zoneVersion, unitVersion + 1);
+        }
+
+        /**
+         * Make sure the zone has a slot.
+         *
+         * Zones are normally all known at construction time, this is just a safety net.
+         *
+         * @return This snapshot if the zone is already known, or a copy with the zone added.
+         */
+        private Snapshot expand(String zone) {
+
+            if (index.offsetOf(zone) != -1) {
+                return this;
+            }
+
+            var target = index.with(zone);
+
+            return new Snapshot(
+                    target,
+                    remap(sensors, target),
+                    remap(zones, target),
+                    unitStatus, version, sensorVersion, zoneVersion, unitVersion);
+        }
+
+        private <T> T[] remap(T[] source, ZoneIndex target) {
+
+            var result = Arrays.copyOf(source, target.names.length);
+
+            Arrays.fill(result, null);
+
+            for (var offset = 0; offset < source.length; offset++) {
+                result[target.offsetOf(index.names[offset])] = source[offset];
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Read only view of the snapshot slots, skipping the empty ones.
+     *
+     * @param <V> Value type.
+     */
+    private static class SlotMap<V> extends AbstractMap<String, V> {
+
+        private final ZoneIndex index;
+        private final V[] slots;
+
+        SlotMap(ZoneIndex index, V[] slots) {
+            this.index = index;
+            this.slots = slots;
+        }
+
+        @Override
+        public V get(Object key) {
+
+            if (!(key instanceof String name)) {
+                return null;
+            }
+
+            var offset = index.offsetOf(name);
+
+            return offset == -1 ? null : slots[offset];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+
+            return new AbstractSet<>() {
+
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+
+                    return new Iterator<>() {
+
+                        private int next = advance(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < slots.length;
+                        }
+
+                        @Override
+                        public Entry<String, V> next() {
+
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            var result = Map.entry(index.names[next], slots[next]);
+
+                            next = advance(next + 1);
+
+                            return result;
+                        }
+
+                        private int advance(int from) {
+
+                            var offset = from;
+
+                            while (offset < slots.length && slots[offset] == null) {
+                                offset++;
+                            }
+
+                            return offset;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return (int) Arrays.stream(slots).filter(Objects::nonNull).count();
+                }
+            };
+        }
     }
 }
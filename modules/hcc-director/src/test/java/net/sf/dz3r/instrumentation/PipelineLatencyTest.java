@@ -0,0 +1,83 @@
+package net.sf.dz3r.instrumentation;
+
+import net.sf.dz3r.common.TestClock;
+import net.sf.dz3r.signal.Signal;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.sf.dz3r.instrumentation.PipelineLatency.Stage.AGGREGATE_SENSOR;
+import static net.sf.dz3r.instrumentation.PipelineLatency.Stage.HVAC_DEVICE;
+import static net.sf.dz3r.instrumentation.PipelineLatency.Stage.SENSOR_TO_ACTUATOR;
+import static net.sf.dz3r.instrumentation.PipelineLatency.Stage.UNIT_CONTROLLER;
+import static net.sf.dz3r.instrumentation.PipelineLatency.Stage.ZONE_CONTROLLER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineLatencyTest {
+
+    @Test
+    void endToEnd() {
+
+        var clock = new TestClock(Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC));
+        var nanoTime = new AtomicLong();
+        var latency = new PipelineLatency("unit", clock, nanoTime::get);
+
+        var origin = clock.instant();
+
+        advance(clock, nanoTime, 10);
+        latency.aggregateSensor(new Signal<>(origin, "reading", "zone"));
+
+        advance(clock, nanoTime, 20);
+        latency.zoneController(new Signal<>(origin, "demand"));
+
+        advance(clock, nanoTime, 30);
+        latency.unitController(new Signal<>(origin, "command"));
+
+        advance(clock, nanoTime, 40);
+        latency.hvacDevice(new Signal<>(clock.instant(), "status"));
+
+        // Status update not caused by a command
+        latency.hvacDevice(new Signal<>(clock.instant(), "status"));
+
+        var zone = latency.getZoneSummary("zone");
+
+        assertThat(zone.get(AGGREGATE_SENSOR).p50()).isEqualTo(Duration.ofMillis(10));
+        assertThat(zone.get(ZONE_CONTROLLER).p50()).isEqualTo(Duration.ofMillis(20));
+        assertThat(zone.get(UNIT_CONTROLLER).p50()).isEqualTo(Duration.ofMillis(30));
+        assertThat(zone.get(HVAC_DEVICE).p50()).isEqualTo(Duration.ofMillis(40));
+        assertThat(zone.get(SENSOR_TO_ACTUATOR).max()).isEqualTo(Duration.ofMillis(100));
+        assertThat(zone.get(SENSOR_TO_ACTUATOR).count()).isEqualTo(1);
+
+        assertThat(latency.getUnitSummary().get(SENSOR_TO_ACTUATOR).count()).isEqualTo(1);
+        assertThat(latency.getZoneSummary()).containsOnlyKeys("zone");
+    }
+
+    @Test
+    void unrelated() {
+
+        var clock = new TestClock(Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC));
+        var nanoTime = new AtomicLong();
+        var latency = new PipelineLatency("unit", clock, nanoTime::get);
+
+        latency.aggregateSensor(new Signal<>(clock.instant(), "reading", "zone"));
+
+        // Zone controller output not caused by the last reading (a schedule change, for example)
+        latency.zoneController(new Signal<>(Instant.EPOCH, "demand"));
+        latency.unitController(new Signal<>(Instant.EPOCH, "command"));
+        latency.hvacDevice(new Signal<>(clock.instant(), "status"));
+
+        var unit = latency.getUnitSummary();
+
+        assertThat(unit.get(AGGREGATE_SENSOR).count()).isEqualTo(1);
+        assertThat(unit.get(ZONE_CONTROLLER).count()).isZero();
+        assertThat(unit.get(SENSOR_TO_ACTUATOR).count()).isZero();
+    }
+
+    private static void advance(TestClock clock, AtomicLong nanoTime, long millis) {
+        clock.setOffset(Duration.ofNanos(nanoTime.addAndGet(Duration.ofMillis(millis).toNanos())));
+    }
+}
@@ -0,0 +1,85 @@
+package net.sf.dz3r.instrumentation.recorder;
+
+import net.sf.dz3r.model.PeriodSettings;
+import net.sf.dz3r.model.SchedulePeriod;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+class SignalLogTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path root;
+
+    @Test
+    void roundtrip() throws IOException {
+
+        var target = root.resolve("unit.hccr");
+        var period = new PeriodSettings(
+                new SchedulePeriod("night", "Night", LocalTime.of(22, 0), LocalTime.of(6, 30), (byte) 0x7F),
+                new ZoneSettings(18.0));
+
+        List<SignalLog.Entry> source = List.of(
+                new SignalLog.Sensor(START, "bedroom", Signal.Status.OK, 20.5),
+                new SignalLog.Sensor(START.plusSeconds(1), "living", Signal.Status.FAILURE_TOTAL, null),
+                new SignalLog.Settings(START.plusSeconds(2), "bedroom", new ZoneSettings(21.0)),
+                new SignalLog.Schedule(START.plusSeconds(3), "living", period),
+                new SignalLog.Schedule(START.plusSeconds(4), "living", null));
+
+        try (var out = new SignalLogWriter(target, "unit")) {
+            for (var entry : source) {
+                out.write(entry);
+            }
+        }
+
+        var log = SignalLog.read(target);
+
+        assertThat(log.unit()).isEqualTo("unit");
+        assertThat(log.truncated()).isFalse();
+        assertThat(log.entries()).containsExactlyElementsOf(source);
+    }
+
+    @Test
+    void tornTail() throws IOException {
+
+        var target = root.resolve("unit.hccr");
+
+        try (var out = new SignalLogWriter(target, "unit")) {
+            out.write(new SignalLog.Sensor(START, "bedroom", Signal.Status.OK, 20.5));
+            out.write(new SignalLog.Sensor(START.plusSeconds(1), "bedroom", Signal.Status.OK, 20.6));
+        }
+
+        var content = Files.readAllBytes(target);
+        Files.write(target, Arrays.copyOf(content, content.length - 3));
+
+        var log = SignalLog.read(target);
+
+        assertThat(log.truncated()).isTrue();
+        assertThat(log.entries()).containsExactly(new SignalLog.Sensor(START, "bedroom", Signal.Status.OK, 20.5));
+    }
+
+    @Test
+    void badMagic() throws IOException {
+
+        var target = root.resolve("unit.hccr");
+        Files.writeString(target, "not a log");
+
+        assertThatIOException()
+                .isThrownBy(() -> SignalLog.read(target))
+                .withMessageContaining("bad magic");
+    }
+}
@@ -0,0 +1,85 @@
+package net.sf.dz3r.instrumentation.recorder;
+
+import net.sf.dz3r.model.PeriodSettings;
+import net.sf.dz3r.model.SchedulePeriod;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.UnitDirector;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.CallingStatus;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignalRecorderTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path root;
+
+    @Test
+    void record() throws IOException {
+
+        var zone = new Zone(new Thermostat("bedroom", 20.0, 1, 0, 0, 1), new ZoneSettings(20.0));
+
+        Sinks.Many<Signal<Double, Void>> sensorSink = Sinks.many().multicast().directBestEffort();
+        Sinks.Many<Signal<ZoneStatus, String>> statusSink = Sinks.many().multicast().directBestEffort();
+
+        var feed = new UnitDirector.Feed(
+                "unit",
+                Map.of(sensorSink.asFlux(), zone),
+                statusSink.asFlux(),
+                Flux.never(),
+                Flux.never(),
+                Flux.never(),
+                Flux.never());
+
+        var night = new PeriodSettings(
+                new SchedulePeriod("night", "Night", LocalTime.of(22, 0), LocalTime.of(6, 0), (byte) 0x7F),
+                new ZoneSettings(18.0));
+
+        try (var recorder = new SignalRecorder(Clock.fixed(START, ZoneOffset.UTC), root.toFile(), Duration.ofHours(1))) {
+
+            recorder.connect("unit", feed);
+
+            statusSink.tryEmitNext(status(new ZoneSettings(20.0), null));
+            sensorSink.tryEmitNext(new Signal<>(START, 20.5));
+
+            // Same settings, nothing to record
+            statusSink.tryEmitNext(status(new ZoneSettings(20.0), null));
+
+            statusSink.tryEmitNext(status(new ZoneSettings(21.0), null));
+
+            // Schedule change, settings are recorded as a part of it
+            statusSink.tryEmitNext(status(new ZoneSettings(18.0), night));
+        }
+
+        var log = SignalLog.read(root.resolve("unit-20240101-000000.hccr"));
+
+        assertThat(log.unit()).isEqualTo("unit");
+        assertThat(log.entries()).containsExactly(
+                new SignalLog.Settings(START, "bedroom", new ZoneSettings(20.0)),
+                new SignalLog.Sensor(START, "bedroom", Signal.Status.OK, 20.5),
+                new SignalLog.Settings(START, "bedroom", new ZoneSettings(21.0)),
+                new SignalLog.Schedule(START, "bedroom", night));
+    }
+
+    private Signal<ZoneStatus, String> status(ZoneSettings settings, PeriodSettings periodSettings) {
+        return new Signal<>(START, new ZoneStatus(settings, new CallingStatus(null, 0, false), null, periodSettings), "bedroom");
+    }
+}
@@ -0,0 +1,114 @@
+package net.sf.dz3r.instrumentation.recorder;
+
+import net.sf.dz3r.model.PeriodSettings;
+import net.sf.dz3r.model.Range;
+import net.sf.dz3r.model.SchedulePeriod;
+import net.sf.dz3r.model.SingleStageUnitController;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignalReplayTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void deterministic() {
+
+        var log = week();
+
+        var first = render(replay(log, new ArrayList<>()));
+        var second = render(replay(log, new ArrayList<>()));
+
+        assertThat(first).isNotEmpty();
+        assertThat(second).containsExactlyElementsOf(first);
+    }
+
+    @Test
+    void settingsApplied() {
+
+        var zones = new ArrayList<Zone>();
+
+        replay(week(), zones);
+
+        var bedroom = zones.stream().filter(z -> z.getAddress().equals("bedroom")).findFirst().orElseThrow();
+        var living = zones.stream().filter(z -> z.getAddress().equals("living")).findFirst().orElseThrow();
+
+        assertThat(bedroom.getSettings().setpoint).isEqualTo(22.0);
+        assertThat(living.getPeriodSettings().period().name).isEqualTo("Night");
+        assertThat(living.getSettings().setpoint).isEqualTo(18.0);
+    }
+
+    @Test
+    void unknownZoneSkipped() {
+
+        var log = new SignalLog("unit", List.of(
+                new SignalLog.Sensor(START, "attic", Signal.Status.OK, 30.0),
+                new SignalLog.Sensor(START, "bedroom", Signal.Status.OK, 25.0)),
+                false);
+
+        assertThat(replay(log, new ArrayList<>())).isNotEmpty();
+    }
+
+    private List<Signal<HvacCommand, Void>> replay(SignalLog log, List<Zone> zones) {
+
+        var replay = new SignalReplay();
+
+        zones.add(createZone(replay.getClock(), "bedroom"));
+        zones.add(createZone(replay.getClock(), "living"));
+
+        return replay.replay(log, zones, new SingleStageUnitController("unit"));
+    }
+
+    private Zone createZone(Clock clock, String name) {
+        var ts = new Thermostat(clock, name, new Range<>(10d, 40d), 20.0, 1, 0.000002, 0, 1.1, Duration.ZERO, 0);
+        return new Zone(ts, new ZoneSettings(ts.getSetpoint()));
+    }
+
+    private List<String> render(List<Signal<HvacCommand, Void>> source) {
+        return source.stream().map(s -> s.timestamp + " " + s.getValue()).toList();
+    }
+
+    /**
+     * A week of readings, one a minute per zone, with a settings change and a schedule change in between.
+     */
+    private SignalLog week() {
+
+        var entries = new ArrayList<SignalLog.Entry>();
+        var minutes = (int) Duration.ofDays(7).toMinutes();
+        var night = new PeriodSettings(
+                new SchedulePeriod("night", "Night", LocalTime.of(22, 0), LocalTime.of(6, 0), (byte) 0x7F),
+                new ZoneSettings(18.0));
+
+        for (var minute = 0; minute < minutes; minute++) {
+
+            var timestamp = START.plus(Duration.ofMinutes(minute));
+            var phase = 2 * Math.PI * minute / Duration.ofDays(1).toMinutes();
+
+            entries.add(new SignalLog.Sensor(timestamp, "bedroom", Signal.Status.OK, 21 + 3 * Math.sin(phase)));
+            entries.add(new SignalLog.Sensor(timestamp, "living", Signal.Status.OK, 20 + 2 * Math.cos(phase)));
+
+            if (minute == minutes / 3) {
+                entries.add(new SignalLog.Settings(timestamp, "bedroom", new ZoneSettings(22.0)));
+            }
+
+            if (minute == minutes / 2) {
+                entries.add(new SignalLog.Schedule(timestamp, "living", night));
+            }
+        }
+
+        return new SignalLog("unit", entries, false);
+    }
+}
@@ -0,0 +1,302 @@
+package net.sf.dz3r.model;
+
+import net.sf.dz3r.common.TestClock;
+import net.sf.dz3r.device.actuator.NullCqrsSwitch;
+import net.sf.dz3r.device.actuator.SwitchableHvacDevice;
+import net.sf.dz3r.instrumentation.Footprint;
+import net.sf.dz3r.instrumentation.SensorStatusProcessor;
+import net.sf.dz3r.signal.Signal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+/**
+ * Allocation and heap growth budgets for a pipeline that is supposed to run for months.
+ *
+ * The pipeline is driven by signal timestamps and the {@link TestClock}, so a simulated week takes seconds.
+ * Reactor's virtual time is not used here - the director blocks a scheduler thread of its own until it is told to stop,
+ * and that would deadlock on a single virtual time thread.
+ *
+ * Budgets are deliberately loose - they are here to catch leaks (something retained per signal) and creeping
+ * per-signal cost (something copied per signal that grows with uptime), not to benchmark. They are provisional:
+ * no baseline has been measured yet, which is why the {@code footprint} task is not a part of {@code check}.
+ * Once it is, record it next to each budget, and derive the budget from it with the margin stated there.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Tag("footprint")
+class UnitDirectorFootprintTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    /**
+     * Sensor reading interval, per zone. Real sensors report every 10 to 60 seconds.
+     */
+    private static final Duration READING_INTERVAL = Duration.ofSeconds(30);
+
+    private static final Duration DAY = Duration.ofDays(1);
+    private static final Duration WEEK = Duration.ofDays(7);
+
+    private static final String[] ZONES = {"bedroom", "kitchen", "living-room", "office"};
+
+    /**
+     * Bytes all threads together may allocate, on average, per sensor signal travelling through the whole pipeline.
+     *
+     * Baseline: not measured yet. Should be twice the week 1 figure {@link #allocationPerSignal()} logs.
+     */
+    private static final long ALLOCATION_BUDGET = 32L * 1024;
+
+    /**
+     * How much more, relatively, a signal may cost in the second week compared to the first.
+     *
+     * This one is relative to the week 1 measurement of the same run, no baseline needed.
+     */
+    private static final double ALLOCATION_CREEP = 1.25;
+
+    /**
+     * Measured period for the retained heap tests, after the warmup.
+     *
+     * Four weeks at 30 seconds with 4 zones is 322,560 signals. A {@link Signal} with an {@link Instant} and
+     * a {@link Double} is about 72 bytes on a 64-bit JVM with compressed references, so leaking just that per reading
+     * is about 23M, close to three times {@link #HEAP_BUDGET}. Two weeks would only be 1.45 times.
+     */
+    private static final int MEASURED_WEEKS = 4;
+
+    /**
+     * Heap that may be retained over {@link #MEASURED_WEEKS}, after the warmup.
+     *
+     * Baseline: not measured yet. Should be the larger of the growth {@link #retainedHeap()} and
+     * {@link #noisySensorStatus()} log, plus 2M for the collector's noise, but not more than a third of what
+     * a leak of a single {@link Signal} per reading would retain.
+     */
+    private static final long HEAP_BUDGET = 8L * 1024 * 1024;
+
+    @Test
+    void allocationPerSignal() throws Exception {
+
+        assumeThat(Footprint.isAllocationCounted()).as("thread allocation counting").isTrue();
+
+        try (var pipeline = new Pipeline()) {
+
+            pipeline.run(DAY);
+
+            var week1 = pipeline.measure(WEEK);
+            var week2 = pipeline.measure(WEEK);
+
+            logger.info("allocation per signal: week 1: {} bytes, week 2: {} bytes", week1, week2);
+
+            assertThat(pipeline.getOutput()).as("HVAC device output").isPositive();
+            assertThat(week1).as("week 1 allocation per signal").isLessThanOrEqualTo(ALLOCATION_BUDGET);
+            assertThat(week2).as("week 2 allocation per signal").isLessThanOrEqualTo((long) (week1 * ALLOCATION_CREEP));
+        }
+    }
+
+    @Test
+    void retainedHeap() throws Exception {
+
+        try (var pipeline = new Pipeline()) {
+
+            // Let the bounded sinks fill up, the JIT settle down, and lazy structures get created
+            pipeline.run(DAY);
+
+            var samples = new ArrayList<Long>();
+
+            samples.add(Footprint.getRetainedHeap());
+
+            for (var week = 0; week < MEASURED_WEEKS; week++) {
+                pipeline.run(WEEK);
+                samples.add(Footprint.getRetainedHeap());
+            }
+
+            logger.info("retained heap: {}", samples);
+
+            assertThat(pipeline.getOutput()).as("HVAC device output").isPositive();
+            assertThat(samples.get(samples.size() - 1) - samples.get(0)).as("heap growth over %s weeks", MEASURED_WEEKS).isLessThanOrEqualTo(HEAP_BUDGET);
+        }
+    }
+
+    @Test
+    void noisySensorStatus() {
+
+        // Noisy analog sensors make SensorStatusProcessor keep trimming its set of differences,
+        // and a sensor may stay noisy for months. There's just one sensor here, so it takes as many more weeks
+        // as the pipeline has zones to push the same number of signals through.
+
+        var sink = Sinks.many().unicast().<Signal<Double, Void>>onBackpressureError();
+        var count = new AtomicLong();
+        var processor = new SensorStatusProcessor("noisy");
+        var subscription = processor
+                .compute(sink.asFlux())
+                .subscribe(ignored -> count.incrementAndGet());
+
+        var random = new Random(1);
+        var signals = (int) (WEEK.toSeconds() / READING_INTERVAL.toSeconds());
+        var offset = 0;
+
+        try {
+
+            offset = emitNoisy(sink, random, offset, signals);
+
+            var before = Footprint.getRetainedHeap();
+
+            emitNoisy(sink, random, offset, signals * MEASURED_WEEKS * ZONES.length);
+
+            var after = Footprint.getRetainedHeap();
+
+            logger.info("noisy sensor retained heap: {} => {}", before, after);
+
+            assertThat(count.get()).isEqualTo(signals * (1L + MEASURED_WEEKS * ZONES.length));
+            assertThat(after - before).as("heap growth").isLessThanOrEqualTo(HEAP_BUDGET);
+
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    private static int emitNoisy(Sinks.Many<Signal<Double, Void>> sink, Random random, int offset, int count) {
+
+        for (var step = offset; step < offset + count; step++) {
+            sink.tryEmitNext(new Signal<>(START.plus(READING_INTERVAL.multipliedBy(step)), 20 + random.nextGaussian()));
+        }
+
+        return offset + count;
+    }
+
+    /**
+     * A unit director with a few zones, a single stage unit controller and a switchable HVAC device,
+     * all on a clock that only moves when the readings do.
+     */
+    private static class Pipeline implements AutoCloseable {
+
+        private final TestClock clock = new TestClock(Clock.fixed(START, ZoneOffset.UTC));
+        private final Random random = new Random(0);
+        private final List<Sinks.Many<Signal<Double, Void>>> sensors = new ArrayList<>();
+        private final AtomicLong output = new AtomicLong();
+        private final UnitDirector director;
+        private final SwitchableHvacDevice device;
+        private final Disposable subscription;
+
+        private long step = 0;
+
+        Pipeline() {
+
+            var sensorFlux2zone = new LinkedHashMap<Flux<Signal<Double, Void>>, Zone>();
+
+            for (var name : ZONES) {
+
+                var sensor = Sinks.many().multicast().<Signal<Double, Void>>directBestEffort();
+                var ts = new Thermostat(clock, name, new Range<>(10d, 40d), 21.0, 1, 0.000002, 0, 1.1, Duration.ZERO, 0);
+
+                sensors.add(sensor);
+                sensorFlux2zone.put(sensor.asFlux(), new Zone(ts, new ZoneSettings(21.0)));
+            }
+
+            device = new SwitchableHvacDevice(
+                    clock,
+                    "footprint-device",
+                    HvacMode.COOLING,
+                    new NullCqrsSwitch("footprint-switch", clock, null, null, null, null),
+                    false,
+                    null);
+
+            director = new UnitDirector(
+                    "footprint",
+                    null,
+                    null,
+                    null,
+                    sensorFlux2zone,
+                    new SingleStageUnitController("footprint"),
+                    device,
+                    HvacMode.COOLING);
+
+            // This connects the pipeline right away, instead of whenever the director gets around to it
+            subscription = director.getFlux().subscribe(ignored -> output.incrementAndGet());
+        }
+
+        /**
+         * Run the pipeline for the given simulated time.
+         *
+         * @return Number of signals emitted.
+         */
+        long run(Duration duration) {
+
+            var steps = duration.toSeconds() / READING_INTERVAL.toSeconds();
+            var signals = 0L;
+
+            for (var end = step + steps; step < end; step++) {
+
+                var offset = READING_INTERVAL.multipliedBy(step);
+                var timestamp = START.plus(offset);
+
+                clock.setOffset(offset);
+
+                for (var sensor : sensors) {
+                    sensor.tryEmitNext(new Signal<>(timestamp, reading(timestamp)));
+                    signals++;
+                }
+            }
+
+            return signals;
+        }
+
+        /**
+         * Run the pipeline for the given simulated time, and measure the allocation.
+         *
+         * @return Bytes allocated by all threads per signal emitted. Part of the work happens on the director's
+         * and the switch's own threads.
+         */
+        long measure(Duration duration) {
+
+            var start = Footprint.getTotalAllocatedBytes();
+            var signals = run(duration);
+
+            return (Footprint.getTotalAllocatedBytes() - start) / signals;
+        }
+
+        /**
+         * Daily temperature swing around the setpoint, with some sensor noise, so that zones start and stop calling.
+         */
+        private double reading(Instant timestamp) {
+
+            var dayFraction = (double) (timestamp.getEpochSecond() % DAY.toSeconds()) / DAY.toSeconds();
+
+            return 21 + 3 * Math.sin(2 * Math.PI * dayFraction) + random.nextGaussian() * 0.1;
+        }
+
+        long getOutput() {
+            return output.get();
+        }
+
+        @Override
+        public void close() throws Exception {
+
+            subscription.dispose();
+
+            for (var sensor : sensors) {
+                sensor.tryEmitComplete();
+            }
+
+            director.close();
+            device.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package net.sf.dz3r.view;
+
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.UnitDirector;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.CallingStatus;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class UnitObserverTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final Sinks.Many<Signal<Double, Void>> bedroomSensor = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<Signal<Double, Void>> kitchenSensor = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<Signal<ZoneStatus, String>> statusSink = Sinks.many().multicast().directBestEffort();
+
+    private UnitObserver create() {
+
+        var sensors = new LinkedHashMap<Flux<Signal<Double, Void>>, Zone>();
+
+        sensors.put(kitchenSensor.asFlux(), zone("kitchen"));
+        sensors.put(bedroomSensor.asFlux(), zone("bedroom"));
+
+        return new UnitObserver(new UnitDirector.Feed(
+                "unit",
+                sensors,
+                statusSink.asFlux(),
+                Flux.never(),
+                Flux.never(),
+                Flux.never(),
+                Flux.never()));
+    }
+
+    @Test
+    void empty() {
+
+        var observer = create();
+        var snapshot = observer.getSnapshot();
+
+        assertThat(snapshot.getZones()).isEmpty();
+        assertThat(snapshot.getSensors()).isEmpty();
+        assertThat(snapshot.getUnitStatus()).isNull();
+        assertThat(snapshot.version).isZero();
+        assertThat(observer.getZone("bedroom").block()).isNull();
+    }
+
+    @Test
+    void lookupAndOrder() {
+
+        var observer = create();
+
+        kitchenSensor.tryEmitNext(new Signal<>(START, 22.0));
+        bedroomSensor.tryEmitNext(new Signal<>(START, 19.5));
+        statusSink.tryEmitNext(status("kitchen"));
+
+        var snapshot = observer.getSnapshot();
+
+        assertThat(snapshot.getSensors().keySet()).containsExactly("bedroom", "kitchen");
+        assertThat(snapshot.getSensors().get("bedroom").getValue()).isEqualTo(19.5);
+        assertThat(snapshot.getZones()).containsOnlyKeys("kitchen");
+        assertThat(observer.getSensor("kitchen").block().getValue()).isEqualTo(22.0);
+        assertThat(observer.getZone("kitchen").block().payload).isEqualTo("kitchen");
+        assertThat(observer.getSensor("attic").block()).isNull();
+
+        assertThat(snapshot.version).isEqualTo(3);
+        assertThat(snapshot.sensorVersion).isEqualTo(2);
+        assertThat(snapshot.zoneVersion).isEqualTo(1);
+        assertThat(observer.getSensors().map(Map.Entry::getKey).collectList().block()).containsExactly("bedroom", "kitchen");
+    }
+
+    @Test
+    void snapshotIsImmutable() {
+
+        var observer = create();
+
+        bedroomSensor.tryEmitNext(new Signal<>(START, 19.5));
+
+        var before = observer.getSnapshot();
+
+        bedroomSensor.tryEmitNext(new Signal<>(START.plusSeconds(1), 20.0));
+
+        assertThat(before.getSensors().get("bedroom").getValue()).isEqualTo(19.5);
+        assertThat(observer.getSnapshot().getSensors().get("bedroom").getValue()).isEqualTo(20.0);
+        assertThat(observer.getSnapshot().sensorVersion).isGreaterThan(before.sensorVersion);
+    }
+
+    @Test
+    void unknownZone() {
+
+        var observer = create();
+
+        statusSink.tryEmitNext(status("attic"));
+        statusSink.tryEmitNext(status("bedroom"));
+
+        assertThat(observer.getSnapshot().getZones().keySet()).containsExactly("attic", "bedroom");
+    }
+
+    @Test
+    void concurrentReaders() {
+
+        var observer = create();
+        var running = new AtomicBoolean(true);
+        var reader = CompletableFuture.runAsync(() -> {
+
+            while (running.get()) {
+
+                var snapshot = observer.getSnapshot();
+                var seen = new ArrayList<>(snapshot.getSensors().entrySet());
+
+                assertThat(seen).hasSizeLessThanOrEqualTo(2);
+                assertThat(snapshot.sensorVersion).isGreaterThanOrEqualTo(seen.size());
+            }
+        });
+
+        for (var count = 0; count < 10_000; count++) {
+            bedroomSensor.tryEmitNext(new Signal<>(START.plusMillis(count), (double) count));
+            kitchenSensor.tryEmitNext(new Signal<>(START.plusMillis(count), (double) count));
+        }
+
+        running.set(false);
+
+        assertThatCode(reader::join).doesNotThrowAnyException();
+
+        // Best effort sinks may drop some signals if the subscriber falls behind, but never all of them
+        assertThat(observer.getSnapshot().sensorVersion).isPositive();
+    }
+
+    private Zone zone(String name) {
+        return new Zone(new Thermostat(name, 20.0, 1, 0, 0, 1), new ZoneSettings(20.0));
+    }
+
+    private Signal<ZoneStatus, String> status(String zone) {
+        return new Signal<>(START, new ZoneStatus(new ZoneSettings(20.0), new CallingStatus(null, 0, false), null, null), zone);
+    }
+}
@@ -4,6 +4,7 @@ import net.sf.dz3r.device.actuator.Switch;
 import net.sf.dz3r.device.driver.command.DriverCommand;
 import net.sf.dz3r.device.driver.event.DriverNetworkEvent;
 import net.sf.dz3r.instrumentation.Marker;
+import net.sf.dz3r.instrumentation.jfr.SensorSignalEvent;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.SignalSource;
 import net.sf.dz3r.signal.filter.TimeoutGuard;
@@ -61,11 +62,15 @@ public abstract class AbstractDeviceDriver<A extends Comparable<A>, T, P, D> imp
 
         logger.info("getFlux: {}", address);
 
-        return new TimeoutGuard<T, P>(address.toString(), timeout, true)
+        var driver = getClass().getSimpleName();
+        var sensor = address.toString();
+
+        return new TimeoutGuard<T, P>(sensor, timeout, true)
                 .compute(Flux.concat(
                         checkPresence(address),
                         getSensorsFlux()
-                                .filter(s -> address.equals(s.payload))));
+                                .filter(s -> address.equals(s.payload))
+                                .doOnNext(s -> SensorSignalEvent.record(driver, sensor, s.timestamp, s.getValue(), s.isError()))));
     }
 
     /**
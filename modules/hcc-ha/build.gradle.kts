@@ -13,4 +13,5 @@ dependencies {
 
     testImplementation(libs.assertj.core)
     testImplementation(libs.junit5.api)
+    testImplementation(libs.reactor.test)
 }
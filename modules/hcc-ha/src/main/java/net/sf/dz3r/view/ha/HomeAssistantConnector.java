@@ -22,6 +22,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
@@ -61,11 +62,31 @@ import java.util.regex.Pattern;
  */
 public class HomeAssistantConnector implements Connector {
 
+    /**
+     * Default minimum interval between different state messages to the same topic.
+     */
+    public static final Duration DEFAULT_PACE = Duration.ofSeconds(1);
+
+    /**
+     * Default maximum interval between identical state messages to the same topic.
+     */
+    public static final Duration DEFAULT_HEARTBEAT = Duration.ofMinutes(5);
+
     private final Logger logger = LogManager.getLogger();
 
     private final Config config;
     private final MqttAdapter mqttAdapter;
 
+    /**
+     * Scheduler for {@link #statePublisher} to send out delayed messages on.
+     */
+    private final Scheduler publisherScheduler;
+
+    /**
+     * Publisher for state messages and discovery packets. Availability messages bypass it.
+     */
+    private final StatePublisher statePublisher;
+
     /**
      * Zones configured in the constructor.
      */
@@ -87,9 +108,46 @@ public class HomeAssistantConnector implements Connector {
     private final TopicResolver topicResolver = new TopicResolver();
 
     public HomeAssistantConnector(String version, String id, MqttAdapter mqttAdapter, String discoveryPrefix, Set<Zone> zonesConfigured) {
+        this(version, id, mqttAdapter, discoveryPrefix, zonesConfigured, null, null);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param version Version to report in the discovery packet.
+     * @param id Connector ID.
+     * @param mqttAdapter MQTT adapter to talk to HA through.
+     * @param discoveryPrefix HA discovery prefix.
+     * @param zonesConfigured Zones to expose.
+     * @param pace Send different messages to the same topic at most this often. {@link #DEFAULT_PACE} if {@code null}.
+     * @param heartbeat Send identical messages to the same topic at least this often. {@link #DEFAULT_HEARTBEAT} if {@code null}.
+     */
+    public HomeAssistantConnector(
+            String version,
+            String id,
+            MqttAdapter mqttAdapter,
+            String discoveryPrefix,
+            Set<Zone> zonesConfigured,
+            Duration pace,
+            Duration heartbeat) {
+
         this.config = new Config(version, id, discoveryPrefix);
         this.mqttAdapter = mqttAdapter;
         this.zonesConfigured = Collections.unmodifiableSet(zonesConfigured);
+
+        this.publisherScheduler = Schedulers.newSingle("ha-publisher-" + id);
+        this.statePublisher = new StatePublisher(
+                mqttAdapter,
+                Optional.ofNullable(pace).orElse(DEFAULT_PACE),
+                Optional.ofNullable(heartbeat).orElse(DEFAULT_HEARTBEAT),
+                publisherScheduler);
+    }
+
+    /**
+     * @return Statistics of messages published, suppressed as identical, and coalesced within the pace interval.
+     */
+    public StatePublisher.Stats getStats() {
+        return statePublisher.getStats();
     }
 
     @Override
@@ -106,7 +164,9 @@ public class HomeAssistantConnector implements Connector {
                 false
         ));
 
-        logger.info("done");
+        publisherScheduler.dispose();
+
+        logger.info("done, {}", statePublisher.getStats());
     }
 
     @Override
@@ -233,7 +293,7 @@ public class HomeAssistantConnector implements Connector {
                     .writerWithDefaultPrettyPrinter()
                     .writeValueAsString(discoveryPacket);
 
-            mqttAdapter.publish(discoveryPacket.configTopic, payload, MqttQos.AT_LEAST_ONCE, true);
+            statePublisher.publish(discoveryPacket.configTopic, payload, MqttQos.AT_LEAST_ONCE, true);
 
         } catch (JsonProcessingException ex) {
             throw new IllegalStateException("Failed to convert materialized discoveryPacket to JSON", ex);
@@ -342,7 +402,7 @@ public class HomeAssistantConnector implements Connector {
         try {
             var payload =  getObjectMapper()
                     .writeValueAsString(message);
-            mqttAdapter.publish(topic, payload, MqttQos.AT_MOST_ONCE, false);
+            statePublisher.publish(topic, payload, MqttQos.AT_MOST_ONCE, false);
         } catch (JsonProcessingException ex) {
             logger.error("Failed to render JSON from {}", message, ex);
         }
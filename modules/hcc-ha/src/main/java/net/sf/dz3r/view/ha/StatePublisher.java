@@ -0,0 +1,175 @@
+package net.sf.dz3r.view.ha;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.mqtt.MqttAdapter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MQTT publisher that doesn't send the same thing twice, and doesn't send things too often.
+ *
+ * For every topic, the last published payload is remembered. A payload identical to it is suppressed unless
+ * it was published more than {@link #heartbeat} ago. A different payload is published right away, unless
+ * the previous one was published less than {@link #pace} ago; then it is held until the pace interval expires,
+ * and replaced with any newer payload that arrives in the meanwhile - only the latest one is sent.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class StatePublisher {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final MqttAdapter mqttAdapter;
+
+    /**
+     * Publish different payloads to the same topic at most this often. {@code null} means no limit.
+     */
+    private final Duration pace;
+
+    /**
+     * Publish identical payloads to the same topic at least this often. {@code null} means never publish them again.
+     */
+    private final Duration heartbeat;
+
+    /**
+     * Scheduler to use both as a clock and to send the payloads held back by {@link #pace}.
+     */
+    private final Scheduler scheduler;
+
+    private final Map<String, TopicState> topic2state = new HashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    StatePublisher(MqttAdapter mqttAdapter, Duration pace, Duration heartbeat, Scheduler scheduler) {
+
+        this.mqttAdapter = HCCObjects.requireNonNull(mqttAdapter, "mqttAdapter can't be null");
+        this.scheduler = HCCObjects.requireNonNull(scheduler, "scheduler can't be null");
+
+        // These are nullable
+        this.pace = pace;
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * Publish the payload, possibly.
+     *
+     * @param topic Topic to publish to.
+     * @param payload Payload to publish.
+     * @param qos QoS to publish with.
+     * @param retain Retain flag.
+     */
+    public synchronized void publish(String topic, String payload, MqttQos qos, boolean retain) {
+
+        var now = scheduler.now(TimeUnit.MILLISECONDS);
+        var state = topic2state.computeIfAbsent(topic, k -> new TopicState());
+
+        if (state.pending != null) {
+
+            // Whatever is pending will be superseded by this payload (or dropped if we're back to what was published)
+            coalesced.incrementAndGet();
+
+            state.pending = payload.equals(state.payload) ? null : new Message(payload, qos, retain);
+            logger.trace("{}: coalesced, pending={}", topic, state.pending);
+
+            return;
+        }
+
+        if (payload.equals(state.payload) && (heartbeat == null || now - state.publishedAt < heartbeat.toMillis())) {
+
+            suppressed.incrementAndGet();
+            logger.trace("{}: suppressed, same as {}ms ago", topic, now - state.publishedAt);
+
+            return;
+        }
+
+        var wait = pace == null || state.payload == null ? 0 : state.publishedAt + pace.toMillis() - now;
+
+        if (wait <= 0) {
+            send(topic, state, new Message(payload, qos, retain), now);
+            return;
+        }
+
+        logger.trace("{}: held for {}ms", topic, wait);
+
+        state.pending = new Message(payload, qos, retain);
+        scheduler.schedule(() -> flush(topic), wait, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void flush(String topic) {
+
+        var state = topic2state.get(topic);
+
+        if (state.pending == null) {
+            // Superseded by the payload that was already published
+            return;
+        }
+
+        send(topic, state, state.pending, scheduler.now(TimeUnit.MILLISECONDS));
+    }
+
+    private void send(String topic, TopicState state, Message message, long now) {
+
+        mqttAdapter.publish(topic, message.payload, message.qos, message.retain);
+
+        state.payload = message.payload;
+        state.publishedAt = now;
+        state.pending = null;
+
+        published.incrementAndGet();
+    }
+
+    public Stats getStats() {
+        return new Stats(published.get(), suppressed.get(), coalesced.get());
+    }
+
+    /**
+     * Publisher statistics.
+     *
+     * @param published Number of messages actually published.
+     * @param suppressed Number of messages not published because they were identical to the last one published.
+     * @param coalesced Number of messages not published because they were superseded by a newer message within the pace interval.
+     */
+    public record Stats(
+            long published,
+            long suppressed,
+            long coalesced
+    ) {
+
+    }
+
+    private record Message(
+            String payload,
+            MqttQos qos,
+            boolean retain
+    ) {
+
+    }
+
+    private static class TopicState {
+
+        /**
+         * Last published payload.
+         */
+        String payload;
+
+        /**
+         * When {@link #payload} was published, per {@link StatePublisher#scheduler} clock.
+         */
+        long publishedAt;
+
+        /**
+         * Message held back by {@link StatePublisher#pace}, if any.
+         */
+        Message pending;
+    }
+}
@@ -0,0 +1,119 @@
+package net.sf.dz3r.view.ha;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.device.mqtt.MqttAdapter;
+import net.sf.dz3r.device.mqtt.v1.MqttEndpoint;
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatePublisherTest {
+
+    private static final String TOPIC = "/hcc/test";
+
+    @Test
+    void suppressIdentical() {
+
+        var adapter = new RecordingAdapter();
+        var scheduler = VirtualTimeScheduler.create();
+        var publisher = new StatePublisher(adapter, Duration.ofSeconds(1), Duration.ofMinutes(5), scheduler);
+
+        publisher.publish(TOPIC, "A", MqttQos.AT_MOST_ONCE, false);
+
+        scheduler.advanceTimeBy(Duration.ofMinutes(1));
+        publisher.publish(TOPIC, "A", MqttQos.AT_MOST_ONCE, false);
+
+        assertThat(adapter.published).containsExactly("A");
+
+        // Heartbeat expired, must be published again
+        scheduler.advanceTimeBy(Duration.ofMinutes(5));
+        publisher.publish(TOPIC, "A", MqttQos.AT_MOST_ONCE, false);
+
+        assertThat(adapter.published).containsExactly("A", "A");
+        assertThat(publisher.getStats()).isEqualTo(new StatePublisher.Stats(2, 1, 0));
+    }
+
+    @Test
+    void coalesce() {
+
+        var adapter = new RecordingAdapter();
+        var scheduler = VirtualTimeScheduler.create();
+        var publisher = new StatePublisher(adapter, Duration.ofSeconds(1), Duration.ofMinutes(5), scheduler);
+
+        publisher.publish(TOPIC, "A", MqttQos.AT_MOST_ONCE, false);
+        publisher.publish(TOPIC, "B", MqttQos.AT_MOST_ONCE, false);
+        publisher.publish(TOPIC, "C", MqttQos.AT_MOST_ONCE, false);
+        publisher.publish(TOPIC, "D", MqttQos.AT_MOST_ONCE, false);
+
+        // Only the first one goes out right away...
+        assertThat(adapter.published).containsExactly("A");
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+        // ...and only the last one after the pace interval
+        assertThat(adapter.published).containsExactly("A", "D");
+        assertThat(publisher.getStats()).isEqualTo(new StatePublisher.Stats(2, 0, 2));
+    }
+
+    @Test
+    void revert() {
+
+        var adapter = new RecordingAdapter();
+        var scheduler = VirtualTimeScheduler.create();
+        var publisher = new StatePublisher(adapter, Duration.ofSeconds(1), Duration.ofMinutes(5), scheduler);
+
+        publisher.publish(TOPIC, "A", MqttQos.AT_MOST_ONCE, false);
+        publisher.publish(TOPIC, "B", MqttQos.AT_MOST_ONCE, false);
+        publisher.publish(TOPIC, "A", MqttQos.AT_MOST_ONCE, false);
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+        // The state went back to what was already published, nothing to send
+        assertThat(adapter.published).containsExactly("A");
+    }
+
+    @Test
+    void topicsAreIndependent() {
+
+        var adapter = new RecordingAdapter();
+        var scheduler = VirtualTimeScheduler.create();
+        var publisher = new StatePublisher(adapter, Duration.ofSeconds(1), Duration.ofMinutes(5), scheduler);
+
+        publisher.publish(TOPIC + "/1", "A", MqttQos.AT_MOST_ONCE, false);
+        publisher.publish(TOPIC + "/2", "A", MqttQos.AT_MOST_ONCE, false);
+
+        assertThat(adapter.published).containsExactly("A", "A");
+    }
+
+    private static class RecordingAdapter implements MqttAdapter {
+
+        final List<String> published = new ArrayList<>();
+
+        @Override
+        public void publish(String topic, String payload, MqttQos qos, boolean retain) {
+            published.add(payload);
+        }
+
+        @Override
+        public Flux<MqttSignal> getFlux(String topic, boolean includeSubtopics) {
+            return Flux.empty();
+        }
+
+        @Override
+        public MqttEndpoint getAddress() {
+            return new MqttEndpoint("localhost");
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package net.sf.dz3r.view.http.gae.v3;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.sf.dz3r.view.http.gae.v3.wire.ZoneSnapshot;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Encodes {@link ZoneSnapshot}s as deltas against what the upstream has already acknowledged.
+ *
+ * A delta entry always contains the zone {@code name} and {@code timestamp}, and only those other fields
+ * that differ from the last acknowledged snapshot for the same zone. Zones with no differences are skipped altogether.
+ * Differences in noisy numeric fields smaller than their {@link #THRESHOLDS threshold} don't count as differences;
+ * since the comparison is made against the acknowledged value, slow drift is still reported once it accumulates.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+class DeltaEncoder {
+
+    static final String NAME = "name";
+    static final String TIMESTAMP = "timestamp";
+
+    /**
+     * Changes in these fields smaller than the value are not worth sending.
+     */
+    static final Map<String, Double> THRESHOLDS = Map.of(
+            "currentTemperature", 0.05,
+            "signal", 0.01
+    );
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Full snapshots the upstream has acknowledged, by zone name.
+     */
+    private final Map<String, ObjectNode> acked = new TreeMap<>();
+
+    /**
+     * Full snapshots sent in the last {@link #encode(Collection, boolean)} call, to become {@link #acked} on {@link #acknowledge()}.
+     */
+    private final Map<String, ObjectNode> inFlight = new TreeMap<>();
+
+    DeltaEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Encode the snapshots.
+     *
+     * @param snapshots Snapshots to encode, no more than one per zone.
+     * @param delta {@code true} to encode deltas against acknowledged snapshots, {@code false} to encode full snapshots.
+     *
+     * @return Encoded snapshots. May be empty if all zones are idle.
+     */
+    synchronized ArrayNode encode(Collection<ZoneSnapshot> snapshots, boolean delta) {
+
+        inFlight.clear();
+
+        var result = objectMapper.createArrayNode();
+
+        for (var snapshot : snapshots) {
+
+            ObjectNode full = objectMapper.valueToTree(snapshot);
+            var base = delta ? acked.get(snapshot.name) : null;
+            var entry = base == null ? full : diff(base, full);
+
+            if (entry == null) {
+                // Idle zone
+                continue;
+            }
+
+            inFlight.put(snapshot.name, full);
+            result.add(entry);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The difference, or {@code null} if there is none worth sending.
+     */
+    private ObjectNode diff(ObjectNode base, ObjectNode full) {
+
+        var result = objectMapper.createObjectNode();
+
+        result.set(NAME, full.get(NAME));
+        result.set(TIMESTAMP, full.get(TIMESTAMP));
+
+        var changed = false;
+
+        for (var i = full.fields(); i.hasNext(); ) {
+
+            var kv = i.next();
+            var field = kv.getKey();
+
+            if (NAME.equals(field) || TIMESTAMP.equals(field) || same(field, base.get(field), kv.getValue())) {
+                continue;
+            }
+
+            result.set(field, kv.getValue());
+            changed = true;
+        }
+
+        if (!changed) {
+            return null;
+        }
+
+        // The next delta must be against what was actually sent, below-threshold changes included
+        for (var field : THRESHOLDS.keySet()) {
+            if (!result.has(field)) {
+                full.set(field, base.get(field));
+            }
+        }
+
+        return result;
+    }
+
+    private boolean same(String field, JsonNode a, JsonNode b) {
+
+        var threshold = THRESHOLDS.get(field);
+
+        if (threshold != null && a != null && b != null && a.isNumber() && b.isNumber()) {
+            return Math.abs(a.doubleValue() - b.doubleValue()) < threshold;
+        }
+
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Record the last encoded snapshots as acknowledged by the upstream.
+     */
+    synchronized void acknowledge() {
+        acked.putAll(inFlight);
+        inFlight.clear();
+    }
+
+    /**
+     * Forget everything acknowledged so far. Next deltas will be full snapshots.
+     */
+    synchronized void reset() {
+        acked.clear();
+        inFlight.clear();
+    }
+}
@@ -12,34 +12,93 @@ import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.view.http.gae.v3.wire.ZoneCommand;
 import net.sf.dz3r.view.http.gae.v3.wire.ZoneSnapshot;
 import net.sf.dz3r.view.http.v3.HttpConnector;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
-import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Connector exchanging zone snapshots and commands with the Google App Engine proxy.
+ *
+ * Only the latest snapshot for every zone is sent. Until the upstream advertises {@link #CAPABILITY_DELTA}
+ * in the {@link #HEADER_ACCEPT} response header, full snapshots are sent every {@link #POLL_INTERVAL},
+ * exactly as before. After that:
+ *
+ * <ul>
+ *     <li>Every request carries a {@link #HEADER_SEQUENCE sequence number};</li>
+ *     <li>Snapshots are {@link DeltaEncoder delta encoded} against those acknowledged in the exchange named by {@link #HEADER_BASE},
+ *     idle zones are skipped, and full snapshots are sent again every {@link #RESYNC_INTERVAL}, or when the upstream
+ *     asks for it with {@link #HEADER_RESYNC};</li>
+ *     <li>The poll interval shrinks to {@link #POLL_INTERVAL_MIN} while commands are coming in, and grows up to
+ *     {@link #POLL_INTERVAL_MAX} while there's nothing to send.</li>
+ * </ul>
+ *
+ * Request bodies are gzipped if the upstream advertises {@link #CAPABILITY_GZIP}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
 public class HttpConnectorGAE extends HttpConnector {
 
+    /**
+     * Poll interval while there are changes to send.
+     */
+    static final Duration POLL_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Poll interval while commands are coming from the upstream.
+     */
+    static final Duration POLL_INTERVAL_MIN = Duration.ofSeconds(2);
+
+    /**
+     * Poll interval ceiling while there's nothing to send.
+     */
+    static final Duration POLL_INTERVAL_MAX = Duration.ofSeconds(60);
+
+    /**
+     * Send full snapshots at least this often even if the upstream accepts deltas.
+     */
+    static final Duration RESYNC_INTERVAL = Duration.ofMinutes(15);
+
+    static final String HEADER_IDENTITY = "HCC-Identity";
+    static final String HEADER_ACCEPT = "HCC-Accept";
+    static final String HEADER_SEQUENCE = "HCC-Sequence";
+    static final String HEADER_BASE = "HCC-Delta-Base";
+    static final String HEADER_RESYNC = "HCC-Resync";
+
+    static final String CAPABILITY_DELTA = "delta";
+    static final String CAPABILITY_GZIP = "gzip";
+
     private final Logger logger = LogManager.getLogger();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -48,12 +107,37 @@ public class HttpConnectorGAE extends HttpConnector {
     private final Set<String> zoneNames;
     private final Map<String, Zone> name2zone = new TreeMap<>();
 
-    private final Duration pollInterval = Duration.of(10, ChronoUnit.SECONDS);
-
     private final ZoneRenderer zoneRenderer = new ZoneRenderer();
 
-    private final Sinks.Many<ZoneSnapshot> bufferSink = Sinks.many().unicast().onBackpressureBuffer();
-    private final Disposable bufferSubscription;
+    private final Callable<String> identityProvider;
+    private final Clock clock;
+
+    /**
+     * Latest snapshot for every zone that reported since the last successful exchange.
+     */
+    private final Map<String, ZoneSnapshot> pending = new LinkedHashMap<>();
+
+    private final DeltaEncoder deltaEncoder = new DeltaEncoder(objectMapper);
+
+    /**
+     * Capabilities the upstream advertised in its last response.
+     */
+    private Set<String> capabilities = Set.of();
+
+    private long sequence = 0;
+
+    /**
+     * Sequence number of the last exchange acknowledged by an upstream that accepts deltas, {@code null} if none.
+     */
+    private Long ackedSequence;
+
+    private Instant lastFullSync;
+
+    private Duration pollInterval = POLL_INTERVAL;
+
+    private final Scheduler exchangeScheduler = Schedulers.newSingle("gae-exchange");
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean closed;
 
     /**
      * Create an instance.
@@ -62,13 +146,22 @@ public class HttpConnectorGAE extends HttpConnector {
      * @param zoneNames Set of zone names to include into communications - some may be private.
      */
     public HttpConnectorGAE(URL serverContextRoot, Set<String> zoneNames) {
+        this(serverContextRoot, zoneNames, null, Clock.systemUTC());
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param serverContextRoot Server context root.
+     * @param zoneNames Set of zone names to include into communications - some may be private.
+     * @param identityProvider Client identity provider, {@code null} for {@link #getIdentity() default}.
+     * @param clock Clock to use.
+     */
+    HttpConnectorGAE(URL serverContextRoot, Set<String> zoneNames, Callable<String> identityProvider, Clock clock) {
         super(serverContextRoot);
         this.zoneNames = new TreeSet<>(zoneNames);
-
-        bufferSubscription = bufferSink.asFlux()
-                .buffer(pollInterval)
-                .doOnNext(this::exchange)
-                .subscribe();
+        this.identityProvider = Optional.ofNullable(identityProvider).orElse(this::getIdentity);
+        this.clock = clock;
     }
 
     private synchronized HttpClient getHttpClient() {
@@ -124,7 +217,22 @@ public class HttpConnectorGAE extends HttpConnector {
                                 .filter(z -> zoneNames.contains(z.payload))
                                 .doOnNext(z -> logger.debug("Reportable zone: {}", z.payload))
                 )
-                .subscribe(bufferSink::tryEmitNext);
+                .subscribe(this::consume);
+
+        if (!started.getAndSet(true)) {
+            exchangeScheduler.schedule(this::cycle, POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Accept the snapshot for the next exchange, replacing the previous snapshot for the same zone, if any.
+     *
+     * @param snapshot Snapshot to accept.
+     */
+    void consume(ZoneSnapshot snapshot) {
+        synchronized (pending) {
+            pending.put(snapshot.name, snapshot);
+        }
     }
 
     private Flux<Signal<Double, String>> getAggregateSensorFlux(Map<Flux<Signal<Double, Void>>, Zone> source) {
@@ -144,25 +252,64 @@ public class HttpConnectorGAE extends HttpConnector {
                 .map(s -> new Signal<>(s.timestamp, s.getValue(), zoneName, s.status, s.error));
     }
 
-    private void exchange(List<ZoneSnapshot> buffer) {
+    private void cycle() {
+
+        try {
+            exchange();
+        } finally {
+            if (!closed) {
+                exchangeScheduler.schedule(this::cycle, getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Send pending snapshots upstream, and execute commands received in response.
+     */
+    synchronized void exchange() {
 
         ThreadContext.push("exchange");
         var m = new Marker("exchange");
 
         try {
 
-            logger.debug("sending {} items: {}", buffer.size(), buffer);
+            Map<String, ZoneSnapshot> buffer;
+
+            synchronized (pending) {
+                buffer = new LinkedHashMap<>(pending);
+            }
+
+            var now = clock.instant();
+            var deltaAccepted = capabilities.contains(CAPABILITY_DELTA);
+            var delta = deltaAccepted
+                    && ackedSequence != null
+                    && lastFullSync != null
+                    && Duration.between(lastFullSync, now).compareTo(RESYNC_INTERVAL) < 0;
 
-            var encoded = objectMapper.writeValueAsString(buffer);
+            logger.debug("sending {} items (delta={}): {}", buffer.size(), delta, buffer.values());
 
-            logger.debug("JSON ({} bytes): {}", encoded.length(), encoded);
+            var body = deltaEncoder.encode(buffer.values(), delta);
+            var encoded = objectMapper.writeValueAsBytes(body);
+
+            logger.debug("JSON ({} bytes): {}", encoded.length, new String(encoded, StandardCharsets.UTF_8));
 
             var targetUrl = serverContextRoot;
             var builder = new URIBuilder(targetUrl.toString());
             var post = new HttpPost(builder.toString());
 
-            post.setHeader("HCC-Identity", getIdentity());
-            post.setEntity(new StringEntity(encoded));
+            post.setHeader(HEADER_IDENTITY, identityProvider.call());
+
+            if (deltaAccepted) {
+
+                sequence++;
+                post.setHeader(HEADER_SEQUENCE, Long.toString(sequence));
+
+                if (delta) {
+                    post.setHeader(HEADER_BASE, Long.toString(ackedSequence));
+                }
+            }
+
+            post.setEntity(createEntity(encoded));
 
             try {
 
@@ -177,7 +324,16 @@ public class HttpConnectorGAE extends HttpConnector {
                     throw new IOException("Request to " + targetUrl + " failed with HTTP code " + rc);
                 }
 
-                processResponse(EntityUtils.toString(rsp.getEntity()));
+                synchronized (pending) {
+                    // Whatever arrived while we were talking to the upstream stays for the next exchange
+                    buffer.forEach(pending::remove);
+                }
+
+                acknowledge(rsp, deltaAccepted, delta, now);
+
+                var commands = processResponse(EntityUtils.toString(rsp.getEntity()));
+
+                adjustPollInterval(!body.isEmpty(), commands > 0);
 
             } finally {
                 post.releaseConnection();
@@ -185,8 +341,8 @@ public class HttpConnectorGAE extends HttpConnector {
 
         } catch (Throwable t) { // NOSONAR Consequences have been considered
 
-            // VT: NOTE: For now, this is not a recoverable problem, the snapshot is
-            // irretrievably lost. Need to see if this matters at all
+            // VT: NOTE: Pending snapshots are retained, and will be sent (and their deltas computed
+            // against the last acknowledged state) on the next exchange
 
             logger.error("Buffer exchange failed", t);
 
@@ -196,7 +352,103 @@ public class HttpConnectorGAE extends HttpConnector {
         }
     }
 
-    private void processResponse(String response) throws JsonProcessingException {
+    private static final ContentType PLAIN_TEXT_UTF8 = ContentType.create("text/plain", StandardCharsets.UTF_8);
+
+    private ByteArrayEntity createEntity(byte[] encoded) throws IOException {
+
+        if (!capabilities.contains(CAPABILITY_GZIP)) {
+            return new ByteArrayEntity(encoded, PLAIN_TEXT_UTF8);
+        }
+
+        var out = new ByteArrayOutputStream();
+
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(encoded);
+        }
+
+        var compressed = out.toByteArray();
+
+        logger.debug("gzip: {} => {} bytes", encoded.length, compressed.length);
+
+        var result = new ByteArrayEntity(compressed, PLAIN_TEXT_UTF8);
+        result.setContentEncoding(CAPABILITY_GZIP);
+
+        return result;
+    }
+
+    /**
+     * Update the protocol state according to the upstream response.
+     *
+     * @param rsp Upstream response.
+     * @param deltaAccepted Whether the request was sent with a sequence number.
+     * @param delta Whether the request was delta encoded.
+     * @param now Time the request was encoded.
+     */
+    private void acknowledge(HttpResponse rsp, boolean deltaAccepted, boolean delta, Instant now) {
+
+        var advertised = Optional
+                .ofNullable(rsp.getFirstHeader(HEADER_ACCEPT))
+                .map(h -> Arrays.stream(h.getValue().split(","))
+                        .map(String::trim)
+                        .filter(c -> !c.isEmpty())
+                        .collect(Collectors.toUnmodifiableSet()))
+                .orElse(Set.of());
+
+        if (!advertised.equals(capabilities)) {
+            logger.info("upstream capabilities: {}", advertised);
+            capabilities = advertised;
+        }
+
+        if (!deltaAccepted || !capabilities.contains(CAPABILITY_DELTA) || rsp.getFirstHeader(HEADER_RESYNC) != null) {
+
+            if (ackedSequence != null) {
+                logger.info("upstream requested resync");
+            }
+
+            deltaEncoder.reset();
+            ackedSequence = null;
+            return;
+        }
+
+        deltaEncoder.acknowledge();
+        ackedSequence = sequence;
+
+        if (!delta) {
+            lastFullSync = now;
+        }
+    }
+
+    private void adjustPollInterval(boolean sent, boolean commandsReceived) {
+
+        Duration next;
+
+        if (!capabilities.contains(CAPABILITY_DELTA)) {
+            next = POLL_INTERVAL;
+        } else if (commandsReceived) {
+            next = POLL_INTERVAL_MIN;
+        } else if (sent) {
+            next = POLL_INTERVAL;
+        } else {
+            var longer = (pollInterval.compareTo(POLL_INTERVAL) > 0 ? pollInterval : POLL_INTERVAL).multipliedBy(2);
+            next = longer.compareTo(POLL_INTERVAL_MAX) > 0 ? POLL_INTERVAL_MAX : longer;
+        }
+
+        if (!next.equals(pollInterval)) {
+            logger.debug("poll interval: {} => {}", pollInterval, next);
+            pollInterval = next;
+        }
+    }
+
+    synchronized Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Parse the response and execute commands in it.
+     *
+     * @return Number of commands received.
+     */
+    private int processResponse(String response) throws JsonProcessingException {
         ThreadContext.push("processResponse");
         try {
 
@@ -207,6 +459,8 @@ public class HttpConnectorGAE extends HttpConnector {
                     .publishOn(Schedulers.boundedElastic())
                     .subscribe(this::executeCommand);
 
+            return buffer.size();
+
         } finally {
             ThreadContext.pop();
         }
@@ -283,7 +537,8 @@ public class HttpConnectorGAE extends HttpConnector {
         ThreadContext.push("close");
         try {
             logger.warn("Shutting down: {}", serverContextRoot);
-            bufferSubscription.dispose();
+            closed = true;
+            exchangeScheduler.dispose();
             logger.info("Shut down: {}", serverContextRoot);
         } finally {
             ThreadContext.pop();
@@ -0,0 +1,243 @@
+package net.sf.dz3r.view.http.gae.v3;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.sf.dz3r.view.http.gae.v3.wire.HvacMode;
+import net.sf.dz3r.view.http.gae.v3.wire.ZoneSnapshot;
+import net.sf.dz3r.view.http.gae.v3.wire.ZoneState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpConnectorGAETest {
+
+    private static final String ZONE_A = "A";
+    private static final String ZONE_B = "B";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer server;
+    private final List<Request> requests = new ArrayList<>();
+
+    /**
+     * Headers to add to the next response.
+     */
+    private final Map<String, String> responseHeaders = new TreeMap<>();
+
+    /**
+     * Body of the next response.
+     */
+    private String responseBody = "[]";
+
+    private HttpConnectorGAE connector;
+
+    @BeforeEach
+    void start() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        connector = new HttpConnectorGAE(
+                new URL("http://localhost:" + server.getAddress().getPort() + "/"),
+                Set.of(ZONE_A, ZONE_B),
+                () -> "test-identity",
+                Clock.systemUTC());
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        connector.close();
+        server.stop(0);
+    }
+
+    private synchronized void handle(HttpExchange exchange) throws IOException {
+
+        try (InputStream in = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                ? new GZIPInputStream(exchange.getRequestBody())
+                : exchange.getRequestBody()) {
+
+            requests.add(new Request(
+                    exchange.getRequestHeaders().getFirst("Content-Encoding"),
+                    exchange.getRequestHeaders().getFirst(HttpConnectorGAE.HEADER_SEQUENCE),
+                    exchange.getRequestHeaders().getFirst(HttpConnectorGAE.HEADER_BASE),
+                    objectMapper.readTree(in)));
+        }
+
+        responseHeaders.forEach((k, v) -> exchange.getResponseHeaders().add(k, v));
+
+        var body = responseBody.getBytes(StandardCharsets.UTF_8);
+
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    @Test
+    void legacy() {
+
+        connector.consume(snapshot(ZONE_A, 20, 25));
+        connector.consume(snapshot(ZONE_A, 21, 25));
+        connector.consume(snapshot(ZONE_B, 22, 25));
+        connector.exchange();
+
+        connector.consume(snapshot(ZONE_A, 21, 25));
+        connector.exchange();
+
+        assertThat(requests).hasSize(2);
+
+        // Upstream didn't advertise anything, full snapshots, latest per zone, no compression
+        var first = requests.get(0);
+
+        assertThat(first.contentEncoding).isNull();
+        assertThat(first.sequence).isNull();
+        assertThat(first.body).hasSize(2);
+        assertThat(first.body.get(0).get("currentTemperature").asDouble()).isEqualTo(21);
+        assertThat(first.body.get(0).has("setpointTemperature")).isTrue();
+
+        // Unchanged, but still sent in full
+        assertThat(requests.get(1).body).hasSize(1);
+        assertThat(connector.getPollInterval()).isEqualTo(HttpConnectorGAE.POLL_INTERVAL);
+    }
+
+    @Test
+    void delta() {
+
+        responseHeaders.put(HttpConnectorGAE.HEADER_ACCEPT, "delta, gzip");
+
+        // Discover capabilities
+        connector.consume(snapshot(ZONE_A, 20, 25));
+        connector.consume(snapshot(ZONE_B, 22, 25));
+        connector.exchange();
+
+        // Establish the base
+        connector.consume(snapshot(ZONE_A, 20, 25));
+        connector.consume(snapshot(ZONE_B, 22, 25));
+        connector.exchange();
+
+        // Setpoint change in A, below threshold noise in B
+        connector.consume(snapshot(ZONE_A, 20, 24));
+        connector.consume(snapshot(ZONE_B, 22.01, 25));
+        connector.exchange();
+
+        assertThat(requests).hasSize(3);
+
+        var base = requests.get(1);
+
+        assertThat(base.contentEncoding).isEqualTo("gzip");
+        assertThat(base.sequence).isEqualTo("1");
+        assertThat(base.base).isNull();
+        assertThat(base.body).hasSize(2);
+
+        var delta = requests.get(2);
+
+        assertThat(delta.sequence).isEqualTo("2");
+        assertThat(delta.base).isEqualTo("1");
+        assertThat(delta.body).hasSize(1);
+
+        var entry = delta.body.get(0);
+
+        assertThat(entry.get("name").asText()).isEqualTo(ZONE_A);
+        assertThat(entry.has("timestamp")).isTrue();
+        assertThat(entry.get("setpointTemperature").asDouble()).isEqualTo(24);
+        assertThat(entry.has("currentTemperature")).isFalse();
+        assertThat(entry.has("enabled")).isFalse();
+        assertThat(connector.getPollInterval()).isEqualTo(HttpConnectorGAE.POLL_INTERVAL);
+    }
+
+    @Test
+    void adaptivePollInterval() {
+
+        responseHeaders.put(HttpConnectorGAE.HEADER_ACCEPT, "delta");
+
+        connector.consume(snapshot(ZONE_A, 20, 25));
+        connector.exchange();
+
+        // Nothing to send, back off
+        connector.exchange();
+        assertThat(connector.getPollInterval()).isEqualTo(HttpConnectorGAE.POLL_INTERVAL.multipliedBy(2));
+
+        for (var count = 0; count < 10; count++) {
+            connector.exchange();
+        }
+
+        assertThat(connector.getPollInterval()).isEqualTo(HttpConnectorGAE.POLL_INTERVAL_MAX);
+
+        // Commands are coming, speed up
+        responseBody = "[{\"name\":\"nonexistent\",\"setpointTemperature\":22.0,\"enabled\":true,\"onHold\":false,\"voting\":true}]";
+        connector.exchange();
+
+        assertThat(connector.getPollInterval()).isEqualTo(HttpConnectorGAE.POLL_INTERVAL_MIN);
+    }
+
+    @Test
+    void resync() {
+
+        responseHeaders.put(HttpConnectorGAE.HEADER_ACCEPT, "delta");
+
+        connector.consume(snapshot(ZONE_A, 20, 25));
+        connector.exchange();
+        connector.consume(snapshot(ZONE_A, 20, 25));
+        connector.exchange();
+
+        // Upstream lost its state
+        responseHeaders.put(HttpConnectorGAE.HEADER_RESYNC, "true");
+        connector.consume(snapshot(ZONE_A, 20, 24));
+        connector.exchange();
+        responseHeaders.remove(HttpConnectorGAE.HEADER_RESYNC);
+
+        connector.consume(snapshot(ZONE_A, 20, 24));
+        connector.exchange();
+
+        var last = requests.get(requests.size() - 1);
+
+        assertThat(last.base).isNull();
+        assertThat(last.body).hasSize(1);
+        assertThat(last.body.get(0).has("currentTemperature")).isTrue();
+    }
+
+    private ZoneSnapshot snapshot(String name, double currentTemperature, double setpoint) {
+        return new ZoneSnapshot(
+                System.currentTimeMillis(),
+                name,
+                HvacMode.COOLING,
+                ZoneState.HAPPY,
+                0,
+                currentTemperature,
+                setpoint,
+                true,
+                false,
+                true,
+                null,
+                0,
+                false,
+                false,
+                null);
+    }
+
+    private record Request(
+            String contentEncoding,
+            String sequence,
+            String base,
+            JsonNode body
+    ) {
+
+    }
+}
@@ -1,45 +1,46 @@
 package net.sf.dz3r.view.influxdb.v3;
 
+import net.sf.dz3r.model.HvacMode;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.hvac.HvacDeviceStatus;
-import org.influxdb.dto.Point;
-import reactor.core.publisher.Flux;
 
-import java.time.Duration;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class HvacDeviceMetricsConverter extends MetricsConverter<HvacDeviceStatus, Void> {
+
+    private final LineProtocolSeries series;
+    private final Map<HvacMode, LineProtocolSeries> mode2series = new EnumMap<>(HvacMode.class);
+
     public HvacDeviceMetricsConverter(String instance, String unit) {
         super(instance, unit);
-    }
 
-    @Override
-    public Flux<Point> compute(Flux<Signal<HvacDeviceStatus, Void>> in) {
-        return in.map(this::convert);
-    }
+        series = LineProtocolSeries.of("hvacDevice", "instance", instance, "unit", unit);
 
-    private Point convert(Signal<HvacDeviceStatus, Void> signal) {
+        for (var mode : HvacMode.values()) {
+            mode2series.put(mode, LineProtocolSeries.of("hvacDevice", "instance", instance, "unit", unit, "mode", mode.toString()));
+        }
+    }
 
-        var b = Point.measurement("hvacDevice")
-                .time(signal.timestamp.toEpochMilli(), TimeUnit.MILLISECONDS)
-                .tag("instance", instance)
-                .tag("unit", unit);
+    @Override
+    protected void encode(Signal<HvacDeviceStatus, Void> signal, LineProtocolBuffer buffer) {
 
         var status = signal.getValue();
 
         if (status != null) {
 
-            b.addField("demand", status.command.demand);
-            b.addField("fanSpeed", status.command.fanSpeed);
-            b.addField("uptimeMillis", Optional.ofNullable(status.uptime).map(Duration::toMillis).orElse(0L));
-            Optional.ofNullable(status.command.mode).ifPresent(m -> b.tag("mode", m.toString()));
-        }
+            buffer
+                    .start(status.command.mode == null ? series : mode2series.get(status.command.mode))
+                    .field("demand", status.command.demand)
+                    .field("fanSpeed", status.command.fanSpeed)
+                    .integerField("uptimeMillis", status.uptime == null ? 0L : status.uptime.toMillis());
 
-        if (signal.error != null) {
-            b.addField("error", signal.error.toString());
+        } else {
+            buffer.start(series);
         }
 
-        return b.build();
+        buffer
+                .field("error", signal.error == null ? null : signal.error.toString())
+                .end(signal.timestamp.toEpochMilli());
     }
 }
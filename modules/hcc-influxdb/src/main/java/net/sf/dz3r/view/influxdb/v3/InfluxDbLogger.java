@@ -1,22 +1,34 @@
 package net.sf.dz3r.view.influxdb.v3;
 
+import net.sf.dz3r.model.HvacMode;
 import net.sf.dz3r.model.UnitDirector;
+import net.sf.dz3r.model.ZoneSettings;
 import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.filter.CompressionSettings;
+import net.sf.dz3r.signal.filter.SeriesCompressor;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
 import net.sf.dz3r.view.MetricsCollector;
 import net.sf.dz3r.view.influxdb.common.InfluxDbConfig;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
-import org.influxdb.dto.Point;
 import org.influxdb.dto.Query;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -24,15 +36,48 @@ import java.util.stream.Collectors;
  *
  * Younger twin brother of {@code net.sf.dz3.view.influxdb.v1.InfluxDbLogger}, implemented with Reactive Streams.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2021
+ * Signals are encoded straight into line protocol by a {@link LineProtocolWriter}, bypassing the client's
+ * {@code Point} API and its batch processor. Batches are written when they fill up, or every {@link #FLUSH_INTERVAL}.
+ *
+ * If {@link CompressionSettings compression} is configured, every series is passed through a {@link SeriesCompressor}
+ * first. Sensor readings and demand values are compressed, error transitions and discrete state changes (zone settings,
+ * calling status, HVAC mode, fan speed) are passed through exactly. Compression ratios are reported as
+ * the {@code compression} measurement every {@link #COMPRESSION_REPORT_INTERVAL}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
-public class InfluxDbLogger implements Subscriber<Point>, MetricsCollector {
+public class InfluxDbLogger implements Subscriber<LineProtocolRecord>, MetricsCollector {
+
+    /**
+     * Same as the {@code InfluxDB} client default.
+     */
+    public static final Duration FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    public static final Duration COMPRESSION_REPORT_INTERVAL = Duration.ofMinutes(1);
 
     private final Logger logger = LogManager.getLogger();
     private final InfluxDbConfig config;
     private InfluxDB db;
+    private LineProtocolWriter writer;
+    private Disposable flusher;
 
     private final Map<Flux<Signal<Double, Void>>, String> sensorFeed2name;
+    private final CompressionSettings compression;
+
+    /**
+     * Create an instance without compression.
+     *
+     * @see #InfluxDbLogger(String, String, String, String, String, Map, CompressionSettings)
+     */
+    public InfluxDbLogger(
+            String dbName,
+            String instance,
+            String dbURL,
+            String username,
+            String password,
+            Map<Flux<Signal<Double, Void>>, String> sensorFeed2name) {
+        this(dbName, instance, dbURL, username, password, sensorFeed2name, null);
+    }
 
     /**
      * Create an instance.
@@ -44,6 +89,7 @@ public class InfluxDbLogger implements Subscriber<Point>, MetricsCollector {
      * @param username InfluxDB username. Use {@code null} for unauthenticated access}.
      * @param password InfluxDB password. Use {@code null} for unauthenticated access}.
      * @param sensorFeed2name Mapping from the sensor feed to the name it will be reported as.
+     * @param compression Compression settings, {@code null} to export everything.
      */
     public InfluxDbLogger(
             String dbName,
@@ -51,11 +97,13 @@ public class InfluxDbLogger implements Subscriber<Point>, MetricsCollector {
             String dbURL,
             String username,
             String password,
-            Map<Flux<Signal<Double, Void>>, String> sensorFeed2name) {
+            Map<Flux<Signal<Double, Void>>, String> sensorFeed2name,
+            CompressionSettings compression) {
 
         config = new InfluxDbConfig(dbName, instance, dbURL, username, password);
 
         this.sensorFeed2name = sensorFeed2name;
+        this.compression = compression;
     }
 
     private synchronized void connect() {
@@ -75,9 +123,13 @@ public class InfluxDbLogger implements Subscriber<Point>, MetricsCollector {
             db = InfluxDBFactory.connect(config.dbURL, config.username, config.password);
         }
 
-        db.enableBatch();
         db.query(new Query("CREATE DATABASE \"" + config.dbName + "\""));
         db.setDatabase(config.dbName);
+
+        writer = new LineProtocolWriter(db, LineProtocolWriter.DEFAULT_BATCH_SIZE);
+        flusher = Flux
+                .interval(FLUSH_INTERVAL, Schedulers.boundedElastic())
+                .subscribe(ignored -> writer.flush());
     }
 
     @Override
@@ -95,9 +147,8 @@ public class InfluxDbLogger implements Subscriber<Point>, MetricsCollector {
      * @param sample Sample to write to InfluxDB.
      */
     @Override
-    public void onNext(Point sample) {
-        logger.trace("Point: {}", sample);
-        db.write(sample);
+    public void onNext(LineProtocolRecord sample) {
+        writer.write(sample);
     }
 
     @Override
@@ -108,18 +159,22 @@ public class InfluxDbLogger implements Subscriber<Point>, MetricsCollector {
     @Override
     public void onComplete() {
         logger.warn("onComplete()");
+        flusher.dispose();
+        writer.flush();
         db.close();
     }
 
     @Override
     public void connect(String unitId, UnitDirector.Feed feed) {
 
+        var compressors = new LinkedHashMap<String, SeriesCompressor<?, ?>>();
+
         var sensorFeeds = Flux.merge(
                 Objects.requireNonNull(
                         Flux.fromIterable(sensorFeed2name.entrySet())
                                 .map(kv -> new SensorConverter(
                                         config.instance,
-                                        kv.getValue()).compute(kv.getKey()))
+                                        kv.getValue()).compute(compress(kv.getKey(), "sensor/" + kv.getValue(), Double::doubleValue, null, compressors)))
                                 .collect(Collectors.toList())
                                 .block()));
 
@@ -129,23 +184,110 @@ public class InfluxDbLogger implements Subscriber<Point>, MetricsCollector {
                                 .map(kv -> new ZoneSensorConverter(
                                         config.instance,
                                         feed.unit,
-                                        kv.getValue().getAddress()).compute(kv.getKey()))
+                                        kv.getValue().getAddress()).compute(compress(kv.getKey(), "zone/" + kv.getValue().getAddress(), Double::doubleValue, null, compressors)))
                                 .collect(Collectors.toList())
                                 .block()));
 
-        var zoneStatusFeed = new ZoneMetricsConverter(config.instance, feed.unit).compute(feed.aggregateZoneFlux);
-        var zoneControllerFeed = new ZoneControllerMetricsConverter(config.instance, feed.unit).compute(feed.zoneControllerFlux);
-        var unitControllerFeed = new UnitControllerMetricsConverter(config.instance, feed.unit).compute(feed.unitControllerFlux);
-        var hvacDeviceFeed = new HvacDeviceMetricsConverter(config.instance, feed.unit).compute(feed.hvacDeviceFlux);
+        var zoneStatusFeed = new ZoneMetricsConverter(config.instance, feed.unit)
+                .compute(compress(feed.aggregateZoneFlux, "zone", s -> s.callingStatus.demand, ZoneState::of, compressors));
+        var zoneControllerFeed = new ZoneControllerMetricsConverter(config.instance, feed.unit)
+                .compute(compress(feed.zoneControllerFlux, "zoneController", s -> s.demand, s -> s.fanSpeed, compressors));
+        var unitControllerFeed = new UnitControllerMetricsConverter(config.instance, feed.unit)
+                .compute(compress(feed.unitControllerFlux, "unitController", InfluxDbLogger::getDemand, CommandState::of, compressors));
+        var hvacDeviceFeed = new HvacDeviceMetricsConverter(config.instance, feed.unit)
+                .compute(compress(feed.hvacDeviceFlux, "hvacDevice", s -> getDemand(s.command), s -> CommandState.of(s.command), compressors));
 
-        var all = Flux.merge(
+        var done = Sinks.empty();
+        var data = Flux.merge(
                 sensorFeeds,
                 zoneSensorFeeds,
                 zoneStatusFeed,
                 zoneControllerFeed,
                 unitControllerFeed,
-                hvacDeviceFeed);
+                hvacDeviceFeed)
+                .doFinally(ignored -> done.tryEmitEmpty());
+
+        var all = Flux.merge(
+                data,
+                reportCompression(feed.unit, compressors).takeUntilOther(done.asMono()));
 
         all.publishOn(Schedulers.boundedElastic()).subscribe(this);
     }
+
+    private <T, P> Flux<Signal<T, P>> compress(
+            Flux<Signal<T, P>> source,
+            String series,
+            ToDoubleFunction<T> value,
+            Function<T, Object> state,
+            Map<String, SeriesCompressor<?, ?>> compressors) {
+
+        if (compression == null) {
+            return source;
+        }
+
+        var compressor = new SeriesCompressor<T, P>(compression, value, state);
+
+        compressors.put(series, compressor);
+
+        return compressor.compute(source);
+    }
+
+    private Flux<LineProtocolRecord> reportCompression(String unit, Map<String, SeriesCompressor<?, ?>> compressors) {
+
+        if (compressors.isEmpty()) {
+            return Flux.empty();
+        }
+
+        var series = new LinkedHashMap<SeriesCompressor<?, ?>, LineProtocolSeries>();
+
+        compressors.forEach((name, compressor) -> series.put(
+                compressor,
+                LineProtocolSeries.of("compression", "instance", config.instance, "unit", unit, "series", name)));
+
+        return Flux
+                .interval(COMPRESSION_REPORT_INTERVAL)
+                .map(ignored -> buffer -> {
+
+                    var now = Instant.now().toEpochMilli();
+
+                    series.forEach((compressor, s) -> buffer
+                            .start(s)
+                            .integerField("received", compressor.getReceived())
+                            .integerField("emitted", compressor.getEmitted())
+                            .field("ratio", compressor.getRatio())
+                            .end(now));
+                });
+    }
+
+    private static double getDemand(HvacCommand command) {
+        return command == null || command.demand == null ? 0 : command.demand;
+    }
+
+    /**
+     * Discrete part of the zone status, changes are never compressed.
+     */
+    private record ZoneState(
+            ZoneSettings settings,
+            boolean calling,
+            Boolean economizerCalling
+    ) {
+        static ZoneState of(ZoneStatus status) {
+            return new ZoneState(
+                    status.settings,
+                    status.callingStatus.calling,
+                    status.economizerStatus == null ? null : status.economizerStatus.callingStatus.calling);
+        }
+    }
+
+    /**
+     * Discrete part of the HVAC command, changes are never compressed.
+     */
+    private record CommandState(
+            HvacMode mode,
+            Double fanSpeed
+    ) {
+        static CommandState of(HvacCommand command) {
+            return command == null ? null : new CommandState(command.mode, command.fanSpeed);
+        }
+    }
 }
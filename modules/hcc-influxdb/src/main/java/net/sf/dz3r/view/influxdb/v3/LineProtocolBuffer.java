@@ -0,0 +1,174 @@
+package net.sf.dz3r.view.influxdb.v3;
+
+import net.sf.dz3r.common.HCCObjects;
+
+/**
+ * Reusable line protocol buffer.
+ *
+ * Lines are built by appending fields to a precomputed {@link LineProtocolSeries series} prefix. Field types follow
+ * what {@code org.influxdb.dto.Point} produces for the same values, so that existing measurements stay compatible:
+ * floating point numbers as is, integers with an {@code i} suffix, strings quoted. {@code null} and non-finite values
+ * are skipped, and a line that ended up with no fields at all is discarded - InfluxDB would reject it.
+ *
+ * Not thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class LineProtocolBuffer {
+
+    private final StringBuilder buffer;
+
+    /**
+     * Offset of the line being built, {@code -1} if there is none.
+     */
+    private int lineStart = -1;
+    private int fields;
+    private int lines;
+
+    public LineProtocolBuffer(int capacity) {
+        buffer = new StringBuilder(capacity);
+    }
+
+    /**
+     * Start a new line.
+     *
+     * @param series Series the line belongs to.
+     *
+     * @return self.
+     */
+    public LineProtocolBuffer start(LineProtocolSeries series) {
+
+        if (lineStart != -1) {
+            throw new IllegalStateException("previous line not finished: " + buffer.substring(lineStart));
+        }
+
+        lineStart = buffer.length();
+        fields = 0;
+        buffer.append(series.prefix());
+
+        return this;
+    }
+
+    public LineProtocolBuffer field(String key, double value) {
+
+        if (Double.isFinite(value)) {
+            key(key).append(value);
+        }
+
+        return this;
+    }
+
+    public LineProtocolBuffer field(String key, Double value) {
+        return value == null ? this : field(key, value.doubleValue());
+    }
+
+    public LineProtocolBuffer field(String key, boolean value) {
+        key(key).append(value);
+        return this;
+    }
+
+    public LineProtocolBuffer field(String key, Boolean value) {
+        return value == null ? this : field(key, value.booleanValue());
+    }
+
+    /**
+     * Append a string field. Backslashes and double quotes are escaped, and so are line breaks - the line protocol
+     * doesn't allow them.
+     */
+    public LineProtocolBuffer field(String key, String value) {
+
+        if (value == null) {
+            return this;
+        }
+
+        var sb = key(key).append('"');
+
+        for (var offset = 0; offset < value.length(); offset++) {
+
+            var c = value.charAt(offset);
+
+            switch (c) {
+                case '"', '\\' -> sb.append('\\').append(c);
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+
+        sb.append('"');
+
+        return this;
+    }
+
+    public LineProtocolBuffer integerField(String key, long value) {
+        key(key).append(value).append('i');
+        return this;
+    }
+
+    public LineProtocolBuffer integerField(String key, Integer value) {
+        return value == null ? this : integerField(key, value.longValue());
+    }
+
+    /**
+     * Finish the line.
+     *
+     * @param timestamp Timestamp, milliseconds since epoch. Rendered with nanosecond precision, InfluxDB default.
+     */
+    public void end(long timestamp) {
+
+        if (lineStart == -1) {
+            throw new IllegalStateException("no line started");
+        }
+
+        if (fields == 0) {
+            buffer.setLength(lineStart);
+        } else {
+            buffer.append(' ').append(timestamp * 1_000_000L).append('\n');
+            lines++;
+        }
+
+        lineStart = -1;
+    }
+
+    /**
+     * @return Number of complete lines in the buffer.
+     */
+    public int size() {
+        return lines;
+    }
+
+    public boolean isEmpty() {
+        return lines == 0;
+    }
+
+    /**
+     * Discard the content, but keep the allocated capacity.
+     */
+    public void clear() {
+        buffer.setLength(0);
+        lineStart = -1;
+        lines = 0;
+    }
+
+    /**
+     * @return Complete lines, newline separated. The line being built, if any, is not included.
+     */
+    @Override
+    public String toString() {
+        return buffer.substring(0, lineStart == -1 ? buffer.length() : lineStart);
+    }
+
+    private StringBuilder key(String key) {
+
+        HCCObjects.requireNonNull(key, "key can't be null");
+
+        if (lineStart == -1) {
+            throw new IllegalStateException("no line started");
+        }
+
+        buffer.append(fields++ == 0 ? ' ' : ',');
+        LineProtocolSeries.escape(buffer, key, true);
+
+        return buffer.append('=');
+    }
+}
@@ -0,0 +1,20 @@
+package net.sf.dz3r.view.influxdb.v3;
+
+/**
+ * Deferred line protocol record.
+ *
+ * Converters don't render the lines themselves, they capture the signal and let the writer encode it straight into
+ * its own buffer, on its own thread - this way, nothing but this object is allocated per signal.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@FunctionalInterface
+public interface LineProtocolRecord {
+
+    /**
+     * Append the line(s) to the buffer.
+     *
+     * @param buffer Buffer to append to. Zero or more lines can be appended.
+     */
+    void encode(LineProtocolBuffer buffer);
+}
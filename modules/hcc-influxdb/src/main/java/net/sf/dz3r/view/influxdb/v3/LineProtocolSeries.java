@@ -0,0 +1,88 @@
+package net.sf.dz3r.view.influxdb.v3;
+
+import net.sf.dz3r.common.HCCObjects;
+
+import java.util.TreeMap;
+
+/**
+ * Measurement and tag set, escaped and rendered into the line protocol prefix once.
+ *
+ * Tags are sorted by key, like {@code org.influxdb.dto.Point} does. Tags with {@code null} or empty values are omitted.
+ *
+ * @param prefix Rendered {@code measurement,tag=value,...} prefix.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record LineProtocolSeries(String prefix) {
+
+    public LineProtocolSeries {
+        HCCObjects.requireNonNull(prefix, "prefix can't be null");
+    }
+
+    /**
+     * Create the series.
+     *
+     * @param measurement Measurement name.
+     * @param tags Tag keys and values, interleaved.
+     *
+     * @return The series.
+     */
+    public static LineProtocolSeries of(String measurement, String... tags) {
+
+        HCCObjects.requireNonNull(measurement, "measurement can't be null");
+
+        if (measurement.isEmpty()) {
+            throw new IllegalArgumentException("measurement can't be empty");
+        }
+
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("odd number of tag keys and values: " + tags.length);
+        }
+
+        var sorted = new TreeMap<String, String>();
+
+        for (var offset = 0; offset < tags.length; offset += 2) {
+
+            var key = HCCObjects.requireNonNull(tags[offset], "tag key can't be null");
+            var value = tags[offset + 1];
+
+            if (value != null && !value.isEmpty()) {
+                sorted.put(key, value);
+            }
+        }
+
+        var sb = new StringBuilder();
+
+        escape(sb, measurement, false);
+
+        sorted.forEach((k, v) -> {
+            sb.append(',');
+            escape(sb, k, true);
+            sb.append('=');
+            escape(sb, v, true);
+        });
+
+        return new LineProtocolSeries(sb.toString());
+    }
+
+    /**
+     * Escape the measurement, tag key, tag value, or field key.
+     *
+     * @param sb Buffer to append to.
+     * @param source Text to escape.
+     * @param equals {@code true} if the equal sign needs to be escaped (everywhere except the measurement name).
+     */
+    static void escape(StringBuilder sb, String source, boolean equals) {
+
+        for (var offset = 0; offset < source.length(); offset++) {
+
+            var c = source.charAt(offset);
+
+            if (c == ',' || c == ' ' || (equals && c == '=')) {
+                sb.append('\\');
+            }
+
+            sb.append(c);
+        }
+    }
+}
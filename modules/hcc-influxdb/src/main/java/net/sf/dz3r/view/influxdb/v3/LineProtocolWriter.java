@@ -0,0 +1,78 @@
+package net.sf.dz3r.view.influxdb.v3;
+
+import net.sf.dz3r.common.HCCObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.influxdb.InfluxDB;
+
+/**
+ * Batching raw line protocol writer.
+ *
+ * Records are encoded into a single reusable buffer which is sent with one {@link InfluxDB#write(String)} call
+ * when it fills up or is {@link #flush() flushed} explicitly. Write failures are logged and the batch is dropped,
+ * same as the {@code InfluxDB} client's own batch processor does.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class LineProtocolWriter {
+
+    /**
+     * Same as the {@code InfluxDB} client default.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final InfluxDB db;
+    private final int batchSize;
+    private final LineProtocolBuffer buffer;
+
+    /**
+     * Create an instance.
+     *
+     * @param db Database to write to. Must have the target database already set.
+     * @param batchSize Number of lines to accumulate before writing.
+     */
+    public LineProtocolWriter(InfluxDB db, int batchSize) {
+
+        this.db = HCCObjects.requireNonNull(db, "db can't be null");
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+
+        this.batchSize = batchSize;
+
+        // Lines are under 200 characters, give or take
+        buffer = new LineProtocolBuffer(batchSize * 200);
+    }
+
+    public synchronized void write(LineProtocolRecord record) {
+
+        record.encode(buffer);
+
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        try {
+
+            var lines = buffer.toString();
+
+            logger.trace("flush: {} lines", buffer.size());
+            db.write(lines);
+
+        } catch (Exception ex) {
+            logger.error("failed to write {} lines, dropped", buffer.size(), ex);
+        } finally {
+            buffer.clear();
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package net.sf.dz3r.view.influxdb.v3;
 
 import net.sf.dz3r.signal.Signal;
-import org.influxdb.dto.Point;
 import reactor.core.publisher.Flux;
 
 /**
  * Converts the input signal into a signal suitable for the metrics collector.
  *
+ * Encoding is deferred until the {@link LineProtocolWriter writer} gets to the record, the series prefixes are
+ * computed once per converter.
+ *
  * @param <I> Input signal type.
  * @param <P> Payload type.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2021
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 abstract class MetricsConverter<I, P>  {
 
@@ -22,5 +24,15 @@ abstract class MetricsConverter<I, P>  {
         this.unit = unit;
     }
 
-    public abstract Flux<Point> compute(Flux<Signal<I, P>> in);
+    public Flux<LineProtocolRecord> compute(Flux<Signal<I, P>> in) {
+        return in.map(signal -> buffer -> encode(signal, buffer));
+    }
+
+    /**
+     * Append the signal to the buffer.
+     *
+     * @param signal Signal to encode.
+     * @param buffer Buffer to append to.
+     */
+    protected abstract void encode(Signal<I, P> signal, LineProtocolBuffer buffer);
 }
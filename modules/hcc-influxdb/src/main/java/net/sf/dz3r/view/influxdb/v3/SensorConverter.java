@@ -3,43 +3,30 @@ package net.sf.dz3r.view.influxdb.v3;
 import net.sf.dz3r.signal.Signal;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.influxdb.dto.Point;
 import reactor.core.publisher.Flux;
 
-import java.util.concurrent.TimeUnit;
-
 public class SensorConverter {
 
     private final Logger logger = LogManager.getLogger();
 
-    private final String instance;
-    private final String name;
+    private final LineProtocolSeries series;
 
     public SensorConverter(String instance, String name) {
-        this.instance = instance;
-        this.name = name;
+        series = LineProtocolSeries.of("sensor", "instance", instance, "name", name);
     }
 
-    public Flux<Point> compute(Flux<Signal<Double, Void>> in) {
-        return in.map(this::convert)
-                .doOnNext(s -> logger.trace("compute: {}", s));
+    public Flux<LineProtocolRecord> compute(Flux<Signal<Double, Void>> in) {
+        return in
+                .doOnNext(s -> logger.trace("compute: {}", s))
+                .map(signal -> buffer -> encode(signal, buffer));
     }
 
-    private Point convert(Signal<Double, Void> signal) {
-
-        var b = Point.measurement("sensor")
-                .time(signal.timestamp.toEpochMilli(), TimeUnit.MILLISECONDS)
-                .tag("instance", instance)
-                .tag("name", name);
-
-        if (signal.getValue() != null) {
-            b.addField("sample", signal.getValue());
-        }
-
-        if (signal.error != null) {
-            b.addField("error", signal.error.toString());
-        }
+    private void encode(Signal<Double, Void> signal, LineProtocolBuffer buffer) {
 
-        return b.build();
+        buffer
+                .start(series)
+                .field("sample", signal.getValue())
+                .field("error", signal.error == null ? null : signal.error.toString())
+                .end(signal.timestamp.toEpochMilli());
     }
 }
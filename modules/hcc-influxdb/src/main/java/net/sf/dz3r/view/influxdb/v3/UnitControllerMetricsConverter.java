@@ -1,43 +1,45 @@
 package net.sf.dz3r.view.influxdb.v3;
 
+import net.sf.dz3r.model.HvacMode;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.hvac.HvacCommand;
-import org.influxdb.dto.Point;
-import reactor.core.publisher.Flux;
 
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class UnitControllerMetricsConverter extends MetricsConverter<HvacCommand, Void>{
+
+    private final LineProtocolSeries series;
+    private final Map<HvacMode, LineProtocolSeries> mode2series = new EnumMap<>(HvacMode.class);
+
     public UnitControllerMetricsConverter(String instance, String unit) {
         super(instance, unit);
-    }
 
-    @Override
-    public Flux<Point> compute(Flux<Signal<HvacCommand, Void>> in) {
-        return in.map(this::convert);
-    }
+        series = LineProtocolSeries.of("unitController", "instance", instance, "unit", unit);
 
-    private Point convert(Signal<HvacCommand, Void> signal) {
+        for (var mode : HvacMode.values()) {
+            mode2series.put(mode, LineProtocolSeries.of("unitController", "instance", instance, "unit", unit, "mode", mode.toString()));
+        }
+    }
 
-        var b = Point.measurement("unitController")
-                .time(signal.timestamp.toEpochMilli(), TimeUnit.MILLISECONDS)
-                .tag("instance", instance)
-                .tag("unit", unit);
+    @Override
+    protected void encode(Signal<HvacCommand, Void> signal, LineProtocolBuffer buffer) {
 
         var hvacCommand = signal.getValue();
 
         if (hvacCommand != null) {
 
-            b.addField("demand", hvacCommand.demand);
-            b.addField("fanSpeed", hvacCommand.fanSpeed);
-            Optional.ofNullable(hvacCommand.mode).ifPresent(m -> b.tag("mode", m.toString()));
-        }
+            buffer
+                    .start(hvacCommand.mode == null ? series : mode2series.get(hvacCommand.mode))
+                    .field("demand", hvacCommand.demand)
+                    .field("fanSpeed", hvacCommand.fanSpeed);
 
-        if (signal.error != null) {
-            b.addField("error", signal.error.toString());
+        } else {
+            buffer.start(series);
         }
 
-        return b.build();
+        buffer
+                .field("error", signal.error == null ? null : signal.error.toString())
+                .end(signal.timestamp.toEpochMilli());
     }
 }
@@ -2,40 +2,32 @@ package net.sf.dz3r.view.influxdb.v3;
 
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.hvac.UnitControlSignal;
-import org.influxdb.dto.Point;
-import reactor.core.publisher.Flux;
-
-import java.util.concurrent.TimeUnit;
 
 public class ZoneControllerMetricsConverter extends MetricsConverter<UnitControlSignal, Void> {
+
+    private final LineProtocolSeries series;
+
     public ZoneControllerMetricsConverter(String instance, String unit) {
         super(instance, unit);
-    }
 
-    @Override
-    public Flux<Point> compute(Flux<Signal<UnitControlSignal, Void>> in) {
-        return in.map(this::convert);
+        series = LineProtocolSeries.of("zoneController", "instance", instance, "unit", unit);
     }
 
-    private Point convert(Signal<UnitControlSignal, Void> signal) {
+    @Override
+    protected void encode(Signal<UnitControlSignal, Void> signal, LineProtocolBuffer buffer) {
 
-        var b = Point.measurement("zoneController")
-                .time(signal.timestamp.toEpochMilli(), TimeUnit.MILLISECONDS)
-                .tag("instance", instance)
-                .tag("unit", unit);
+        buffer.start(series);
 
         var controlSignal = signal.getValue();
 
         if (controlSignal != null) {
 
-            b.addField("demand", controlSignal.demand);
-            b.addField("fanSpeed", controlSignal.fanSpeed);
-        }
-
-        if (signal.error != null) {
-            b.addField("error", signal.error.toString());
+            buffer.field("demand", controlSignal.demand);
+            buffer.field("fanSpeed", controlSignal.fanSpeed);
         }
 
-        return b.build();
+        buffer
+                .field("error", signal.error == null ? null : signal.error.toString())
+                .end(signal.timestamp.toEpochMilli());
     }
 }
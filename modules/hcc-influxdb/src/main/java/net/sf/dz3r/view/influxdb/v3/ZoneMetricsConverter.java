@@ -2,53 +2,53 @@ package net.sf.dz3r.view.influxdb.v3;
 
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.hvac.ZoneStatus;
-import org.influxdb.dto.Point;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ZoneMetricsConverter extends MetricsConverter<ZoneStatus, String> {
 
+    /**
+     * Zone name is only known from the signal payload, series are computed on first sight.
+     */
+    private final Map<String, LineProtocolSeries> zoneSeries = new ConcurrentHashMap<>();
+    private final Map<String, LineProtocolSeries> economizerSeries = new ConcurrentHashMap<>();
+
     protected ZoneMetricsConverter(String instance, String unit) {
         super(instance, unit);
     }
 
     @Override
-    public Flux<Point> compute(Flux<Signal<ZoneStatus, String>> in) {
-        return in.flatMap(this::convert);
-    }
+    protected void encode(Signal<ZoneStatus, String> signal, LineProtocolBuffer buffer) {
 
-    private Flux<Point> convert(Signal<ZoneStatus, String> signal) {
-
-        return Flux.concat(convertZone(signal), convertEconomizer(signal));
+        encodeZone(signal, buffer);
+        encodeEconomizer(signal, buffer);
     }
 
-    private Mono<Point> convertZone(Signal<ZoneStatus, String> signal) {
+    private void encodeZone(Signal<ZoneStatus, String> signal, LineProtocolBuffer buffer) {
 
-        var b = createBuilder(signal, "zone");
+        buffer.start(getSeries(zoneSeries, "zone", signal.payload));
 
         var status = signal.getValue();
 
         if (status != null) {
 
-            b.addField("enabled", status.settings.enabled);
-            b.addField("setpoint", status.settings.setpoint);
-            b.addField("voting", status.settings.voting);
-            b.addField("hold", status.settings.hold);
-            b.addField("dumpPriority", status.settings.dumpPriority);
-
-            b.addField("calling", status.callingStatus.calling);
-            b.addField("demand", status.callingStatus.demand);
+            buffer
+                    .field("enabled", status.settings.enabled)
+                    .field("setpoint", status.settings.setpoint)
+                    .field("voting", status.settings.voting)
+                    .field("hold", status.settings.hold)
+                    .integerField("dumpPriority", status.settings.dumpPriority)
+                    .field("calling", status.callingStatus.calling)
+                    .field("demand", status.callingStatus.demand);
         }
 
-        if (signal.error != null) {
-            b.addField("error", signal.error.toString());
-        }
-
-        return Mono.just(b.build());
+        buffer
+                .field("error", signal.error == null ? null : signal.error.toString())
+                .end(signal.timestamp.toEpochMilli());
     }
-    private Mono<Point> convertEconomizer(Signal<ZoneStatus, String> signal) {
+
+    private void encodeEconomizer(Signal<ZoneStatus, String> signal, LineProtocolBuffer buffer) {
 
         var status = signal.getValue();
 
@@ -56,41 +56,39 @@ public class ZoneMetricsConverter extends MetricsConverter<ZoneStatus, String> {
 
             // Not returning an error here, will have to live and see if this is a problem
             // (it's already emitted by the zone itself)
-            return Mono.empty();
+            return;
         }
 
-        var b = createBuilder(signal, "economizer");
+        buffer.start(getSeries(economizerSeries, "economizer", signal.payload));
 
         var economizerStatus = status.economizerStatus;
 
         if (economizerStatus.settings != null) {
 
-            b.addField("enabled", true);
-            b.addField("delta", economizerStatus.settings.changeoverDelta);
-            b.addField("target", economizerStatus.settings.targetTemperature);
+            buffer
+                    .field("enabled", true)
+                    .field("delta", economizerStatus.settings.changeoverDelta)
+                    .field("target", economizerStatus.settings.targetTemperature);
 
         } else {
-            b.addField("enabled", false);
+            buffer.field("enabled", false);
         }
 
-        b.addField("calling", economizerStatus.callingStatus.calling);
-        b.addField("demand", economizerStatus.callingStatus.demand);
-        b.addField("sample", economizerStatus.callingStatus.sample);
+        buffer
+                .field("calling", economizerStatus.callingStatus.calling)
+                .field("demand", economizerStatus.callingStatus.demand)
+                .field("sample", economizerStatus.callingStatus.sample);
 
         // May not be ready yet at startup time
         if (economizerStatus.ambient != null) {
-            b.addField("ambient", economizerStatus.ambient.getValue());
+            buffer.field("ambient", economizerStatus.ambient.getValue());
         }
 
-        return Mono.just(b.build());
+        buffer.end(signal.timestamp.toEpochMilli());
     }
 
-    private Point.Builder createBuilder(Signal<ZoneStatus, String> signal, String measurement) {
-
-        return Point.measurement(measurement)
-                .time(signal.timestamp.toEpochMilli(), TimeUnit.MILLISECONDS)
-                .tag("instance", instance)
-                .tag("unit", unit)
-                .tag("name", signal.payload);
+    private LineProtocolSeries getSeries(Map<String, LineProtocolSeries> cache, String measurement, String name) {
+        // Concurrent maps don't take null keys, and the name tag would be omitted anyway
+        return cache.computeIfAbsent(name == null ? "" : name, n -> LineProtocolSeries.of(measurement, "instance", instance, "unit", unit, "name", n));
     }
 }
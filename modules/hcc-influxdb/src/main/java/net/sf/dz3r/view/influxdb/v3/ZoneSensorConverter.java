@@ -1,41 +1,27 @@
 package net.sf.dz3r.view.influxdb.v3;
 
 import net.sf.dz3r.signal.Signal;
-import org.influxdb.dto.Point;
-import reactor.core.publisher.Flux;
-
-import java.util.concurrent.TimeUnit;
 
 public class ZoneSensorConverter extends MetricsConverter<Double, Void>{
 
     public final String zoneName;
 
+    private final LineProtocolSeries series;
+
     protected ZoneSensorConverter(String instance, String unit, String zoneName) {
         super(instance, unit);
         this.zoneName = zoneName;
-    }
 
-    @Override
-    public Flux<Point> compute(Flux<Signal<Double, Void>> in) {
-        return in.map(this::convert);
+        series = LineProtocolSeries.of("zone", "instance", instance, "unit", unit, "name", zoneName);
     }
 
-    private Point convert(Signal<Double, Void> signal) {
-
-        var b = Point.measurement("zone")
-                .time(signal.timestamp.toEpochMilli(), TimeUnit.MILLISECONDS)
-                .tag("instance", instance)
-                .tag("unit", unit)
-                .tag("name", zoneName);
-
-        if (signal.getValue() != null) {
-            b.addField("temperature", signal.getValue());
-        }
-
-        if (signal.error != null) {
-            b.addField("error", signal.error.toString());
-        }
+    @Override
+    protected void encode(Signal<Double, Void> signal, LineProtocolBuffer buffer) {
 
-        return b.build();
+        buffer
+                .start(series)
+                .field("temperature", signal.getValue())
+                .field("error", signal.error == null ? null : signal.error.toString())
+                .end(signal.timestamp.toEpochMilli());
     }
 }
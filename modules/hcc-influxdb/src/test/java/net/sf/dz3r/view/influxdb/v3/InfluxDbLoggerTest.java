@@ -2,7 +2,6 @@ package net.sf.dz3r.view.influxdb.v3;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.influxdb.dto.Point;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -13,7 +12,6 @@ import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -58,19 +56,12 @@ class InfluxDbLoggerTest {
 
         assertThatCode(() -> {
 
-            var sequence = Flux.just(
-                    Point.measurement("InfluxDbLogger")
-                            .time(Instant.now().toEpochMilli(), TimeUnit.MILLISECONDS)
-                            .tag("source", "test")
-                            .tag("kind", "regular")
-                            .addField("double", rg.nextDouble())
-                            .build(),
-                    Point.measurement("InfluxDbLogger")
-                            .time(Instant.now().toEpochMilli(), TimeUnit.MILLISECONDS)
-                            .tag("source", "test")
-                            .tag("kind", "failure")
-                            .addField("error", "oops")
-                            .build()
+            var regular = LineProtocolSeries.of("InfluxDbLogger", "source", "test", "kind", "regular");
+            var failure = LineProtocolSeries.of("InfluxDbLogger", "source", "test", "kind", "failure");
+            var value = rg.nextDouble();
+            var sequence = Flux.<LineProtocolRecord>just(
+                    b -> b.start(regular).field("double", value).end(Instant.now().toEpochMilli()),
+                    b -> b.start(failure).field("error", "oops").end(Instant.now().toEpochMilli())
             );
 
             var ok = new AtomicBoolean(true);
@@ -0,0 +1,107 @@
+package net.sf.dz3r.view.influxdb.v3;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class LineProtocolBufferTest {
+
+    @Test
+    void seriesSortedAndEscaped() {
+
+        var series = LineProtocolSeries.of("my measurement,x=y", "unit", "a=b", "instance", "host name,1", "empty", "", "none", null);
+
+        assertThat(series.prefix()).isEqualTo("my\\ measurement\\,x=y,instance=host\\ name\\,1,unit=a\\=b");
+    }
+
+    @Test
+    void seriesOddTags() {
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> LineProtocolSeries.of("m", "instance"))
+                .withMessage("odd number of tag keys and values: 1");
+    }
+
+    @Test
+    void fieldTypes() {
+
+        var buffer = new LineProtocolBuffer(100);
+
+        buffer
+                .start(LineProtocolSeries.of("m", "t", "v"))
+                .field("double", 22.5)
+                .field("boolean", true)
+                .integerField("long", 42L)
+                .integerField("integer", Integer.valueOf(7))
+                .field("string", "a \"quoted\" \\path\\\nnext")
+                .end(1_000L);
+
+        assertThat(buffer).hasToString("m,t=v double=22.5,boolean=true,long=42i,integer=7i,string=\"a \\\"quoted\\\" \\\\path\\\\\\nnext\" 1000000000\n");
+        assertThat(buffer.size()).isEqualTo(1);
+    }
+
+    @Test
+    void nullAndNonFiniteSkipped() {
+
+        var buffer = new LineProtocolBuffer(100);
+        var series = LineProtocolSeries.of("m");
+
+        buffer
+                .start(series)
+                .field("a", (Double) null)
+                .field("b", Double.NaN)
+                .field("c", Double.POSITIVE_INFINITY)
+                .field("d", (Boolean) null)
+                .field("e", (String) null)
+                .integerField("f", (Integer) null)
+                .field("g", 1d)
+                .end(0);
+
+        assertThat(buffer).hasToString("m g=1.0 0\n");
+    }
+
+    @Test
+    void emptyLineDiscarded() {
+
+        var buffer = new LineProtocolBuffer(100);
+        var series = LineProtocolSeries.of("m");
+
+        buffer.start(series).field("a", 1d).end(1);
+        buffer.start(series).field("a", (Double) null).end(2);
+        buffer.start(series).field("a", 3d).end(3);
+
+        assertThat(buffer).hasToString("m a=1.0 1000000\nm a=3.0 3000000\n");
+        assertThat(buffer.size()).isEqualTo(2);
+    }
+
+    @Test
+    void reuse() {
+
+        var buffer = new LineProtocolBuffer(10);
+        var series = LineProtocolSeries.of("m");
+
+        buffer.start(series).field("a", 1d).end(1);
+        buffer.clear();
+
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer).hasToString("");
+
+        buffer.start(series).field("a", 2d).end(2);
+
+        assertThat(buffer).hasToString("m a=2.0 2000000\n");
+    }
+
+    @Test
+    void unfinishedLine() {
+
+        var buffer = new LineProtocolBuffer(100);
+        var series = LineProtocolSeries.of("m");
+
+        buffer.start(series).field("a", 1d);
+
+        assertThat(buffer).hasToString("");
+        assertThatIllegalStateException().isThrownBy(() -> buffer.start(series));
+    }
+}
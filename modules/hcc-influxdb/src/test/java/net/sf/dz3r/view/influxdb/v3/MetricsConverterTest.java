@@ -0,0 +1,67 @@
+package net.sf.dz3r.view.influxdb.v3;
+
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.CallingStatus;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsConverterTest {
+
+    private static final Instant NOW = Instant.ofEpochMilli(1_700_000_000_123L);
+
+    @Test
+    void zone() {
+
+        var converter = new ZoneMetricsConverter("host", "unit 1");
+        var status = new ZoneStatus(
+                new ZoneSettings(true, 21.5, true, false, 3, null),
+                new CallingStatus(null, 0.5, true),
+                null,
+                null);
+
+        assertThat(encode(converter.compute(Flux.just(new Signal<>(NOW, status, "bedroom")))))
+                .isEqualTo("zone,instance=host,name=bedroom,unit=unit\\ 1 enabled=true,setpoint=21.5,voting=true,hold=false,dumpPriority=3i,calling=true,demand=0.5 1700000000123000000\n");
+    }
+
+    @Test
+    void unitControllerMode() {
+
+        var converter = new UnitControllerMetricsConverter("host", "unit");
+        var signals = Flux.just(
+                new Signal<HvacCommand, Void>(NOW, new HvacCommand(HvacMode.COOLING, 1.0, null)),
+                new Signal<HvacCommand, Void>(NOW, new HvacCommand(null, 0.0, 0.0)));
+
+        assertThat(encode(converter.compute(signals)))
+                .isEqualTo("unitController,instance=host,mode=COOLING,unit=unit demand=1.0 1700000000123000000\n"
+                        + "unitController,instance=host,unit=unit demand=0.0,fanSpeed=0.0 1700000000123000000\n");
+    }
+
+    @Test
+    void sensorError() {
+
+        var converter = new SensorConverter("host", "outside");
+        var signal = new Signal<Double, Void>(NOW, null, null, Signal.Status.FAILURE_TOTAL, new IllegalStateException("gone"));
+
+        assertThat(encode(converter.compute(Flux.just(signal))))
+                .isEqualTo("sensor,instance=host,name=outside error=\"java.lang.IllegalStateException: gone\" 1700000000123000000\n");
+    }
+
+    private String encode(Flux<LineProtocolRecord> records) {
+
+        var buffer = new LineProtocolBuffer(1000);
+
+        for (var r : records.collectList().block()) {
+            r.encode(buffer);
+        }
+
+        return buffer.toString();
+    }
+}
@@ -1,10 +1,11 @@
 package net.sf.dz3r.controller;
 
+import net.sf.dz3r.common.BoundedSink;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.signal.Signal;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.time.Duration;
 import java.util.Optional;
@@ -25,8 +26,8 @@ public abstract class AbstractProcessController<I, O, P> implements ProcessContr
      */
     private Double setpoint;
 
-    private final Sinks.Many<Optional<Double>> setpointSink = Sinks.many().multicast().onBackpressureBuffer();
-    private final Flux<Optional<Double>> setpointFlux = setpointSink.asFlux();
+    private final BoundedSink<Optional<Double>> setpointSink;
+    private final Flux<Optional<Double>> setpointFlux;
 
     /**
      * The current process variable value.
@@ -47,6 +48,9 @@ public abstract class AbstractProcessController<I, O, P> implements ProcessContr
     protected AbstractProcessController(String jmxName, Double setpoint) {
         this.jmxName = jmxName;
 
+        setpointSink = SinkFactory.getInstance().multicast(SinkFactory.Category.CONTROL, "(setpoint) " + jmxName);
+        setpointFlux = setpointSink.asFlux();
+
         setpointFlux.subscribe(this::setSetpoint);
 
         setSetpoint(setpoint);
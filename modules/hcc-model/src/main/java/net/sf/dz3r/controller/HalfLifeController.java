@@ -61,7 +61,7 @@ public class HalfLifeController<P>  extends AbstractProcessController<Double, Do
 
         try {
 
-            if (lastOutputSignal == null) {
+            if (lastOutputSignal == null && (current == null || lastPV == null)) {
 
                 // Not much we can do, this is the first signal ever. The superclass will remember it for us.
                 return new Signal<>(pv.timestamp, new Status<>(setpoint, 0d, 0d), pv.payload);
@@ -69,9 +69,14 @@ public class HalfLifeController<P>  extends AbstractProcessController<Double, Do
 
             double diff = getDiff(lastPV, pv);
 
+            // If there's no output yet, the state was restored, and the last output needs to be recomputed
+            var lastKnown = lastOutputSignal != null
+                    ? lastOutputSignal.getValue().signal
+                    : computeRemaining(current.value, Duration.between(current.start, lastPV.timestamp));
+
             return new Signal<>(
                     pv.timestamp,
-                    new Status<>(setpoint, diff, computeRemaining(pv.timestamp, lastOutputSignal.getValue().signal, diff)),
+                    new Status<>(setpoint, diff, computeRemaining(pv.timestamp, lastKnown, diff)),
                     pv.payload
             );
 
@@ -137,6 +142,33 @@ public class HalfLifeController<P>  extends AbstractProcessController<Double, Do
         super.setSetpoint(0.0);
     }
 
+    /**
+     * Get the controller state worth preserving across restarts.
+     *
+     * @return Controller state snapshot, or {@code null} if there is nothing to preserve yet.
+     */
+    public synchronized Snapshot getSnapshot() {
+
+        if (current == null || lastPV == null || lastPV.isError()) {
+            return null;
+        }
+
+        return new Snapshot(current.start, current.value, lastPV.timestamp, lastPV.getValue());
+    }
+
+    /**
+     * Restore the controller state. Must be called before the controller starts {@link #compute(reactor.core.publisher.Flux) computing}.
+     *
+     * @param snapshot State obtained from {@link #getSnapshot()}.
+     */
+    public synchronized void restore(Snapshot snapshot) {
+
+        HCCObjects.requireNonNull(snapshot, "snapshot can't be null");
+
+        current = new Sample(snapshot.start(), snapshot.value());
+        lastPV = new Signal<>(snapshot.pvTimestamp(), snapshot.pv());
+    }
+
     private void setHalfLife(Duration halfLife) {
         HCCObjects.requireNonNull(halfLife, "halfLife can't be null");
 
@@ -147,6 +179,23 @@ public class HalfLifeController<P>  extends AbstractProcessController<Double, Do
         this.halfLife = halfLife;
     }
 
+    /**
+     * Controller state worth preserving across restarts.
+     *
+     * @param start Start of the current decay.
+     * @param value Value at the start of the current decay.
+     * @param pvTimestamp Last known process variable timestamp.
+     * @param pv Last known process variable value.
+     */
+    public record Snapshot(
+            Instant start,
+            double value,
+            Instant pvTimestamp,
+            double pv
+    ) {
+
+    }
+
     private record Sample(
             Instant start,
             double value
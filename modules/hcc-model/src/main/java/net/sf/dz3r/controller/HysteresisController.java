@@ -11,7 +11,7 @@ import net.sf.dz3r.signal.Signal;
  *
  * @param <P> Payload type.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public class HysteresisController<P> extends AbstractProcessController<Double, Double, P> {
 
@@ -119,6 +119,24 @@ public class HysteresisController<P> extends AbstractProcessController<Double, D
         return thresholdHigh;
     }
 
+    /**
+     * Get the controller state.
+     *
+     * @return {@code true} if the output is currently high.
+     */
+    public boolean isOn() {
+        return state;
+    }
+
+    /**
+     * Restore the controller state. Must be called before the controller starts {@link #compute(reactor.core.publisher.Flux) computing}.
+     *
+     * @param state State obtained from {@link #isOn()}.
+     */
+    public void restore(boolean state) {
+        this.state = state;
+    }
+
     @Override
     protected double getError(Signal<Double, P> pv, Double setpoint) {
         return pv.getValue() - setpoint;
@@ -6,7 +6,7 @@ import net.sf.dz3r.signal.Signal;
 /**
  * Abstract base for a PID controller implementation.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public abstract class AbstractPidController<P> extends AbstractProcessController<Double, Double, P> implements PidController<P> {
 
@@ -224,6 +224,15 @@ public abstract class AbstractPidController<P> extends AbstractProcessController
         return lastI;
     }
 
+    /**
+     * Set the last known integral component value. Only to be used to restore the controller state.
+     *
+     * @param integral Integral component value, see {@link #getIntegral()}.
+     */
+    protected final void setIntegral(double integral) {
+        lastI = integral;
+    }
+
     public boolean getResetOnSetpointChange() {
         return resetOnSetpointChange;
     }
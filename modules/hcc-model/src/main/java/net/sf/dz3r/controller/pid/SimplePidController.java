@@ -1,11 +1,12 @@
 package net.sf.dz3r.controller.pid;
 
+import net.sf.dz3r.common.HCCObjects;
 import net.sf.dz3r.signal.Signal;
 
 /**
  * Simple stateless reactive PID controller implementation.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2021
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public class SimplePidController<P> extends AbstractPidController<P> {
 
@@ -52,6 +53,29 @@ public class SimplePidController<P> extends AbstractPidController<P> {
         return derivative;
     }
 
+    /**
+     * Get the controller state worth preserving across restarts.
+     *
+     * @return Controller state snapshot.
+     */
+    public synchronized Snapshot getSnapshot() {
+        return new Snapshot(integral, getIntegral(), lastError);
+    }
+
+    /**
+     * Restore the controller state. Must be called before the controller starts {@link #compute(reactor.core.publisher.Flux) computing}.
+     *
+     * @param snapshot State obtained from {@link #getSnapshot()}, possibly by a different instance with the same configuration.
+     */
+    public synchronized void restore(Snapshot snapshot) {
+
+        HCCObjects.requireNonNull(snapshot, "snapshot can't be null");
+
+        integral = snapshot.integral();
+        lastError = snapshot.lastError();
+        setIntegral(snapshot.integralComponent());
+    }
+
     @Override
     protected void configurationChanged() {
 
@@ -59,4 +83,19 @@ public class SimplePidController<P> extends AbstractPidController<P> {
             integral = 0;
         }
     }
+
+    /**
+     * Controller state worth preserving across restarts.
+     *
+     * @param integral Accumulated error integral.
+     * @param integralComponent Last integral component value, see {@link #getIntegral()}.
+     * @param lastError Last known error.
+     */
+    public record Snapshot(
+            double integral,
+            double integralComponent,
+            double lastError
+    ) {
+
+    }
 }
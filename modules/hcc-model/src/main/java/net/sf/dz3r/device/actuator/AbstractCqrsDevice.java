@@ -1,19 +1,25 @@
 package net.sf.dz3r.device.actuator;
 
+import net.sf.dz3r.common.BoundedSink;
 import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.device.DeviceState;
+import net.sf.dz3r.instrumentation.jfr.DeviceCommandEvent;
+import net.sf.dz3r.instrumentation.metrics.Counter;
+import net.sf.dz3r.instrumentation.metrics.Metric;
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
 import net.sf.dz3r.signal.Signal;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractCqrsDevice<I, O> implements CqrsDevice<I, O> {
@@ -36,13 +42,25 @@ public abstract class AbstractCqrsDevice<I, O> implements CqrsDevice<I, O> {
 
     protected final AtomicInteger queueDepth = new AtomicInteger();
 
-    protected final Sinks.Many<I> commandSink = Sinks.many().multicast().onBackpressureBuffer();
+    protected final BoundedSink<I> commandSink;
     private final Disposable commandSubscription;
-    protected final Sinks.Many<Signal<DeviceState<O>, String>> stateSink = Sinks.many().multicast().onBackpressureBuffer();
+    protected final BoundedSink<Signal<DeviceState<O>, String>> stateSink;
 
     private I lastCommand;
     private Instant lastSet;
 
+    /**
+     * Commands executed, exposed as a metric.
+     */
+    private final Counter commandCounter;
+
+    /**
+     * When the last command was executed, in milliseconds since epoch, exposed as a metric.
+     */
+    private volatile long lastExecutedAt;
+
+    private final List<Metric> metrics;
+
     protected O requested;
     protected O actual;
 
@@ -55,11 +73,44 @@ public abstract class AbstractCqrsDevice<I, O> implements CqrsDevice<I, O> {
         this.heartbeat = heartbeat;
         this.pace = pace;
 
+        var sinks = SinkFactory.getInstance();
+
+        // Commands dropped on overflow will never be executed
+        commandSink = sinks.unicast(SinkFactory.Category.COMMAND, "(command) " + id, c -> queueDepth.decrementAndGet());
+        stateSink = sinks.multicast(SinkFactory.Category.STATE, "(state) " + id);
+
+        // Commands wait in the command sink, and nowhere else, while the device is busy - otherwise the sink overflow
+        // policy would never get a chance to discard the stale ones
         commandSubscription = commandSink
                 .asFlux()
-                .publishOn(Schedulers.newSingle("cqrs-" + id))
+                .publishOn(Schedulers.newSingle("cqrs-" + id), 1)
                 .flatMap(this::limitRate)
-                .subscribe(this::setStateSync);
+                .subscribe(this::execute);
+
+        var registry = MetricsRegistry.getInstance();
+
+        commandCounter = registry.counter("hcc_cqrs_commands", "Commands executed.", "device", id);
+        metrics = List.of(
+                commandCounter,
+                registry.gauge("hcc_cqrs_queue_depth", "Commands accepted, but not yet executed.", queueDepth::get, "device", id),
+                registry.gauge("hcc_cqrs_command_buffer", "Commands buffered before rate limiting.", this::getCommandBuffer, "device", id),
+                registry.gauge("hcc_cqrs_last_command_timestamp_seconds", "When the last command was executed.", () -> lastExecutedAt / 1000d, "device", id));
+    }
+
+    private double getCommandBuffer() {
+        return commandSink.getBuffered();
+    }
+
+    private void execute(I command) {
+
+        var event = new DeviceCommandEvent();
+
+        event.begin();
+        setStateSync(command);
+        event.end(id, command, queueDepth.get());
+
+        commandCounter.increment();
+        lastExecutedAt = clock.millis();
     }
 
     /**
@@ -146,6 +197,8 @@ public abstract class AbstractCqrsDevice<I, O> implements CqrsDevice<I, O> {
         // Prevent new commands from coming in
         commandSubscription.dispose();
 
+        metrics.forEach(MetricsRegistry.getInstance()::unregister);
+
         // Shut down the device
         setStateSync(getCloseCommand());
 
@@ -1,5 +1,7 @@
 package net.sf.dz3r.device.actuator;
 
+import net.sf.dz3r.common.BoundedSink;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.counter.DurationIncrementAdapter;
 import net.sf.dz3r.counter.ResourceUsageCounter;
 import net.sf.dz3r.signal.Signal;
@@ -8,7 +10,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.io.IOException;
 import java.time.Clock;
@@ -29,7 +30,7 @@ public abstract class AbstractHvacDevice<T> implements HvacDevice<T> {
 
     private final String name;
 
-    private final Sinks.Many<Signal<HvacDeviceStatus<T>, Void>> statusSink;
+    private final BoundedSink<Signal<HvacDeviceStatus<T>, Void>> statusSink;
     private final Flux<Signal<HvacDeviceStatus<T>, Void>> statusFlux;
 
     /**
@@ -60,7 +61,7 @@ public abstract class AbstractHvacDevice<T> implements HvacDevice<T> {
         this.clock = clock;
         this.name = name;
 
-        statusSink = Sinks.many().multicast().onBackpressureBuffer();
+        statusSink = SinkFactory.getInstance().multicast(SinkFactory.Category.STATE, "(status) " + name);
         statusFlux = statusSink.asFlux();
 
 
@@ -1,13 +1,14 @@
 package net.sf.dz3r.device.actuator;
 
+import net.sf.dz3r.common.BoundedSink;
 import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.signal.Signal;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
@@ -47,7 +48,7 @@ public abstract class AbstractSwitch<A extends Comparable<A>> implements Switch<
      */
     protected final boolean optimistic;
 
-    private final Sinks.Many<Signal<State, String>> stateSink;
+    private final BoundedSink<Signal<State, String>> stateSink;
     private final Flux<Signal<State, String>> stateFlux;
     private Boolean lastKnownState;
 
@@ -83,7 +84,7 @@ public abstract class AbstractSwitch<A extends Comparable<A>> implements Switch<
         this.pace = pace;
         this.clock = clock == null ? Clock.systemUTC() : clock;
 
-        stateSink = Sinks.many().multicast().onBackpressureBuffer();
+        stateSink = SinkFactory.getInstance().multicast(SinkFactory.Category.STATE, "(state) " + address);
         stateFlux = stateSink.asFlux();
 
         logger.info("{}: created AbstractSwitch({}) with optimistic={}, pace={}", Integer.toHexString(hashCode()), getAddress(), optimistic, pace);
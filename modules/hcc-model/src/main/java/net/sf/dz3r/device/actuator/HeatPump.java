@@ -1,6 +1,7 @@
 package net.sf.dz3r.device.actuator;
 
 import net.sf.dz3r.counter.ResourceUsageCounter;
+import net.sf.dz3r.instrumentation.jfr.HeatPumpModeEvent;
 import net.sf.dz3r.model.HvacMode;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.hvac.HvacCommand;
@@ -25,7 +26,7 @@ import static net.sf.dz3r.signal.Signal.Status.FAILURE_TOTAL;
  *
  * Initial mode is undefined and must be set by control logic; until that is done, any other commands are refused.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public class HeatPump extends AbstractHvacDevice<Void> {
 
@@ -69,6 +70,13 @@ public class HeatPump extends AbstractHvacDevice<Void> {
      */
     private HvacCommand requestedState = new HvacCommand(null, null, null);
 
+    /**
+     * The mode the device was in before the restart, see {@link #restoreMode(HvacMode)}.
+     *
+     * Only used to decide whether setting the initial mode requires a {@link #modeChangeDelay}, and cleared after that.
+     */
+    private volatile HvacMode restoredMode;
+
     /**
      * Create an instance with some switches possibly reverse, and a given change mode delay.
      *
@@ -181,16 +189,61 @@ public class HeatPump extends AbstractHvacDevice<Void> {
         }
 
         var change = reconciler.reconcile(getAddress(), requestedState, command);
+        var delayRequired = change.delayRequired || isReversingRestoredMode(change.command.mode);
 
         // This is the only time we touch requested state, otherwise side effects will explode the command pipeline
         requestedState = change.command;
 
-        Flux<Signal<HvacDeviceStatus<Void>, Void>> modeFlux = change.modeChangeRequired ? setMode(command.mode, change.delayRequired) : Flux.empty();
+        Flux<Signal<HvacDeviceStatus<Void>, Void>> modeFlux = change.modeChangeRequired ? setMode(command.mode, delayRequired) : Flux.empty();
         var stateFlux = setState(command);
 
         return Flux.concat(modeFlux, stateFlux);
     }
 
+    /**
+     * Check if the initial mode is the reverse of the mode the device was in before the restart.
+     *
+     * The condenser may have been running in that mode just moments ago, so the mode change delay needs to be observed.
+     *
+     * @param mode Mode about to be requested.
+     *
+     * @return {@code true} if the mode change delay is required.
+     */
+    private boolean isReversingRestoredMode(HvacMode mode) {
+
+        if (restoredMode == null || requestedState.mode != null || mode == null) {
+            return false;
+        }
+
+        var result = restoredMode != mode;
+
+        logger.info("{}: initial mode {}, was {} before restart, delay {}", getAddress(), mode, restoredMode, result ? "required" : "not required");
+        restoredMode = null;
+
+        return result;
+    }
+
+    /**
+     * Get the mode requested last.
+     *
+     * @return Requested operating mode, or {@code null} if none was requested yet.
+     */
+    public HvacMode getRequestedMode() {
+        return requestedState.mode;
+    }
+
+    /**
+     * Let the device know which mode it was in before the restart. Must be called before {@link #compute(Flux)}.
+     *
+     * The mode is not applied - the switch states may have changed while the system was down, so the initial mode
+     * is set as usual - but if it differs from the restored one, the mode change delay will be observed.
+     *
+     * @param mode Mode obtained from {@link #getRequestedMode()} before the restart.
+     */
+    public void restoreMode(HvacMode mode) {
+        restoredMode = mode;
+    }
+
     /**
      * Check if the initial mode set.
      *
@@ -217,11 +270,16 @@ public class HeatPump extends AbstractHvacDevice<Void> {
                 ? stopCondenser().doOnSubscribe(ignore -> logger.info("{}: mode changing to: {}", getAddress(), mode))
                 : Flux.empty();
         var forceMode = forceMode(mode);
+        var event = new HeatPumpModeEvent();
 
         return Flux
                 .concat(condenserOff, forceMode)
+                .doOnSubscribe(ignore -> event.begin())
                 .doOnNext(s -> logger.debug("{}: setMode: {}", getAddress(), s.getValue().command))
-                .doOnComplete(() -> logger.info("{}: mode changed to: {}", getAddress(), mode));
+                .doOnComplete(() -> {
+                    event.end(getAddress(), mode, needDelay);
+                    logger.info("{}: mode changed to: {}", getAddress(), mode);
+                });
     }
 
     /**
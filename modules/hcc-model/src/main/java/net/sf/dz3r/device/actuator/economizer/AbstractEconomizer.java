@@ -1,8 +1,11 @@
 package net.sf.dz3r.device.actuator.economizer;
 
+import net.sf.dz3r.common.BoundedSink;
 import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.controller.HysteresisController;
 import net.sf.dz3r.controller.ProcessController;
+import net.sf.dz3r.controller.pid.SimplePidController;
 import net.sf.dz3r.device.Addressable;
 import net.sf.dz3r.device.actuator.HvacDevice;
 import net.sf.dz3r.model.HvacMode;
@@ -18,7 +21,6 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
-import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Clock;
@@ -29,7 +31,7 @@ import java.util.concurrent.CountDownLatch;
 /**
  * Common implementation for all economizer classes.
  *
- * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public abstract class AbstractEconomizer implements SignalProcessor<Double, Double, String>, Addressable<String>, AutoCloseable {
 
@@ -44,7 +46,7 @@ public abstract class AbstractEconomizer implements SignalProcessor<Double, Doub
     private final HvacDevice device;
 
     private Duration timeout;
-    private final Sinks.Many<Signal<HvacCommand, Void>> deviceCommandSink = Sinks.many().unicast().onBackpressureBuffer();
+    private final BoundedSink<Signal<HvacCommand, Void>> deviceCommandSink;
     /**
      * Last known indoor temperature.
      */
@@ -92,6 +94,8 @@ public abstract class AbstractEconomizer implements SignalProcessor<Double, Doub
         this.device = HCCObjects.requireNonNull(device, "device can't be null");
         this.timeout = HCCObjects.requireNonNull(timeout, "timeout can't be null");
 
+        deviceCommandSink = SinkFactory.getInstance().unicast(SinkFactory.Category.COMMAND, "(economizer) " + name);
+
         device
                 .compute(
                         deviceCommandSink
@@ -167,6 +171,26 @@ public abstract class AbstractEconomizer implements SignalProcessor<Double, Doub
     public String getAddress() {
         return name;
     }
+
+    /**
+     * Get the economizer state worth preserving across restarts.
+     *
+     * @return Economizer state snapshot, or {@code null} if this implementation has nothing worth preserving.
+     */
+    public Snapshot getSnapshot() {
+        return null;
+    }
+
+    /**
+     * Restore the economizer state. Must be called before {@link #compute(Flux)}.
+     *
+     * This implementation does nothing.
+     *
+     * @param snapshot State obtained from {@link #getSnapshot()}.
+     */
+    public void restore(Snapshot snapshot) {
+        // Nothing to restore
+    }
     protected final void initFluxes(Flux<Signal<Double, Void>> ambientFlux) {
 
         // Just get the (indoor, ambient) pair flux with no nulls or errors
@@ -500,4 +524,17 @@ public abstract class AbstractEconomizer implements SignalProcessor<Double, Doub
     ) {
 
     }
+
+    /**
+     * Economizer state worth preserving across restarts.
+     *
+     * @param controller PID controller state.
+     * @param calling Signal renderer state.
+     */
+    public record Snapshot(
+            SimplePidController.Snapshot controller,
+            boolean calling
+    ) {
+
+    }
 }
@@ -1,8 +1,8 @@
 package net.sf.dz3r.device.actuator.economizer.v2;
 
+import net.sf.dz3r.common.HCCObjects;
 import net.sf.dz3r.controller.HysteresisController;
 import net.sf.dz3r.controller.ProcessController;
-import net.sf.dz3r.controller.pid.AbstractPidController;
 import net.sf.dz3r.controller.pid.SimplePidController;
 import net.sf.dz3r.device.actuator.HvacDevice;
 import net.sf.dz3r.device.actuator.economizer.AbstractEconomizer;
@@ -28,7 +28,7 @@ public class PidEconomizer<A extends Comparable<A>> extends AbstractEconomizer {
     /**
      * Controller defining this economizer's dynamic behavior.
      */
-    private final AbstractPidController<Void> controller;
+    private final SimplePidController<Void> controller;
 
     /**
      * Hysteresis boundaries for the {@link #signalRenderer}.
@@ -66,6 +66,22 @@ public class PidEconomizer<A extends Comparable<A>> extends AbstractEconomizer {
         initFluxes(ambientFlux);
     }
 
+    @Override
+    public Snapshot getSnapshot() {
+        return new Snapshot(controller.getSnapshot(), signalRenderer.isOn());
+    }
+
+    @Override
+    public void restore(Snapshot snapshot) {
+
+        HCCObjects.requireNonNull(snapshot, "snapshot can't be null");
+
+        controller.restore(snapshot.controller());
+        signalRenderer.restore(snapshot.calling());
+
+        logger.info("{}: restored {}", getAddress(), snapshot);
+    }
+
     /**
      * Compute the {@link #device} state flux.
      *
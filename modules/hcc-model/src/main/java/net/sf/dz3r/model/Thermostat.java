@@ -1,10 +1,11 @@
 package net.sf.dz3r.model;
 
+import net.sf.dz3r.common.BoundedSink;
 import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.controller.HalfLifeController;
 import net.sf.dz3r.controller.HysteresisController;
 import net.sf.dz3r.controller.ProcessController.Status;
-import net.sf.dz3r.controller.pid.AbstractPidController;
 import net.sf.dz3r.controller.pid.SimplePidController;
 import net.sf.dz3r.device.Addressable;
 import net.sf.dz3r.signal.Signal;
@@ -13,7 +14,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.time.Clock;
 import java.time.Duration;
@@ -58,7 +58,7 @@ public class Thermostat implements Addressable<String> {
     /**
      * Controller defining this thermostat's dynamic behavior.
      */
-    private final AbstractPidController<Void> controller;
+    private final SimplePidController<Void> controller;
 
     /**
      * Controller defining how trigger happy the thermostat is.
@@ -78,14 +78,12 @@ public class Thermostat implements Addressable<String> {
     /**
      * Sink to accept feedback loop signals from {@link #raise()}.
      */
-    private final Sinks.Many<Signal<Double, Status<Double>>> raiseSink = Sinks.many().unicast().onBackpressureBuffer();
-    private final Flux<Signal<Double, Status<Double>>> raiseFlux = raiseSink.asFlux();
+    private final BoundedSink<Signal<Double, Status<Double>>> raiseSink;
 
     /**
      * Sink to accept setpoints to feed to {@link #sensitivityController}.
      */
-    private final Sinks.Many<Signal<Double, Void>> setpointSink = Sinks.many().unicast().onBackpressureBuffer();
-    private final Flux<Signal<Double, Void>> setpointFlux = setpointSink.asFlux();
+    private final BoundedSink<Signal<Double, Void>> setpointSink;
 
     /**
      * Create a thermostat with a default 10C..40C setpoint range, specified setpoint and PID values, and no sensitivity adjustment.
@@ -117,6 +115,11 @@ public class Thermostat implements Addressable<String> {
         controller = new SimplePidController<>("(controller) " + name, setpoint, p, i, d, limit);
         sensitivityController = new HalfLifeController<>("(sensitivity) " + name, halfLife);
         signalRenderer = new HysteresisController<>("(signalRenderer) " + name, 0, HYSTERESIS);
+
+        var sinks = SinkFactory.getInstance();
+
+        raiseSink = sinks.unicast(SinkFactory.Category.CONTROL, "(raise) " + name);
+        setpointSink = sinks.unicast(SinkFactory.Category.CONTROL, "(setpoint) " + name);
     }
 
     private double checkSensitivity(Duration halfLife, double multiplier) {
@@ -163,6 +166,26 @@ public class Thermostat implements Addressable<String> {
         return controller.getSetpoint();
     }
 
+    /**
+     * Change the PID controller tuning on the fly. The controller state (integral included) is preserved.
+     *
+     * @param p PID controller proportional weight.
+     * @param i PID controller integral weight.
+     * @param d PID controller derivative weight.
+     * @param limit PID controller saturation limit.
+     */
+    public void retune(double p, double i, double d, double limit) {
+
+        controller.setP(p);
+        controller.setI(i);
+        controller.setD(d);
+        controller.setLimit(limit);
+
+        logger.info("retune({}): P={}, I={}, D={}, limit={}", name, p, i, d, limit);
+
+        configurationChanged();
+    }
+
     /**
      * Compute the thermostat status flux.
      *
@@ -172,7 +195,7 @@ public class Thermostat implements Addressable<String> {
 
         // Feed the source stream into the trigger-happy half-life controller
         var source = pv.doOnNext(s -> setpointSink.tryEmitNext(new Signal<Double, Void>(s.timestamp, getSetpoint())));
-        var adjustment = sensitivityController.compute(setpointFlux);
+        var adjustment = sensitivityController.compute(setpointSink.asFlux());
 
         // Mix the source and the half-life controller output
         var stage0 = Flux
@@ -192,7 +215,7 @@ public class Thermostat implements Addressable<String> {
                 .map(s -> new Signal<>(s.timestamp, s.getValue().signal, s.getValue(), s.status, s.error));
 
         // Inject signals from raise(), if any
-        var stage3 = Flux.merge(stage2, raiseFlux);
+        var stage3 = Flux.merge(stage2, raiseSink.asFlux());
 
         // Deliver the signal
         // Might want to expose this as well
@@ -242,6 +265,35 @@ public class Thermostat implements Addressable<String> {
                 source.error);
     }
 
+    /**
+     * Get the thermostat state worth preserving across restarts.
+     *
+     * @return Thermostat state snapshot.
+     */
+    public Snapshot getSnapshot() {
+        return new Snapshot(controller.getSnapshot(), sensitivityController.getSnapshot(), signalRenderer.isOn());
+    }
+
+    /**
+     * Restore the thermostat state. Must be called before {@link #compute(Flux)}.
+     *
+     * @param snapshot State obtained from {@link #getSnapshot()}.
+     */
+    public void restore(Snapshot snapshot) {
+
+        HCCObjects.requireNonNull(snapshot, "snapshot can't be null");
+
+        controller.restore(snapshot.controller());
+
+        if (snapshot.sensitivity() != null) {
+            sensitivityController.restore(snapshot.sensitivity());
+        }
+
+        signalRenderer.restore(snapshot.calling());
+
+        logger.info("{}: restored {}", name, snapshot);
+    }
+
     /**
      * Make the thermostat reconsider its calling status.
      *
@@ -282,4 +334,19 @@ public class Thermostat implements Addressable<String> {
             ThreadContext.pop();
         }
     }
+
+    /**
+     * Thermostat state worth preserving across restarts.
+     *
+     * @param controller PID controller state.
+     * @param sensitivity Sensitivity controller state, {@code null} if there's none yet.
+     * @param calling Signal renderer state.
+     */
+    public record Snapshot(
+            SimplePidController.Snapshot controller,
+            HalfLifeController.Snapshot sensitivity,
+            boolean calling
+    ) {
+
+    }
 }
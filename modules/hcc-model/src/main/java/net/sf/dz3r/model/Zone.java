@@ -1,6 +1,8 @@
 package net.sf.dz3r.model;
 
+import net.sf.dz3r.common.BoundedSink;
 import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.controller.ProcessController;
 import net.sf.dz3r.device.Addressable;
 import net.sf.dz3r.device.actuator.economizer.AbstractEconomizer;
@@ -15,7 +17,6 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import java.time.Clock;
 import java.time.Instant;
@@ -58,11 +59,20 @@ public class Zone implements SignalProcessor<Double, ZoneStatus, String>, Addres
 
     private final AbstractEconomizer economizer;
 
-    private final Sinks.Many<Signal<Double, String>> feedbackSink = Sinks.many().unicast().onBackpressureBuffer();
-    private final Flux<Signal<Double, String>> feedbackFlux = feedbackSink.asFlux();
+    private final BoundedSink<Signal<Double, String>> feedbackSink;
 
     private Signal<Double, String> lastKnownSignal;
 
+    /**
+     * {@code true} while {@link ZoneController#applyBatch(Runnable)} is collecting changes, see {@link #holdReplay()}.
+     */
+    private boolean replayHeld = false;
+
+    /**
+     * {@code true} if {@link #bump()} was requested while {@link #replayHeld} was set.
+     */
+    private boolean replayPending = false;
+
     /**
      * Create an instance without an economizer.
      *
@@ -82,6 +92,7 @@ public class Zone implements SignalProcessor<Double, ZoneStatus, String>, Addres
      */
     public Zone(Thermostat ts, ZoneSettings settings, EconomizerContext economizerContext) {
         this.ts = ts;
+        feedbackSink = SinkFactory.getInstance().unicast(SinkFactory.Category.CONTROL, "(feedback) " + ts.getAddress());
         setSettingsSync(new ZoneSettings(settings, settings.setpoint));
 
         economizer = Optional.ofNullable(economizerContext)
@@ -145,10 +156,56 @@ public class Zone implements SignalProcessor<Double, ZoneStatus, String>, Addres
             return;
         }
 
+        synchronized (this) {
+            if (replayHeld) {
+                logger.debug("{}: replay held until the batch is complete", getAddress());
+                replayPending = true;
+                return;
+            }
+        }
+
         logger.debug("{}: replaying signal: {}", getAddress(), lastKnownSignal);
         feedbackSink.tryEmitNext(lastKnownSignal);
     }
 
+    /**
+     * Stop replaying the {@link #lastKnownSignal} upon settings change until {@link #releaseReplay()} is called.
+     *
+     * Settings changes made in the meanwhile will result in one replay instead of one per change.
+     */
+    synchronized void holdReplay() {
+        replayHeld = true;
+    }
+
+    /**
+     * Check if there's a replay waiting for {@link #releaseReplay()}.
+     *
+     * @return {@code true} if settings have changed since {@link #holdReplay()}, and the last known signal will be replayed
+     * upon {@link #releaseReplay()}.
+     */
+    synchronized boolean isReplayPending() {
+        return replayPending;
+    }
+
+    /**
+     * Resume replaying the {@link #lastKnownSignal} upon settings change, and replay it now if settings have changed
+     * since {@link #holdReplay()}.
+     */
+    void releaseReplay() {
+
+        boolean pending;
+
+        synchronized (this) {
+            pending = replayPending;
+            replayHeld = false;
+            replayPending = false;
+        }
+
+        if (pending) {
+            bump();
+        }
+    }
+
     /**
      * Set zone settings in a reactive way.
      *
@@ -197,10 +254,50 @@ public class Zone implements SignalProcessor<Double, ZoneStatus, String>, Addres
         return settings;
     }
 
+    /**
+     * Change the thermostat PID controller tuning on the fly.
+     *
+     * @see Thermostat#retune(double, double, double, double)
+     */
+    public void retune(double p, double i, double d, double limit) {
+        ts.retune(p, i, d, limit);
+    }
+
     public PeriodSettings getPeriodSettings() {
         return periodSettings;
     }
 
+    /**
+     * Get the zone state worth preserving across restarts.
+     *
+     * @return Zone state snapshot.
+     */
+    public Snapshot getSnapshot() {
+        return new Snapshot(
+                settings,
+                ts.getSnapshot(),
+                Optional.ofNullable(economizer).map(AbstractEconomizer::getSnapshot).orElse(null));
+    }
+
+    /**
+     * Restore the zone state. Must be called before {@link #compute(Flux)}.
+     *
+     * @param snapshot State obtained from {@link #getSnapshot()}.
+     *
+     * @throws IllegalArgumentException if the snapshot settings are not acceptable.
+     */
+    public void restore(Snapshot snapshot) {
+
+        HCCObjects.requireNonNull(snapshot, "snapshot can't be null");
+
+        setSettingsSync(snapshot.settings());
+        ts.restore(snapshot.thermostat());
+
+        if (economizer != null && snapshot.economizer() != null) {
+            economizer.restore(snapshot.economizer());
+        }
+    }
+
     @Override
     public Flux<Signal<ZoneStatus, String>> compute(Flux<Signal<Double, String>> in) {
 
@@ -214,7 +311,7 @@ public class Zone implements SignalProcessor<Double, ZoneStatus, String>, Addres
                 .doOnNext(this::recordSignal)
                 .doOnComplete(feedbackSink::tryEmitComplete);
 
-        var combined = Flux.merge(recorded, feedbackFlux);
+        var combined = Flux.merge(recorded, feedbackSink.asFlux());
 
         var source = Optional.ofNullable(economizer)
                 .map(eco -> eco.compute(combined))
@@ -321,4 +418,19 @@ public class Zone implements SignalProcessor<Double, ZoneStatus, String>, Addres
     public void raise() {
         ts.raise();
     }
+
+    /**
+     * Zone state worth preserving across restarts.
+     *
+     * @param settings Zone settings, including overrides and the hold flag.
+     * @param thermostat Thermostat state.
+     * @param economizer Economizer state, {@code null} if there's no economizer or it has nothing worth preserving.
+     */
+    public record Snapshot(
+            ZoneSettings settings,
+            Thermostat.Snapshot thermostat,
+            AbstractEconomizer.Snapshot economizer
+    ) {
+
+    }
 }
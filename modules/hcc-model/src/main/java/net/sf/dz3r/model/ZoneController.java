@@ -1,17 +1,22 @@
 package net.sf.dz3r.model;
 
+import net.sf.dz3r.common.HCCObjects;
 import net.sf.dz3r.device.actuator.damper.DamperController;
+import net.sf.dz3r.instrumentation.jfr.ZoneComputeEvent;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.SignalProcessor;
 import net.sf.dz3r.signal.hvac.UnitControlSignal;
 import net.sf.dz3r.signal.hvac.ZoneStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +40,21 @@ public class ZoneController implements SignalProcessor<ZoneStatus, UnitControlSi
      */
     private final Map<String, Signal<ZoneStatus, String>> zone2status = new TreeMap<>();
 
+    /**
+     * Lock guarding {@link #batchOpen} and {@link #batchPending}.
+     */
+    private final Object batchLock = new Object();
+
+    /**
+     * {@code true} while {@link #applyBatch(Runnable)} is running the changes. All signals are captured, but not emitted.
+     */
+    private boolean batchOpen = false;
+
+    /**
+     * Names of zones changed by the last {@link #applyBatch(Runnable) batch} that haven't reported back yet.
+     */
+    private final Set<String> batchPending = new TreeSet<>();
+
     public ZoneController(Collection<Zone> zones) {
 
         this.zoneMap = zones
@@ -71,9 +91,123 @@ public class ZoneController implements SignalProcessor<ZoneStatus, UnitControlSi
         return in
                 .filter(this::isOurs)
                 .doOnNext(this::capture)
+                .filter(this::isBatchComplete)
                 .map(this::process);
     }
 
+    /**
+     * Apply zone settings changes as a single transaction.
+     *
+     * Normally, every zone settings change replays the last known signal through the zone, and every replay
+     * results in a separate unit control signal. Here, the replays are held until {@code changes} are done,
+     * and only one unit control signal is emitted after all the changed zones have reported back.
+     *
+     * @param changes Code making the changes. Must be synchronous, changes made after it returns will not be batched.
+     */
+    public synchronized void applyBatch(Runnable changes) {
+
+        ThreadContext.push("applyBatch");
+
+        try {
+
+            synchronized (batchLock) {
+                batchOpen = true;
+                batchPending.clear();
+            }
+
+            zoneMap.values().forEach(Zone::holdReplay);
+
+            try {
+                changes.run();
+            } finally {
+
+                synchronized (batchLock) {
+
+                    zoneMap
+                            .values()
+                            .stream()
+                            .filter(Zone::isReplayPending)
+                            .forEach(z -> batchPending.add(z.getAddress()));
+
+                    batchOpen = false;
+                }
+
+                logger.debug("replaying {} zone[s]: {}", batchPending.size(), batchPending);
+
+                zoneMap.values().forEach(Zone::releaseReplay);
+            }
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Apply settings to several zones as a single transaction.
+     *
+     * @param name2settings Mapping from the zone name to settings to apply to it.
+     *
+     * @return Mapping from the zone name to the new settings (result of {@link Zone#setSettingsSync(ZoneSettings)}).
+     *
+     * @throws IllegalArgumentException if any of the zones is unknown, or any of the setpoints is out of range.
+     * No changes are applied in this case.
+     */
+    public Map<String, ZoneSettings> setSettingsSync(Map<String, ZoneSettings> name2settings) {
+
+        // Validate everything first, or the batch will be applied partially
+
+        for (var kv : name2settings.entrySet()) {
+
+            var zone = zoneMap.get(kv.getKey());
+
+            if (zone == null) {
+                throw new IllegalArgumentException("Alien zone '" + kv.getKey() + "', known zones: " + zoneMap.keySet());
+            }
+
+            var setpoint = HCCObjects.requireNonNull(kv.getValue(), "settings can't be null").setpoint;
+            var range = zone.getSetpointRange();
+
+            if (setpoint != null && !range.contains(setpoint)) {
+                throw new IllegalArgumentException(kv.getKey() + ": " + setpoint + " is outside of " + range.min + ".." + range.max);
+            }
+        }
+
+        var result = new TreeMap<String, ZoneSettings>();
+
+        applyBatch(() -> name2settings.forEach((name, settings) -> result.put(name, zoneMap.get(name).setSettingsSync(settings))));
+
+        return result;
+    }
+
+    /**
+     * Check if the signal is allowed to produce a unit control signal.
+     *
+     * @return {@code false} if the signal is a part of a batch that is not yet complete.
+     */
+    private boolean isBatchComplete(Signal<ZoneStatus, String> signal) {
+
+        synchronized (batchLock) {
+
+            if (batchOpen) {
+                logger.debug("{}: batch open, held back", signal.payload);
+                return false;
+            }
+
+            if (!batchPending.remove(signal.payload)) {
+                // Not a part of the batch
+                return true;
+            }
+
+            if (batchPending.isEmpty()) {
+                logger.debug("{}: batch complete", signal.payload);
+                return true;
+            }
+
+            logger.debug("{}: held back, batch still pending: {}", signal.payload, batchPending);
+            return false;
+        }
+    }
+
     /**
      * Check if the signal belongs to this zone controller.
      *
@@ -119,6 +253,9 @@ public class ZoneController implements SignalProcessor<ZoneStatus, UnitControlSi
 
         // VT: NOTE: private method, it is safe to assume that alien signals have been filtered out by isOurs()
 
+        var event = new ZoneComputeEvent();
+        event.begin();
+
         var nonError = zone2status
                 .entrySet()
                 .stream()
@@ -153,6 +290,8 @@ public class ZoneController implements SignalProcessor<ZoneStatus, UnitControlSi
 
         var demand = computeDemand(unhappy, unhappyVoting);
 
+        event.end(signal.payload, demand, unhappyCount, unhappyVotingCount);
+
         return new Signal<>(signal.timestamp, new UnitControlSignal(demand, null));
     }
 
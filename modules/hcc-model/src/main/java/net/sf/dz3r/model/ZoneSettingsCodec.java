@@ -0,0 +1,180 @@
+package net.sf.dz3r.model;
+
+import net.sf.dz3r.device.actuator.economizer.EconomizerSettings;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalTime;
+
+/**
+ * Compact binary representation of {@link ZoneSettings} and {@link PeriodSettings}, shared by everything that
+ * needs to persist them.
+ *
+ * Nullable values are preceded by a presence flag. Any change to the layout must be reflected in the format version
+ * of every consumer.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public final class ZoneSettingsCodec {
+
+    private ZoneSettingsCodec() {
+        // Utility class
+    }
+
+    /**
+     * Write the settings.
+     *
+     * @param out Output to write to.
+     * @param settings Settings to write.
+     */
+    public static void write(DataOutput out, ZoneSettings settings) throws IOException {
+
+        writeBoolean(out, settings.enabled);
+        writeDouble(out, settings.setpoint);
+        writeBoolean(out, settings.voting);
+        writeBoolean(out, settings.hold);
+
+        out.writeBoolean(settings.dumpPriority != null);
+
+        if (settings.dumpPriority != null) {
+            out.writeInt(settings.dumpPriority);
+        }
+
+        var eco = settings.economizerSettings;
+
+        out.writeBoolean(eco != null);
+
+        if (eco != null) {
+            out.writeDouble(eco.changeoverDelta);
+            out.writeDouble(eco.targetTemperature);
+            writeBoolean(out, eco.keepHvacOn);
+            writeDouble(out, eco.maxPower);
+        }
+    }
+
+    /**
+     * Read the settings.
+     *
+     * @param in Source produced by {@link #write(DataOutput, ZoneSettings)}.
+     *
+     * @return Decoded settings.
+     *
+     * @throws IOException if the source is truncated or the settings are invalid.
+     */
+    public static ZoneSettings read(DataInput in) throws IOException {
+
+        var enabled = readBoolean(in);
+        var setpoint = readDouble(in);
+        var voting = readBoolean(in);
+        var hold = readBoolean(in);
+        var dumpPriority = in.readBoolean() ? in.readInt() : null;
+
+        EconomizerSettings eco = null;
+
+        if (in.readBoolean()) {
+            try {
+                eco = new EconomizerSettings(in.readDouble(), in.readDouble(), readBoolean(in), readDouble(in));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("invalid economizer settings", ex);
+            }
+        }
+
+        return new ZoneSettings(enabled, setpoint, voting, hold, dumpPriority, eco);
+    }
+
+    /**
+     * Write the period settings.
+     *
+     * @param out Output to write to.
+     * @param periodSettings Period settings, {@code null} if there's no active period.
+     */
+    public static void write(DataOutput out, PeriodSettings periodSettings) throws IOException {
+
+        out.writeBoolean(periodSettings != null);
+
+        if (periodSettings == null) {
+            return;
+        }
+
+        var period = periodSettings.period();
+
+        writeString(out, period.id);
+        writeString(out, period.name);
+        out.writeLong(period.start.toNanoOfDay());
+        out.writeLong(period.end.toNanoOfDay());
+        out.writeByte(period.days);
+
+        write(out, periodSettings.settings());
+    }
+
+    /**
+     * Read the period settings.
+     *
+     * @param in Source produced by {@link #write(DataOutput, PeriodSettings)}.
+     *
+     * @return Decoded period settings, {@code null} if there was no active period.
+     *
+     * @throws IOException if the source is truncated or the settings are invalid.
+     */
+    public static PeriodSettings readPeriod(DataInput in) throws IOException {
+
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        var id = readString(in);
+        var name = readString(in);
+
+        try {
+
+            var period = new SchedulePeriod(
+                    id,
+                    name,
+                    LocalTime.ofNanoOfDay(in.readLong()),
+                    LocalTime.ofNanoOfDay(in.readLong()),
+                    in.readByte());
+
+            return new PeriodSettings(period, read(in));
+
+        } catch (DateTimeException ex) {
+            throw new IOException("invalid period " + name, ex);
+        }
+    }
+
+    private static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : (value ? 1 : 0));
+    }
+
+    private static Boolean readBoolean(DataInput in) throws IOException {
+        var value = in.readByte();
+        return value < 0 ? null : value != 0;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDouble(DataOutput out, Double value) throws IOException {
+
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
@@ -0,0 +1,23 @@
+package net.sf.dz3r.signal.cluster;
+
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cluster node status, as seen by every other node.
+ *
+ * @param node Node identifier, as given in the shared configuration.
+ * @param directors Unit directors running on this node.
+ * @param zones Last known status of every zone served by {@link #directors}, keyed by zone name.
+ * Economizer status is not included.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record NodeStatus(
+        String node,
+        Set<String> directors,
+        Map<String, ZoneStatus> zones
+) {
+}
@@ -0,0 +1,64 @@
+package net.sf.dz3r.signal.cluster;
+
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+
+/**
+ * Carries signals between the nodes of a cluster.
+ *
+ * Every node runs its own subset of unit directors. Sensors are read by the node they are physically attached to,
+ * and published for the nodes whose zones need them; zone status is published by the node running the zone's
+ * unit director, along with a periodic heartbeat.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public interface SignalTransport extends AutoCloseable {
+
+    /**
+     * @return This node identifier.
+     */
+    String getNode();
+
+    /**
+     * Publish a local sensor for other nodes to consume.
+     *
+     * @param id Sensor ID, as given in the shared configuration.
+     * @param source Sensor flux.
+     *
+     * @return Disposable to stop publishing.
+     */
+    Disposable publishSensor(String id, Flux<Signal<Double, Void>> source);
+
+    /**
+     * Get a sensor published by another node.
+     *
+     * @param id Sensor ID, as given in the shared configuration.
+     *
+     * @return Sensor flux. Never completes.
+     */
+    Flux<Signal<Double, Void>> getSensorFlux(String id);
+
+    /**
+     * Publish this node status.
+     *
+     * The status is published every time any of the zones changes, and at least every heartbeat interval.
+     *
+     * @param directors Unit directors running on this node.
+     * @param zones Zone status flux, with zone name as the payload.
+     *
+     * @return Disposable to stop publishing.
+     */
+    Disposable publishNode(Set<String> directors, Flux<Signal<ZoneStatus, String>> zones);
+
+    /**
+     * Get the status of every node in the cluster, this one included.
+     *
+     * @return Node status flux, with the node ID as the payload. A node that missed its heartbeats
+     * is reported as {@link Signal.Status#FAILURE_TOTAL}.
+     */
+    Flux<Signal<NodeStatus, String>> getNodeFlux();
+}
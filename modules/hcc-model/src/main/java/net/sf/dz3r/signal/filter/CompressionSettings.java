@@ -0,0 +1,66 @@
+package net.sf.dz3r.signal.filter;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import net.sf.dz3r.common.HCCObjects;
+
+import java.time.Duration;
+
+/**
+ * {@link SeriesCompressor} settings.
+ *
+ * The effective deviation is the larger of {@code absolute} and {@code relative} times the magnitude of the last
+ * emitted value.
+ *
+ * @param method Compression method.
+ * @param absolute Absolute deviation, in signal units. Non-negative.
+ * @param relative Relative deviation, {@code 0.01} being 1%. Non-negative.
+ * @param maxGap Maximum time between emitted signals, the next signal is emitted unconditionally if exceeded.
+ * {@code null} means no heartbeat.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record CompressionSettings(
+        Method method,
+        double absolute,
+        double relative,
+        Duration maxGap
+) {
+
+    public enum Method {
+
+        /**
+         * Emit the signal if it deviates from the last emitted value by more than the deviation.
+         */
+        @JsonProperty("deadband")
+        DEADBAND,
+
+        /**
+         * Swinging door trending: emit the last signal that can still be linearly interpolated from the last emitted
+         * one within the deviation. Signals are delayed by one sample.
+         */
+        @JsonProperty("swinging-door")
+        SWINGING_DOOR
+    }
+
+    public CompressionSettings {
+
+        HCCObjects.requireNonNull(method, "method can't be null");
+
+        if (absolute < 0 || relative < 0) {
+            throw new IllegalArgumentException("deviations must be non-negative: absolute=" + absolute + ", relative=" + relative);
+        }
+
+        if (maxGap != null && (maxGap.isNegative() || maxGap.isZero())) {
+            throw new IllegalArgumentException("maxGap must be positive: " + maxGap);
+        }
+    }
+
+    /**
+     * @param value Last emitted value.
+     *
+     * @return Effective deviation for the given value.
+     */
+    public double getDeviation(double value) {
+        return Math.max(absolute, relative * Math.abs(value));
+    }
+}
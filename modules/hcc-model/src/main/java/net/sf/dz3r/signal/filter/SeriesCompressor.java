@@ -0,0 +1,263 @@
+package net.sf.dz3r.signal.filter;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.SignalProcessor;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Drop the signals that carry no information for an observer that interpolates linearly between them.
+ *
+ * Every distinct payload is a separate series. Within a series, the signal is split into a continuous value that
+ * is subject to {@link CompressionSettings compression}, and a discrete state that isn't - any change in the state,
+ * or in the signal status or error, is emitted exactly, along with the signal preceding it if it was held back by
+ * the swinging door. The first signal of every series is always emitted, and so is any signal that is
+ * {@link CompressionSettings#maxGap()} or more later than the last emitted one.
+ *
+ * Held back signals are emitted when the incoming flux completes.
+ *
+ * @param <T> Signal type.
+ * @param <P> Signal payload type.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ * @see RateLimiter
+ */
+public class SeriesCompressor<T, P> implements SignalProcessor<T, T, P> {
+
+    private final CompressionSettings settings;
+    private final ToDoubleFunction<T> value;
+    private final Function<T, Object> state;
+
+    private final Map<P, Series> series = new HashMap<>();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+
+    /**
+     * Create an instance.
+     *
+     * @param settings Compression settings.
+     * @param value Continuous value extractor.
+     * @param state Discrete state extractor, {@code null} if there is none. The results are compared with
+     * {@link Objects#equals(Object, Object)}.
+     */
+    public SeriesCompressor(CompressionSettings settings, ToDoubleFunction<T> value, Function<T, Object> state) {
+
+        this.settings = HCCObjects.requireNonNull(settings, "settings can't be null");
+        this.value = HCCObjects.requireNonNull(value, "value can't be null");
+        this.state = state;
+    }
+
+    @Override
+    public Flux<Signal<T, P>> compute(Flux<Signal<T, P>> in) {
+        return in
+                .concatMapIterable(this::accept)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(flush())));
+    }
+
+    /**
+     * @return Number of signals received so far.
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * @return Number of signals emitted so far.
+     */
+    public long getEmitted() {
+        return emitted.get();
+    }
+
+    /**
+     * @return Received to emitted signal ratio, {@code 1} if nothing was emitted yet.
+     */
+    public double getRatio() {
+
+        var out = emitted.get();
+
+        return out == 0 ? 1 : (double) received.get() / out;
+    }
+
+    List<Signal<T, P>> accept(Signal<T, P> signal) {
+
+        received.incrementAndGet();
+
+        var s = series.computeIfAbsent(signal.payload, k -> new Series());
+
+        if (s.archived == null) {
+            return s.emit(signal, null);
+        }
+
+        var previous = s.pending != null ? s.pending : s.archived;
+
+        if (isTransition(previous, signal)) {
+            return s.emit(signal, s.pending);
+        }
+
+        if (signal.isError()) {
+
+            // Repeated error, nothing to compress, only the heartbeat matters
+            return isGap(s.archived, signal) ? s.emit(signal, null) : Collections.emptyList();
+        }
+
+        var result = switch (settings.method()) {
+            case DEADBAND -> s.deadband(signal);
+            case SWINGING_DOOR -> s.swingingDoor(signal);
+        };
+
+        if (result.isEmpty() && isGap(s.archived, signal)) {
+            return s.emit(signal, null);
+        }
+
+        return result;
+    }
+
+    List<Signal<T, P>> flush() {
+
+        var result = new ArrayList<Signal<T, P>>();
+
+        for (var s : series.values()) {
+
+            if (s.pending != null) {
+                result.addAll(s.emit(s.pending, null));
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isTransition(Signal<T, P> previous, Signal<T, P> signal) {
+
+        if (previous.status != signal.status) {
+            return true;
+        }
+
+        if (previous.error != null || signal.error != null) {
+            return !Objects.equals(String.valueOf(previous.error), String.valueOf(signal.error));
+        }
+
+        return state != null && !Objects.equals(state.apply(previous.getValue()), state.apply(signal.getValue()));
+    }
+
+    private boolean isGap(Signal<T, P> archived, Signal<T, P> signal) {
+        return settings.maxGap() != null
+                && Duration.between(archived.timestamp, signal.timestamp).compareTo(settings.maxGap()) >= 0;
+    }
+
+    private class Series {
+
+        /**
+         * Last emitted signal.
+         */
+        Signal<T, P> archived;
+
+        /**
+         * Last received signal, if it was held back.
+         */
+        Signal<T, P> pending;
+
+        double archivedValue;
+        double upperSlope;
+        double lowerSlope;
+
+        /**
+         * Emit the signal, and make it the new reference point.
+         *
+         * @param signal Signal to emit.
+         * @param before Held back signal to emit before it, {@code null} if none.
+         */
+        List<Signal<T, P>> emit(Signal<T, P> signal, Signal<T, P> before) {
+
+            archived = signal;
+            archivedValue = signal.isError() ? 0 : value.applyAsDouble(signal.getValue());
+            pending = null;
+            upperSlope = Double.NEGATIVE_INFINITY;
+            lowerSlope = Double.POSITIVE_INFINITY;
+
+            if (before == null) {
+                emitted.incrementAndGet();
+                return List.of(signal);
+            }
+
+            emitted.addAndGet(2);
+            return List.of(before, signal);
+        }
+
+        List<Signal<T, P>> deadband(Signal<T, P> signal) {
+
+            var v = value.applyAsDouble(signal.getValue());
+
+            if (Math.abs(v - archivedValue) > settings.getDeviation(archivedValue)) {
+                return emit(signal, null);
+            }
+
+            return Collections.emptyList();
+        }
+
+        List<Signal<T, P>> swingingDoor(Signal<T, P> signal) {
+
+            if (!openDoors(signal)) {
+                pending = signal;
+                return Collections.emptyList();
+            }
+
+            // The door closed, the last signal that fit is the new reference point
+            var last = pending;
+
+            if (last == null) {
+                // Nothing held back, must've been a step right after the emitted signal
+                return emit(signal, null);
+            }
+
+            emitted.incrementAndGet();
+
+            archived = last;
+            archivedValue = value.applyAsDouble(last.getValue());
+            pending = null;
+            upperSlope = Double.NEGATIVE_INFINITY;
+            lowerSlope = Double.POSITIVE_INFINITY;
+
+            if (openDoors(signal)) {
+                // Can't fit even the next signal, emit it as well
+                return List.of(last, emit(signal, null).get(0));
+            }
+
+            pending = signal;
+            return List.of(last);
+        }
+
+        /**
+         * Swing the doors to include the signal.
+         *
+         * @return {@code true} if the doors opened past parallel, and the signal doesn't fit anymore.
+         */
+        private boolean openDoors(Signal<T, P> signal) {
+
+            var dt = Duration.between(archived.timestamp, signal.timestamp).toNanos() / 1_000_000_000d;
+            var v = value.applyAsDouble(signal.getValue());
+            var deviation = settings.getDeviation(archivedValue);
+
+            if (dt <= 0) {
+                // Same or earlier time, can only fit if within the deviation
+                return Math.abs(v - archivedValue) > deviation;
+            }
+
+            upperSlope = Math.max(upperSlope, (v - archivedValue - deviation) / dt);
+            lowerSlope = Math.min(lowerSlope, (v - archivedValue + deviation) / dt);
+
+            return upperSlope > lowerSlope;
+        }
+    }
+}
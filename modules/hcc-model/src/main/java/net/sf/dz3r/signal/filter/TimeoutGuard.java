@@ -1,5 +1,7 @@
 package net.sf.dz3r.signal.filter;
 
+import net.sf.dz3r.instrumentation.metrics.Counter;
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.signal.SignalProcessor;
 import org.apache.logging.log4j.LogManager;
@@ -39,6 +41,8 @@ public class TimeoutGuard<T, P> implements SignalProcessor<T, T, P> {
 
     private final Thread guardThread;
 
+    private final Counter timeoutCounter;
+
     /**
      * Create an instance.
      *
@@ -58,6 +62,8 @@ public class TimeoutGuard<T, P> implements SignalProcessor<T, T, P> {
 
         lastSeenAt = Instant.now();
 
+        timeoutCounter = MetricsRegistry.getInstance().counter("hcc_timeout_guard_timeouts", "Timeouts detected.", "marker", String.valueOf(marker));
+
         timeoutFlux = Flux.create(this::connect);
         timeoutFluxSubscription = timeoutFlux.subscribe();
 
@@ -105,6 +111,8 @@ public class TimeoutGuard<T, P> implements SignalProcessor<T, T, P> {
 
         logger.info("{}: timeout of {} is exceeded, inTimeout={}, repeat={}", marker, timeout, inTimeout, repeat);
 
+        timeoutCounter.increment();
+
         timeoutFluxSink.next(new Signal<>(
                         now,
                         null,
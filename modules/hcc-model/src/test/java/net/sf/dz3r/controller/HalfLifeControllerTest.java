@@ -11,6 +11,7 @@ import reactor.core.publisher.Flux;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Random;
 import java.util.stream.Stream;
 
@@ -61,6 +62,36 @@ class HalfLifeControllerTest {
                 .blockLast();
     }
 
+    @Test
+    void restore() {
+
+        var now = Instant.now();
+        var values = new double[] {20, 20, 22, 22, 21, 21};
+        var signals = new ArrayList<Signal<Double, Void>>();
+
+        for (var offset = 0; offset < values.length; offset++) {
+            signals.add(new Signal<>(now.plusSeconds(offset * 10L), values[offset]));
+        }
+
+        var continuous = new HalfLifeController<Void>("continuous", Duration.ofSeconds(30));
+        var expected = continuous.compute(Flux.fromIterable(signals)).map(s -> s.getValue().signal).collectList().block();
+
+        // Run the first half, take a snapshot, and run the second half on a new instance
+        var before = new HalfLifeController<Void>("before", Duration.ofSeconds(30));
+        before.compute(Flux.fromIterable(signals.subList(0, 3))).blockLast();
+
+        var after = new HalfLifeController<Void>("after", Duration.ofSeconds(30));
+        after.restore(before.getSnapshot());
+
+        var actual = after.compute(Flux.fromIterable(signals.subList(3, signals.size()))).map(s -> s.getValue().signal).collectList().block();
+
+        assertThat(actual).hasSize(3);
+
+        for (var offset = 0; offset < actual.size(); offset++) {
+            assertThat(actual.get(offset)).isCloseTo(expected.get(offset + 3), Offset.offset(0.000001));
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("getSignalStream")
     void testDecay(Flux<HalfLifeTuple> source) {
@@ -84,6 +84,38 @@ class SimplePidControllerTest {
         }).doesNotThrowAnyException();
     }
 
+    @Test
+    void restore() {
+
+        var now = Instant.now();
+        var before = new SimplePidController<Void>("before", 20d, 1, 0.001, 0, 0);
+
+        before
+                .compute(Flux.just(
+                        new Signal<>(now, 21d),
+                        new Signal<>(now.plusSeconds(10), 22d),
+                        new Signal<>(now.plusSeconds(20), 21.5d)))
+                .blockLast();
+
+        var snapshot = before.getSnapshot();
+
+        // No integral for the first signal, there is no interval yet
+        assertThat(snapshot.integral()).isEqualTo(2 * 10_000 + 1.5 * 10_000d);
+        assertThat(snapshot.integralComponent()).isEqualTo(before.getIntegral());
+
+        var after = new SimplePidController<Void>("after", 20d, 1, 0.001, 0, 0);
+        after.restore(snapshot);
+
+        assertThat(after.getSnapshot()).isEqualTo(snapshot);
+
+        // The integral component must carry over instead of starting from zero
+        var output = after
+                .compute(Flux.just(new Signal<>(now.plusSeconds(30), 21d)))
+                .blockLast();
+
+        assertThat(output.getValue().signal).isEqualTo(1 + snapshot.integralComponent());
+    }
+
     /**
      * Test input and expected output.
      *
@@ -1,5 +1,6 @@
 package net.sf.dz3r.device.actuator;
 
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.common.TestClock;
 import net.sf.dz3r.device.DeviceState;
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,11 @@ import reactor.core.publisher.Flux;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -63,6 +69,109 @@ class AbstractCqrsDeviceTest {
         );
     }
 
+    @Test
+    void latestWinsWhileBusy() throws Exception {
+
+        var last = 199;
+        var device = new SlowDevice("slow", new TestClock(), last);
+        var policy = device.commandSink.getPolicy();
+
+        assertThat(policy.overflow()).isEqualTo(SinkFactory.Overflow.LATEST_WINS);
+
+        try {
+
+            device.submit(0);
+            assertThat(device.busy.await(10, TimeUnit.SECONDS)).as("first command started").isTrue();
+
+            // The first command is stuck, and nothing downstream of the sink may hold any more
+            for (var command = 1; command <= last; command++) {
+                device.submit(command);
+            }
+
+            assertThat(device.commandSink.getBuffered()).isLessThanOrEqualTo(policy.capacity());
+
+            device.gate.countDown();
+            assertThat(device.done.await(10, TimeUnit.SECONDS)).as("last command executed").isTrue();
+
+            // Every overflow discards the whole buffer and starts it over with the newest command
+            var firstKept = 1 + (last - 1) / policy.capacity() * policy.capacity();
+
+            assertThat(device.commandSink.getOverflows()).isEqualTo((last - 1) / policy.capacity());
+            assertThat(device.executed).containsExactlyElementsOf(
+                    Stream.concat(Stream.of(0), IntStream.rangeClosed(firstKept, last).boxed()).toList());
+            assertThat(device.getState().queueDepth).isZero();
+
+        } finally {
+            device.gate.countDown();
+            device.close();
+        }
+    }
+
+    /**
+     * Device that is stuck executing the first command until {@link #gate} is open, and reports when it is {@link #done}
+     * with the last one.
+     */
+    private static class SlowDevice extends AbstractCqrsDevice<Integer, Integer> {
+
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Integer> executed = new CopyOnWriteArrayList<>();
+
+        private final int last;
+
+        SlowDevice(String id, Clock clock, int last) {
+            super(id, clock, null, null);
+            this.last = last;
+        }
+
+        void submit(Integer command) {
+            queueDepth.incrementAndGet();
+            commandSink.tryEmitNext(command);
+        }
+
+        @Override
+        protected void setStateSync(Integer command) {
+
+            busy.countDown();
+
+            try {
+                gate.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted", ex);
+            }
+
+            executed.add(command);
+            queueDepth.decrementAndGet();
+
+            if (command == last) {
+                done.countDown();
+            }
+        }
+
+        @Override
+        protected Integer getCloseCommand() {
+            return -1;
+        }
+
+        @Override
+        protected void closeSubclass() {
+            // Nothing to close
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public DeviceState<Integer> setState(Integer state) {
+            submit(state);
+            return getState();
+        }
+    }
+
     private class PaceTest extends AbstractCqrsDevice<String, String> {
 
         protected PaceTest(String id, Clock clock, Duration heartbeat, Duration pace) {
@@ -0,0 +1,172 @@
+package net.sf.dz3r.instrumentation.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import net.sf.dz3r.device.actuator.HeatPump;
+import net.sf.dz3r.device.actuator.NullCqrsSwitch;
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneController;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Makes sure the HCC events are off unless the shipped profile turns them on, and that the instrumented code
+ * records them with the right fields when it does.
+ */
+class FlightRecorderTest {
+
+    /**
+     * The profile the applications ship, relative to the module directory the tests run in.
+     */
+    private static final Path PROFILE = Path.of("../../app/jfr/hcc.jfc");
+
+    /**
+     * Streaming is flushed about once a second.
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            DeviceCommandEvent.class,
+            HeatPumpModeEvent.class,
+            MqttMessageEvent.class,
+            ScheduleTransitionEvent.class,
+            SensorSignalEvent.class,
+            UnitCommandEvent.class,
+            ZoneComputeEvent.class);
+
+    @Test
+    void disabledByDefault() {
+
+        for (var type : EVENTS) {
+            assertThat(EventType.getEventType(type).isEnabled()).as(type.getSimpleName()).isFalse();
+        }
+    }
+
+    @Test
+    void profileEnablesAll() throws IOException, ParseException {
+
+        var settings = Configuration.create(PROFILE).getSettings();
+
+        for (var type : EVENTS) {
+            assertThat(settings).containsEntry(EventType.getEventType(type).getName() + "#enabled", "true");
+        }
+    }
+
+    @Test
+    void recorded() throws Exception {
+
+        try (var rs = new RecordingStream(Configuration.create(PROFILE))) {
+
+            var zoneCompute = record(rs, ZoneComputeEvent.class);
+            var deviceCommand = record(rs, DeviceCommandEvent.class);
+            var heatPumpMode = record(rs, HeatPumpModeEvent.class);
+
+            rs.startAsync();
+
+            // Zone: one reading at the setpoint, one above it
+
+            var ts = new Thermostat("jfr-zone", 20.0, 1, 0, 0, 1);
+            var zone = new Zone(ts, new ZoneSettings(ts.getSetpoint()));
+            var sequence = Flux.just(
+                    new Signal<Double, String>(Instant.now(), 20.0),
+                    new Signal<Double, String>(Instant.now().plusSeconds(1), 21.0));
+
+            new ZoneController(Set.of(zone)).compute(zone.compute(sequence)).blockLast();
+            zone.close();
+
+            var zoneEvent = await(zoneCompute, e -> "jfr-zone".equals(e.getString("zone")) && e.getInt("unhappy") == 1);
+
+            assertThat(zoneEvent.getDouble("demand")).isEqualTo(2.0);
+
+            // CQRS device
+
+            var device = new NullCqrsSwitch("jfr-switch");
+
+            device.setState(true);
+
+            var deviceEvent = await(deviceCommand, e -> "jfr-switch".equals(e.getString("device")));
+
+            assertThat(deviceEvent.getString("command")).isEqualTo("true");
+            assertThat(deviceEvent.getInt("queueDepth")).isBetween(0, 1);
+
+            device.close();
+
+            // Heat pump mode change
+
+            var scheduler = Schedulers.newSingle("jfr-test");
+            var heatPump = new HeatPump("jfr-heatpump",
+                    new NullCqrsSwitch("jfr-mode"), false,
+                    new NullCqrsSwitch("jfr-running"), false,
+                    new NullCqrsSwitch("jfr-fan"), false,
+                    Duration.ofMillis(100),
+                    null,
+                    scheduler);
+
+            try {
+
+                heatPump
+                        .compute(Flux.just(new Signal<HvacCommand, Void>(Instant.now(), new HvacCommand(HvacMode.HEATING, 0.8, null))))
+                        .blockLast();
+
+            } finally {
+                scheduler.dispose();
+            }
+
+            var modeEvent = await(heatPumpMode, e -> "jfr-heatpump".equals(e.getString("device")));
+
+            assertThat(modeEvent.getString("mode")).isEqualTo(HvacMode.HEATING.toString());
+            assertThat(modeEvent.getBoolean("delayed")).isFalse();
+        }
+    }
+
+    private static BlockingQueue<RecordedEvent> record(RecordingStream rs, Class<? extends Event> type) {
+
+        var result = new LinkedBlockingQueue<RecordedEvent>();
+
+        rs.onEvent(EventType.getEventType(type).getName(), result::add);
+
+        return result;
+    }
+
+    /**
+     * Wait for an event matching the filter, skipping the others.
+     */
+    private static RecordedEvent await(BlockingQueue<RecordedEvent> queue, Predicate<RecordedEvent> filter) throws InterruptedException {
+
+        var deadline = System.nanoTime() + TIMEOUT.toNanos();
+
+        while (true) {
+
+            var event = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+            assertThat(event).as("matching event recorded within %s", TIMEOUT).isNotNull();
+
+            if (filter.test(event)) {
+                return event;
+            }
+        }
+    }
+}
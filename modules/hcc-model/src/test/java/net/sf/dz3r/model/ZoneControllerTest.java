@@ -17,11 +17,14 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 /**
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
@@ -563,6 +566,86 @@ class ZoneControllerTest {
 
     }
 
+    /**
+     * Make sure settings applied to several zones as a batch result in just one unit control signal.
+     */
+    @Test
+    void batch() throws Exception {
+
+        var ts1 = new Thermostat("ts20", 20.0, 1, 0, 0, 1);
+        var z1 = new Zone(ts1, new ZoneSettings(ts1.getSetpoint()));
+
+        var ts2 = new Thermostat("ts25", 25.0, 1, 0, 0, 1);
+        var z2 = new Zone(ts2, new ZoneSettings(ts2.getSetpoint()));
+
+        var zc = new ZoneController(Set.of(z1, z2));
+
+        Sinks.Many<Signal<Double, String>> sink1 = Sinks.many().unicast().onBackpressureBuffer();
+        Sinks.Many<Signal<Double, String>> sink2 = Sinks.many().unicast().onBackpressureBuffer();
+
+        var zcOutput = Collections.synchronizedList(new ArrayList<Signal<UnitControlSignal, String>>());
+
+        zc
+                .compute(Flux.merge(z1.compute(sink1.asFlux()), z2.compute(sink2.asFlux())))
+                .subscribe(zcOutput::add);
+
+        // Both happy
+        sink1.tryEmitNext(createSignal(20.0, null));
+        sink2.tryEmitNext(createSignal(20.0, null));
+
+        assertThat(zcOutput).hasSize(2);
+        assertThat(zcOutput.get(1).getValue().demand).isZero();
+
+        // Both unhappy now, but only one signal must come out
+        var result = zc.setSettingsSync(Map.of(
+                "ts20", new ZoneSettings(15.0),
+                "ts25", new ZoneSettings(15.0)));
+
+        assertThat(result).containsOnlyKeys("ts20", "ts25");
+        assertThat(zcOutput).hasSize(3);
+        assertThat(zcOutput.get(2).getValue().demand).isEqualTo(12.0);
+
+        // Regular signals go through as usual
+        sink1.tryEmitNext(createSignal(20.0, null));
+        assertThat(zcOutput).hasSize(4);
+
+        z1.close();
+        z2.close();
+    }
+
+    /**
+     * Make sure invalid batches are rejected as a whole.
+     */
+    @Test
+    void batchInvalid() {
+
+        var ts1 = new Thermostat("ts20", 20.0, 1, 0, 0, 1);
+        var z1 = new Zone(ts1, new ZoneSettings(ts1.getSetpoint()));
+
+        var ts2 = new Thermostat("ts25", 25.0, 1, 0, 0, 1);
+        var z2 = new Zone(ts2, new ZoneSettings(ts2.getSetpoint()));
+
+        var zc = new ZoneController(Set.of(z1, z2));
+
+        var settings = new TreeMap<String, ZoneSettings>();
+
+        settings.put("ts20", new ZoneSettings(15.0));
+        settings.put("ts25", new ZoneSettings(100.0));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> zc.setSettingsSync(settings))
+                .withMessageContaining("ts25");
+
+        assertThat(z1.getSettings().setpoint).isEqualTo(20.0);
+
+        settings.clear();
+        settings.put("alien", new ZoneSettings(20.0));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> zc.setSettingsSync(settings))
+                .withMessageContaining("alien");
+    }
+
     private Signal<Double, String> createSignal(double temperature, String address) {
         return new Signal<>(Instant.now(), temperature, address);
     }
@@ -0,0 +1,197 @@
+package net.sf.dz3r.signal.filter;
+
+import net.sf.dz3r.signal.Signal;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SeriesCompressorTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void deadbandAbsolute() {
+
+        var compressor = new SeriesCompressor<Double, String>(
+                new CompressionSettings(CompressionSettings.Method.DEADBAND, 0.5, 0, null),
+                Double::doubleValue,
+                null);
+
+        var out = feed(compressor, 20.0, 20.2, 20.4, 20.6, 20.7, 20.0);
+
+        assertThat(values(out)).containsExactly(20.0, 20.6, 20.0);
+        assertThat(compressor.getReceived()).isEqualTo(6);
+        assertThat(compressor.getEmitted()).isEqualTo(3);
+        assertThat(compressor.getRatio()).isEqualTo(2.0);
+    }
+
+    @Test
+    void deadbandRelative() {
+
+        var compressor = new SeriesCompressor<Double, String>(
+                new CompressionSettings(CompressionSettings.Method.DEADBAND, 0, 0.1, null),
+                Double::doubleValue,
+                null);
+
+        // 10% of 100 is 10, 10% of 115 is 11.5
+        var out = feed(compressor, 100.0, 109.0, 115.0, 125.0, 127.0);
+
+        assertThat(values(out)).containsExactly(100.0, 115.0, 127.0);
+    }
+
+    @Test
+    void swingingDoorRamp() {
+
+        var compressor = new SeriesCompressor<Double, String>(
+                new CompressionSettings(CompressionSettings.Method.SWINGING_DOOR, 0.1, 0, null),
+                Double::doubleValue,
+                null);
+
+        // Straight line up, then straight line down - only the ends and the turning point carry information
+        var out = new ArrayList<Signal<Double, String>>();
+        var source = List.of(0.0, 1.0, 2.0, 3.0, 4.0, 3.0, 2.0, 1.0);
+
+        for (var offset = 0; offset < source.size(); offset++) {
+            out.addAll(compressor.accept(new Signal<>(START.plusSeconds(offset), source.get(offset), "s")));
+        }
+
+        out.addAll(compressor.flush());
+
+        assertThat(values(out)).containsExactly(0.0, 4.0, 1.0);
+        assertThat(out.get(1).timestamp).isEqualTo(START.plusSeconds(4));
+    }
+
+    @Test
+    void swingingDoorFlushOnComplete() {
+
+        var compressor = new SeriesCompressor<Double, String>(
+                new CompressionSettings(CompressionSettings.Method.SWINGING_DOOR, 0.1, 0, null),
+                Double::doubleValue,
+                null);
+
+        var source = Flux.just(
+                new Signal<>(START, 20.0, "s"),
+                new Signal<>(START.plusSeconds(1), 20.0, "s"),
+                new Signal<>(START.plusSeconds(2), 20.0, "s"));
+
+        StepVerifier
+                .create(compressor.compute(source))
+                .assertNext(s -> assertThat(s.timestamp).isEqualTo(START))
+                .assertNext(s -> assertThat(s.timestamp).isEqualTo(START.plusSeconds(2)))
+                .verifyComplete();
+    }
+
+    @Test
+    void heartbeat() {
+
+        var compressor = new SeriesCompressor<Double, String>(
+                new CompressionSettings(CompressionSettings.Method.DEADBAND, 1, 0, Duration.ofSeconds(3)),
+                Double::doubleValue,
+                null);
+
+        var out = feed(compressor, 20.0, 20.0, 20.0, 20.0, 20.0, 20.0, 20.0);
+
+        assertThat(out).extracting(s -> s.timestamp).containsExactly(START, START.plusSeconds(3), START.plusSeconds(6));
+    }
+
+    @Test
+    void errorTransitions() {
+
+        var compressor = new SeriesCompressor<Double, String>(
+                new CompressionSettings(CompressionSettings.Method.SWINGING_DOOR, 1, 0, null),
+                Double::doubleValue,
+                null);
+
+        var error = new IllegalStateException("sensor gone");
+        var out = new ArrayList<Signal<Double, String>>();
+
+        out.addAll(compressor.accept(new Signal<>(START, 20.0, "s")));
+        out.addAll(compressor.accept(new Signal<>(START.plusSeconds(1), 20.1, "s")));
+        out.addAll(compressor.accept(new Signal<>(START.plusSeconds(2), null, "s", Signal.Status.FAILURE_TOTAL, error)));
+        out.addAll(compressor.accept(new Signal<>(START.plusSeconds(3), null, "s", Signal.Status.FAILURE_TOTAL, error)));
+        out.addAll(compressor.accept(new Signal<>(START.plusSeconds(4), 20.2, "s")));
+
+        assertThat(out).extracting(s -> s.timestamp).containsExactly(
+                START,
+                // Held back by the door, but the last good value before the failure
+                START.plusSeconds(1),
+                START.plusSeconds(2),
+                // Recovery
+                START.plusSeconds(4));
+    }
+
+    @Test
+    void stateFlips() {
+
+        var compressor = new SeriesCompressor<Boolean, String>(
+                new CompressionSettings(CompressionSettings.Method.DEADBAND, 100, 0, null),
+                b -> 0,
+                b -> b);
+
+        var out = new ArrayList<Signal<Boolean, String>>();
+
+        var source = List.of(false, false, true, true, true, false);
+
+        for (var offset = 0; offset < source.size(); offset++) {
+            out.addAll(compressor.accept(new Signal<>(START.plusSeconds(offset), source.get(offset), "s")));
+        }
+
+        assertThat(out).extracting(Signal::getValue).containsExactly(false, true, false);
+    }
+
+    @Test
+    void separateSeries() {
+
+        var compressor = new SeriesCompressor<Double, String>(
+                new CompressionSettings(CompressionSettings.Method.DEADBAND, 1, 0, null),
+                Double::doubleValue,
+                null);
+
+        var out = new ArrayList<Signal<Double, String>>();
+
+        out.addAll(compressor.accept(new Signal<>(START, 20.0, "a")));
+        out.addAll(compressor.accept(new Signal<>(START, 30.0, "b")));
+        out.addAll(compressor.accept(new Signal<>(START.plusSeconds(1), 20.0, "a")));
+        out.addAll(compressor.accept(new Signal<>(START.plusSeconds(1), 30.0, "b")));
+
+        assertThat(out).extracting(s -> s.payload).containsExactly("a", "b");
+    }
+
+    @Test
+    void invalidSettings() {
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new CompressionSettings(CompressionSettings.Method.DEADBAND, -1, 0, null));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new CompressionSettings(CompressionSettings.Method.DEADBAND, 0, 0, Duration.ZERO));
+    }
+
+    /**
+     * Feed the values, one second apart, and collect the output including the held back signals.
+     */
+    private List<Signal<Double, String>> feed(SeriesCompressor<Double, String> compressor, Double... values) {
+
+        var result = new ArrayList<Signal<Double, String>>();
+
+        for (var offset = 0; offset < values.length; offset++) {
+            result.addAll(compressor.accept(new Signal<>(START.plusSeconds(offset), values[offset], "s")));
+        }
+
+        result.addAll(compressor.flush());
+
+        return result;
+    }
+
+    private List<Double> values(List<Signal<Double, String>> source) {
+        return source.stream().map(Signal::getValue).toList();
+    }
+}
@@ -0,0 +1,29 @@
+plugins {
+    `java-library`
+}
+
+dependencies {
+
+    api(project(":modules:hcc-mqtt"))
+
+    implementation(project(":modules:hcc-common"))
+    implementation(project(":modules:hcc-model"))
+
+    testImplementation(libs.assertj.core)
+    testImplementation(libs.junit5.api)
+    testImplementation(libs.reactor.test)
+}
+
+// Run with:
+//   ./gradlew :modules:hcc-mqtt-simulator:soak --args='--devices=3000 --duration=PT4H'
+tasks.register<JavaExec>("soak") {
+
+    group = "verification"
+    description = "Drives a fleet of simulated MQTT devices, reporting heap, threads, and command latency."
+
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("net.sf.dz3r.device.mqtt.simulator.SoakRunner")
+
+    // There's no log4j2.xml here, and the default is too quiet to see the samples
+    systemProperty("log4j2.level", "INFO")
+}
@@ -0,0 +1,54 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Base class for simulated sensors.
+ *
+ * Readings wander around the {@link #setValue(double) set value}, within {@link #spread}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public abstract class AbstractSensorSimulator extends DeviceSimulator {
+
+    private final double spread;
+    private volatile double value;
+
+    protected AbstractSensorSimulator(
+            InProcessMqttBroker broker, String rootTopic,
+            double value, double spread,
+            SimulatorProfile profile, Scheduler scheduler, long seed) {
+
+        super(broker, rootTopic, profile, scheduler, seed);
+
+        if (spread < 0) {
+            throw new IllegalArgumentException("spread can't be negative: " + spread);
+        }
+
+        this.value = value;
+        this.spread = spread;
+    }
+
+    /**
+     * Change the value the readings wander around - simulate the temperature going up or down.
+     *
+     * @param value New value.
+     */
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    @Override
+    protected final boolean hasReadings() {
+        return true;
+    }
+
+    @Override
+    protected final void tick() {
+        reply(getReadingTopic(), render(value + spread * Math.max(-1, Math.min(1, nextGaussian()))));
+    }
+
+    protected abstract String getReadingTopic();
+
+    protected abstract String render(double reading);
+}
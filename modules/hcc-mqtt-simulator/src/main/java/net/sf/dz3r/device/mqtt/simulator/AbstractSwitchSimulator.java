@@ -0,0 +1,28 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Base class for simulated on/off devices.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public abstract class AbstractSwitchSimulator extends DeviceSimulator {
+
+    private volatile Boolean state;
+
+    protected AbstractSwitchSimulator(InProcessMqttBroker broker, String rootTopic, SimulatorProfile profile, Scheduler scheduler, long seed) {
+        super(broker, rootTopic, profile, scheduler, seed);
+    }
+
+    /**
+     * @return Last commanded state, {@code null} if no command was received yet.
+     */
+    public Boolean getState() {
+        return state;
+    }
+
+    protected void setState(boolean state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,216 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.mqtt.MqttAdapter;
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for scripted MQTT device simulators.
+ *
+ * A simulator announces its availability on {@link #start()}, then acknowledges commands arriving on
+ * {@link #getCommandTopics()} and publishes {@link #tick() readings}, all subject to the {@link SimulatorProfile}.
+ * Timing is driven by the given scheduler, pass a {@code VirtualTimeScheduler} to run simulated hours in milliseconds.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public abstract class DeviceSimulator implements AutoCloseable {
+
+    protected final Logger logger = LogManager.getLogger();
+
+    protected final String rootTopic;
+    private final MqttAdapter adapter;
+    private final SimulatorProfile profile;
+    private final Scheduler scheduler;
+    private final Random random;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    private volatile boolean closed;
+
+    /**
+     * Create an instance.
+     *
+     * @param broker Broker to connect to.
+     * @param rootTopic Device root topic.
+     * @param profile Wire behavior.
+     * @param scheduler Scheduler to drive the timing with.
+     * @param seed Random seed, for reproducible loss and jitter.
+     */
+    protected DeviceSimulator(InProcessMqttBroker broker, String rootTopic, SimulatorProfile profile, Scheduler scheduler, long seed) {
+
+        this.adapter = HCCObjects.requireNonNull(broker, "broker can't be null").connect();
+        this.rootTopic = HCCObjects.requireNonNull(rootTopic, "rootTopic can't be null");
+        this.profile = HCCObjects.requireNonNull(profile, "profile can't be null");
+        this.scheduler = HCCObjects.requireNonNull(scheduler, "scheduler can't be null");
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Announce availability, start listening to commands and publishing readings.
+     *
+     * @return {@code this}, for chaining.
+     */
+    public final DeviceSimulator start() {
+
+        announce();
+
+        for (var topic : getCommandTopics()) {
+            subscriptions.add(adapter
+                    .getFlux(topic, false)
+                    .subscribe(this::receive));
+        }
+
+        if (profile.readingInterval() != null && hasReadings()) {
+            subscriptions.add(Flux
+                    .interval(profile.readingInterval(), scheduler)
+                    .subscribe(ignored -> tick()));
+        }
+
+        return this;
+    }
+
+    private void receive(MqttSignal command) {
+
+        received.incrementAndGet();
+
+        try {
+            command(command);
+        } catch (RuntimeException ex) {
+            // Same as a real device, garbage in is silently ignored
+            logger.warn("{}: can't handle {}", rootTopic, command, ex);
+        }
+    }
+
+    /**
+     * Publish the availability message(s), retained.
+     */
+    protected abstract void announce();
+
+    /**
+     * @return Topics to listen to commands on.
+     */
+    protected List<String> getCommandTopics() {
+        return List.of();
+    }
+
+    /**
+     * Handle a command arriving on one of {@link #getCommandTopics()}.
+     *
+     * @param command Command received.
+     */
+    protected void command(MqttSignal command) {
+        // Sensors don't take commands
+    }
+
+    /**
+     * @return {@code true} if this device periodically {@link #tick() publishes readings}.
+     */
+    protected boolean hasReadings() {
+        return false;
+    }
+
+    /**
+     * Publish a reading.
+     */
+    protected void tick() {
+        // Switches don't publish readings
+    }
+
+    /**
+     * Publish immediately, and reliably. Used for availability.
+     */
+    protected final void publish(String topic, String payload, boolean retain) {
+        adapter.publish(topic, payload, MqttQos.AT_LEAST_ONCE, retain);
+    }
+
+    /**
+     * Publish subject to the {@link SimulatorProfile}: with a delay, or not at all.
+     */
+    protected final void reply(String topic, String payload) {
+
+        if (isLost()) {
+            lost.incrementAndGet();
+            return;
+        }
+
+        var delay = getDelay();
+
+        if (delay.isZero()) {
+            send(topic, payload);
+            return;
+        }
+
+        // Not tracked - there may be millions of these over a soak run, and they're gone on their own soon enough
+        Mono.delay(delay, scheduler)
+                .subscribe(ignored -> send(topic, payload));
+    }
+
+    private void send(String topic, String payload) {
+
+        if (closed) {
+            return;
+        }
+
+        sent.incrementAndGet();
+        adapter.publish(topic, payload, MqttQos.AT_LEAST_ONCE, false);
+    }
+
+    private synchronized boolean isLost() {
+        return profile.loss() > 0 && random.nextDouble() < profile.loss();
+    }
+
+    private synchronized Duration getDelay() {
+
+        var jitter = profile.jitter().toMillis();
+        return profile.latency().plusMillis(jitter == 0 ? 0 : random.nextLong(jitter + 1));
+    }
+
+    /**
+     * @return Current time according to the {@link #scheduler}, milliseconds since epoch.
+     */
+    protected final long now() {
+        return scheduler.now(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Next value from the generator shared with the loss and jitter logic, for reproducible readings.
+     */
+    protected final synchronized double nextGaussian() {
+        return random.nextGaussian();
+    }
+
+    public final long getReceived() {
+        return received.get();
+    }
+
+    public final long getSent() {
+        return sent.get();
+    }
+
+    public final long getLost() {
+        return lost.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        subscriptions.dispose();
+    }
+}
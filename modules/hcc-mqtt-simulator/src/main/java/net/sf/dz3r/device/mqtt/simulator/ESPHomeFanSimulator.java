@@ -0,0 +1,68 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * Simulated <a href="https://esphome.io/components/fan">ESPHome fan</a>, counterpart of {@code ESPHomeFan}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ESPHomeFanSimulator extends AbstractSwitchSimulator {
+
+    private final String availabilityTopic;
+    private volatile Integer speed;
+
+    /**
+     * Create an instance.
+     *
+     * @param rootTopic Fan topic, like {@code /esphome/board/fan/a6}.
+     * @param availabilityTopic Board availability topic, like {@code /esphome/board/status}.
+     */
+    public ESPHomeFanSimulator(
+            InProcessMqttBroker broker, String rootTopic, String availabilityTopic,
+            SimulatorProfile profile, Scheduler scheduler, long seed) {
+
+        super(broker, rootTopic, profile, scheduler, seed);
+
+        this.availabilityTopic = availabilityTopic;
+    }
+
+    /**
+     * @return Last commanded speed level, {@code 0..100}, {@code null} if no speed command was received yet.
+     */
+    public Integer getSpeed() {
+        return speed;
+    }
+
+    @Override
+    protected void announce() {
+        publish(availabilityTopic, "online", true);
+    }
+
+    @Override
+    protected List<String> getCommandTopics() {
+        return List.of(rootTopic + "/command", rootTopic + "/speed_level/command");
+    }
+
+    @Override
+    protected void command(MqttSignal command) {
+
+        if (command.topic().endsWith("/speed_level/command")) {
+
+            // Same as the real thing, speed outside of the range is clamped
+            var level = Math.max(0, Math.min(100, Integer.parseInt(command.message())));
+
+            speed = level;
+            reply(rootTopic + "/speed_level/state", Integer.toString(level));
+            return;
+        }
+
+        var on = "ON".equals(command.message());
+
+        setState(on);
+        reply(rootTopic + "/state", on ? "ON" : "OFF");
+    }
+}
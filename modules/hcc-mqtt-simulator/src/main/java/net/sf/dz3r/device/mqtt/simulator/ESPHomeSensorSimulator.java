@@ -0,0 +1,48 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Locale;
+
+/**
+ * Simulated <a href="https://esphome.io/components/sensor/">ESPHome sensor</a>, counterpart of {@code ESPHomeListener}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ESPHomeSensorSimulator extends AbstractSensorSimulator {
+
+    private final String address;
+    private final String availabilityTopic;
+
+    /**
+     * Create an instance.
+     *
+     * @param rootTopic Board topic, like {@code /esphome/board}.
+     * @param address Sensor address, as in {@code sensor/<address>/state}.
+     */
+    public ESPHomeSensorSimulator(
+            InProcessMqttBroker broker, String rootTopic, String address,
+            double value, double spread,
+            SimulatorProfile profile, Scheduler scheduler, long seed) {
+
+        super(broker, rootTopic, value, spread, profile, scheduler, seed);
+
+        this.address = address;
+        this.availabilityTopic = rootTopic + "/status";
+    }
+
+    @Override
+    protected void announce() {
+        publish(availabilityTopic, "online", true);
+    }
+
+    @Override
+    protected String getReadingTopic() {
+        return rootTopic + "/sensor/" + address + "/state";
+    }
+
+    @Override
+    protected String render(double reading) {
+        return String.format(Locale.ROOT, "%.2f", reading);
+    }
+}
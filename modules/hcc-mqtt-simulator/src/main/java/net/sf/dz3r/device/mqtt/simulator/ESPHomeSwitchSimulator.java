@@ -0,0 +1,50 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * Simulated <a href="https://esphome.io/components/switch/">ESPHome switch</a>, counterpart of {@code ESPHomeCqrsSwitch}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ESPHomeSwitchSimulator extends AbstractSwitchSimulator {
+
+    private final String availabilityTopic;
+
+    /**
+     * Create an instance.
+     *
+     * @param rootTopic Switch topic, like {@code /esphome/board/switch/fan}.
+     * @param availabilityTopic Board availability topic, like {@code /esphome/board/status}.
+     */
+    public ESPHomeSwitchSimulator(
+            InProcessMqttBroker broker, String rootTopic, String availabilityTopic,
+            SimulatorProfile profile, Scheduler scheduler, long seed) {
+
+        super(broker, rootTopic, profile, scheduler, seed);
+
+        this.availabilityTopic = availabilityTopic;
+    }
+
+    @Override
+    protected void announce() {
+        publish(availabilityTopic, "online", true);
+    }
+
+    @Override
+    protected List<String> getCommandTopics() {
+        return List.of(rootTopic + "/command");
+    }
+
+    @Override
+    protected void command(MqttSignal command) {
+
+        var on = "ON".equals(command.message());
+
+        setState(on);
+        reply(rootTopic + "/state", on ? "ON" : "OFF");
+    }
+}
@@ -0,0 +1,194 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.mqtt.MqttAdapter;
+import net.sf.dz3r.device.mqtt.v1.MqttEndpoint;
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process MQTT broker stand-in.
+ *
+ * Supports exactly what {@link MqttAdapter} does - exact topic and subtree subscriptions, and retained messages.
+ * QoS is ignored, delivery is synchronous, in the order of publication, on the publishing thread.
+ *
+ * Subscriptions are indexed by topic, so that the cost of a publication depends on the topic depth
+ * and not on the number of subscribers - this is what allows thousands of simulated devices in one JVM.
+ *
+ * The broker can be {@link #setPartitioned(boolean) partitioned} to drop everything published, as if the network
+ * between it and the clients went down.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class InProcessMqttBroker {
+
+    private final MqttEndpoint address;
+
+    private final Map<String, String> retained = new ConcurrentHashMap<>();
+
+    /**
+     * Sinks for exact topic subscriptions, by topic.
+     */
+    private final Map<String, Sinks.Many<MqttSignal>> exact = new ConcurrentHashMap<>();
+
+    /**
+     * Sinks for subtree subscriptions, by subtree root.
+     */
+    private final Map<String, Sinks.Many<MqttSignal>> subtree = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+
+    private volatile boolean partitioned;
+
+    public InProcessMqttBroker() {
+        this(new MqttEndpoint("in-process"));
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param address Address to report to clients, for logging and lookups. Nothing is actually listening there.
+     */
+    public InProcessMqttBroker(MqttEndpoint address) {
+        this.address = HCCObjects.requireNonNull(address, "address can't be null");
+    }
+
+    /**
+     * @return A new client connected to this broker.
+     */
+    public MqttAdapter connect() {
+        return new Client();
+    }
+
+    /**
+     * Publish a message.
+     *
+     * Synchronized, because sinks don't tolerate concurrent emissions. This is the throughput ceiling of the broker.
+     *
+     * @param topic Topic to publish to.
+     * @param payload Message payload.
+     * @param retain Whether to keep the message for late subscribers.
+     */
+    public synchronized void publish(String topic, String payload, boolean retain) {
+
+        HCCObjects.requireNonNull(topic, "topic can't be null");
+        HCCObjects.requireNonNull(payload, "payload can't be null");
+
+        if (partitioned) {
+            return;
+        }
+
+        if (retain) {
+            retained.put(topic, payload);
+        }
+
+        published.incrementAndGet();
+
+        var message = new MqttSignal(topic, payload);
+
+        emit(exact.get(topic), message);
+
+        for (var root = topic; root != null; root = parent(root)) {
+            emit(subtree.get(root), message);
+        }
+    }
+
+    private static void emit(Sinks.Many<MqttSignal> sink, MqttSignal message) {
+
+        if (sink != null) {
+            sink.tryEmitNext(message);
+        }
+    }
+
+    private static String parent(String topic) {
+
+        var offset = topic.lastIndexOf('/');
+        return offset <= 0 ? null : topic.substring(0, offset);
+    }
+
+    /**
+     * Drop, or stop dropping, everything published from now on.
+     *
+     * @param partitioned {@code true} to drop messages.
+     */
+    public void setPartitioned(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+
+    /**
+     * @param topic Topic to get the retained message for.
+     *
+     * @return Retained message payload, or {@code null} if there's none.
+     */
+    public String getRetained(String topic) {
+        return retained.get(topic);
+    }
+
+    /**
+     * @return Number of messages published since this broker was created.
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * @return Number of distinct subscription points. Expected to stay bounded by the number of devices.
+     */
+    public int getSubscriptionPoints() {
+        return exact.size() + subtree.size();
+    }
+
+    private Flux<MqttSignal> subscribe(String topic, boolean includeSubtopics) {
+
+        var sink = (includeSubtopics ? subtree : exact).computeIfAbsent(topic, k -> Sinks.many().multicast().directBestEffort());
+
+        // Retained messages that arrive between these two calls will be seen twice - same as with a real broker
+
+        return Flux
+                .defer(() -> getRetained(topic, includeSubtopics))
+                .concatWith(sink.asFlux());
+    }
+
+    private Flux<MqttSignal> getRetained(String topic, boolean includeSubtopics) {
+
+        var result = new ArrayList<MqttSignal>();
+
+        retained.forEach((t, payload) -> {
+            if (t.equals(topic) || (includeSubtopics && t.startsWith(topic + "/"))) {
+                result.add(new MqttSignal(t, payload));
+            }
+        });
+
+        return Flux.fromIterable(result);
+    }
+
+    private class Client implements MqttAdapter {
+
+        @Override
+        public void publish(String topic, String payload, MqttQos qos, boolean retain) {
+            InProcessMqttBroker.this.publish(topic, payload, retain);
+        }
+
+        @Override
+        public Flux<MqttSignal> getFlux(String topic, boolean includeSubtopics) {
+            return subscribe(topic, includeSubtopics);
+        }
+
+        @Override
+        public MqttEndpoint getAddress() {
+            return address;
+        }
+
+        @Override
+        public void close() {
+            // Subscriptions end when their subscribers dispose of them
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import net.sf.dz3r.common.HCCObjects;
+
+import java.time.Duration;
+
+/**
+ * How a simulated device behaves on the wire.
+ *
+ * @param latency Delay between receiving a command and acknowledging it.
+ * @param jitter Maximum random addition to {@link #latency}.
+ * @param loss Probability of a message (reading or acknowledgement) being lost, {@code 0..1}.
+ * @param readingInterval How often sensors publish readings. {@code null} means never.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record SimulatorProfile(
+        Duration latency,
+        Duration jitter,
+        double loss,
+        Duration readingInterval
+) {
+
+    /**
+     * Instant acknowledgements, nothing lost, readings every 30 seconds - a healthy local network.
+     */
+    public static final SimulatorProfile IDEAL = new SimulatorProfile(Duration.ZERO, Duration.ZERO, 0, Duration.ofSeconds(30));
+
+    public SimulatorProfile {
+
+        HCCObjects.requireNonNull(latency, "latency can't be null");
+        HCCObjects.requireNonNull(jitter, "jitter can't be null");
+
+        if (latency.isNegative() || jitter.isNegative()) {
+            throw new IllegalArgumentException("latency and jitter can't be negative: " + latency + ", " + jitter);
+        }
+
+        if (loss < 0 || loss > 1) {
+            throw new IllegalArgumentException("loss must be within 0..1: " + loss);
+        }
+
+        if (readingInterval != null && (readingInterval.isNegative() || readingInterval.isZero())) {
+            throw new IllegalArgumentException("readingInterval must be positive: " + readingInterval);
+        }
+    }
+}
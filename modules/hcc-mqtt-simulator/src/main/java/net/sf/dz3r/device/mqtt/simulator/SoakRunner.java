@@ -0,0 +1,416 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.DeviceState;
+import net.sf.dz3r.device.actuator.CqrsDevice;
+import net.sf.dz3r.device.actuator.VariableOutputDevice;
+import net.sf.dz3r.device.esphome.v1.ESPHomeListener;
+import net.sf.dz3r.device.esphome.v2.ESPHomeCqrsSwitch;
+import net.sf.dz3r.device.esphome.v2.ESPHomeFan;
+import net.sf.dz3r.device.z2m.v1.Z2MJsonListener;
+import net.sf.dz3r.device.z2m.v2.Z2MCqrsSwitch;
+import net.sf.dz3r.device.zwave.v2.ZWaveCqrsBinarySwitch;
+import net.sf.dz3r.instrumentation.Footprint;
+import net.sf.dz3r.instrumentation.metrics.LatencyHistogram;
+import net.sf.dz3r.signal.Signal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Drives a fleet of real MQTT device drivers against simulated devices for a long time, and reports heap, threads,
+ * and end-to-end command latency.
+ *
+ * Devices are created round-robin: Zigbee2MQTT switch, Z-Wave switch, ESPHome switch, ESPHome fan, Zigbee2MQTT sensor,
+ * ESPHome sensor. Every actuator receives a command every {@link Config#commandInterval()}, staggered evenly.
+ * Latency is measured from {@link CqrsDevice#setState(Object)} to the device reporting the commanded state as actual;
+ * a command that is not acknowledged by the time the next one is issued is counted as lost.
+ *
+ * Heap is sampled as reported after the last garbage collection, so that the samples reflect retained memory
+ * and not garbage that hasn't been collected yet.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class SoakRunner {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final Config config;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Soak run parameters.
+     *
+     * @param devices Number of devices to simulate.
+     * @param duration How long to run.
+     * @param commandInterval How often every actuator receives a command.
+     * @param sampleInterval How often to sample heap and threads.
+     * @param profile Simulated device wire behavior.
+     */
+    public record Config(
+            int devices,
+            Duration duration,
+            Duration commandInterval,
+            Duration sampleInterval,
+            SimulatorProfile profile
+    ) {
+
+        public Config {
+
+            HCCObjects.requireNonNull(duration, "duration can't be null");
+            HCCObjects.requireNonNull(commandInterval, "commandInterval can't be null");
+            HCCObjects.requireNonNull(sampleInterval, "sampleInterval can't be null");
+            HCCObjects.requireNonNull(profile, "profile can't be null");
+
+            if (devices < 1) {
+                throw new IllegalArgumentException("need at least one device: " + devices);
+            }
+        }
+
+        /**
+         * Parse command line arguments in {@code --name=value} form, durations in ISO-8601 form.
+         *
+         * Recognized: {@code devices}, {@code duration}, {@code command-interval}, {@code sample-interval},
+         * {@code latency}, {@code jitter}, {@code loss}, {@code reading-interval}.
+         */
+        public static Config parse(String[] args) {
+
+            var devices = 600;
+            var duration = Duration.ofHours(1);
+            var commandInterval = Duration.ofMinutes(1);
+            var sampleInterval = Duration.ofMinutes(1);
+            var latency = Duration.ofMillis(50);
+            var jitter = Duration.ofMillis(200);
+            var loss = 0.01;
+            var readingInterval = Duration.ofSeconds(30);
+
+            for (var arg : args) {
+
+                var kv = arg.replaceFirst("^--", "").split("=", 2);
+
+                if (kv.length != 2) {
+                    throw new IllegalArgumentException("expected --name=value, got " + arg);
+                }
+
+                switch (kv[0]) {
+                    case "devices" -> devices = Integer.parseInt(kv[1]);
+                    case "duration" -> duration = Duration.parse(kv[1]);
+                    case "command-interval" -> commandInterval = Duration.parse(kv[1]);
+                    case "sample-interval" -> sampleInterval = Duration.parse(kv[1]);
+                    case "latency" -> latency = Duration.parse(kv[1]);
+                    case "jitter" -> jitter = Duration.parse(kv[1]);
+                    case "loss" -> loss = Double.parseDouble(kv[1]);
+                    case "reading-interval" -> readingInterval = Duration.parse(kv[1]);
+                    default -> throw new IllegalArgumentException("unknown argument: " + arg);
+                }
+            }
+
+            return new Config(devices, duration, commandInterval, sampleInterval, new SimulatorProfile(latency, jitter, loss, readingInterval));
+        }
+    }
+
+    /**
+     * Resource usage at a point in time.
+     *
+     * @param elapsed Time since the start of the run.
+     * @param heap Heap used after the last garbage collection, bytes.
+     * @param threads Live thread count.
+     * @param published Messages published through the broker so far.
+     */
+    public record Sample(
+            Duration elapsed,
+            long heap,
+            int threads,
+            long published
+    ) {
+
+    }
+
+    /**
+     * Soak run results.
+     *
+     * @param commands Commands issued.
+     * @param acknowledged Commands that the device reported as executed.
+     * @param lost Commands that were not acknowledged before the next one was issued.
+     * @param readings Sensor readings received.
+     * @param p50 Median command latency.
+     * @param p99 99th percentile command latency.
+     * @param max Maximum command latency, capped at {@link LatencyHistogram#MAX_VALUE} microseconds.
+     * @param samples Resource usage samples, in chronological order. The first is taken right after the fleet is up.
+     */
+    public record Report(
+            long commands,
+            long acknowledged,
+            long lost,
+            long readings,
+            Duration p50,
+            Duration p99,
+            Duration max,
+            List<Sample> samples
+    ) {
+
+        /**
+         * @return Post-GC heap difference between the last and the first sample, bytes.
+         */
+        public long getHeapGrowth() {
+            return samples.get(samples.size() - 1).heap() - samples.get(0).heap();
+        }
+
+        /**
+         * @return Thread count difference between the last and the first sample.
+         */
+        public int getThreadGrowth() {
+            return samples.get(samples.size() - 1).threads() - samples.get(0).threads();
+        }
+    }
+
+    public SoakRunner(Config config) {
+        this.config = HCCObjects.requireNonNull(config, "config can't be null");
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        var report = new SoakRunner(Config.parse(args)).run();
+
+        LogManager.getLogger(SoakRunner.class).info("report: {}", report);
+    }
+
+    /**
+     * Run the soak test. Blocks for {@link Config#duration()}.
+     *
+     * @return Results.
+     */
+    public Report run() throws Exception {
+
+        ThreadContext.push("soak");
+
+        var broker = new InProcessMqttBroker();
+        var clock = Clock.systemUTC();
+        var simulators = new ArrayList<DeviceSimulator>();
+        var probes = new ArrayList<Probe<?, ?>>();
+        var sensors = new ArrayList<Disposable>();
+        var readings = new ReadingCounter();
+        var driver = Schedulers.newSingle("soak-driver");
+        var sampler = Schedulers.newSingle("soak-sampler");
+        var start = System.nanoTime();
+
+        try {
+
+            logger.info("starting {} devices, {}", config.devices(), config);
+
+            for (var offset = 0; offset < config.devices(); offset++) {
+                create(offset, broker, clock, simulators, probes, sensors, readings);
+            }
+
+            sample(start, broker);
+
+            // There's always at least one actuator, the fleet starts with one
+            var commands = Flux
+                    .interval(config.commandInterval().dividedBy(probes.size()), driver)
+                    .subscribe(tick -> probes.get((int) (tick % probes.size())).command());
+
+            var sampling = Flux
+                    .interval(config.sampleInterval(), sampler)
+                    .subscribe(ignored -> sample(start, broker));
+
+            Thread.sleep(config.duration().toMillis());
+
+            commands.dispose();
+            sampling.dispose();
+
+            sample(start, broker);
+
+            var issued = probes.stream().mapToLong(Probe::getIssued).sum();
+            var lost = probes.stream().mapToLong(Probe::getLost).sum();
+            var report = new Report(
+                    issued,
+                    latency.getCount(),
+                    lost,
+                    readings.get(),
+                    latency.getPercentile(50),
+                    latency.getPercentile(99),
+                    latency.getMax(),
+                    List.copyOf(samples));
+
+            logger.info("heap growth {} bytes, thread growth {}", report.getHeapGrowth(), report.getThreadGrowth());
+
+            return report;
+
+        } finally {
+
+            driver.dispose();
+            sampler.dispose();
+
+            for (var probe : probes) {
+                probe.close();
+            }
+
+            sensors.forEach(Disposable::dispose);
+            simulators.forEach(DeviceSimulator::close);
+
+            ThreadContext.pop();
+        }
+    }
+
+    private void create(
+            int offset,
+            InProcessMqttBroker broker,
+            Clock clock,
+            List<DeviceSimulator> simulators,
+            List<Probe<?, ?>> probes,
+            List<Disposable> sensors,
+            ReadingCounter readings) {
+
+        var profile = config.profile();
+        var scheduler = Schedulers.parallel();
+
+        switch (offset % 6) {
+
+            case 0 -> {
+                var topic = "zigbee2mqtt/switch-" + offset;
+                simulators.add(new Z2MSwitchSimulator(broker, topic, profile, scheduler, offset).start());
+                probes.add(new Probe<>(new Z2MCqrsSwitch("z2m-" + offset, clock, null, null, broker.connect(), topic), SoakRunner::toggle));
+            }
+            case 1 -> {
+                var topic = "zwave/switch-" + offset;
+                simulators.add(new ZWaveSwitchSimulator(broker, topic, profile, scheduler, offset).start());
+                probes.add(new Probe<>(new ZWaveCqrsBinarySwitch("zwave-" + offset, clock, null, null, broker.connect(), topic), SoakRunner::toggle));
+            }
+            case 2 -> {
+                var board = "/esphome/board-" + offset;
+                var topic = board + "/switch/relay";
+                simulators.add(new ESPHomeSwitchSimulator(broker, topic, board + "/status", profile, scheduler, offset).start());
+                probes.add(new Probe<>(new ESPHomeCqrsSwitch("esphome-" + offset, clock, null, null, broker.connect(), topic, board + "/status"), SoakRunner::toggle));
+            }
+            case 3 -> {
+                var board = "/esphome/board-" + offset;
+                var topic = board + "/fan/fan";
+                simulators.add(new ESPHomeFanSimulator(broker, topic, board + "/status", profile, scheduler, offset).start());
+                probes.add(new Probe<>(new ESPHomeFan("fan-" + offset, clock, null, null, broker.connect(), topic, board + "/status"), SoakRunner::cycle));
+            }
+            case 4 -> {
+                // One listener per sensor, or every listener would have to look at every message
+                var root = "zigbee2mqtt/sensors-" + offset;
+                simulators.add(new Z2MSensorSimulator(broker, root, "sensor", "temperature", 22, 0.5, profile, scheduler, offset).start());
+                sensors.add(readings.count(new Z2MJsonListener(broker.connect(), root, "temperature").getFlux("sensor")));
+            }
+            default -> {
+                var board = "/esphome/board-" + offset;
+                simulators.add(new ESPHomeSensorSimulator(broker, board, "temperature", 22, 0.5, profile, scheduler, offset).start());
+                sensors.add(readings.count(new ESPHomeListener(broker.connect(), board).getFlux("temperature")));
+            }
+        }
+    }
+
+    private static Boolean toggle(long sequence) {
+        return sequence % 2 == 0;
+    }
+
+    /**
+     * Fan speeds that survive the round trip through the percentage the device speaks without a rounding error.
+     */
+    private static final double[] FAN_SPEEDS = {0.2, 0.4, 0.6, 0.8, 1.0};
+
+    private static VariableOutputDevice.Command cycle(long sequence) {
+        return new VariableOutputDevice.Command(true, FAN_SPEEDS[(int) (sequence % FAN_SPEEDS.length)]);
+    }
+
+    private void sample(long start, InProcessMqttBroker broker) {
+
+        var sample = new Sample(
+                Duration.ofNanos(System.nanoTime() - start),
+                Footprint.getPostGcHeap(),
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                broker.getPublished());
+
+        samples.add(sample);
+        logger.info("sample: {}", sample);
+    }
+
+    private static class ReadingCounter {
+
+        private final AtomicLong count = new AtomicLong();
+
+        Disposable count(Flux<Signal<Double, Void>> source) {
+            return source.subscribe(ignored -> count.incrementAndGet());
+        }
+
+        long get() {
+            return count.get();
+        }
+    }
+
+    /**
+     * Issues scripted commands to a device, and measures how long it takes for them to be acknowledged.
+     */
+    private class Probe<I, O> implements AutoCloseable {
+
+        private final CqrsDevice<I, O> device;
+        private final LongFunction<I> script;
+        private final Disposable subscription;
+
+        private long issued;
+        private long lost;
+        private O expected;
+        private long issuedAt;
+
+        Probe(CqrsDevice<I, O> device, LongFunction<I> script) {
+
+            this.device = device;
+            this.script = script;
+            this.subscription = device.getFlux().map(Signal::getValue).subscribe(this::check);
+        }
+
+        synchronized void command() {
+
+            if (expected != null) {
+                lost++;
+            }
+
+            issuedAt = System.nanoTime();
+            expected = device.setState(script.apply(issued++)).requested;
+        }
+
+        synchronized long getIssued() {
+            return issued;
+        }
+
+        synchronized long getLost() {
+            return lost;
+        }
+
+        private synchronized void check(DeviceState<O> state) {
+
+            if (expected != null && expected.equals(state.actual)) {
+
+                latency.record(Duration.ofNanos(System.nanoTime() - issuedAt));
+                expected = null;
+            }
+        }
+
+        @Override
+        public void close() {
+
+            subscription.dispose();
+
+            try {
+                device.close();
+            } catch (Exception ex) {
+                logger.warn("{}: failed to close", device, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Locale;
+
+/**
+ * Simulated <a href="https://zigbee2mqtt.io">Zigbee2MQTT</a> sensor, counterpart of {@code Z2MJsonListener}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class Z2MSensorSimulator extends AbstractSensorSimulator {
+
+    private final String address;
+    private final String measurement;
+
+    /**
+     * Create an instance.
+     *
+     * @param rootTopic Z2M root topic, like {@code zigbee2mqtt}.
+     * @param address Device address, as configured in Z2M.
+     * @param measurement JSON key the reading is published under, like {@code temperature}.
+     */
+    public Z2MSensorSimulator(
+            InProcessMqttBroker broker, String rootTopic, String address, String measurement,
+            double value, double spread,
+            SimulatorProfile profile, Scheduler scheduler, long seed) {
+
+        super(broker, rootTopic, value, spread, profile, scheduler, seed);
+
+        this.address = address;
+        this.measurement = measurement;
+    }
+
+    @Override
+    protected void announce() {
+        publish(getReadingTopic() + "/availability", "{\"state\":\"online\"}", true);
+    }
+
+    @Override
+    protected String getReadingTopic() {
+        return rootTopic + "/" + address;
+    }
+
+    @Override
+    protected String render(double reading) {
+        return String.format(Locale.ROOT, "{\"battery\":100,\"%s\":%.2f,\"linkquality\":120}", measurement, reading);
+    }
+}
@@ -0,0 +1,42 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * Simulated <a href="https://zigbee2mqtt.io">Zigbee2MQTT</a> switch, counterpart of {@code Z2MCqrsSwitch}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class Z2MSwitchSimulator extends AbstractSwitchSimulator {
+
+    /**
+     * Create an instance.
+     *
+     * @param rootTopic Device topic, like {@code zigbee2mqtt/sengled-01}.
+     */
+    public Z2MSwitchSimulator(InProcessMqttBroker broker, String rootTopic, SimulatorProfile profile, Scheduler scheduler, long seed) {
+        super(broker, rootTopic, profile, scheduler, seed);
+    }
+
+    @Override
+    protected void announce() {
+        publish(rootTopic + "/availability", "{\"state\":\"online\"}", true);
+    }
+
+    @Override
+    protected List<String> getCommandTopics() {
+        return List.of(rootTopic + "/set");
+    }
+
+    @Override
+    protected void command(MqttSignal command) {
+
+        var on = command.message().replace(" ", "").contains("\"state\":\"ON\"");
+
+        setState(on);
+        reply(rootTopic, "{\"state\":\"" + (on ? "ON" : "OFF") + "\",\"linkquality\":120}");
+    }
+}
@@ -0,0 +1,45 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * Simulated <a href="https://github.com/zwave-js/zwave-js-ui">Z-Wave JS UI</a> binary switch (command class 37),
+ * counterpart of {@code ZWaveCqrsBinarySwitch}.
+ *
+ * There is no sensor counterpart, because {@code ZWaveSensorListener} is not implemented yet.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ZWaveSwitchSimulator extends AbstractSwitchSimulator {
+
+    /**
+     * Create an instance.
+     *
+     * @param rootTopic Device topic, like {@code zwave/Office/switch-01}.
+     */
+    public ZWaveSwitchSimulator(InProcessMqttBroker broker, String rootTopic, SimulatorProfile profile, Scheduler scheduler, long seed) {
+        super(broker, rootTopic, profile, scheduler, seed);
+    }
+
+    @Override
+    protected void announce() {
+        publish(rootTopic + "/status", "{\"time\":" + now() + ",\"value\":true,\"status\":\"Alive\",\"nodeId\":1}", true);
+    }
+
+    @Override
+    protected List<String> getCommandTopics() {
+        return List.of(rootTopic + "/37/0/targetValue/set");
+    }
+
+    @Override
+    protected void command(MqttSignal command) {
+
+        var on = command.message().replace(" ", "").contains("\"value\":true");
+
+        setState(on);
+        reply(rootTopic + "/37/0/currentValue", "{\"time\":" + now() + ",\"value\":" + on + "}");
+    }
+}
@@ -0,0 +1,141 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import org.junit.jupiter.api.Test;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DeviceSimulatorTest {
+
+    @Test
+    void latency() {
+
+        var scheduler = VirtualTimeScheduler.create();
+        var broker = new InProcessMqttBroker();
+        var profile = new SimulatorProfile(Duration.ofMillis(500), Duration.ZERO, 0, null);
+        var received = new ArrayList<MqttSignal>();
+
+        try (var simulator = new Z2MSwitchSimulator(broker, "zigbee2mqtt/switch", profile, scheduler, 0)) {
+
+            simulator.start();
+            broker.connect().getFlux("zigbee2mqtt/switch", false).subscribe(received::add);
+
+            broker.publish("zigbee2mqtt/switch/set", "{\"state\": \"ON\"}", false);
+
+            assertThat(simulator.getState()).isTrue();
+
+            scheduler.advanceTimeBy(Duration.ofMillis(499));
+            assertThat(received).isEmpty();
+
+            scheduler.advanceTimeBy(Duration.ofMillis(1));
+            assertThat(received).extracting(MqttSignal::message).containsExactly("{\"state\":\"ON\",\"linkquality\":120}");
+            assertThat(broker.getRetained("zigbee2mqtt/switch/availability")).contains("online");
+        }
+    }
+
+    @Test
+    void loss() {
+
+        var scheduler = VirtualTimeScheduler.create();
+        var broker = new InProcessMqttBroker();
+        var profile = new SimulatorProfile(Duration.ZERO, Duration.ZERO, 1, null);
+
+        try (var simulator = new ESPHomeSwitchSimulator(broker, "/esphome/board/switch/relay", "/esphome/board/status", profile, scheduler, 0)) {
+
+            simulator.start();
+
+            for (var offset = 0; offset < 10; offset++) {
+                broker.publish("/esphome/board/switch/relay/command", offset % 2 == 0 ? "ON" : "OFF", false);
+            }
+
+            assertThat(simulator.getReceived()).isEqualTo(10);
+            assertThat(simulator.getSent()).isZero();
+            assertThat(simulator.getLost()).isEqualTo(10);
+            assertThat(broker.getRetained("/esphome/board/status")).isEqualTo("online");
+        }
+    }
+
+    @Test
+    void readingRate() {
+
+        var scheduler = VirtualTimeScheduler.create();
+        var broker = new InProcessMqttBroker();
+        var profile = new SimulatorProfile(Duration.ZERO, Duration.ZERO, 0, Duration.ofSeconds(30));
+        var readings = new ArrayList<Double>();
+
+        try (var simulator = new ESPHomeSensorSimulator(broker, "/esphome/board", "temperature", 22, 0.5, profile, scheduler, 0)) {
+
+            simulator.start();
+            broker.connect()
+                    .getFlux("/esphome/board/sensor/temperature/state", false)
+                    .subscribe(m -> readings.add(Double.parseDouble(m.message())));
+
+            scheduler.advanceTimeBy(Duration.ofHours(1));
+
+            assertThat(readings)
+                    .hasSize(120)
+                    .allSatisfy(r -> assertThat(r).isBetween(21.5, 22.5));
+
+            simulator.close();
+            scheduler.advanceTimeBy(Duration.ofHours(1));
+
+            assertThat(readings).hasSize(120);
+        }
+    }
+
+    @Test
+    void zwave() {
+
+        var scheduler = VirtualTimeScheduler.create();
+        var broker = new InProcessMqttBroker();
+        var received = new ArrayList<String>();
+
+        try (var simulator = new ZWaveSwitchSimulator(broker, "zwave/office/switch", SimulatorProfile.IDEAL, scheduler, 0)) {
+
+            simulator.start();
+            broker.connect().getFlux("zwave/office/switch/37/0/currentValue", false).subscribe(m -> received.add(m.message()));
+
+            broker.publish("zwave/office/switch/37/0/targetValue/set", "{\"value\": false}", false);
+
+            assertThat(simulator.getState()).isFalse();
+            assertThat(received).singleElement().asString().contains("\"value\":false");
+        }
+    }
+
+    @Test
+    void fanSpeed() {
+
+        var scheduler = VirtualTimeScheduler.create();
+        var broker = new InProcessMqttBroker();
+        var client = broker.connect();
+        var received = new ArrayList<String>();
+
+        try (var simulator = new ESPHomeFanSimulator(broker, "/esphome/board/fan/a6", "/esphome/board/status", SimulatorProfile.IDEAL, scheduler, 0)) {
+
+            simulator.start();
+            client.getFlux("/esphome/board/fan/a6/speed_level/state", false).subscribe(m -> received.add(m.message()));
+
+            client.publish("/esphome/board/fan/a6/speed_level/command", "40", MqttQos.AT_LEAST_ONCE, false);
+            client.publish("/esphome/board/fan/a6/speed_level/command", "140", MqttQos.AT_LEAST_ONCE, false);
+
+            assertThat(simulator.getSpeed()).isEqualTo(100);
+            assertThat(received).containsExactly("40", "100");
+        }
+    }
+
+    @Test
+    void invalidProfile() {
+
+        var zero = Duration.ZERO;
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new SimulatorProfile(zero, zero, 1.5, null));
+        assertThatIllegalArgumentException().isThrownBy(() -> new SimulatorProfile(Duration.ofSeconds(-1), zero, 0, null));
+        assertThatIllegalArgumentException().isThrownBy(() -> new SimulatorProfile(zero, zero, 0, zero));
+    }
+}
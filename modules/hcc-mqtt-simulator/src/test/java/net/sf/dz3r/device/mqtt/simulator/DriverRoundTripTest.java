@@ -0,0 +1,144 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import net.sf.dz3r.device.actuator.VariableOutputDevice;
+import net.sf.dz3r.device.esphome.v1.ESPHomeListener;
+import net.sf.dz3r.device.esphome.v2.ESPHomeCqrsSwitch;
+import net.sf.dz3r.device.esphome.v2.ESPHomeFan;
+import net.sf.dz3r.device.z2m.v1.Z2MJsonListener;
+import net.sf.dz3r.device.z2m.v2.Z2MCqrsSwitch;
+import net.sf.dz3r.device.zwave.v2.ZWaveCqrsBinarySwitch;
+import net.sf.dz3r.signal.Signal;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the real drivers against the simulators - what used to require a broker and a device on the bench.
+ */
+class DriverRoundTripTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final Clock clock = Clock.systemUTC();
+    private final SimulatorProfile profile = new SimulatorProfile(Duration.ofMillis(20), Duration.ofMillis(20), 0, null);
+
+    @Test
+    void z2mSwitch() throws Exception {
+
+        var broker = new InProcessMqttBroker();
+
+        try (var simulator = new Z2MSwitchSimulator(broker, "zigbee2mqtt/sengled-01", profile, Schedulers.parallel(), 0).start();
+             var device = new Z2MCqrsSwitch("z2m", clock, null, null, broker.connect(), "zigbee2mqtt/sengled-01")) {
+
+            device.setState(true);
+
+            await(() -> Boolean.TRUE.equals(device.getState().actual));
+
+            assertThat(device.isAvailable()).isTrue();
+            assertThat(simulator.getState()).isTrue();
+        }
+    }
+
+    @Test
+    void zwaveSwitch() throws Exception {
+
+        var broker = new InProcessMqttBroker();
+
+        try (var simulator = new ZWaveSwitchSimulator(broker, "zwave/office/switch", profile, Schedulers.parallel(), 0).start();
+             var device = new ZWaveCqrsBinarySwitch("zwave", clock, null, null, broker.connect(), "zwave/office/switch")) {
+
+            device.setState(true);
+            await(() -> Boolean.TRUE.equals(device.getState().actual));
+
+            device.setState(false);
+            await(() -> Boolean.FALSE.equals(device.getState().actual));
+
+            assertThat(device.isAvailable()).isTrue();
+            assertThat(simulator.getReceived()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void esphomeSwitch() throws Exception {
+
+        var broker = new InProcessMqttBroker();
+
+        try (var simulator = new ESPHomeSwitchSimulator(broker, "/esphome/rt/switch/relay", "/esphome/rt/status", profile, Schedulers.parallel(), 0).start();
+             var device = new ESPHomeCqrsSwitch("esphome", clock, null, null, broker.connect(), "/esphome/rt/switch/relay", "/esphome/rt/status")) {
+
+            device.setState(true);
+
+            await(() -> Boolean.TRUE.equals(device.getState().actual));
+
+            assertThat(device.isAvailable()).isTrue();
+            assertThat(simulator.getState()).isTrue();
+        }
+    }
+
+    @Test
+    void esphomeFan() throws Exception {
+
+        var broker = new InProcessMqttBroker();
+
+        try (var simulator = new ESPHomeFanSimulator(broker, "/esphome/rt/fan/a6", "/esphome/rt/status", profile, Schedulers.parallel(), 0).start();
+             var device = new ESPHomeFan("fan", clock, null, null, broker.connect(), "/esphome/rt/fan/a6", "/esphome/rt/status")) {
+
+            var expected = new VariableOutputDevice.OutputState(true, 0.4);
+
+            device.setState(new VariableOutputDevice.Command(true, 0.4));
+
+            await(() -> expected.equals(device.getState().actual));
+
+            assertThat(simulator.getSpeed()).isEqualTo(40);
+        }
+    }
+
+    @Test
+    void sensors() {
+
+        var scheduler = VirtualTimeScheduler.create();
+        var broker = new InProcessMqttBroker();
+        var rate = new SimulatorProfile(Duration.ZERO, Duration.ZERO, 0, Duration.ofMinutes(1));
+
+        try (var z2m = new Z2MSensorSimulator(broker, "zigbee2mqtt", "sonoff-01", "temperature", 20, 0.1, rate, scheduler, 0).start();
+             var esphome = new ESPHomeSensorSimulator(broker, "/esphome/rt", "temperature", 25, 0.1, rate, scheduler, 0).start()) {
+
+            var z2mReadings = new Z2MJsonListener(broker.connect(), "zigbee2mqtt", "temperature")
+                    .getFlux("sonoff-01")
+                    .map(Signal::getValue)
+                    .take(60)
+                    .collectList();
+
+            var esphomeReadings = new ESPHomeListener(broker.connect(), "/esphome/rt")
+                    .getFlux("temperature")
+                    .map(Signal::getValue)
+                    .take(60)
+                    .collectList();
+
+            var z2mResult = z2mReadings.toFuture();
+            var esphomeResult = esphomeReadings.toFuture();
+
+            scheduler.advanceTimeBy(Duration.ofHours(1));
+
+            assertThat(z2mResult.join()).hasSize(60).allSatisfy(t -> assertThat(t).isBetween(19.9, 20.1));
+            assertThat(esphomeResult.join()).hasSize(60).allSatisfy(t -> assertThat(t).isBetween(24.9, 25.1));
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+
+        var deadline = System.nanoTime() + TIMEOUT.toNanos();
+
+        while (!condition.getAsBoolean()) {
+
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InProcessMqttBrokerTest {
+
+    @Test
+    void exactAndSubtree() {
+
+        var broker = new InProcessMqttBroker();
+        var client = broker.connect();
+
+        var exact = new ArrayList<MqttSignal>();
+        var subtree = new ArrayList<MqttSignal>();
+
+        var s1 = client.getFlux("/esphome/board/status", false).subscribe(exact::add);
+        var s2 = client.getFlux("/esphome", true).subscribe(subtree::add);
+
+        client.publish("/esphome/board/status", "online", MqttQos.AT_LEAST_ONCE, false);
+        client.publish("/esphome/board/sensor/t/state", "22.5", MqttQos.AT_LEAST_ONCE, false);
+        client.publish("/esphomeX/board/status", "online", MqttQos.AT_LEAST_ONCE, false);
+
+        s1.dispose();
+        s2.dispose();
+
+        assertThat(exact).containsExactly(new MqttSignal("/esphome/board/status", "online"));
+        assertThat(subtree)
+                .extracting(MqttSignal::topic)
+                .containsExactly("/esphome/board/status", "/esphome/board/sensor/t/state");
+        assertThat(broker.getPublished()).isEqualTo(3);
+    }
+
+    @Test
+    void retained() {
+
+        var broker = new InProcessMqttBroker();
+
+        broker.publish("zigbee2mqtt/switch/availability", "{\"state\":\"offline\"}", true);
+        broker.publish("zigbee2mqtt/switch/availability", "{\"state\":\"online\"}", true);
+        broker.publish("zigbee2mqtt/switch", "{\"state\":\"ON\"}", false);
+
+        List<MqttSignal> received = new ArrayList<>();
+        broker.connect().getFlux("zigbee2mqtt", true).subscribe(received::add).dispose();
+
+        // Only the last retained message survives, non-retained are gone
+        assertThat(received).containsExactly(new MqttSignal("zigbee2mqtt/switch/availability", "{\"state\":\"online\"}"));
+        assertThat(broker.getRetained("zigbee2mqtt/switch/availability")).contains("online");
+        assertThat(broker.getRetained("zigbee2mqtt/switch")).isNull();
+    }
+
+    @Test
+    void partitioned() {
+
+        var broker = new InProcessMqttBroker();
+        var received = new ArrayList<MqttSignal>();
+        var subscription = broker.connect().getFlux("hcc/standby/lease", false).subscribe(received::add);
+
+        broker.setPartitioned(true);
+        broker.publish("hcc/standby/lease", "1 a", true);
+
+        broker.setPartitioned(false);
+        broker.publish("hcc/standby/lease", "2 b", true);
+
+        subscription.dispose();
+
+        assertThat(received).containsExactly(new MqttSignal("hcc/standby/lease", "2 b"));
+        assertThat(broker.getRetained("hcc/standby/lease")).isEqualTo("2 b");
+        assertThat(broker.getPublished()).isEqualTo(1);
+    }
+}
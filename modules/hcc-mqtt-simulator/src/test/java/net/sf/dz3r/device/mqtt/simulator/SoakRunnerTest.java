@@ -0,0 +1,46 @@
+package net.sf.dz3r.device.mqtt.simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SoakRunnerTest {
+
+    @Test
+    void parse() {
+
+        var config = SoakRunner.Config.parse(new String[] {"--devices=3000", "--duration=PT4H", "--loss=0.05"});
+
+        assertThat(config.devices()).isEqualTo(3000);
+        assertThat(config.duration()).isEqualTo(Duration.ofHours(4));
+        assertThat(config.profile().loss()).isEqualTo(0.05);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> SoakRunner.Config.parse(new String[] {"--devices"}));
+        assertThatIllegalArgumentException().isThrownBy(() -> SoakRunner.Config.parse(new String[] {"--colour=blue"}));
+    }
+
+    /**
+     * Minutes instead of hours, and a dozen devices instead of thousands - just to make sure it works end to end.
+     */
+    @Test
+    void shortRun() throws Exception {
+
+        var config = new SoakRunner.Config(
+                12,
+                Duration.ofSeconds(3),
+                Duration.ofMillis(500),
+                Duration.ofSeconds(1),
+                new SimulatorProfile(Duration.ofMillis(5), Duration.ofMillis(5), 0, Duration.ofMillis(100)));
+
+        var report = new SoakRunner(config).run();
+
+        assertThat(report.commands()).isPositive();
+        assertThat(report.acknowledged()).isPositive();
+        assertThat(report.readings()).isPositive();
+        assertThat(report.p99()).isLessThan(Duration.ofSeconds(1));
+        assertThat(report.samples()).hasSizeGreaterThanOrEqualTo(3);
+    }
+}
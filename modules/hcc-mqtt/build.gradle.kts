@@ -10,7 +10,11 @@ dependencies {
     implementation(project(":modules:hcc-common"))
     implementation(project(":modules:hcc-model"))
 
+    // In-process MQTT broker; the simulator depends on this module's main classes only, so there's no cycle
+    testImplementation(project(":modules:hcc-mqtt-simulator"))
+
     testImplementation(libs.assertj.core)
     testImplementation(libs.junit5.api)
+    testImplementation(libs.reactor.test)
     testImplementation(libs.reactor.tools)
 }
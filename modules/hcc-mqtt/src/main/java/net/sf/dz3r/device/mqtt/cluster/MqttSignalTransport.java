@@ -0,0 +1,211 @@
+package net.sf.dz3r.device.mqtt.cluster;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.device.mqtt.MqttAdapter;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.cluster.NodeStatus;
+import net.sf.dz3r.signal.cluster.SignalTransport;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link SignalTransport} over an {@link MqttAdapter}.
+ *
+ * Topics used:
+ *
+ * <ul>
+ *     <li>{@code <root>/sensor/<id>} - sensor signals, not retained;</li>
+ *     <li>{@code <root>/node/<node>} - node status, retained, so that a node joining the cluster sees everybody
+ *     right away.</li>
+ * </ul>
+ *
+ * All messages are encoded with {@link SignalCodec}. Malformed messages are logged and dropped.
+ * The adapter is not closed by {@link #close()}, it belongs to whoever created it.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class MqttSignalTransport implements SignalTransport {
+
+    private final Logger logger = LogManager.getLogger();
+
+    public static final Duration DEFAULT_HEARTBEAT = Duration.ofSeconds(30);
+
+    /**
+     * Publish node status at most this often while it is changing.
+     */
+    static final Duration PACE = Duration.ofSeconds(1);
+
+    /**
+     * A node that missed this many heartbeats is considered gone.
+     */
+    static final int STALE_HEARTBEATS = 3;
+
+    private final MqttAdapter adapter;
+    private final String rootTopic;
+    private final String node;
+    private final Duration heartbeat;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    /**
+     * Create an instance.
+     *
+     * @param adapter MQTT adapter to use.
+     * @param rootTopic Cluster root topic, shared by all the nodes.
+     * @param node This node identifier. Must be a valid single MQTT topic level.
+     * @param heartbeat Node status heartbeat interval, {@link #DEFAULT_HEARTBEAT} if {@code null}.
+     */
+    public MqttSignalTransport(MqttAdapter adapter, String rootTopic, String node, Duration heartbeat) {
+
+        this.adapter = HCCObjects.requireNonNull(adapter, "adapter can't be null");
+        this.rootTopic = stripSlash(HCCObjects.requireNonNull(rootTopic, "rootTopic can't be null"));
+        this.node = checkLevel(HCCObjects.requireNonNull(node, "node can't be null"));
+        this.heartbeat = heartbeat == null ? DEFAULT_HEARTBEAT : heartbeat;
+
+        if (this.heartbeat.isZero() || this.heartbeat.isNegative()) {
+            throw new IllegalArgumentException("heartbeat must be positive: " + heartbeat);
+        }
+    }
+
+    @Override
+    public String getNode() {
+        return node;
+    }
+
+    @Override
+    public Disposable publishSensor(String id, Flux<Signal<Double, Void>> source) {
+
+        var topic = getSensorTopic(checkLevel(id));
+
+        logger.info("{}: publishing sensor {} to {}", node, id, topic);
+
+        var result = source
+                .subscribe(s -> adapter.publish(topic, SignalCodec.encode(s, SignalCodec::writeDouble), MqttQos.AT_MOST_ONCE, false));
+
+        subscriptions.add(result);
+
+        return result;
+    }
+
+    @Override
+    public Flux<Signal<Double, Void>> getSensorFlux(String id) {
+
+        var topic = getSensorTopic(checkLevel(id));
+
+        return adapter
+                .getFlux(topic, false)
+                .flatMap(m -> this.<Double, Void>decode(m.topic(), m.message(), SignalCodec::readDouble, null));
+    }
+
+    @Override
+    public Disposable publishNode(Set<String> directors, Flux<Signal<ZoneStatus, String>> zones) {
+
+        var topic = getNodeTopic(node);
+        var directorSet = new TreeSet<>(directors);
+        var current = new TreeMap<String, ZoneStatus>();
+
+        logger.info("{}: publishing node status to {} every {}", node, topic, heartbeat);
+
+        var changes = zones
+                .filter(s -> s.getValue() != null)
+                .doOnNext(s -> {
+                    synchronized (current) {
+                        current.put(s.payload, s.getValue());
+                    }
+                })
+                .sample(PACE);
+
+        var result = Flux
+                .merge(
+                        changes.map(s -> Instant.now()),
+                        Flux.interval(Duration.ZERO, heartbeat).map(tick -> Instant.now()))
+                .map(now -> {
+                    synchronized (current) {
+                        return new Signal<NodeStatus, Void>(now, new NodeStatus(node, directorSet, new TreeMap<>(current)));
+                    }
+                })
+                .subscribe(s -> adapter.publish(topic, SignalCodec.encode(s, SignalCodec::writeNode), MqttQos.AT_LEAST_ONCE, true));
+
+        subscriptions.add(result);
+
+        return result;
+    }
+
+    @Override
+    public Flux<Signal<NodeStatus, String>> getNodeFlux() {
+
+        var prefix = getNodeTopic("");
+        var staleAfter = heartbeat.multipliedBy(STALE_HEARTBEATS);
+
+        return adapter
+                .getFlux(rootTopic + "/node", true)
+                .filter(m -> m.topic().startsWith(prefix))
+                .flatMap(m -> decode(m.topic(), m.message(), SignalCodec::readNode, m.topic().substring(prefix.length())))
+                .groupBy(s -> s.payload)
+                .flatMap(group -> group.switchMap(s -> Flux.concat(
+                        Mono.just(s),
+                        Mono.delay(staleAfter).map(tick -> stale(s, staleAfter)))));
+    }
+
+    private Signal<NodeStatus, String> stale(Signal<NodeStatus, String> last, Duration staleAfter) {
+
+        logger.warn("{}: node {} missed its heartbeats for {}", node, last.payload, staleAfter);
+
+        return new Signal<>(
+                Instant.now(),
+                last.getValue(),
+                last.payload,
+                Signal.Status.FAILURE_TOTAL,
+                new TimeoutException("no heartbeat from " + last.payload + " since " + last.timestamp));
+    }
+
+    private <T, P> Mono<Signal<T, P>> decode(String topic, String message, SignalCodec.Reader<T> reader, P payload) {
+
+        try {
+            return Mono.just(SignalCodec.decode(message, reader, payload));
+        } catch (IOException ex) {
+            logger.warn("{}: malformed message on {}, dropped: {}", node, topic, ex.getMessage());
+            return Mono.empty();
+        }
+    }
+
+    private String getSensorTopic(String id) {
+        return rootTopic + "/sensor/" + id;
+    }
+
+    private String getNodeTopic(String id) {
+        return rootTopic + "/node/" + id;
+    }
+
+    private static String stripSlash(String topic) {
+        return topic.endsWith("/") ? topic.substring(0, topic.length() - 1) : topic;
+    }
+
+    private static String checkLevel(String level) {
+
+        if (level.isEmpty() || level.contains("/") || level.contains("+") || level.contains("#")) {
+            throw new IllegalArgumentException("'" + level + "' is not a valid MQTT topic level");
+        }
+
+        return level;
+    }
+
+    @Override
+    public void close() {
+        subscriptions.dispose();
+    }
+}
@@ -0,0 +1,15 @@
+package net.sf.dz3r.device.mqtt.cluster;
+
+/**
+ * Error reported by a signal that came from another cluster node.
+ *
+ * Only the message survives the trip, in the form of {@code SimpleClassName: message}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class RemoteSignalException extends RuntimeException {
+
+    public RemoteSignalException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,238 @@
+package net.sf.dz3r.device.mqtt.cluster;
+
+import net.sf.dz3r.model.ZoneSettingsCodec;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.cluster.NodeStatus;
+import net.sf.dz3r.signal.hvac.CallingStatus;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.TreeMap;
+
+/**
+ * Compact binary {@link Signal} representation for the cluster transport.
+ *
+ * The layout is: format version, status, timestamp (seconds and nanoseconds), value presence flag and the value,
+ * error presence flag and the error message. The payload is not encoded, it is carried by the MQTT topic.
+ *
+ * {@link net.sf.dz3r.device.mqtt.MqttAdapter} only carries strings, so the binary form is wrapped in unpadded Base64.
+ * A sensor reading takes 32 characters this way.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public final class SignalCodec {
+
+    /**
+     * Format version. Must be incremented every time the layout of this class, or {@link ZoneSettingsCodec}, changes.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * Remote error messages get truncated to this length.
+     */
+    static final int MAX_ERROR_LENGTH = 1024;
+
+    @FunctionalInterface
+    public interface Writer<T> {
+        void write(DataOutput out, T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    private SignalCodec() {
+        // Utility class
+    }
+
+    /**
+     * Encode the signal.
+     *
+     * @param signal Signal to encode.
+     * @param writer Value writer.
+     *
+     * @return Base64 encoded binary signal.
+     */
+    public static <T> String encode(Signal<T, ?> signal, Writer<T> writer) {
+
+        try {
+
+            var buffer = new ByteArrayOutputStream(32);
+            var out = new DataOutputStream(buffer);
+
+            out.writeByte(VERSION);
+            out.writeByte(signal.status.ordinal());
+            out.writeLong(signal.timestamp.getEpochSecond());
+            out.writeInt(signal.timestamp.getNano());
+
+            var value = signal.getValue();
+
+            out.writeBoolean(value != null);
+
+            if (value != null) {
+                writer.write(out, value);
+            }
+
+            out.writeBoolean(signal.error != null);
+
+            if (signal.error != null) {
+                out.writeUTF(describe(signal.error));
+            }
+
+            out.flush();
+
+            return Base64.getEncoder().withoutPadding().encodeToString(buffer.toByteArray());
+
+        } catch (IOException ex) {
+            // Can't happen with an in-memory stream
+            throw new UncheckedIOException("failed to encode " + signal, ex);
+        }
+    }
+
+    /**
+     * Decode the signal.
+     *
+     * @param source Source produced by {@link #encode(Signal, Writer)}.
+     * @param reader Value reader.
+     * @param payload Payload to attach to the decoded signal.
+     *
+     * @return Decoded signal. The error, if any, is a {@link RemoteSignalException} carrying the original message.
+     *
+     * @throws IOException if the source is malformed, truncated, or of a different format version.
+     */
+    public static <T, P> Signal<T, P> decode(String source, Reader<T> reader, P payload) throws IOException {
+
+        byte[] bytes;
+
+        try {
+            bytes = Base64.getDecoder().decode(source);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("not a Base64 string", ex);
+        }
+
+        var in = new DataInputStream(new ByteArrayInputStream(bytes));
+        var version = in.readByte();
+
+        if (version != VERSION) {
+            throw new IOException("unsupported format version " + version + ", expecting " + VERSION);
+        }
+
+        var statusOrdinal = in.readByte();
+        var statuses = Signal.Status.values();
+
+        if (statusOrdinal < 0 || statusOrdinal >= statuses.length) {
+            throw new IOException("invalid status " + statusOrdinal);
+        }
+
+        var timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        var value = in.readBoolean() ? reader.read(in) : null;
+        var error = in.readBoolean() ? new RemoteSignalException(in.readUTF()) : null;
+
+        try {
+            return new Signal<>(timestamp, value, payload, statuses[statusOrdinal], error);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("inconsistent signal", ex);
+        }
+    }
+
+    public static void writeDouble(DataOutput out, Double value) throws IOException {
+        out.writeDouble(value);
+    }
+
+    public static Double readDouble(DataInput in) throws IOException {
+        return in.readDouble();
+    }
+
+    public static void writeNode(DataOutput out, NodeStatus status) throws IOException {
+
+        out.writeUTF(status.node());
+        out.writeShort(status.directors().size());
+
+        for (var director : status.directors()) {
+            out.writeUTF(director);
+        }
+
+        out.writeShort(status.zones().size());
+
+        for (var kv : status.zones().entrySet()) {
+            out.writeUTF(kv.getKey());
+            writeZone(out, kv.getValue());
+        }
+    }
+
+    public static NodeStatus readNode(DataInput in) throws IOException {
+
+        var node = in.readUTF();
+        var directors = new LinkedHashSet<String>();
+
+        for (var count = in.readUnsignedShort(); count > 0; count--) {
+            directors.add(in.readUTF());
+        }
+
+        var zones = new TreeMap<String, ZoneStatus>();
+
+        for (var count = in.readUnsignedShort(); count > 0; count--) {
+            zones.put(in.readUTF(), readZone(in));
+        }
+
+        return new NodeStatus(node, directors, zones);
+    }
+
+    static void writeZone(DataOutput out, ZoneStatus status) throws IOException {
+
+        out.writeBoolean(status.settings != null);
+
+        if (status.settings != null) {
+            ZoneSettingsCodec.write(out, status.settings);
+        }
+
+        var calling = status.callingStatus;
+
+        out.writeBoolean(calling != null);
+
+        if (calling != null) {
+
+            out.writeBoolean(calling.sample != null);
+
+            if (calling.sample != null) {
+                out.writeDouble(calling.sample);
+            }
+
+            out.writeDouble(calling.demand);
+            out.writeBoolean(calling.calling);
+        }
+
+        ZoneSettingsCodec.write(out, status.periodSettings);
+    }
+
+    static ZoneStatus readZone(DataInput in) throws IOException {
+
+        var settings = in.readBoolean() ? ZoneSettingsCodec.read(in) : null;
+        CallingStatus calling = null;
+
+        if (in.readBoolean()) {
+            var sample = in.readBoolean() ? in.readDouble() : null;
+            calling = new CallingStatus(sample, in.readDouble(), in.readBoolean());
+        }
+
+        return new ZoneStatus(settings, calling, null, ZoneSettingsCodec.readPeriod(in));
+    }
+
+    private static String describe(Throwable error) {
+
+        var result = error.getClass().getSimpleName() + ": " + error.getMessage();
+
+        return result.length() > MAX_ERROR_LENGTH ? result.substring(0, MAX_ERROR_LENGTH) : result;
+    }
+}
@@ -3,6 +3,9 @@ package net.sf.dz3r.device.mqtt.v1;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import net.sf.dz3r.device.mqtt.MqttAdapter;
+import net.sf.dz3r.instrumentation.jfr.MqttMessageEvent;
+import net.sf.dz3r.instrumentation.metrics.Counter;
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
 import org.apache.logging.log4j.ThreadContext;
 
 import java.nio.charset.StandardCharsets;
@@ -25,8 +28,12 @@ public class MqttAdapterImpl extends MqttListenerImpl implements MqttAdapter {
         this(address, null, null, false);
     }
 
+    private final Counter publishedCounter;
+
     public MqttAdapterImpl(MqttEndpoint address, String username, String password, boolean autoReconnect) {
         super(address, username, password, autoReconnect);
+
+        publishedCounter = MetricsRegistry.getInstance().counter("hcc_mqtt_published", "MQTT messages published.", "endpoint", address.toString());
     }
 
     public void publish(String topic, String payload, MqttQos qos, boolean retain) {
@@ -46,6 +53,8 @@ public class MqttAdapterImpl extends MqttListenerImpl implements MqttAdapter {
                     .build();
 
             getClient().publish(message);
+            publishedCounter.increment();
+            MqttMessageEvent.record(MqttMessageEvent.PUBLISH, getAddress(), topic, payload == null ? 0 : payload.length());
 
         } finally {
             ThreadContext.pop();
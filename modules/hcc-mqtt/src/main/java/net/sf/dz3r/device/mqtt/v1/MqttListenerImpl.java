@@ -5,6 +5,9 @@ import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import com.hivemq.client.mqtt.mqtt3.exceptions.Mqtt3ConnAckException;
 import net.sf.dz3r.device.mqtt.MqttListener;
+import net.sf.dz3r.instrumentation.jfr.MqttMessageEvent;
+import net.sf.dz3r.instrumentation.metrics.Counter;
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
@@ -58,6 +61,8 @@ public class MqttListenerImpl implements MqttListener {
 
     private final Map<String, Flux<MqttSignal>> topic2flux = new TreeMap<>();
 
+    protected final Counter receivedCounter;
+
     /**
      * Create an unauthenticated instance that will NOT automatically reconnect.
      *
@@ -74,6 +79,8 @@ public class MqttListenerImpl implements MqttListener {
         this.password = password;
         this.autoReconnect = autoReconnect;
 
+        this.receivedCounter = MetricsRegistry.getInstance().counter("hcc_mqtt_received", "MQTT messages received.", "endpoint", address.toString());
+
         logger.info("created endpoint={}, autoReconnect={}", address, autoReconnect);
     }
 
@@ -225,6 +232,8 @@ public class MqttListenerImpl implements MqttListener {
             logger.debug("New receiver, topic={}", topic);
             register(topic, (mqttTopic, payload) -> {
                 logger.trace("receive: {} {}", mqttTopic, payload);
+                receivedCounter.increment();
+                MqttMessageEvent.record(MqttMessageEvent.RECEIVE, getAddress(), mqttTopic.toString(), payload.length());
                 sink.next(new MqttSignal(mqttTopic.toString(), payload));
             });
         });
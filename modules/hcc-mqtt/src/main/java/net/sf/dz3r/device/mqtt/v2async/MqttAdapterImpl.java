@@ -4,6 +4,9 @@ import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import net.sf.dz3r.device.mqtt.MqttAdapter;
 import net.sf.dz3r.device.mqtt.v1.MqttEndpoint;
+import net.sf.dz3r.instrumentation.jfr.MqttMessageEvent;
+import net.sf.dz3r.instrumentation.metrics.Counter;
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
@@ -18,16 +21,21 @@ import java.time.Duration;
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2023
  */
 public class MqttAdapterImpl extends MqttListenerImpl implements MqttAdapter {
+
+    private final Counter publishedCounter;
+
     public MqttAdapterImpl(MqttEndpoint address) {
-        super(address);
+        this(address, null, null, false, DEFAULT_CACHE_AGE);
     }
 
     public MqttAdapterImpl(MqttEndpoint address, String username, String password, boolean autoReconnect) {
-        super(address, username, password, autoReconnect, DEFAULT_CACHE_AGE);
+        this(address, username, password, autoReconnect, DEFAULT_CACHE_AGE);
     }
 
     public MqttAdapterImpl(MqttEndpoint address, String username, String password, boolean autoReconnect, Duration cacheFor) {
         super(address, username, password, autoReconnect, cacheFor);
+
+        publishedCounter = MetricsRegistry.getInstance().counter("hcc_mqtt_published", "MQTT messages published.", "endpoint", address.toString());
     }
 
     @Override
@@ -48,6 +56,9 @@ public class MqttAdapterImpl extends MqttListenerImpl implements MqttAdapter {
                 .publishOn(Schedulers.boundedElastic())
                 .flatMap(ignored -> getClient())
                 .map(client -> client.publish(message))
-                .subscribe();
+                .subscribe(ignored -> {
+                    publishedCounter.increment();
+                    MqttMessageEvent.record(MqttMessageEvent.PUBLISH, getAddress(), topic, payload == null ? 0 : payload.length());
+                });
     }
 }
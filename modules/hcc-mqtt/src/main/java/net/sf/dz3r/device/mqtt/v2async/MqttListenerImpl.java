@@ -5,9 +5,14 @@ import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.client.mqtt.mqtt5.message.subscribe.suback.Mqtt5SubAck;
+import net.sf.dz3r.common.BoundedSink;
+import net.sf.dz3r.common.SinkFactory;
 import net.sf.dz3r.device.mqtt.v1.MqttEndpoint;
 import net.sf.dz3r.device.mqtt.v1.MqttSignal;
 import net.sf.dz3r.device.mqtt.v2.AbstractMqttListener;
+import net.sf.dz3r.instrumentation.jfr.MqttMessageEvent;
+import net.sf.dz3r.instrumentation.metrics.Counter;
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
 import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -40,12 +45,16 @@ public class MqttListenerImpl extends AbstractMqttListener {
 
     private final Map<String, Flux<MqttSignal>> topic2flux = new TreeMap<>();
 
+    private final Counter receivedCounter;
+
     public MqttListenerImpl(MqttEndpoint address) {
         this(address, null, null, false, DEFAULT_CACHE_AGE);
     }
 
     public MqttListenerImpl(MqttEndpoint address, String username, String password, boolean autoReconnect, Duration cacheFor) {
         super(address, username, password, autoReconnect, cacheFor);
+
+        receivedCounter = MetricsRegistry.getInstance().counter("hcc_mqtt_received", "MQTT messages received.", "endpoint", address.toString());
     }
 
     @Override
@@ -76,12 +85,9 @@ public class MqttListenerImpl extends AbstractMqttListener {
         var start = Instant.now();
         var topicFilter = topic + (includeSubtopics ? "/#" : "");
 
-        Sinks.Many<MqttSignal> topicSink = Sinks.many().multicast().onBackpressureBuffer();
-
-        // https://github.com/home-climate-control/dz/issues/296
-        // Caching *everything* is a bit wasteful; let's see how wasteful it is and see if a homegrown solution is needed
+        BoundedSink<MqttSignal> topicSink = SinkFactory.getInstance().multicast(SinkFactory.Category.INPUT, "(mqtt) " + getAddress() + " " + topicFilter);
 
-        var topicFlux = topicSink.asFlux().cache(cacheFor);
+        var topicFlux = replay(topicSink.asFlux());
 
         var ackFuture = client
                 .subscribeWith()
@@ -110,12 +116,32 @@ public class MqttListenerImpl extends AbstractMqttListener {
         return topicFlux;
     }
 
-    private void callback(Sinks.Many<MqttSignal> sink, Mqtt5Publish message) {
+    /**
+     * Make the topic flux replay recent messages to late subscribers.
+     *
+     * This flux lives as long as the process does, so whatever it holds must be bounded by {@link #cacheFor},
+     * not by the uptime.
+     *
+     * @param source Topic flux.
+     *
+     * @return Source flux replaying messages not older than {@link #cacheFor}.
+     */
+    Flux<MqttSignal> replay(Flux<MqttSignal> source) {
+
+        // https://github.com/home-climate-control/dz/issues/296
+        // Caching *everything* is a bit wasteful; let's see how wasteful it is and see if a homegrown solution is needed
+
+        return source.cache(cacheFor);
+    }
+
+    private void callback(BoundedSink<MqttSignal> sink, Mqtt5Publish message) {
 
         var topic = message.getTopic().toString();
         var payload = new String(message.getPayloadAsBytes());
 
         logger.trace("{}: receive: {} {}", getAddress(), message, payload);
+        receivedCounter.increment();
+        MqttMessageEvent.record(MqttMessageEvent.RECEIVE, getAddress(), topic, payload.length());
         sink.tryEmitNext(new MqttSignal(topic, payload));
     }
 
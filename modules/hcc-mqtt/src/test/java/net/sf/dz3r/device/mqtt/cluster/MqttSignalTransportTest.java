@@ -0,0 +1,142 @@
+package net.sf.dz3r.device.mqtt.cluster;
+
+import net.sf.dz3r.device.mqtt.simulator.InProcessMqttBroker;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.CallingStatus;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MqttSignalTransportTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final InProcessMqttBroker broker = new InProcessMqttBroker();
+
+    @Test
+    void sensor() {
+
+        try (var a = new MqttSignalTransport(broker.connect(), "hcc/cluster", "a", null);
+             var b = new MqttSignalTransport(broker.connect(), "hcc/cluster", "b", null)) {
+
+            List<Signal<Double, Void>> received = Collections.synchronizedList(new ArrayList<>());
+            b.getSensorFlux("s1").subscribe(received::add);
+
+            // Sensor that's not being asked for must not show up
+            a.publishSensor("s2", Flux.just(new Signal<>(Instant.now(), 30.0)));
+
+            a.publishSensor("s1", Flux.just(
+                    new Signal<>(Instant.now(), 20.0),
+                    new Signal<>(Instant.now(), null, null, Signal.Status.FAILURE_TOTAL, new IllegalStateException("gone")),
+                    new Signal<>(Instant.now(), 21.0)));
+
+            assertThat(received).hasSize(3);
+            assertThat(received.get(0).getValue()).isEqualTo(20.0);
+            assertThat(received.get(1).isError()).isTrue();
+            assertThat(received.get(2).getValue()).isEqualTo(21.0);
+        }
+    }
+
+    @Test
+    void malformedDropped() {
+
+        try (var b = new MqttSignalTransport(broker.connect(), "hcc/cluster", "b", null)) {
+
+            List<Signal<Double, Void>> received = Collections.synchronizedList(new ArrayList<>());
+            b.getSensorFlux("s1").subscribe(received::add);
+
+            broker.publish("hcc/cluster/sensor/s1", "garbage", false);
+            broker.publish("hcc/cluster/sensor/s1", SignalCodec.encode(new Signal<Double, Void>(Instant.now(), 20.0), SignalCodec::writeDouble), false);
+
+            assertThat(received).hasSize(1);
+            assertThat(received.get(0).getValue()).isEqualTo(20.0);
+        }
+    }
+
+    @Test
+    void nodes() {
+
+        try (var a = new MqttSignalTransport(broker.connect(), "hcc/cluster/", "a", null);
+             var b = new MqttSignalTransport(broker.connect(), "hcc/cluster", "b", null)) {
+
+            Sinks.Many<Signal<ZoneStatus, String>> zones = Sinks.many().multicast().onBackpressureBuffer();
+
+            a.publishNode(Set.of("d1"), zones.asFlux());
+            b.publishNode(Set.of("d2"), Flux.never());
+
+            // Retained, so it doesn't matter that the heartbeat went out before anybody was listening
+            var first = b.getNodeFlux()
+                    .filter(s -> "a".equals(s.payload))
+                    .blockFirst(TIMEOUT);
+
+            assertThat(first).isNotNull();
+            assertThat(first.getValue().directors()).containsExactly("d1");
+            assertThat(first.getValue().zones()).isEmpty();
+
+            zones.tryEmitNext(new Signal<>(
+                    Instant.now(),
+                    new ZoneStatus(new ZoneSettings(22.0), new CallingStatus(23.0, 1.0, true), null, null),
+                    "bedroom"));
+
+            var updated = b.getNodeFlux()
+                    .filter(s -> "a".equals(s.payload))
+                    .filter(s -> s.getValue().zones().containsKey("bedroom"))
+                    .blockFirst(TIMEOUT);
+
+            assertThat(updated).isNotNull();
+            assertThat(updated.getValue().zones().get("bedroom").callingStatus.calling).isTrue();
+
+            // Nodes see themselves, too
+            var self = a.getNodeFlux()
+                    .filter(s -> "a".equals(s.payload))
+                    .blockFirst(TIMEOUT);
+
+            assertThat(self).isNotNull();
+        }
+    }
+
+    @Test
+    void stale() {
+
+        var heartbeat = Duration.ofMillis(100);
+
+        try (var a = new MqttSignalTransport(broker.connect(), "hcc/cluster", "a", heartbeat);
+             var b = new MqttSignalTransport(broker.connect(), "hcc/cluster", "b", heartbeat)) {
+
+            var publisher = a.publishNode(Set.of("d1"), Flux.never());
+
+            b.getNodeFlux().filter(s -> "a".equals(s.payload)).blockFirst(TIMEOUT);
+            publisher.dispose();
+
+            var gone = b.getNodeFlux()
+                    .filter(s -> "a".equals(s.payload))
+                    .filter(Signal::isError)
+                    .blockFirst(TIMEOUT);
+
+            assertThat(gone).isNotNull();
+            assertThat(gone.getValue().directors()).containsExactly("d1");
+        }
+    }
+
+    @Test
+    void invalidNode() {
+
+        var adapter = broker.connect();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new MqttSignalTransport(adapter, "hcc/cluster", "a/b", null));
+        assertThatIllegalArgumentException().isThrownBy(() -> new MqttSignalTransport(adapter, "hcc/cluster", "#", null));
+        assertThatIllegalArgumentException().isThrownBy(() -> new MqttSignalTransport(adapter, "hcc/cluster", "a", Duration.ZERO));
+    }
+}
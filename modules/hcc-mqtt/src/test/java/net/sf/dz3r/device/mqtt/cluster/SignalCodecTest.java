@@ -0,0 +1,111 @@
+package net.sf.dz3r.device.mqtt.cluster;
+
+import net.sf.dz3r.model.PeriodSettings;
+import net.sf.dz3r.model.SchedulePeriod;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.cluster.NodeStatus;
+import net.sf.dz3r.signal.hvac.CallingStatus;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class SignalCodecTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:34:56.789012345Z");
+
+    @Test
+    void sensor() throws IOException {
+
+        var encoded = SignalCodec.encode(new Signal<Double, Void>(NOW, 21.5), SignalCodec::writeDouble);
+        var decoded = SignalCodec.<Double, String>decode(encoded, SignalCodec::readDouble, "s1");
+
+        assertThat(encoded).hasSize(32);
+        assertThat(decoded.timestamp).isEqualTo(NOW);
+        assertThat(decoded.getValue()).isEqualTo(21.5);
+        assertThat(decoded.payload).isEqualTo("s1");
+        assertThat(decoded.isOK()).isTrue();
+    }
+
+    @Test
+    void error() throws IOException {
+
+        var source = new Signal<Double, Void>(NOW, null, null, Signal.Status.FAILURE_TOTAL, new IllegalStateException("sensor gone"));
+        var decoded = SignalCodec.<Double, Void>decode(SignalCodec.encode(source, SignalCodec::writeDouble), SignalCodec::readDouble, null);
+
+        assertThat(decoded.isError()).isTrue();
+        assertThat(decoded.getValue()).isNull();
+        assertThat(decoded.error)
+                .isInstanceOf(RemoteSignalException.class)
+                .hasMessage("IllegalStateException: sensor gone");
+    }
+
+    @Test
+    void node() throws IOException {
+
+        var period = new SchedulePeriod("p1", "night", LocalTime.of(22, 0), LocalTime.of(6, 0), (byte) 0x7F);
+        var zone = new ZoneStatus(
+                new ZoneSettings(true, 24.0, true, false, 2, null),
+                new CallingStatus(25.1, 1.1, true),
+                null,
+                new PeriodSettings(period, new ZoneSettings(23.0)));
+        var idle = new ZoneStatus(new ZoneSettings(20.0), new CallingStatus(null, 0, false), null, null);
+
+        var source = new Signal<NodeStatus, Void>(NOW, new NodeStatus("a", Set.of("d1"), Map.of("bedroom", zone, "garage", idle)));
+        var decoded = SignalCodec.<NodeStatus, String>decode(SignalCodec.encode(source, SignalCodec::writeNode), SignalCodec::readNode, "a").getValue();
+
+        assertThat(decoded.node()).isEqualTo("a");
+        assertThat(decoded.directors()).containsExactly("d1");
+        assertThat(decoded.zones()).containsOnlyKeys("bedroom", "garage");
+
+        var bedroom = decoded.zones().get("bedroom");
+
+        assertThat(bedroom.settings).isEqualTo(zone.settings);
+        assertThat(bedroom.callingStatus.sample).isEqualTo(25.1);
+        assertThat(bedroom.callingStatus.demand).isEqualTo(1.1);
+        assertThat(bedroom.callingStatus.calling).isTrue();
+        assertThat(bedroom.periodSettings.period()).isEqualTo(period);
+        assertThat(bedroom.periodSettings.settings()).isEqualTo(new ZoneSettings(23.0));
+
+        var garage = decoded.zones().get("garage");
+
+        assertThat(garage.callingStatus.sample).isNull();
+        assertThat(garage.periodSettings).isNull();
+    }
+
+    @Test
+    void wrongVersion() {
+
+        var encoded = SignalCodec.encode(new Signal<Double, Void>(NOW, 21.5), SignalCodec::writeDouble);
+        var bytes = Base64.getDecoder().decode(encoded);
+
+        bytes[0] = SignalCodec.VERSION + 1;
+
+        var tampered = Base64.getEncoder().encodeToString(bytes);
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> SignalCodec.decode(tampered, SignalCodec::readDouble, null))
+                .withMessageContaining("unsupported format version");
+    }
+
+    @Test
+    void malformed() {
+
+        var encoded = SignalCodec.encode(new Signal<Double, Void>(NOW, 21.5), SignalCodec::writeDouble);
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> SignalCodec.decode(encoded.substring(0, 16), SignalCodec::readDouble, null));
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> SignalCodec.decode("not base64!", SignalCodec::readDouble, null));
+    }
+}
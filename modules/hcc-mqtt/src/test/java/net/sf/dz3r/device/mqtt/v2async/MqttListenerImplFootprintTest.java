@@ -0,0 +1,104 @@
+package net.sf.dz3r.device.mqtt.v2async;
+
+import net.sf.dz3r.device.mqtt.v1.MqttEndpoint;
+import net.sf.dz3r.device.mqtt.v1.MqttSignal;
+import net.sf.dz3r.instrumentation.Footprint;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Makes sure the topic flux cache doesn't grow with uptime.
+ *
+ * The listener keeps one cached flux per topic for as long as the process runs, a week on virtual time here.
+ * This only exercises Reactor's {@link reactor.core.publisher.Flux#cache(Duration)} through the
+ * {@link MqttListenerImpl#replay(reactor.core.publisher.Flux)} hook - there is no broker, no client, and no callback
+ * here, those are not covered.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@Tag("footprint")
+class MqttListenerImplFootprintTest {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private static final Duration CACHE_FOR = Duration.ofSeconds(30);
+    private static final Duration MESSAGE_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * About the size of a zigbee2mqtt sensor message.
+     */
+    private static final String PAYLOAD = "{\"battery\":100,\"humidity\":41.2,\"linkquality\":120,\"temperature\":21.35,\"voltage\":3000}";
+
+    /**
+     * Heap the cache may retain over six days after the first one.
+     *
+     * Six days at a message a second is 518,400 messages. Each one is an {@link MqttSignal}, a fresh topic string,
+     * and a cache node, roughly 120 bytes together (estimated, not measured), so caching everything would retain
+     * about 60M, several times over this.
+     *
+     * Baseline: not measured yet. Should be the growth {@link #cacheIsBoundedByAge()} logs, plus 2M for
+     * the collector's noise.
+     */
+    private static final long HEAP_BUDGET = 8L * 1024 * 1024;
+
+    @AfterEach
+    void reset() {
+        VirtualTimeScheduler.reset();
+    }
+
+    @Test
+    void cacheIsBoundedByAge() {
+
+        var vts = VirtualTimeScheduler.getOrSet();
+        var listener = new MqttListenerImpl(new MqttEndpoint("localhost"), null, null, false, CACHE_FOR);
+        var sink = Sinks.many().multicast().<MqttSignal>directBestEffort();
+        var replay = listener.replay(sink.asFlux());
+        var received = new AtomicLong();
+        var subscription = replay.subscribe(ignored -> received.incrementAndGet());
+
+        try {
+
+            var day = Duration.ofDays(1).dividedBy(MESSAGE_INTERVAL);
+
+            emit(sink, vts, day);
+
+            var before = Footprint.getRetainedHeap();
+
+            emit(sink, vts, day * 6);
+
+            var after = Footprint.getRetainedHeap();
+
+            logger.info("retained heap: {} => {}", before, after);
+
+            // Late subscriber gets the replay right away
+            var late = new ArrayList<MqttSignal>();
+            replay.subscribe(late::add).dispose();
+
+            assertThat(received.get()).isEqualTo(day * 7);
+            assertThat(late).hasSizeLessThanOrEqualTo((int) CACHE_FOR.dividedBy(MESSAGE_INTERVAL) + 1);
+            assertThat(after - before).as("heap growth").isLessThanOrEqualTo(HEAP_BUDGET);
+
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    private static void emit(Sinks.Many<MqttSignal> sink, VirtualTimeScheduler vts, long count) {
+
+        for (var offset = 0L; offset < count; offset++) {
+            sink.tryEmitNext(new MqttSignal("zigbee2mqtt/sensor-" + (offset % 10), PAYLOAD));
+            vts.advanceTimeBy(MESSAGE_INTERVAL);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package net.sf.dz3r.scheduler.gcal.v3;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import net.sf.dz3r.model.SchedulePeriod;
+import net.sf.dz3r.model.ZoneSettings;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Local copy of one schedule calendar's events, kept up to date incrementally.
+ *
+ * Events are parsed once, and only parsed again if they have changed, or the date has changed
+ * (parsed {@link SchedulePeriod}s are only valid for the day they were parsed on).
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+class CalendarEventCache {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * Calendar name (summary).
+     */
+    public final String name;
+
+    private final Map<String, Event> id2event = new TreeMap<>();
+    private final Map<String, Optional<Map.Entry<SchedulePeriod, ZoneSettings>>> id2parsed = new TreeMap<>();
+
+    /**
+     * Calendar last modification time as reported by the server at the last sync. {@code null} if there was none.
+     */
+    private DateTime updated;
+
+    /**
+     * When the last full sync happened. {@code null} if there was none.
+     */
+    private Instant fullSyncAt;
+
+    /**
+     * The date the last full sync happened for. The event window moves with the date, so a full sync is necessary when it changes.
+     */
+    private LocalDate fullSyncFor;
+
+    /**
+     * The date {@link #id2parsed} is valid for.
+     */
+    private LocalDate parsedFor;
+
+    /**
+     * {@code true} if there were changes since the last {@link #toSnapshot()}.
+     */
+    private boolean dirty = false;
+
+    CalendarEventCache(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Restore the cache from a snapshot.
+     *
+     * @param source Snapshot to restore from.
+     * @param created Snapshot creation time.
+     */
+    CalendarEventCache(ScheduleSnapshot.CalendarSnapshot source, Instant created) {
+
+        this(source.name);
+
+        Optional.ofNullable(source.items).ifPresent(items -> items.forEach(e -> id2event.put(e.getId(), e)));
+
+        updated = source.updated;
+        fullSyncFor = Optional.ofNullable(source.fullSyncFor).map(LocalDate::parse).orElse(null);
+        fullSyncAt = fullSyncFor == null ? null : created;
+    }
+
+    /**
+     * Find out whether the incremental sync is not enough.
+     *
+     * @param today Today's date.
+     * @param now Current time.
+     * @param fullSyncInterval Maximum time between full syncs.
+     *
+     * @return {@code true} if a full sync is required.
+     */
+    synchronized boolean needsFullSync(LocalDate today, Instant now, Duration fullSyncInterval) {
+        return updated == null
+                || fullSyncAt == null
+                || !today.equals(fullSyncFor)
+                || Duration.between(fullSyncAt, now).compareTo(fullSyncInterval) > 0;
+    }
+
+    /**
+     * @return Calendar last modification time as of the last sync, to be used as the lower bound for the incremental sync.
+     */
+    synchronized DateTime getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Replace the cache content with the result of a full sync.
+     *
+     * @param events All events in the window.
+     * @param updated Calendar last modification time reported by the server.
+     * @param today Today's date.
+     * @param now Current time.
+     */
+    synchronized void replace(Collection<Event> events, DateTime updated, LocalDate today, Instant now) {
+
+        var changed = new TreeMap<String, Event>();
+
+        events.forEach(e -> changed.put(e.getId(), e));
+
+        // Unchanged events don't need to be parsed again
+        id2parsed.keySet().removeIf(id -> !same(id2event.get(id), changed.get(id)));
+
+        dirty |= !id2event.equals(changed);
+
+        id2event.clear();
+        id2event.putAll(changed);
+
+        this.updated = updated;
+        this.fullSyncAt = now;
+        this.fullSyncFor = today;
+
+        logger.debug("{}: full sync, {} events", name, id2event.size());
+    }
+
+    /**
+     * Merge the result of an incremental sync into the cache.
+     *
+     * @param events Events changed since {@link #getUpdated()}. Cancelled events are removed from the cache.
+     * @param updated Calendar last modification time reported by the server.
+     *
+     * @return Number of events changed.
+     */
+    synchronized int merge(Collection<Event> events, DateTime updated) {
+
+        var changed = 0;
+
+        for (var e : events) {
+
+            var id = e.getId();
+
+            if ("cancelled".equals(e.getStatus())) {
+
+                if (id2event.remove(id) != null) {
+                    changed++;
+                }
+
+            } else if (!same(id2event.put(id, e), e)) {
+                changed++;
+            } else {
+                continue;
+            }
+
+            id2parsed.remove(id);
+        }
+
+        this.updated = updated;
+        dirty |= changed > 0;
+
+        logger.debug("{}: incremental sync, {} of {} events changed", name, changed, events.size());
+
+        return changed;
+    }
+
+    /**
+     * Get the schedule, parsing only events that haven't been parsed for today yet.
+     *
+     * @param today Today's date.
+     * @param parser Event parser.
+     *
+     * @return Schedule.
+     */
+    synchronized SortedMap<SchedulePeriod, ZoneSettings> getSchedule(LocalDate today, Function<Event, Optional<Map.Entry<SchedulePeriod, ZoneSettings>>> parser) {
+
+        if (!today.equals(parsedFor)) {
+            id2parsed.clear();
+            parsedFor = today;
+        }
+
+        var schedule = new TreeMap<SchedulePeriod, ZoneSettings>();
+
+        for (var kv : id2event.entrySet()) {
+            id2parsed
+                    .computeIfAbsent(kv.getKey(), id -> parser.apply(kv.getValue()))
+                    .ifPresent(p -> schedule.put(p.getKey(), p.getValue()));
+        }
+
+        return schedule;
+    }
+
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    synchronized ScheduleSnapshot.CalendarSnapshot toSnapshot() {
+
+        var result = new ScheduleSnapshot.CalendarSnapshot();
+
+        result.name = name;
+        result.updated = updated;
+        result.fullSyncFor = Optional.ofNullable(fullSyncFor).map(LocalDate::toString).orElse(null);
+        result.items = new ArrayList<>(id2event.values());
+
+        dirty = false;
+
+        return result;
+    }
+
+    /**
+     * Events with the same ID and same {@link Event#getEtag() ETag} are considered the same.
+     */
+    private static boolean same(Event a, Event b) {
+
+        if (a == null || b == null) {
+            return a == b;
+        }
+
+        return a.getEtag() != null ? a.getEtag().equals(b.getEtag()) : a.equals(b);
+    }
+}
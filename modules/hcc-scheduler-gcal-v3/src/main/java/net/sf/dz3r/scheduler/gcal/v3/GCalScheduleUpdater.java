@@ -16,6 +16,7 @@ import com.google.api.services.calendar.CalendarScopes;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
 import net.sf.dz3r.instrumentation.Marker;
 import net.sf.dz3r.model.SchedulePeriod;
 import net.sf.dz3r.model.ZoneSettings;
@@ -32,7 +33,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
@@ -41,18 +47,26 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoUnit;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.TimeZone;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Google Calendar Schedule updater using <a href="https://github.com/googleapis/google-api-java-client-services/tree/main/clients/google-api-services-calendar/v3/2.0.0">v3-rev20240111-2.0.0</a> client library.
  *
+ * Events are synchronized incrementally (only events modified since the last sync are retrieved and parsed), with
+ * a full sync {@link #FULL_SYNC_INTERVAL every now and then} and when the date changes. The schedule is saved to
+ * a local snapshot, and the snapshot is served at startup before the first sync completes.
+ *
+ * Sync tokens are not used because they can't be combined with the time window the recurring events are unrolled in.
+ *
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
  */
 public class GCalScheduleUpdater implements ScheduleUpdater {
@@ -62,19 +76,43 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
     private static final String LITERAL_APP_NAME = "Home Climate Control-DZ-3.5";
     private static final String STORED_CREDENTIALS = ".dz/calendar";
     private static final String CLIENT_SECRETS = "/client_secrets.json";
+    private static final String SCHEDULE_SNAPSHOT = ".dz/calendar-snapshot.json";
 
     public static final Duration DEFAULT_POLL_INTERVAL = Duration.of(1, ChronoUnit.MINUTES);
 
+    /**
+     * Maximum time between full syncs, and between calendar list refreshes.
+     */
+    public static final Duration FULL_SYNC_INTERVAL = Duration.of(1, ChronoUnit.HOURS);
+
     private static final DateTimeFormatter RFC3339DateTimeFormatter = new DateTimeFormatterBuilder()
             .appendPattern("yyyy-MM-dd'T'HH:mm:ssZZZZZ")
             .toFormatter();
     private static final SchedulePeriodFactory schedulePeriodFactory = new SchedulePeriodFactory();
     private static final SettingsParser settingsParser = new SettingsParser();
 
-    private final Map<String, String> name2calendar;
+    /**
+     * Zone name to calendar name mapping. Replaced as a whole by {@link #setMapping(Map)}, never modified.
+     */
+    private volatile Map<String, String> name2calendar;
     private final Duration pollInterval;
     private final ZoneId timeZoneId;
 
+    /**
+     * Where to keep the schedule snapshot. {@code null} means no snapshot.
+     */
+    private final Path snapshotPath;
+    private final Callable<Calendar> clientFactory;
+
+    private Calendar calendarClient;
+    private List<CalendarListEntry> calendarList;
+    private Instant calendarListFetchedAt;
+
+    /**
+     * Mapping from the calendar name to its cache.
+     */
+    private final Map<String, CalendarEventCache> name2cache = new ConcurrentSkipListMap<>();
+
     private Flux<Map.Entry<String, SortedMap<SchedulePeriod, ZoneSettings>>> updateFlux = null;
 
     /**
@@ -93,11 +131,41 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
      * @param pollInterval Schedule source poll interval.
      */
     public GCalScheduleUpdater(Map<String, String> name2calendar, Duration pollInterval) {
+        this(name2calendar, pollInterval, Path.of(System.getProperty("user.home"), SCHEDULE_SNAPSHOT), null);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name2calendar The key is the zone name, the value is the calendar name for this zone's schedule.
+     * @param pollInterval Schedule source poll interval.
+     * @param snapshotPath Schedule snapshot location. {@code null} means no snapshot will be used.
+     * @param clientFactory Calendar client factory. {@code null} means default (OAuth authorized) client.
+     */
+    GCalScheduleUpdater(Map<String, String> name2calendar, Duration pollInterval, Path snapshotPath, Callable<Calendar> clientFactory) {
         this.name2calendar = name2calendar;
         this.pollInterval = Optional.ofNullable(pollInterval).orElse(DEFAULT_POLL_INTERVAL);
+        this.snapshotPath = snapshotPath;
+        this.clientFactory = Optional.ofNullable(clientFactory).orElse(this::createClient);
         timeZoneId = TimeZone.getDefault().toZoneId();
     }
 
+    /**
+     * Change the zone to calendar mapping on the fly. Takes effect on the next poll.
+     *
+     * Zones are not created or removed here, only the zones the consumers already know about can be mapped.
+     *
+     * @param name2calendar The key is the zone name, the value is the calendar name for this zone's schedule.
+     */
+    public void setMapping(Map<String, String> name2calendar) {
+
+        this.name2calendar = Map.copyOf(name2calendar);
+
+        logger.info("{} zone[s] now considered for scheduling:", name2calendar.size());
+        Flux.fromIterable(name2calendar.entrySet())
+                .subscribe(kv -> logger.info("  name={}, calendar={}", kv.getKey(), kv.getValue()));
+    }
+
     @Override
     public synchronized Flux<Map.Entry<String, SortedMap<SchedulePeriod, ZoneSettings>>> update() {
 
@@ -119,10 +187,29 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
 
         logger.info("Starting updates every {}", pollInterval);
 
-        updateFlux = Flux
+        // Whatever was known before the shutdown is served first, so the schedule doesn't depend on network latency
+        var restored = Flux
+                .defer(this::loadSnapshot)
+                .map(this::convertEvents)
+                .flatMap(this::convertZoneName);
+
+        var polled = Flux
                 .interval(Duration.ZERO, pollInterval, Schedulers.newSingle("schedule-interval-" + pollInterval))
+                .onBackpressureDrop(v -> logger.warn("poll #{} skipped, previous one still running", v))
                 .doOnNext(v -> logger.debug("heartbeat: {}", v))
-                .map(this::getCalendars)
+                .concatMap(this::poll);
+
+        updateFlux = Flux
+                .concat(restored, polled)
+                .publish()
+                .autoConnect();
+
+        return updateFlux;
+    }
+
+    private Flux<Map.Entry<String, SortedMap<SchedulePeriod, ZoneSettings>>> poll(Long ignore) {
+
+        return getCalendars()
                 .flatMap(this::filterCalendars)
 
                 // There will be very likely many zones which means there will be redundant I/O latency,
@@ -131,52 +218,69 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
 
                 .parallel()
                 .runOn(Schedulers.boundedElastic())
-                .flatMap(this::getEvents)
+                .flatMap(this::syncEvents)
 
                 // This is still computationally expensive, but with a different breakdown; regroup (inside)
                 .sequential()
                 .map(this::convertEvents)
-                .flatMap(this::convertZoneName)
-                .publish()
-                .autoConnect();
-
-        return updateFlux;
+                .flatMap(this::convertZoneName);
     }
 
-    private Map.Entry<Calendar, List<CalendarListEntry>> getCalendars(Long ignore) {
+    /**
+     * Get the calendar list, reusing the client and the list unless they are stale or broken.
+     */
+    private synchronized Flux<Map.Entry<Calendar, List<CalendarListEntry>>> getCalendars() {
 
         try {
-            HttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            JsonFactory jsonFactory = JacksonFactory.getDefaultInstance();
-            FileDataStoreFactory dataStoreFactory = new FileDataStoreFactory(new File(System.getProperty("user.home"), STORED_CREDENTIALS));
 
-            Credential credential = authorize(httpTransport, jsonFactory, dataStoreFactory);
+            if (calendarClient == null) {
+                calendarClient = clientFactory.call();
+                calendarList = null;
+            }
 
-            // VT: NOTE: There's no need for us to do this more often than we really need.
-            // I'd assume that once a year would be just fine. Maybe a bit too often, but come on, let's be realistic,
-            // users need some extra fun.
-            credential.setExpiresInSeconds(60L * 60L * 24L * 365L);
+            if (calendarList == null || Duration.between(calendarListFetchedAt, Instant.now()).compareTo(FULL_SYNC_INTERVAL) > 0) {
 
-            var calendarClient = new Calendar.Builder(httpTransport, jsonFactory, credential)
-                    .setApplicationName(LITERAL_APP_NAME)
-                    .build();
+                calendarList = calendarClient
+                        .calendarList()
+                        .list()
+                        .execute()
+                        .getItems();
+                calendarListFetchedAt = Instant.now();
 
-            var list = calendarClient
-                    .calendarList()
-                    .list()
-                    .execute()
-                    .getItems();
+                logger.debug("Calendar list: {} items", calendarList.size());
+            }
 
-            logger.debug("Calendar list: {} items", list.size());
-            return new AbstractMap.SimpleEntry<>(calendarClient, list);
+            return Flux.just(new AbstractMap.SimpleEntry<>(calendarClient, calendarList));
 
         } catch (Throwable t) {// NOSONAR Consequences have been considered
 
-            logger.error("getClient() failed, returning empty list", t);
-            return new AbstractMap.SimpleEntry<>(null, List.of());
+            logger.error("getCalendars() failed, will retry on next poll", t);
+
+            calendarClient = null;
+            calendarList = null;
+
+            return Flux.empty();
         }
     }
 
+    private Calendar createClient() throws IOException, GeneralSecurityException {
+
+        HttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+        JsonFactory jsonFactory = JacksonFactory.getDefaultInstance();
+        FileDataStoreFactory dataStoreFactory = new FileDataStoreFactory(new File(System.getProperty("user.home"), STORED_CREDENTIALS));
+
+        Credential credential = authorize(httpTransport, jsonFactory, dataStoreFactory);
+
+        // VT: NOTE: There's no need for us to do this more often than we really need.
+        // I'd assume that once a year would be just fine. Maybe a bit too often, but come on, let's be realistic,
+        // users need some extra fun.
+        credential.setExpiresInSeconds(60L * 60L * 24L * 365L);
+
+        return new Calendar.Builder(httpTransport, jsonFactory, credential)
+                .setApplicationName(LITERAL_APP_NAME)
+                .build();
+    }
+
     private Credential authorize(HttpTransport httpTransport, JsonFactory jsonFactory, FileDataStoreFactory dataStoreFactory) throws IOException {
 
         try (InputStream in = getClass().getResourceAsStream(CLIENT_SECRETS)) {
@@ -218,19 +322,30 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
                 .map(e -> new AbstractMap.SimpleEntry<>(calendarClient, e));
     }
 
-    private Flux<Map.Entry<CalendarListEntry, List<Event>>> getEvents(Map.Entry<Calendar, CalendarListEntry> source) {
+    /**
+     * Bring the calendar cache up to date.
+     *
+     * @param source Calendar client and the calendar to synchronize.
+     *
+     * @return The cache, or empty flux if the sync failed.
+     */
+    private Flux<CalendarEventCache> syncEvents(Map.Entry<Calendar, CalendarListEntry> source) {
 
         var calendarClient = source.getKey();
         var calendar = source.getValue();
         var calendarId = calendar.getId();
+        var cache = name2cache.computeIfAbsent(calendar.getSummary(), CalendarEventCache::new);
 
-        Marker m = new Marker("getEvents(" + calendar.getSummary() + ")");
+        var now = ZonedDateTime.now(timeZoneId);
+        var today = now.toLocalDate();
+        var full = cache.needsFullSync(today, now.toInstant(), FULL_SYNC_INTERVAL);
+
+        Marker m = new Marker("syncEvents(" + calendar.getSummary() + (full ? ", full" : ", incremental") + ")");
         try {
 
             var events = calendarClient.events().list(calendarId);
 
             // Let's grab three days of events in case there are events across midnight
-            var now = ZonedDateTime.now(timeZoneId);
             var min = now.minus(1, ChronoUnit.DAYS);
             var max = now.plus(1, ChronoUnit.DAYS);
 
@@ -240,13 +355,44 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
             // Unroll recurring events into single and don't return parents; we don't need them
             events.setSingleEvents(true);
 
+            if (!full) {
+
+                // Only what has changed since the last sync, including deleted events
+                events.setUpdatedMin(cache.getUpdated());
+                events.setShowDeleted(true);
+            }
+
             logger.trace("Calendar API query: {}", events);
 
-            var items = events.execute().getItems();
+            var items = new ArrayList<Event>();
+            Events page;
+
+            do {
+
+                page = events.execute();
+
+                Optional.ofNullable(page.getItems()).ifPresent(items::addAll);
+                events.setPageToken(page.getNextPageToken());
+
+            } while (page.getNextPageToken() != null);
+
+            var updated = Optional
+                    .ofNullable(page.getUpdated())
+                    .orElseGet(() -> new DateTime(now.toInstant().toEpochMilli()));
+
+            if (full) {
+                cache.replace(items, updated, today, now.toInstant());
+            } else {
+                cache.merge(items, updated);
+            }
 
             logger.debug("{}: retrieved {} events", calendar.getSummary(), items.size());
 
-            return Flux.just(new AbstractMap.SimpleEntry<>(calendar, items));
+            if (cache.isDirty()) {
+                saveSnapshot();
+            }
+
+            return Flux.just(cache);
 
         } catch (IOException ex) {
             logger.error("Failed to retrieve events for {} (id={})", calendar, calendarId, ex);
@@ -256,19 +402,11 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
         }
     }
 
-    private Map.Entry<String, SortedMap<SchedulePeriod, ZoneSettings>> convertEvents(Map.Entry<CalendarListEntry, List<Event>> source) {
-
-        var calendar = source.getKey();
-        var schedule = new TreeMap<SchedulePeriod, ZoneSettings>();
-
-        Flux.fromIterable(source.getValue())
-                .flatMap(this::convertEvent)
-                .subscribe(kv -> schedule.put(kv.getKey(), kv.getValue()));
-
-        return new AbstractMap.SimpleEntry<>(calendar.getSummary(), schedule);
+    private Map.Entry<String, SortedMap<SchedulePeriod, ZoneSettings>> convertEvents(CalendarEventCache source) {
+        return new AbstractMap.SimpleEntry<>(source.name, source.getSchedule(LocalDate.now(timeZoneId), this::convertEvent));
     }
 
-    private Flux<Map.Entry<SchedulePeriod, ZoneSettings>> convertEvent(Event event) {
+    private Optional<Map.Entry<SchedulePeriod, ZoneSettings>> convertEvent(Event event) {
         ThreadContext.push("convertEvent");
         try {
 
@@ -276,7 +414,7 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
 
             if (period == null) {
                 // There must've been a log message about why
-                return Flux.empty();
+                return Optional.empty();
             }
 
             String settingsAsString;
@@ -291,18 +429,93 @@ public class GCalScheduleUpdater implements ScheduleUpdater {
 
             var settings = settingsParser.parseSettings(event, settingsAsString);
 
-            return Flux.just(new AbstractMap.SimpleEntry<>(period, settings));
+            return Optional.of(new AbstractMap.SimpleEntry<>(period, settings));
 
         } catch (Throwable t) { // NOSONAR Consequences have been considered
 
             logger.error("Failed to parse event, ignored: {}", event, t);
-            return Flux.empty();
+            return Optional.empty();
 
         } finally {
             ThreadContext.pop();
         }
     }
 
+    /**
+     * Restore the calendar caches from the snapshot, if there is one.
+     *
+     * @return Restored caches.
+     */
+    private Flux<CalendarEventCache> loadSnapshot() {
+
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            logger.info("No schedule snapshot at {}, schedule will be available after the first sync", snapshotPath);
+            return Flux.empty();
+        }
+
+        try (var in = Files.newInputStream(snapshotPath)) {
+
+            var snapshot = JacksonFactory.getDefaultInstance().fromInputStream(in, StandardCharsets.UTF_8, ScheduleSnapshot.class);
+            var created = Instant.ofEpochMilli(snapshot.created.getValue());
+            var restored = new ArrayList<CalendarEventCache>();
+
+            for (var calendar : Optional.ofNullable(snapshot.calendars).orElse(List.of())) {
+
+                if (!name2calendar.containsValue(calendar.name)) {
+                    logger.debug("{}: not a zone schedule anymore, snapshot ignored", calendar.name);
+                    continue;
+                }
+
+                var cache = new CalendarEventCache(calendar, created);
+
+                name2cache.put(cache.name, cache);
+                restored.add(cache);
+            }
+
+            logger.info("Restored schedule snapshot taken at {}: {} calendar[s]", created, restored.size());
+
+            return Flux.fromIterable(restored);
+
+        } catch (Exception ex) {
+            logger.warn("Failed to load schedule snapshot from {}, ignored", snapshotPath, ex);
+            return Flux.empty();
+        }
+    }
+
+    /**
+     * Save all calendar caches to the snapshot, atomically.
+     */
+    private synchronized void saveSnapshot() {
+
+        if (snapshotPath == null) {
+            return;
+        }
+
+        var snapshot = new ScheduleSnapshot();
+
+        snapshot.created = new DateTime(System.currentTimeMillis());
+        snapshot.calendars = name2cache
+                .values()
+                .stream()
+                .map(CalendarEventCache::toSnapshot)
+                .toList();
+
+        try {
+
+            var target = snapshotPath.toAbsolutePath();
+            var temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+            Files.createDirectories(target.getParent());
+            Files.writeString(temp, JacksonFactory.getDefaultInstance().toPrettyString(snapshot), StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.debug("Saved schedule snapshot to {}", target);
+
+        } catch (IOException ex) {
+            logger.error("Failed to save schedule snapshot to {}", snapshotPath, ex);
+        }
+    }
+
     private Flux<Map.Entry<String, SortedMap<SchedulePeriod, ZoneSettings>>> convertZoneName(Map.Entry<String, SortedMap<SchedulePeriod, ZoneSettings>> source) {
 
         var calendarName = source.getKey();
@@ -0,0 +1,54 @@
+package net.sf.dz3r.scheduler.gcal.v3;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.util.DateTime;
+import com.google.api.client.util.Key;
+import com.google.api.services.calendar.model.Event;
+
+import java.util.List;
+
+/**
+ * On-disk snapshot of all {@link CalendarEventCache calendar caches}.
+ *
+ * Stored as JSON using the same library the Calendar API client uses, so {@link Event}s are stored exactly as received.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ScheduleSnapshot extends GenericJson {
+
+    /**
+     * When the snapshot was taken.
+     */
+    @Key
+    public DateTime created;
+
+    @Key
+    public List<CalendarSnapshot> calendars;
+
+    /**
+     * Snapshot of a single calendar.
+     */
+    public static class CalendarSnapshot extends GenericJson {
+
+        /**
+         * Calendar name (summary).
+         */
+        @Key
+        public String name;
+
+        /**
+         * Calendar last modification time as reported by the server at the time of the last sync.
+         */
+        @Key
+        public DateTime updated;
+
+        /**
+         * The date the last full sync was performed for, in ISO format.
+         */
+        @Key
+        public String fullSyncFor;
+
+        @Key
+        public List<Event> items;
+    }
+}
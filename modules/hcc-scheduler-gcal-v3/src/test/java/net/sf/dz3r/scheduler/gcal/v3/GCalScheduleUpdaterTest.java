@@ -1,5 +1,14 @@
 package net.sf.dz3r.scheduler.gcal.v3;
 
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
 import net.sf.dz3r.model.SchedulePeriod;
 import net.sf.dz3r.model.ZoneSettings;
 import org.apache.logging.log4j.LogManager;
@@ -7,19 +16,30 @@ import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import reactor.core.scheduler.Schedulers;
 import reactor.tools.agent.ReactorDebugAgent;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 
-@Disabled("Enable if you have the right credentials")
 class GCalScheduleUpdaterTest {
 
     private final Logger logger = LogManager.getLogger();
@@ -30,6 +50,7 @@ class GCalScheduleUpdaterTest {
     }
 
     @Test
+    @Disabled("Enable if you have the right credentials")
     void breathe() throws InterruptedException {
 
         var start = new AtomicLong();
@@ -59,4 +80,156 @@ class GCalScheduleUpdaterTest {
 
         assertThat(accumulator).hasSize(4);
     }
+
+    /**
+     * Make sure the full sync is followed by the incremental sync, and the snapshot is served at startup.
+     */
+    @Test
+    void incrementalSyncAndSnapshot(@TempDir Path dir) {
+
+        var snapshot = dir.resolve("snapshot.json");
+        var today = LocalDate.now();
+        var oneAm = ZonedDateTime.of(today, LocalTime.of(1, 0), ZonedDateTime.now().getZone());
+
+        var allDay = event("all-day", "1", "Day # setpoint 22", "setpoint: 22", "\"date\": \"" + today + "\"", "\"date\": \"" + today.plusDays(1) + "\"");
+        var night = event("night", "1", "Night # setpoint 18", "setpoint: 18", dateTime(oneAm), dateTime(oneAm.plusHours(1)));
+        var nightCancelled = "{\"id\": \"night\", \"etag\": \"2\", \"status\": \"cancelled\"}";
+        var morning = event("morning", "1", "Morning # setpoint 21", "setpoint: 21", dateTime(oneAm.plusHours(5)), dateTime(oneAm.plusHours(6)));
+
+        var stub = new CalendarStub(
+                List.of(allDay, night),
+                List.of(nightCancelled, morning));
+
+        var u = new GCalScheduleUpdater(Map.of("Kitchen", "DZ Schedule: Kitchen"), Duration.ofMillis(100), snapshot, stub::createClient);
+
+        var schedules = u.update()
+                .take(2)
+                .map(Map.Entry::getValue)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(schedules).hasSize(2);
+        assertThat(schedules.get(0).keySet()).extracting(p -> p.name).containsExactlyInAnyOrder("Day", "Night");
+        assertThat(schedules.get(1).keySet()).extracting(p -> p.name).containsExactlyInAnyOrder("Day", "Morning");
+
+        var eventRequests = stub.urls.stream().filter(url -> url.contains("/events")).toList();
+
+        assertThat(eventRequests.get(0)).doesNotContain("updatedMin");
+        assertThat(eventRequests.get(1)).contains("updatedMin").contains("showDeleted=true");
+
+        // The calendar list must have been retrieved just once
+        assertThat(stub.urls.stream().filter(url -> url.contains("/calendarList"))).hasSize(1);
+
+        // The network is gone now, but the snapshot must still be served
+
+        var restarted = new GCalScheduleUpdater(Map.of("Kitchen", "DZ Schedule: Kitchen"), Duration.ofMillis(100), snapshot, () -> {
+            throw new IOException("no network");
+        });
+
+        var restored = restarted.update().blockFirst(Duration.ofSeconds(10));
+
+        assertThat(restored).isNotNull();
+        assertThat(restored.getKey()).isEqualTo("Kitchen");
+        assertThat(restored.getValue().keySet()).extracting(p -> p.name).containsExactlyInAnyOrder("Day", "Morning");
+    }
+
+    /**
+     * Make sure a broken snapshot doesn't prevent the updater from working.
+     */
+    @Test
+    void brokenSnapshot(@TempDir Path dir) throws IOException {
+
+        var snapshot = dir.resolve("snapshot.json");
+        Files.writeString(snapshot, "{ this is not JSON");
+
+        var stub = new CalendarStub(List.of(), List.of());
+        var u = new GCalScheduleUpdater(Map.of("Kitchen", "DZ Schedule: Kitchen"), Duration.ofMillis(100), snapshot, stub::createClient);
+
+        assertThatCode(() -> {
+            var schedule = u.update().blockFirst(Duration.ofSeconds(10));
+            assertThat(schedule).isNotNull();
+            assertThat(schedule.getValue()).isEmpty();
+        }).doesNotThrowAnyException();
+    }
+
+    /**
+     * Make sure the mapping change is picked up on the next poll.
+     */
+    @Test
+    void remap() {
+
+        var stub = new CalendarStub(List.of(), List.of());
+        var u = new GCalScheduleUpdater(Map.of("Kitchen", "DZ Schedule: Kitchen"), Duration.ofMillis(100), null, stub::createClient);
+
+        var zones = u.update()
+                .take(2)
+                .doOnNext(ignored -> u.setMapping(Map.of("Pantry", "DZ Schedule: Kitchen")))
+                .map(Map.Entry::getKey)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(zones).containsExactly("Kitchen", "Pantry");
+    }
+
+    private static String dateTime(ZonedDateTime source) {
+        return "\"dateTime\": \"" + source.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) + "\"";
+    }
+
+    private static String event(String id, String etag, String summary, String description, String start, String end) {
+        return "{\"id\": \"" + id + "\", \"etag\": \"" + etag + "\", \"status\": \"confirmed\", "
+                + "\"summary\": \"" + summary + "\", \"description\": \"" + description + "\", "
+                + "\"start\": {" + start + "}, \"end\": {" + end + "}}";
+    }
+
+    /**
+     * Local stand-in for the Calendar API.
+     *
+     * Serves one calendar, full event list for the first event query, and incremental one for subsequent ones.
+     */
+    private static class CalendarStub {
+
+        final List<String> urls = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> full;
+        private final List<String> incremental;
+
+        CalendarStub(List<String> full, List<String> incremental) {
+            this.full = full;
+            this.incremental = incremental;
+        }
+
+        Calendar createClient() {
+
+            var transport = new MockHttpTransport() {
+                @Override
+                public LowLevelHttpRequest buildRequest(String method, String url) {
+
+                    urls.add(url);
+
+                    return new MockLowLevelHttpRequest() {
+                        @Override
+                        public LowLevelHttpResponse execute() {
+                            return new MockLowLevelHttpResponse()
+                                    .setContentType(Json.MEDIA_TYPE)
+                                    .setContent(respond(url));
+                        }
+                    };
+                }
+            };
+
+            return new Calendar.Builder(transport, JacksonFactory.getDefaultInstance(), null)
+                    .setApplicationName("test")
+                    .build();
+        }
+
+        private String respond(String url) {
+
+            if (url.contains("/calendarList")) {
+                return "{\"items\": [{\"id\": \"kitchen\", \"summary\": \"DZ Schedule: Kitchen\"}, {\"id\": \"other\", \"summary\": \"Other\"}]}";
+            }
+
+            var items = url.contains("updatedMin") ? incremental : full;
+
+            return "{\"updated\": \"" + new DateTime(System.currentTimeMillis()).toStringRfc3339() + "\", \"items\": [" + String.join(", ", items) + "]}";
+        }
+    }
 }
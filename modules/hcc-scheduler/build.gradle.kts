@@ -4,6 +4,7 @@ plugins {
 
 dependencies {
 
+    implementation(project(":modules:hcc-common"))
     api(project(":modules:hcc-model"))
     implementation(libs.log4j.api)
     implementation(libs.reactor.core)
@@ -1,9 +1,11 @@
 package net.sf.dz3r.scheduler;
 
 import net.sf.dz3r.device.actuator.economizer.EconomizerSettings;
+import net.sf.dz3r.instrumentation.jfr.ScheduleTransitionEvent;
 import net.sf.dz3r.model.PeriodSettings;
 import net.sf.dz3r.model.SchedulePeriod;
 import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneController;
 import net.sf.dz3r.model.ZoneSettings;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,6 +18,9 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
@@ -38,18 +43,39 @@ public class Scheduler {
     private final SchedulePeriodMatcher periodMatcher = new SchedulePeriodMatcher();
 
     private final Map<String, Zone> name2zone;
+
+    /**
+     * Zone controller to apply period changes through, as a batch. May be {@code null}, then changes are applied zone by zone.
+     */
+    private final ZoneController zoneController;
     private final Map<Zone, SortedMap<SchedulePeriod, ZoneSettings>> zone2schedule = new TreeMap<>();
     private final Map<Zone, SchedulePeriod> zone2period = new TreeMap<>();
 
     public Scheduler(Map<String, Zone> name2zone) {
-        this(Clock.system(TimeZone.getDefault().toZoneId()), name2zone, Duration.of(10, ChronoUnit.SECONDS));
+        this(name2zone, null);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name2zone Mapping from zone name to zone.
+     * @param zoneController Zone controller for these zones. If not {@code null}, period changes for all zones
+     * will be applied as one {@link ZoneController#applyBatch(Runnable) batch}.
+     */
+    public Scheduler(Map<String, Zone> name2zone, ZoneController zoneController) {
+        this(Clock.system(TimeZone.getDefault().toZoneId()), name2zone, zoneController, Duration.of(10, ChronoUnit.SECONDS));
     }
 
     public Scheduler(Clock clock, Map<String, Zone> name2zone, Duration scheduleGranularity) {
+        this(clock, name2zone, null, scheduleGranularity);
+    }
+
+    public Scheduler(Clock clock, Map<String, Zone> name2zone, ZoneController zoneController, Duration scheduleGranularity) {
         this.clock = clock;
         this.scheduleGranularity = scheduleGranularity;
 
         this.name2zone = name2zone;
+        this.zoneController = zoneController;
 
         logger.info("Using {} time zone", clock.getZone());
         logger.info("Synchronizing schedule every {} seconds", scheduleGranularity.getSeconds());
@@ -71,8 +97,7 @@ public class Scheduler {
         // Execute
         var execute = Flux.interval(scheduleGranularity, Schedulers.boundedElastic())
                 .publishOn(Schedulers.newSingle("schedule-execute"))
-                .flatMap(s -> Flux.fromIterable(zone2schedule.entrySet()))
-                .flatMap(this::applySchedule)
+                .flatMap(s -> applySchedule(new ArrayList<>(zone2schedule.entrySet())))
                 .doOnNext(s -> logger.info("scheduleExecute: {}", s));
 
         return Flux
@@ -95,6 +120,32 @@ public class Scheduler {
         return Flux.just(new AbstractMap.SimpleEntry<>(zone, schedule));
     }
 
+    /**
+     * Apply periods to a set of zones, possibly, as one batch.
+     *
+     * All zones switching periods at the same time will then cause just one unit recompute, not one per zone.
+     *
+     * @param source Mappings from zones to sets of their periods.
+     *
+     * @return Status updates, see {@link #applySchedule(Map.Entry)}.
+     */
+    private Flux<Map.Entry<String, Map.Entry<SchedulePeriod, ZoneSettings>>> applySchedule(Collection<Map.Entry<Zone, SortedMap<SchedulePeriod, ZoneSettings>>> source) {
+
+        List<Map.Entry<String, Map.Entry<SchedulePeriod, ZoneSettings>>> result = new ArrayList<>();
+
+        // applySchedule(Map.Entry) does all the work before returning, and returns either an empty or a just() flux;
+        // it is safe to collect the results synchronously.
+        Runnable changes = () -> source.forEach(kv -> applySchedule(kv).subscribe(result::add));
+
+        if (zoneController == null) {
+            changes.run();
+        } else {
+            zoneController.applyBatch(changes);
+        }
+
+        return Flux.fromIterable(result);
+    }
+
     /**
      * Apply a period to a zone, possibly.
      *
@@ -175,6 +226,7 @@ public class Scheduler {
 
                     // However... need to record the period. The zone will be smart enough not to touch the settings.
                     zone.setPeriodSettings(new PeriodSettings(period, settings));
+                    ScheduleTransitionEvent.record(zoneName, getName(currentPeriod), period.name, true);
 
                     // This and below:
                     // Whatever was displayed at the console previously, will stay.
@@ -187,6 +239,7 @@ public class Scheduler {
                     logger.info("{}: settings applied: {}", zoneName, settings);
                     zone.setPeriodSettings(new PeriodSettings(period, settings));
                     zone2period.put(zone, period);
+                    ScheduleTransitionEvent.record(zoneName, getName(currentPeriod), period.name, false);
                     return Flux.just(new AbstractMap.SimpleEntry<>(zoneName, new AbstractMap.SimpleEntry<>(period, settings)));
 
                 } catch (Exception ex) {
@@ -200,6 +253,7 @@ public class Scheduler {
                 logger.trace("{}: no active period, settings left as they were", zoneName);
                 zone2period.put(zone, null);
                 zone.setPeriodSettings(null);
+                ScheduleTransitionEvent.record(zoneName, getName(currentPeriod), null, zone.getSettings().isOnHold());
                 return Flux.just(new AbstractMap.SimpleEntry<>(zoneName, null));
             }
 
@@ -208,6 +262,10 @@ public class Scheduler {
         }
     }
 
+    private static String getName(SchedulePeriod period) {
+        return period == null ? null : period.name;
+    }
+
     private boolean same(SchedulePeriod current, SchedulePeriod found) {
 
         if (current == null) {
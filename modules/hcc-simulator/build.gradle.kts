@@ -0,0 +1,12 @@
+plugins {
+    `java-library`
+}
+
+dependencies {
+
+    api(project(":modules:hcc-common"))
+    api(project(":modules:hcc-model"))
+
+    testImplementation(libs.assertj.core)
+    testImplementation(libs.junit5.api)
+}
@@ -0,0 +1,234 @@
+package net.sf.dz3r.simulator;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.common.TestClock;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneController;
+import net.sf.dz3r.model.ZoneSettings;
+import net.sf.dz3r.signal.Signal;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+import net.sf.dz3r.signal.hvac.ZoneStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Closes the loop between the real {@link Zone zones}, {@link ZoneController} and unit controller on one side,
+ * and the {@link ThermalZone thermal model} of the house on the other, on virtual time.
+ *
+ * Every step, each zone gets a sensor reading of its modeled temperature, the pipeline runs synchronously on
+ * the calling thread, and the resulting {@link HvacCommand} drives the {@link HvacModel} output for the next step.
+ * The output is split evenly between the zones that are calling, or all zones if none are. The clock the thermostats
+ * are created with follows the virtual time, so the run is deterministic and takes no wall clock time beyond
+ * the computation itself.
+ *
+ * Economizers are not simulated, they run on their own schedulers and wall clock time.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class HouseSimulation {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final HouseSpec spec;
+    private final Instant start;
+
+    /**
+     * Create an instance.
+     *
+     * @param spec House to simulate.
+     * @param start Virtual time to start the simulation at.
+     */
+    public HouseSimulation(HouseSpec spec, Instant start) {
+        this.spec = HCCObjects.requireNonNull(spec, "spec can't be null");
+        this.start = HCCObjects.requireNonNull(start, "start can't be null");
+    }
+
+    /**
+     * Run the simulation.
+     *
+     * @param duration Virtual time to simulate.
+     * @param step Simulation step, also the sensor reading interval.
+     *
+     * @return Simulation outcome.
+     */
+    public SimulationResult run(Duration duration, Duration step) {
+
+        HCCObjects.requireNonNull(duration, "duration can't be null");
+        HCCObjects.requireNonNull(step, "step can't be null");
+
+        if (duration.isNegative() || step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("invalid duration=" + duration + ", step=" + step);
+        }
+
+        ThreadContext.push("simulate " + spec.name());
+
+        try {
+
+            var clock = new TestClock(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+            clock.setOffset(Duration.between(Instant.EPOCH, start));
+
+            var house = build(clock);
+            var command = new AtomicReference<HvacCommand>();
+
+            var zoneFluxes = new ArrayList<Flux<Signal<ZoneStatus, String>>>();
+
+            for (var z : house.values()) {
+                zoneFluxes.add(z.zone
+                        .compute(z.sink.asFlux())
+                        .doOnNext(s -> z.calling = s.getValue() != null && s.getValue().callingStatus != null && s.getValue().callingStatus.calling));
+            }
+
+            var zoneController = new ZoneController(house.values().stream().map(z -> z.zone).toList());
+            var subscription = spec
+                    .unitController()
+                    .get()
+                    .compute(zoneController
+                            .compute(Flux.merge(zoneFluxes))
+                            .map(s -> new Signal<>(s.timestamp, s.getValue(), (Void) null, s.status, s.error)))
+                    .subscribe(
+                            s -> command.set(s.getValue()),
+                            error -> logger.error("{}: unit controller failed", spec.name(), error));
+
+            var steps = duration.toMillis() / step.toMillis();
+            var unit = new UnitStats();
+
+            for (var count = 0L; count < steps; count++) {
+
+                var now = start.plus(step.multipliedBy(count));
+
+                clock.setOffset(Duration.between(Instant.EPOCH, now));
+
+                for (var z : house.values()) {
+                    z.sink.tryEmitNext(new Signal<>(now, z.thermal.getTemperature(), z.zone.getAddress())).orThrow();
+                }
+
+                var output = spec.hvac().getOutput(command.get());
+                var outdoor = spec.outdoor().getTemperature(now);
+
+                unit.account(output, step);
+
+                var calling = house.values().stream().filter(z -> z.calling).count();
+
+                for (var z : house.values()) {
+
+                    var share = calling == 0 || z.calling ? output / (calling == 0 ? house.size() : calling) : 0;
+
+                    z.account();
+                    z.thermal.step(step, outdoor, share);
+                }
+            }
+
+            house.values().forEach(z -> z.sink.tryEmitComplete());
+            subscription.dispose();
+
+            var zones = new TreeMap<String, SimulationResult.ZoneResult>();
+            house.forEach((name, z) -> zones.put(name, z.getResult()));
+
+            return new SimulationResult(spec.name(), zones, unit.runtime, unit.cycles, unit.energy / 3_600_000d);
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    private Map<String, SimulatedZone> build(Clock clock) {
+
+        var result = new LinkedHashMap<String, SimulatedZone>();
+
+        for (var zoneSpec : spec.zones()) {
+
+            var ts = zoneSpec.thermostat().apply(clock);
+            var zone = new Zone(ts, new ZoneSettings(ts.getSetpoint()));
+            var thermal = new ThermalZone(zoneSpec.resistance(), zoneSpec.capacitance(), zoneSpec.internalGain(), zoneSpec.initialTemperature());
+
+            if (result.put(zone.getAddress(), new SimulatedZone(zone, thermal)) != null) {
+                throw new IllegalArgumentException(spec.name() + ": duplicate zone name " + zone.getAddress());
+            }
+        }
+
+        return result;
+    }
+
+    private static class SimulatedZone {
+
+        final Zone zone;
+        final ThermalZone thermal;
+        final Sinks.Many<Signal<Double, String>> sink = Sinks.many().unicast().onBackpressureBuffer();
+
+        boolean calling = false;
+
+        long samples = 0;
+        double errorSum = 0;
+        double errorSquareSum = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+
+        SimulatedZone(Zone zone, ThermalZone thermal) {
+            this.zone = zone;
+            this.thermal = thermal;
+        }
+
+        void account() {
+
+            var temperature = thermal.getTemperature();
+
+            min = Math.min(min, temperature);
+            max = Math.max(max, temperature);
+
+            var settings = zone.getSettings();
+
+            if (!Boolean.TRUE.equals(settings.enabled) || settings.setpoint == null) {
+                return;
+            }
+
+            var error = temperature - settings.setpoint;
+
+            samples++;
+            errorSum += Math.abs(error);
+            errorSquareSum += error * error;
+        }
+
+        SimulationResult.ZoneResult getResult() {
+            return samples == 0
+                    ? new SimulationResult.ZoneResult(0, 0, min, max)
+                    : new SimulationResult.ZoneResult(errorSum / samples, Math.sqrt(errorSquareSum / samples), min, max);
+        }
+    }
+
+    private static class UnitStats {
+
+        Duration runtime = Duration.ZERO;
+        int cycles = 0;
+        double energy = 0;
+        boolean running = false;
+
+        void account(double output, Duration step) {
+
+            var on = output != 0;
+
+            if (on && !running) {
+                cycles++;
+            }
+
+            if (on) {
+                runtime = runtime.plus(step);
+                energy += Math.abs(output) * step.toMillis() / 1000d;
+            }
+
+            running = on;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package net.sf.dz3r.simulator;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.UnitController;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Simulated house: zones served by one HVAC unit, and the weather.
+ *
+ * The control components are created from factories, every simulation run gets a fresh set.
+ *
+ * @param name House name, used for logging and results.
+ * @param zones Zones.
+ * @param hvac HVAC unit serving all the zones.
+ * @param outdoor Outdoor temperature profile.
+ * @param unitController Unit controller factory.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record HouseSpec(
+        String name,
+        List<ZoneSpec> zones,
+        HvacModel hvac,
+        OutdoorProfile outdoor,
+        Supplier<UnitController> unitController
+) {
+
+    public HouseSpec {
+
+        HCCObjects.requireNonNull(name, "name can't be null");
+        HCCObjects.requireNonNull(zones, "zones can't be null");
+        HCCObjects.requireNonNull(hvac, "hvac can't be null");
+        HCCObjects.requireNonNull(outdoor, "outdoor can't be null");
+        HCCObjects.requireNonNull(unitController, "unitController can't be null");
+
+        if (zones.isEmpty()) {
+            throw new IllegalArgumentException(name + ": no zones");
+        }
+
+        zones = List.copyOf(zones);
+    }
+
+    /**
+     * Simulated zone.
+     *
+     * The thermostat factory is where the PID and sensitivity settings under evaluation go. The thermostat must be
+     * created with the given clock, and its name becomes the zone name. Mind the PID polarity for the
+     * {@link HvacModel#mode() mode}, just like in the configuration.
+     *
+     * @param resistance Thermal resistance between the zone and the outdoors, K/W.
+     * @param capacitance Thermal capacitance of the zone, J/K.
+     * @param internalGain Constant internal heat gain, W.
+     * @param initialTemperature Zone temperature at the start of the simulation.
+     * @param thermostat Thermostat factory.
+     */
+    public record ZoneSpec(
+            double resistance,
+            double capacitance,
+            double internalGain,
+            double initialTemperature,
+            Function<Clock, Thermostat> thermostat
+    ) {
+
+        public ZoneSpec {
+            HCCObjects.requireNonNull(thermostat, "thermostat can't be null");
+        }
+    }
+}
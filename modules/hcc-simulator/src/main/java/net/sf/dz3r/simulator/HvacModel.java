@@ -0,0 +1,63 @@
+package net.sf.dz3r.simulator;
+
+import net.sf.dz3r.common.HCCObjects;
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.signal.hvac.HvacCommand;
+
+import java.util.Optional;
+
+/**
+ * Simulated HVAC unit output.
+ *
+ * The command is interpreted the same way {@link net.sf.dz3r.device.actuator.SwitchableHvacDevice} and
+ * {@link net.sf.dz3r.device.actuator.VariableHvacDevice} do, but the output is applied immediately - the actual
+ * devices run on their own schedulers and wall clock time, which defeats the virtual time.
+ *
+ * @param mode Unit mode.
+ * @param capacity Heat flow at full demand, W. Always positive, the sign is determined by the mode.
+ * @param variable {@code true} if the output is proportional to demand, {@code false} for on/off units.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record HvacModel(
+        HvacMode mode,
+        double capacity,
+        boolean variable
+) {
+
+    public HvacModel {
+
+        HCCObjects.requireNonNull(mode, "mode can't be null");
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+    }
+
+    /**
+     * Compute the heat flow.
+     *
+     * @param command Command to execute, {@code null} if none was issued yet.
+     *
+     * @return Heat flow, W. Positive for heating, negative for cooling.
+     */
+    public double getOutput(HvacCommand command) {
+
+        if (command == null) {
+            return 0;
+        }
+
+        var demand = Optional.ofNullable(command.demand).orElse(0d);
+        var fanSpeed = Optional.ofNullable(command.fanSpeed).orElse(0d);
+
+        double share;
+
+        if (variable) {
+            share = Math.max(0, Math.min(1, demand));
+        } else {
+            share = demand + fanSpeed > 0 ? 1 : 0;
+        }
+
+        return mode.mode * capacity * share;
+    }
+}
@@ -0,0 +1,48 @@
+package net.sf.dz3r.simulator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Outdoor temperature as a function of time.
+ *
+ * Must be a pure function, the simulation is only as deterministic as the profile is.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+@FunctionalInterface
+public interface OutdoorProfile {
+
+    double getTemperature(Instant timestamp);
+
+    /**
+     * Constant temperature.
+     *
+     * @param temperature Temperature to return.
+     *
+     * @return The profile.
+     */
+    static OutdoorProfile constant(double temperature) {
+        return timestamp -> temperature;
+    }
+
+    /**
+     * Daily sine wave, in UTC.
+     *
+     * @param mean Daily mean temperature.
+     * @param amplitude Half of the daily swing.
+     * @param peakHour Hour of the day when the temperature peaks.
+     *
+     * @return The profile.
+     */
+    static OutdoorProfile daily(double mean, double amplitude, int peakHour) {
+
+        var day = Duration.ofDays(1).toSeconds();
+
+        return timestamp -> {
+            var second = timestamp.atOffset(ZoneOffset.UTC).toLocalTime().toSecondOfDay() - peakHour * 3600L;
+            return mean + amplitude * Math.cos(2 * Math.PI * second / day);
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package net.sf.dz3r.simulator;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Outcome of one house simulation run.
+ *
+ * @param house House name.
+ * @param zones Zone results, by zone name.
+ * @param runtime Total time the HVAC unit was producing output.
+ * @param cycles Number of times the HVAC unit was started.
+ * @param energy Heat delivered (or removed) by the HVAC unit, kWh.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public record SimulationResult(
+        String house,
+        Map<String, ZoneResult> zones,
+        Duration runtime,
+        int cycles,
+        double energy
+) {
+
+    /**
+     * Zone outcome. Errors are only accounted for while the zone is enabled.
+     *
+     * @param meanError Mean absolute deviation from the setpoint.
+     * @param rmsError Root mean square deviation from the setpoint.
+     * @param minTemperature Lowest temperature seen.
+     * @param maxTemperature Highest temperature seen.
+     */
+    public record ZoneResult(
+            double meanError,
+            double rmsError,
+            double minTemperature,
+            double maxTemperature
+    ) {
+    }
+}
@@ -0,0 +1,65 @@
+package net.sf.dz3r.simulator;
+
+import net.sf.dz3r.common.HCCObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs many independent {@link HouseSimulation house simulations} in parallel.
+ *
+ * Every house runs on one fork-join worker from start to finish, houses don't share any state. Results are
+ * deterministic and come in the same order as the houses, regardless of the pool size.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class Simulator {
+
+    private final Logger logger = LogManager.getLogger();
+    private final ForkJoinPool pool;
+
+    /**
+     * Create an instance running on the common pool.
+     */
+    public Simulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param pool Pool to run the simulations on.
+     */
+    public Simulator(ForkJoinPool pool) {
+        this.pool = HCCObjects.requireNonNull(pool, "pool can't be null");
+    }
+
+    /**
+     * Run the simulations. Blocks until all are complete.
+     *
+     * @param houses Houses to simulate.
+     * @param start Virtual time to start the simulations at.
+     * @param duration Virtual time to simulate.
+     * @param step Simulation step.
+     *
+     * @return Simulation outcomes, in the same order as {@code houses}.
+     */
+    public List<SimulationResult> run(List<HouseSpec> houses, Instant start, Duration duration, Duration step) {
+
+        var started = System.nanoTime();
+        var result = pool
+                .submit(() -> houses
+                        .parallelStream()
+                        .map(house -> new HouseSimulation(house, start).run(duration, step))
+                        .toList())
+                .join();
+
+        logger.info("simulated {} house[s] x {} in {}ms", houses.size(), duration, (System.nanoTime() - started) / 1_000_000);
+
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package net.sf.dz3r.simulator;
+
+import java.time.Duration;
+
+/**
+ * Lumped RC model of a zone: one thermal mass coupled to the outdoors through one thermal resistance.
+ *
+ * The zone is integrated with the exact solution of {@code C dT/dt = (Tout - T) / R + Q}, assuming the outdoor
+ * temperature and the heat flow stay constant within the step. This is stable for any step size.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class ThermalZone {
+
+    /**
+     * Thermal resistance between the zone and the outdoors, K/W.
+     */
+    public final double resistance;
+
+    /**
+     * Thermal capacitance of the zone, J/K.
+     */
+    public final double capacitance;
+
+    /**
+     * Constant internal heat gain (people, appliances), W.
+     */
+    public final double internalGain;
+
+    private double temperature;
+
+    /**
+     * Create an instance.
+     *
+     * @param resistance Thermal resistance between the zone and the outdoors, K/W.
+     * @param capacitance Thermal capacitance of the zone, J/K.
+     * @param internalGain Constant internal heat gain, W.
+     * @param temperature Initial temperature.
+     */
+    public ThermalZone(double resistance, double capacitance, double internalGain, double temperature) {
+
+        if (resistance <= 0 || capacitance <= 0) {
+            throw new IllegalArgumentException("resistance and capacitance must be positive: R=" + resistance + ", C=" + capacitance);
+        }
+
+        this.resistance = resistance;
+        this.capacitance = capacitance;
+        this.internalGain = internalGain;
+        this.temperature = temperature;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * Advance the model.
+     *
+     * @param step Time step.
+     * @param outdoor Outdoor temperature.
+     * @param hvac Heat flow from the HVAC, W. Positive for heating, negative for cooling.
+     *
+     * @return New temperature.
+     */
+    public double step(Duration step, double outdoor, double hvac) {
+
+        var equilibrium = outdoor + resistance * (hvac + internalGain);
+        var decay = Math.exp(-(step.toMillis() / 1000d) / (resistance * capacitance));
+
+        temperature = equilibrium + (temperature - equilibrium) * decay;
+
+        return temperature;
+    }
+}
@@ -0,0 +1,98 @@
+package net.sf.dz3r.simulator;
+
+import net.sf.dz3r.model.HvacMode;
+import net.sf.dz3r.model.Range;
+import net.sf.dz3r.model.SingleStageUnitController;
+import net.sf.dz3r.model.Thermostat;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SimulatorTest {
+
+    private static final Instant START = Instant.parse("2024-07-01T00:00:00Z");
+
+    @Test
+    void holdsSetpoint() {
+
+        var result = new HouseSimulation(house("house", 1), START).run(Duration.ofDays(2), Duration.ofMinutes(1));
+
+        assertThat(result.zones()).containsOnlyKeys("bedroom", "living");
+        assertThat(result.cycles()).isPositive();
+        assertThat(result.runtime()).isPositive();
+        assertThat(result.energy()).isPositive();
+
+        result.zones().values().forEach(z -> {
+            assertThat(z.meanError()).isLessThan(2);
+            assertThat(z.maxTemperature()).isLessThan(30);
+        });
+    }
+
+    @Test
+    void parallelDeterministic() {
+
+        var houses = new ArrayList<HouseSpec>();
+
+        for (var count = 0; count < 8; count++) {
+            houses.add(house("house" + count, 0.5 + count * 0.1));
+        }
+
+        var sequential = houses
+                .stream()
+                .map(h -> new HouseSimulation(h, START).run(Duration.ofDays(1), Duration.ofMinutes(1)))
+                .toList();
+
+        var pool = new ForkJoinPool(4);
+
+        try {
+            var parallel = new Simulator(pool).run(houses, START, Duration.ofDays(1), Duration.ofMinutes(1));
+            assertThat(parallel).containsExactlyElementsOf(sequential);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void duplicateZone() {
+
+        var zone = zone("bedroom", 1);
+        var spec = new HouseSpec(
+                "house",
+                List.of(zone, zone),
+                new HvacModel(HvacMode.COOLING, 3000, false),
+                OutdoorProfile.constant(32),
+                () -> new SingleStageUnitController("unit"));
+        var simulation = new HouseSimulation(spec, START);
+        var duration = Duration.ofHours(1);
+        var step = Duration.ofMinutes(1);
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> simulation.run(duration, step))
+                .withMessage("house: duplicate zone name bedroom");
+    }
+
+    private HouseSpec house(String name, double p) {
+        return new HouseSpec(
+                name,
+                List.of(zone("bedroom", p), zone("living", p)),
+                new HvacModel(HvacMode.COOLING, 3000, false),
+                OutdoorProfile.daily(30, 5, 15),
+                () -> new SingleStageUnitController("unit"));
+    }
+
+    private HouseSpec.ZoneSpec zone(String name, double p) {
+        return new HouseSpec.ZoneSpec(
+                0.01,
+                5_000_000,
+                300,
+                28,
+                clock -> new Thermostat(clock, name, new Range<>(10d, 40d), 24.0, p, 0.000002, 0, 1.1, Duration.ZERO, 0));
+    }
+}
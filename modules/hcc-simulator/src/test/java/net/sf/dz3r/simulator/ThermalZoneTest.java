@@ -0,0 +1,57 @@
+package net.sf.dz3r.simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+class ThermalZoneTest {
+
+    @Test
+    void timeConstant() {
+
+        // R * C = 1 hour
+        var zone = new ThermalZone(0.01, 360_000, 0, 20);
+
+        zone.step(Duration.ofHours(1), 30, 0);
+
+        // 1 - 1/e of the way to the outdoor temperature
+        assertThat(zone.getTemperature()).isCloseTo(30 - 10 / Math.E, within(0.0001));
+    }
+
+    @Test
+    void stepSizeIndependent() {
+
+        var coarse = new ThermalZone(0.01, 360_000, 200, 20);
+        var fine = new ThermalZone(0.01, 360_000, 200, 20);
+
+        coarse.step(Duration.ofHours(2), 30, -1000);
+
+        for (var count = 0; count < 120; count++) {
+            fine.step(Duration.ofMinutes(1), 30, -1000);
+        }
+
+        assertThat(fine.getTemperature()).isCloseTo(coarse.getTemperature(), within(0.0001));
+    }
+
+    @Test
+    void equilibrium() {
+
+        var zone = new ThermalZone(0.01, 360_000, 300, 20);
+
+        zone.step(Duration.ofDays(7), 10, 700);
+
+        // 10 + 0.01 * (700 + 300)
+        assertThat(zone.getTemperature()).isCloseTo(20, within(0.0001));
+    }
+
+    @Test
+    void invalid() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new ThermalZone(0, 360_000, 0, 20))
+                .withMessageStartingWith("resistance and capacitance must be positive");
+    }
+}
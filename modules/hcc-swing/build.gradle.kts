@@ -3,4 +3,12 @@ dependencies {
     implementation(project(":modules:hcc-common"))
     implementation(project(":modules:hcc-config"))
     implementation(project(":modules:hcc-director"))
+
+    testImplementation(libs.assertj.core)
+    testImplementation(libs.junit5.api)
+}
+
+tasks.test {
+    // Charts are rendered into images, there's no display to render to
+    systemProperty("java.awt.headless", "true")
 }
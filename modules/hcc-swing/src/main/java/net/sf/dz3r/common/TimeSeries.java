@@ -0,0 +1,469 @@
+package net.sf.dz3r.common;
+
+/**
+ * Time series of primitive samples, retained for a given time interval.
+ *
+ * Samples are stored in a ring of parallel primitive arrays, one timestamp and one or more value channels per sample,
+ * so appending and expiring are {@code O(1)} and allocate nothing until the ring has to grow.
+ *
+ * A min/max pyramid over the first channel is maintained as samples arrive: level {@code k} holds the positions
+ * of the minimum and maximum in every aligned block of {@code 2^k} samples. This allows {@link #select(long, long, int[])}
+ * to pick the samples worth painting on a chart {@code W} pixels wide in {@code O(W + log N)} time, no matter how many
+ * samples are retained, without losing peaks.
+ *
+ * Timestamps must not go back in time, out of order samples are rejected.
+ *
+ * This class is not thread safe; callers sharing an instance between threads must synchronize.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+public class TimeSeries {
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Number of values per sample.
+     */
+    private final int channels;
+
+    /**
+     * The expiration interval. Samples older than the last one by this many milliseconds are expired.
+     */
+    private long expirationInterval;
+
+    /**
+     * Ring capacity minus one. Capacity is always a power of two.
+     */
+    private int mask;
+
+    private long[] time;
+
+    /**
+     * Sample values, {@code [channel][slot]}.
+     */
+    private double[][] values;
+
+    /**
+     * Sequence number of the minimum sample in every block, {@code [level - 1][slot]}.
+     */
+    private long[][] minSeq;
+
+    /**
+     * Sequence number of the maximum sample in every block, {@code [level - 1][slot]}.
+     */
+    private long[][] maxSeq;
+
+    /**
+     * Sequence number of the oldest retained sample.
+     */
+    private long headSeq;
+
+    /**
+     * Sequence number the next sample will get.
+     */
+    private long nextSeq;
+
+    /**
+     * Create an instance.
+     *
+     * @param channels Number of values per sample.
+     * @param expirationInterval How many milliseconds to keep the data.
+     *
+     * @exception IllegalArgumentException if either argument is non-positive.
+     */
+    public TimeSeries(int channels, long expirationInterval) {
+
+        if (channels <= 0) {
+            throw new IllegalArgumentException("Need at least one channel, value given is " + channels);
+        }
+
+        this.channels = channels;
+
+        setExpirationInterval(expirationInterval);
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Get the expiration interval.
+     *
+     * @return Expiration interval, milliseconds.
+     */
+    public final long getExpirationInterval() {
+        return expirationInterval;
+    }
+
+    public final void setExpirationInterval(long expirationInterval) {
+
+        if (expirationInterval <= 0) {
+            throw new IllegalArgumentException("Expiration interval must be positive, value given is "
+                    + expirationInterval);
+        }
+
+        this.expirationInterval = expirationInterval;
+
+        if (!isEmpty()) {
+            expire(time[slot(nextSeq - 1)]);
+        }
+    }
+
+    /**
+     * Record the sample.
+     *
+     * @param millis Absolute time, milliseconds.
+     * @param merge If {@code false}, record the sample in any case. If {@code true} and the sample is the same as
+     * the last one recorded, just move the last one to the new time.
+     * @param sample Sample values, one per channel.
+     *
+     * @return {@code false} if the sample was rejected for being older than the last one recorded, {@code true} otherwise.
+     */
+    public final boolean append(long millis, boolean merge, double... sample) {
+
+        if (sample.length != channels) {
+            throw new IllegalArgumentException("Expected " + channels + " values, got " + sample.length);
+        }
+
+        if (!isEmpty()) {
+
+            var last = slot(nextSeq - 1);
+
+            if (millis < time[last]) {
+                return false;
+            }
+
+            if (merge && same(last, sample)) {
+
+                // Slower on the way in, faster on the way out. The pyramid refers to sequence numbers, not times,
+                // so it stays valid.
+                time[last] = millis;
+                expire(millis);
+
+                return true;
+            }
+        }
+
+        expire(millis);
+
+        if (size() == mask + 1) {
+            grow();
+        }
+
+        var slot = slot(nextSeq);
+
+        time[slot] = millis;
+
+        for (var channel = 0; channel < channels; channel++) {
+            values[channel][slot] = sample[channel];
+        }
+
+        index(nextSeq, false);
+        nextSeq++;
+
+        return true;
+    }
+
+    private boolean same(int slot, double[] sample) {
+
+        for (var channel = 0; channel < channels; channel++) {
+            if (Double.compare(values[channel][slot], sample[channel]) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Expire all the samples older than the given time by {@link #expirationInterval}.
+     */
+    private void expire(long now) {
+
+        var expireBefore = now - expirationInterval;
+
+        while (headSeq < nextSeq && time[slot(headSeq)] < expireBefore) {
+            headSeq++;
+        }
+    }
+
+    /**
+     * Add the sample to the pyramid.
+     *
+     * @param seq Sample sequence number.
+     * @param first {@code true} if this is the first retained sample, and blocks it belongs to must be started over.
+     */
+    private void index(long seq, boolean first) {
+
+        var value = values[0][slot(seq)];
+
+        for (var level = 1; level <= minSeq.length; level++) {
+
+            var offset = level - 1;
+            var blockSlot = (int) ((seq >> level) & (minSeq[offset].length - 1));
+
+            if (first || (seq & ((1L << level) - 1)) == 0) {
+
+                minSeq[offset][blockSlot] = seq;
+                maxSeq[offset][blockSlot] = seq;
+                continue;
+            }
+
+            // Strict comparisons keep the oldest of equal values, it doesn't matter which one is picked
+            if (value < values[0][slot(minSeq[offset][blockSlot])]) {
+                minSeq[offset][blockSlot] = seq;
+            }
+
+            if (value > values[0][slot(maxSeq[offset][blockSlot])]) {
+                maxSeq[offset][blockSlot] = seq;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+
+        var levels = Integer.numberOfTrailingZeros(capacity);
+
+        mask = capacity - 1;
+        time = new long[capacity];
+        values = new double[channels][capacity];
+        minSeq = new long[levels][];
+        maxSeq = new long[levels][];
+
+        for (var level = 1; level <= levels; level++) {
+            minSeq[level - 1] = new long[capacity >> level];
+            maxSeq[level - 1] = new long[capacity >> level];
+        }
+    }
+
+    /**
+     * Double the capacity, keeping the sequence numbers.
+     */
+    private void grow() {
+
+        var oldMask = mask;
+        var oldTime = time;
+        var oldValues = values;
+
+        allocate((mask + 1) * 2);
+
+        for (var seq = headSeq; seq < nextSeq; seq++) {
+
+            var from = (int) (seq & oldMask);
+            var to = slot(seq);
+
+            time[to] = oldTime[from];
+
+            for (var channel = 0; channel < channels; channel++) {
+                values[channel][to] = oldValues[channel][from];
+            }
+
+            index(seq, seq == headSeq);
+        }
+    }
+
+    private int slot(long seq) {
+        return (int) (seq & mask);
+    }
+
+    /**
+     * Select the samples worth painting.
+     *
+     * If all samples in the range fit into {@code indices}, they are all selected. Otherwise, the range is split
+     * into blocks, and the minimum and the maximum of the first channel in each block are selected, in time order.
+     * One sample on either side of the range, if present, is included so that lines can be drawn to the edges.
+     *
+     * @param from Start of the time range, inclusive.
+     * @param to End of the time range, inclusive.
+     * @param indices Buffer to put the sample indices into, at least 8 elements long. For a chart {@code W} pixels wide,
+     * {@code 2 * W} is a good size.
+     *
+     * @return Number of indices selected, in ascending order.
+     */
+    public final int select(long from, long to, int[] indices) {
+
+        if (indices.length < 8) {
+            throw new IllegalArgumentException("Buffer too short: " + indices.length);
+        }
+
+        var lo = Math.max(headSeq, lowerBound(from) - 1);
+        var hi = Math.min(nextSeq, lowerBound(to + 1) + 1);
+        var count = 0;
+
+        if (hi - lo <= indices.length) {
+
+            for (var seq = lo; seq < hi; seq++) {
+                indices[count++] = (int) (seq - headSeq);
+            }
+
+            return count;
+        }
+
+        var n = hi - lo;
+        var level = 1;
+
+        // At most two samples per block, plus the partial blocks at both ends, plus some slack
+        while (level < minSeq.length && 2 * ((n >> level) + 3) > indices.length) {
+            level++;
+        }
+
+        var blockSize = 1L << level;
+        var firstFull = Math.min(hi, (lo + blockSize - 1) & -blockSize);
+        var lastFull = Math.max(firstFull, hi & -blockSize);
+
+        count = selectRange(lo, firstFull, level, indices, count);
+
+        var offset = level - 1;
+        var levelMask = minSeq[offset].length - 1;
+
+        for (var start = firstFull; start < lastFull; start += blockSize) {
+
+            var blockSlot = (int) ((start >> level) & levelMask);
+            count = emit(minSeq[offset][blockSlot], maxSeq[offset][blockSlot], indices, count);
+        }
+
+        return selectRange(lastFull, hi, level, indices, count);
+    }
+
+    /**
+     * Select the minimum and the maximum of an arbitrary range, using blocks below the given level.
+     */
+    private int selectRange(long start, long end, int level, int[] indices, int count) {
+
+        if (start >= end) {
+            return count;
+        }
+
+        var min = start;
+        var max = start;
+        var seq = start;
+
+        while (seq < end) {
+
+            // Largest aligned block that starts here and fits
+            var j = Math.min(level - 1, Long.numberOfTrailingZeros(seq));
+
+            while (j > 0 && seq + (1L << j) > end) {
+                j--;
+            }
+
+            long blockMin;
+            long blockMax;
+
+            if (j == 0) {
+                blockMin = seq;
+                blockMax = seq;
+            } else {
+                var blockSlot = (int) ((seq >> j) & (minSeq[j - 1].length - 1));
+                blockMin = minSeq[j - 1][blockSlot];
+                blockMax = maxSeq[j - 1][blockSlot];
+            }
+
+            if (values[0][slot(blockMin)] < values[0][slot(min)]) {
+                min = blockMin;
+            }
+
+            if (values[0][slot(blockMax)] > values[0][slot(max)]) {
+                max = blockMax;
+            }
+
+            seq += 1L << j;
+        }
+
+        return emit(min, max, indices, count);
+    }
+
+    private int emit(long min, long max, int[] indices, int count) {
+
+        if (min == max) {
+            indices[count++] = (int) (min - headSeq);
+            return count;
+        }
+
+        indices[count++] = (int) (Math.min(min, max) - headSeq);
+        indices[count++] = (int) (Math.max(min, max) - headSeq);
+
+        return count;
+    }
+
+    /**
+     * Find the first sample not older than the given time.
+     *
+     * @return Sequence number of the sample found, or {@link #nextSeq} if there's none.
+     */
+    private long lowerBound(long millis) {
+
+        var lo = headSeq;
+        var hi = nextSeq;
+
+        while (lo < hi) {
+
+            var mid = (lo + hi) >>> 1;
+
+            if (time[slot(mid)] < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     * Get the sample time.
+     *
+     * @param index Sample index, {@code 0} being the oldest retained sample.
+     *
+     * @return Sample time, milliseconds.
+     */
+    public final long getTime(int index) {
+        return time[slot(seq(index))];
+    }
+
+    /**
+     * Get the first channel value.
+     *
+     * @param index Sample index, {@code 0} being the oldest retained sample.
+     *
+     * @return Sample value.
+     */
+    public final double getValue(int index) {
+        return getValue(0, index);
+    }
+
+    /**
+     * Get the channel value.
+     *
+     * @param channel Channel to get the value from.
+     * @param index Sample index, {@code 0} being the oldest retained sample.
+     *
+     * @return Sample value.
+     */
+    public final double getValue(int channel, int index) {
+        return values[channel][slot(seq(index))];
+    }
+
+    private long seq(int index) {
+
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+
+        return headSeq + index;
+    }
+
+    /**
+     * Get the number of samples retained.
+     *
+     * @return Sample count.
+     */
+    public final int size() {
+        return (int) (nextSeq - headSeq);
+    }
+
+    public final boolean isEmpty() {
+        return nextSeq == headSeq;
+    }
+
+    public final void clear() {
+        headSeq = nextSeq;
+    }
+}
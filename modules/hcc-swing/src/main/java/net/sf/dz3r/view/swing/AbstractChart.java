@@ -1,9 +1,11 @@
 package net.sf.dz3r.view.swing;
 
+import net.sf.dz3r.common.TimeSeries;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.view.swing.zone.AbstractZoneChart;
 import org.apache.logging.log4j.ThreadContext;
 
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
@@ -12,8 +14,10 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Insets;
 import java.awt.Stroke;
+import java.awt.Transparency;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
@@ -21,6 +25,12 @@ import java.time.temporal.ChronoUnit;
 /**
  * Base class for all the charts.
  *
+ * Charts are rendered incrementally, into two cached layers. The grid layer (background, time and value grids)
+ * doesn't move and is only rebuilt when the chart is resized, rescaled, or switched between Celsius and Fahrenheit.
+ * The series layer is scrolled left by the number of whole pixels elapsed since it was last painted, and then
+ * only the part of it right of the {@link #getSettledTime() settled time} is repainted. Both layers are only
+ * ever touched on the AWT event thread.
+ *
  * @param <T> Signal value type.
  * @param <P> Extra payload type.
  *
@@ -109,7 +119,7 @@ public abstract class AbstractChart<T, P> extends SwingSink<T, P> {
 
     /**
      * Chart width in pixels for all the charts. Undefined until the first time
-     * {@link #paintCharts(Graphics2D, Dimension, Insets, long, double, long, double, double)}
+     * {@link #paintCharts(Graphics2D, Dimension, Insets, long, long, double, long, double, double)}
      * for any instance of this class is called.
      *
      * Making it static is ugly, but gets the job done - all the charts have the same width.
@@ -120,10 +130,15 @@ public abstract class AbstractChart<T, P> extends SwingSink<T, P> {
      * Chart width of this instance.
      *
      * @see AbstractChart#getGlobalWidth()
-     * @see #paintCharts(Graphics2D, Dimension, Insets, long, double, long, double, double)
+     * @see #paintCharts(Graphics2D, Dimension, Insets, long, long, double, long, double, double)
      */
     protected int localWidth = 0;
 
+    /**
+     * @see #getSelection(int)
+     */
+    private int[] selection = new int[0];
+
     /**
      * Fahrenheit flag.
      *
@@ -133,6 +148,34 @@ public abstract class AbstractChart<T, P> extends SwingSink<T, P> {
      */
     private boolean needFahrenheit;
 
+    /**
+     * Everything the cached layers depend on, other than time. Layers are rebuilt when this changes.
+     */
+    private transient LayerKey layerKey;
+
+    /**
+     * Background, time grid and value grid.
+     */
+    private transient BufferedImage gridLayer;
+
+    /**
+     * All the series, transparent where there's nothing.
+     */
+    private transient BufferedImage seriesLayer;
+
+    /**
+     * The time {@link #seriesLayer} was painted for, milliseconds. Fractional so that scrolling
+     * by whole pixels doesn't accumulate rounding errors.
+     */
+    private double seriesTime;
+
+    /**
+     * The time after which {@link #seriesLayer} must be repainted next time.
+     *
+     * @see #getSettledTime()
+     */
+    private long settledTime;
+
     protected AbstractChart(Clock clock, long chartLengthMillis, boolean needFahrenheit) {
 
         if (chartLengthMillis < 1000 * 10) {
@@ -155,7 +198,7 @@ public abstract class AbstractChart<T, P> extends SwingSink<T, P> {
     }
 
     @Override
-    public synchronized void paintComponent(Graphics g) {
+    public void paintComponent(Graphics g) {
 
         ThreadContext.push("paintComponent");
         long startTime = clock.instant().toEpochMilli();
@@ -169,25 +212,45 @@ public abstract class AbstractChart<T, P> extends SwingSink<T, P> {
             var boundary = getSize();
             var insets = getInsets();
 
-            paintBackground(g2d, boundary, insets);
-
             var now = clock.instant().toEpochMilli();
             var xScale = (double) (boundary.width - insets.left - insets.right) / (double) chartLengthMillis;
-            var xOffset = now - chartLengthMillis;
-
-            paintTimeGrid(g2d, boundary, insets, now, xScale, xOffset);
 
             checkWidth(boundary);
 
-            if (!isDataAvailable()) {
+            // Read once, they may be changed by the signal thread any moment
+            var min = dataMin;
+            var max = dataMax;
+
+            if (!isDataAvailable() || min == null || max == null) {
+
+                paintBackground(g2d, boundary, insets);
+                paintTimeGrid(g2d, boundary, insets, now, xScale, now - chartLengthMillis);
+
                 return;
             }
 
-            var yScale = (boundary.height - insets.bottom - insets.top) / (dataMax - dataMin + PADDING * 2);
-            var yOffset = dataMax + PADDING;
+            var yScale = (boundary.height - insets.bottom - insets.top) / (max - min + PADDING * 2);
+            var yOffset = max + PADDING;
 
-            paintValueGrid(g2d, boundary, insets, yScale, yOffset);
-            paintCharts(g2d, boundary, insets, now, xScale, xOffset, yScale, yOffset);
+            var key = new LayerKey(boundary.width, boundary.height, insets, min, max, needFahrenheit, getBackground());
+
+            if (!key.equals(layerKey)) {
+
+                logger.debug("layers invalidated: {}", key);
+
+                layerKey = key;
+                gridLayer = null;
+                seriesLayer = null;
+            }
+
+            if (gridLayer == null) {
+                gridLayer = paintGridLayer(boundary, insets, now, xScale, yScale, yOffset);
+            }
+
+            paintSeriesLayer(boundary, insets, now, xScale, yScale, yOffset);
+
+            g2d.drawImage(gridLayer, 0, 0, null);
+            g2d.drawImage(seriesLayer, 0, 0, null);
 
             logger.debug("Painted in {}ms", clock.instant().toEpochMilli() - startTime);
 
@@ -199,6 +262,103 @@ public abstract class AbstractChart<T, P> extends SwingSink<T, P> {
         }
     }
 
+    private BufferedImage createLayer(Dimension boundary) {
+
+        var gc = getGraphicsConfiguration();
+
+        return gc == null
+                ? new BufferedImage(boundary.width, boundary.height, BufferedImage.TYPE_INT_ARGB)
+                : gc.createCompatibleImage(boundary.width, boundary.height, Transparency.TRANSLUCENT);
+    }
+
+    @SuppressWarnings("squid:S107")
+    private BufferedImage paintGridLayer(Dimension boundary, Insets insets, long now, double xScale, double yScale, double yOffset) {
+
+        var layer = createLayer(boundary);
+        var g2d = layer.createGraphics();
+
+        try {
+
+            paintBackground(g2d, boundary, insets);
+
+            // Grid lines are spaced from the right edge, so they don't move as the time goes
+            paintTimeGrid(g2d, boundary, insets, now, xScale, now - chartLengthMillis);
+            paintValueGrid(g2d, boundary, insets, yScale, yOffset);
+
+        } finally {
+            g2d.dispose();
+        }
+
+        return layer;
+    }
+
+    /**
+     * Bring {@link #seriesLayer} up to date.
+     *
+     * Scroll it left by whole pixels elapsed since it was painted last, then repaint everything right of
+     * the {@link #settledTime}, or the area uncovered by scrolling, whichever is wider.
+     */
+    @SuppressWarnings("squid:S107")
+    private void paintSeriesLayer(Dimension boundary, Insets insets, long now, double xScale, double yScale, double yOffset) {
+
+        var plotWidth = boundary.width - insets.left - insets.right;
+        var plotRight = boundary.width - insets.right;
+
+        if (seriesLayer == null) {
+            seriesLayer = createLayer(boundary);
+            settledTime = Long.MIN_VALUE;
+        }
+
+        var shift = (int) ((now - seriesTime) * xScale);
+
+        if (shift >= plotWidth || settledTime == Long.MIN_VALUE) {
+
+            // Nothing to keep
+            seriesTime = now;
+            settledTime = Long.MIN_VALUE;
+            shift = 0;
+
+        } else if (shift > 0) {
+
+            // Advance by exactly as many pixels as we've scrolled, the remainder will be picked up next time
+            seriesTime += shift / xScale;
+        }
+
+        var layerNow = (long) seriesTime;
+        var xOffset = layerNow - chartLengthMillis;
+
+        // One pixel to the left, to repaint antialiasing artifacts
+        var settledX = settledTime == Long.MIN_VALUE
+                ? insets.left
+                : (int) Math.floor((Math.max(settledTime, xOffset) - xOffset) * xScale) + insets.left - 1;
+        var clipX = Math.max(insets.left, Math.min(settledX, plotRight - shift));
+        var from = (long) Math.floor((clipX - insets.left) / xScale) + xOffset;
+
+        var g2d = seriesLayer.createGraphics();
+
+        try {
+
+            if (shift > 0) {
+
+                // Transparent pixels must replace what was there, not blend with it
+                g2d.setComposite(AlphaComposite.Src);
+                g2d.copyArea(insets.left + shift, 0, plotWidth - shift, boundary.height, -shift, 0);
+            }
+
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(clipX, 0, plotRight - clipX, boundary.height);
+            g2d.setComposite(AlphaComposite.SrcOver);
+            g2d.clipRect(clipX, 0, plotRight - clipX, boundary.height);
+
+            paintCharts(g2d, boundary, insets, layerNow, from, xScale, xOffset, yScale, yOffset);
+
+        } finally {
+            g2d.dispose();
+        }
+
+        settledTime = getSettledTime();
+    }
+
     private void paintBackground(Graphics2D g2d, Dimension boundary, Insets insets) {
 
         g2d.setPaint(getBackground());
@@ -448,14 +608,89 @@ public abstract class AbstractChart<T, P> extends SwingSink<T, P> {
         return globalWidth;
     }
 
+    /**
+     * Get the buffer to {@link net.sf.dz3r.common.TimeSeries#select(long, long, int[]) select} samples into.
+     *
+     * Only to be used from the painting thread. Two samples per pixel are enough to preserve all peaks.
+     *
+     * @param width Chart width in pixels.
+     *
+     * @return Buffer at least {@code 2 * width} elements long, reused between calls.
+     */
+    protected final int[] getSelection(int width) {
+
+        var length = Math.max(8, width * 2);
+
+        if (selection.length < length) {
+            selection = new int[length];
+        }
+
+        return selection;
+    }
+
     protected abstract boolean isDataAvailable();
     protected abstract Limits recalculateVerticalLimits();
 
+    /**
+     * Get the time up to which the painted series are not going to change anymore.
+     *
+     * @return The earliest time new samples may affect the painting at, {@link Long#MAX_VALUE} if there's nothing
+     * to change, {@link Long#MIN_VALUE} if everything needs to be repainted.
+     *
+     * @see #getSettledTime(TimeSeries)
+     */
+    protected abstract long getSettledTime();
+
+    /**
+     * Get the time up to which the series painting is not going to change anymore.
+     *
+     * A new sample only affects the segment leading to it from the last one, and a merged sample
+     * moves the last one, so everything up to the second to last sample is settled.
+     *
+     * @param ds Series to examine. Caller is responsible for synchronization.
+     *
+     * @return The time of the second to last sample, or {@link Long#MAX_VALUE} if the series is empty,
+     * or {@link Long#MIN_VALUE} if there's just one sample and there may be lines leading to it from the left edge.
+     */
+    protected static long getSettledTime(TimeSeries ds) {
+
+        var size = ds.size();
+
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+
+        return size == 1 ? Long.MIN_VALUE : ds.getTime(size - 2);
+    }
+
+    /**
+     * Paint the series.
+     *
+     * Only samples from {@code from} onward need to be painted, the graphics context is clipped accordingly.
+     *
+     * @param now Time at the right edge of the chart.
+     * @param from Time to paint the series from.
+     * @param xOffset Time at the left edge of the chart.
+     */
     @SuppressWarnings("squid:S107")
     protected abstract void paintCharts(
-            Graphics2D g2d, Dimension boundary, Insets insets, long now,
+            Graphics2D g2d, Dimension boundary, Insets insets, long now, long from,
             double xScale, long xOffset, double yScale, double yOffset);
 
+    /**
+     * Everything the layers depend on, other than time.
+     */
+    private record LayerKey(
+            int width,
+            int height,
+            Insets insets,
+            double dataMin,
+            double dataMax,
+            boolean needFahrenheit,
+            Color background) {
+
+    }
+
     protected static class Limits {
         public final Double min;
         public final Double max;
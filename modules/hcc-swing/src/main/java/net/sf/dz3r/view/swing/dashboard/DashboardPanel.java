@@ -46,6 +46,7 @@ public class DashboardPanel extends EntityPanel<SystemStatus, Void> {
             new TreeMap<>(),
             new TreeMap<>(),
             new TreeMap<>(),
+            new TreeMap<>(),
             new TreeMap<>());
 
     public DashboardPanel(InstrumentCluster ic, ScreenDescriptor screenDescriptor) {
@@ -1,7 +1,7 @@
 package net.sf.dz3r.view.swing.sensor;
 
 
-import net.sf.dz3r.common.DataSet;
+import net.sf.dz3r.common.TimeSeries;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.view.swing.AbstractChart;
 import net.sf.dz3r.view.swing.ColorScheme;
@@ -14,12 +14,13 @@ import java.awt.RenderingHints;
 import java.awt.geom.Line2D;
 import java.time.Clock;
 import java.time.Duration;
-import java.util.Iterator;
-import java.util.Map;
 
 public class SensorChart extends AbstractChart<Double, Void> {
 
-    private final transient DataSet<Double> values = new DataSet<>(chartLengthMillis);
+    /**
+     * Averaged sensor values. Appended to from the signal thread, painted from the AWT thread, hence synchronized on.
+     */
+    private final transient TimeSeries values = new TimeSeries(1, chartLengthMillis);
     private transient DoubleAverager averager;
 
     protected SensorChart(Clock clock, long chartLengthMillis) {
@@ -66,7 +67,9 @@ public class SensorChart extends AbstractChart<Double, Void> {
             return false;
         }
 
-        values.append(signal.timestamp.toEpochMilli(), value);
+        synchronized (values) {
+            values.append(signal.timestamp.toEpochMilli(), false, value);
+        }
 
         return true;
     }
@@ -84,20 +87,22 @@ public class SensorChart extends AbstractChart<Double, Void> {
         Double max = null;
         Long minmaxTime = null;
 
-        for (Iterator<Map.Entry<Long, Double>> i2 = values.entryIterator(); i2.hasNext(); ) {
+        synchronized (values) {
 
-            var entry = i2.next();
-            var timestamp = entry.getKey();
-            var value = entry.getValue();
+            for (var offset = 0; offset < values.size(); offset++) {
 
-            if (max == null || value > max) {
-                max = value;
-                minmaxTime = timestamp;
-            }
+                var timestamp = values.getTime(offset);
+                var value = values.getValue(offset);
+
+                if (max == null || value > max) {
+                    max = value;
+                    minmaxTime = timestamp;
+                }
 
-            if (min == null || value < min) {
-                min = value;
-                minmaxTime = timestamp;
+                if (min == null || value < min) {
+                    min = value;
+                    minmaxTime = timestamp;
+                }
             }
         }
 
@@ -109,27 +114,39 @@ public class SensorChart extends AbstractChart<Double, Void> {
         return result;
     }
 
+    @Override
+    protected long getSettledTime() {
+        synchronized (values) {
+            return getSettledTime(values);
+        }
+    }
+
     @Override
     protected void paintCharts(Graphics2D g2d, Dimension boundary, Insets insets,
-                               long now, double xScale, long xOffset, double yScale, double yOffset) {
+                               long now, long from, double xScale, long xOffset, double yScale, double yOffset) {
 
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        paintValues(g2d, insets, now, xScale, xOffset, yScale, yOffset, values);
+
+        synchronized (values) {
+            paintValues(g2d, insets, now, from, xScale, xOffset, yScale, yOffset, values, getSelection(boundary.width));
+        }
     }
 
+    @SuppressWarnings("squid:S107")
     private void paintValues(Graphics2D g2d, Insets insets,
-                             long now, double xScale, long xOffset, double yScale, double yOffset,
-                             DataSet<Double> ds) {
-        Long timeTrailer = null;
-        Double trailer = null;
+                             long now, long from, double xScale, long xOffset, double yScale, double yOffset,
+                             TimeSeries ds, int[] selection) {
+
+        var count = ds.select(from, now, selection);
+        var timeTrailer = 0L;
+        var trailer = 0d;
 
-        for (var di = ds.entryIterator(); di.hasNext();) {
+        for (var offset = 0; offset < count; offset++) {
 
-            var entry = di.next();
-            var timeNow = entry.getKey();
-            var cursor = entry.getValue();
+            var timeNow = ds.getTime(selection[offset]);
+            var cursor = ds.getValue(selection[offset]);
 
-            if (timeTrailer != null) {
+            if (offset > 0) {
 
                 var x0 = (timeTrailer - xOffset) * xScale + insets.left;
                 var y0 = (yOffset - trailer) * yScale + insets.top;
@@ -164,7 +181,7 @@ public class SensorChart extends AbstractChart<Double, Void> {
             trailer = cursor;
         }
 
-        if (timeTrailer != null && now - timeTrailer > DEAD_TIMEOUT.toMillis()) {
+        if (count > 0 && now - timeTrailer > DEAD_TIMEOUT.toMillis()) {
 
             // There's a gap on the right, let's fill it
 
@@ -37,7 +37,12 @@ public class UnitChart extends AbstractChart<HvacDeviceStatus, Void> {
     }
 
     @Override
-    protected void paintCharts(Graphics2D g2d, Dimension boundary, Insets insets, long now, double xScale, long xOffset, double yScale, double yOffset) {
+    protected long getSettledTime() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    protected void paintCharts(Graphics2D g2d, Dimension boundary, Insets insets, long now, long from, double xScale, long xOffset, double yScale, double yOffset) {
         logger.debug("FIXME: paintCharts()");
     }
 
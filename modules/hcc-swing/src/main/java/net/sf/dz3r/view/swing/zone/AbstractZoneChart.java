@@ -1,6 +1,6 @@
 package net.sf.dz3r.view.swing.zone;
 
-import net.sf.dz3r.common.DataSet;
+import net.sf.dz3r.common.TimeSeries;
 import net.sf.dz3r.signal.Signal;
 import net.sf.dz3r.view.swing.AbstractChart;
 import net.sf.dz3r.view.swing.ColorScheme;
@@ -26,24 +26,49 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public abstract class AbstractZoneChart extends AbstractChart<ZoneChartDataPoint, Void> {
 
     /**
-     * Thermostat output signals.
+     * {@link #dsValues} channel holding {@link ThermostatTintedValue#value}.
      */
-    protected final transient DataSet<ThermostatTintedValue> dsValues = new DataSet<>(chartLengthMillis);
+    protected static final int VALUE = 0;
+
+    /**
+     * {@link #dsValues} channel holding {@link ThermostatTintedValue#tint}.
+     */
+    protected static final int TINT = 1;
+
+    /**
+     * {@link #dsValues} channel holding {@link ThermostatTintedValue#emphasize}, {@code 1} for {@code true}.
+     */
+    protected static final int EMPHASIZE = 2;
+
+    /**
+     * {@link #dsEconomizer} channel holding {@link EconomizerTintedValue#ambient}.
+     */
+    protected static final int AMBIENT = 0;
+
+    /**
+     * {@link #dsEconomizer} channel holding {@link EconomizerTintedValue#signal}.
+     */
+    protected static final int SIGNAL = 1;
+
+    /**
+     * Thermostat output signals, see {@link #VALUE}, {@link #TINT}, {@link #EMPHASIZE}.
+     */
+    protected final transient TimeSeries dsValues = new TimeSeries(3, chartLengthMillis);
 
     /**
      * Thermostat setpoints.
      */
-    protected final transient DataSet<Double> dsSetpoints = new DataSet<>(chartLengthMillis);
+    protected final transient TimeSeries dsSetpoints = new TimeSeries(1, chartLengthMillis);
 
     /**
-     * Economizer status signals.
+     * Economizer status signals, see {@link #AMBIENT}, {@link #SIGNAL}.
      */
-    protected final transient DataSet<EconomizerTintedValue> dsEconomizer = new DataSet<>(chartLengthMillis);
+    protected final transient TimeSeries dsEconomizer = new TimeSeries(2, chartLengthMillis);
 
     /**
      * Economizer target temperatures.
      */
-    protected final transient DataSet<Double> dsTargets = new DataSet<>(chartLengthMillis);
+    protected final transient TimeSeries dsTargets = new TimeSeries(1, chartLengthMillis);
 
     /**
      * Lock common for all the data sets. Suboptimal, but not a bottleneck.
@@ -67,24 +92,40 @@ public abstract class AbstractZoneChart extends AbstractChart<ZoneChartDataPoint
         return !dsValues.isEmpty() && dataMax != null && dataMin != null;
     }
 
+    @Override
+    protected final long getSettledTime() {
+
+        lock.readLock().lock();
+
+        try {
+
+            return Math.min(
+                    Math.min(getSettledTime(dsValues), getSettledTime(dsSetpoints)),
+                    Math.min(getSettledTime(dsEconomizer), getSettledTime(dsTargets)));
+
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     protected final void paintCharts(
-            Graphics2D g2d, Dimension boundary, Insets insets, long now,
+            Graphics2D g2d, Dimension boundary, Insets insets, long now, long from,
             double xScale, long xOffset, double yScale, double yOffset) {
 
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        paintChart(g2d, boundary, insets, now, xScale, xOffset, yScale, yOffset, dsValues, dsEconomizer, lock, dsTargets, dsSetpoints);
+        paintChart(g2d, boundary, insets, now, from, xScale, xOffset, yScale, yOffset, dsValues, dsEconomizer, lock, dsTargets, dsSetpoints);
     }
 
     @SuppressWarnings("squid:S107")
     protected abstract void paintChart(
-            Graphics2D g2d, Dimension boundary, Insets insets, long now,
+            Graphics2D g2d, Dimension boundary, Insets insets, long now, long from,
             double xScale, long xOffset, double yScale, double yOffset,
-            DataSet<ThermostatTintedValue> dsValues,
-            DataSet<EconomizerTintedValue> dsEconomizer,
+            TimeSeries dsValues,
+            TimeSeries dsEconomizer,
             ReadWriteLock lock,
-            DataSet<Double> dsTargets,
-            DataSet<Double> dsSetpoints);
+            TimeSeries dsTargets,
+            TimeSeries dsSetpoints);
 
     /**
      * Calculate {@link #dataMin} and {@link #dataMax} based on all values available in {@link #dsValues}.
@@ -98,43 +139,49 @@ public abstract class AbstractZoneChart extends AbstractChart<ZoneChartDataPoint
         Double max = null;
         Long minmaxTime = null;
 
-        for (var i = dsValues.entryIterator(); i.hasNext(); ) {
+        lock.readLock().lock();
 
-            var entry = i.next();
-            var timestamp = entry.getKey();
-            var tv = entry.getValue();
+        try {
 
-            if (max == null || tv.value > max) {
-                max = tv.value;
-                minmaxTime = timestamp;
-            }
+            for (var offset = 0; offset < dsValues.size(); offset++) {
 
-            if (min == null || tv.value < min) {
-                min = tv.value;
-                minmaxTime = timestamp;
+                var timestamp = dsValues.getTime(offset);
+                var value = dsValues.getValue(VALUE, offset);
+
+                if (max == null || value > max) {
+                    max = value;
+                    minmaxTime = timestamp;
+                }
+
+                if (min == null || value < min) {
+                    min = value;
+                    minmaxTime = timestamp;
+                }
             }
-        }
 
-        logger.info("minmax/thermostat set to {}/{}", min, max);
+            logger.info("minmax/thermostat set to {}/{}", min, max);
 
-        for (var i = dsEconomizer.entryIterator(); i.hasNext(); ) {
+            for (var offset = 0; offset < dsEconomizer.size(); offset++) {
 
-            var entry = i.next();
-            var timestamp = entry.getKey();
-            var tv = entry.getValue();
+                var timestamp = dsEconomizer.getTime(offset);
+                var ambient = dsEconomizer.getValue(AMBIENT, offset);
 
-            if (max == null || tv.ambient > max) {
-                max = tv.ambient;
-                minmaxTime = timestamp;
-            }
+                if (max == null || ambient > max) {
+                    max = ambient;
+                    minmaxTime = timestamp;
+                }
 
-            if (min == null || tv.ambient < min) {
-                min = tv.ambient;
-                minmaxTime = timestamp;
+                if (min == null || ambient < min) {
+                    min = ambient;
+                    minmaxTime = timestamp;
+                }
             }
-        }
 
-        logger.info("minmax/eco adjusted to   {}/{}", min, max);
+            logger.info("minmax/eco adjusted to   {}/{}", min, max);
+
+        } finally {
+            lock.readLock().unlock();
+        }
 
         var result = new Limits(min, max, minmaxTime);
 
@@ -1,6 +1,6 @@
 package net.sf.dz3r.view.swing.zone;
 
-import net.sf.dz3r.common.DataSet;
+import net.sf.dz3r.common.TimeSeries;
 import net.sf.dz3r.signal.Signal;
 
 import java.awt.Color;
@@ -136,8 +136,10 @@ public class ZoneChart2021 extends AbstractZoneChart {
             return false;
         }
 
-        dsValues.append(timestamp, thermostatTintedValue, true);
-        dsSetpoints.append(timestamp, setpoint, true);
+        dsValues.append(
+                timestamp, false,
+                thermostatTintedValue.value, thermostatTintedValue.tint, thermostatTintedValue.emphasize ? 1 : 0);
+        dsSetpoints.append(timestamp, true, setpoint);
 
         return true;
     }
@@ -154,31 +156,41 @@ public class ZoneChart2021 extends AbstractZoneChart {
             return false;
         }
 
-        dsEconomizer.append(timestamp, economizerTintedValue, true);
-        dsTargets.append(timestamp, target, true);
+        dsEconomizer.append(timestamp, false, economizerTintedValue.ambient, economizerTintedValue.signal);
+        dsTargets.append(timestamp, true, target);
 
         return true;
     }
 
     @Override
     protected void paintChart(Graphics2D g2d, Dimension boundary, Insets insets,
-                              long now, double xScale, long xOffset, double yScale, double yOffset,
-                              DataSet<ThermostatTintedValue> dsValues, DataSet<EconomizerTintedValue> dsEconomizer, ReadWriteLock lock,
-                              DataSet<Double> dsTargets, DataSet<Double> dsSetpoints) {
+                              long now, long from, double xScale, long xOffset, double yScale, double yOffset,
+                              TimeSeries dsValues, TimeSeries dsEconomizer, ReadWriteLock lock,
+                              TimeSeries dsTargets, TimeSeries dsSetpoints) {
 
         // Layer order: economizer, thermostat, economizer target, setpoint
 
-        paintEconomizerValues(g2d, insets, now, xScale, xOffset, yScale, yOffset, dsEconomizer, lock);
-        paintThermostatValues(g2d, insets, now, xScale, xOffset, yScale, yOffset, dsValues, lock);
+        // At most two samples per pixel get painted, no matter how many are retained
+        var selection = getSelection(boundary.width);
 
-        paintTargets(g2d, insets, xScale, xOffset, yScale, yOffset, dsTargets);
-        paintSetpoints(g2d, insets, xScale, xOffset, yScale, yOffset, dsSetpoints);
+        paintEconomizerValues(g2d, insets, now, from, xScale, xOffset, yScale, yOffset, dsEconomizer, lock, selection);
+        paintThermostatValues(g2d, insets, now, from, xScale, xOffset, yScale, yOffset, dsValues, lock, selection);
+
+        lock.readLock().lock();
+        try {
+
+            paintTargets(g2d, insets, now, from, xScale, xOffset, yScale, yOffset, dsTargets, selection);
+            paintSetpoints(g2d, insets, now, from, xScale, xOffset, yScale, yOffset, dsSetpoints, selection);
+
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @SuppressWarnings("squid:S107")
     private void paintEconomizerValues(Graphics2D g2d, Insets insets,
-                                       long now, double xScale, long xOffset, double yScale, double yOffset,
-                                       DataSet<EconomizerTintedValue> ds, ReadWriteLock lock) {
+                                       long now, long from, double xScale, long xOffset, double yScale, double yOffset,
+                                       TimeSeries ds, ReadWriteLock lock, int[] selection) {
 
         var lockNow = Instant.now().toEpochMilli();
 
@@ -187,22 +199,24 @@ public class ZoneChart2021 extends AbstractZoneChart {
 
             logger.debug("read/eco lock acquired in {}ms", Instant.now().toEpochMilli() - lockNow);
 
-            Long timeTrailer = null;
-            EconomizerTintedValue trailer = null;
+            var count = ds.select(from, now, selection);
+            var timeTrailer = 0L;
+            var trailerAmbient = 0d;
+            var trailerSignal = 0d;
 
-            for (var di = ds.entryIterator(); di.hasNext(); ) {
+            for (var offset = 0; offset < count; offset++) {
 
-                var entry = di.next();
-                var timeNow = entry.getKey();
-                var cursor = entry.getValue();
+                var timeNow = ds.getTime(selection[offset]);
+                var cursorAmbient = ds.getValue(AMBIENT, selection[offset]);
+                var cursorSignal = ds.getValue(SIGNAL, selection[offset]);
 
-                if (timeTrailer != null) {
+                if (offset > 0) {
 
                     var x0 = (timeTrailer - xOffset) * xScale + insets.left;
-                    var y0 = (yOffset - trailer.ambient) * yScale + insets.top;
+                    var y0 = (yOffset - trailerAmbient) * yScale + insets.top;
 
                     var x1 = (timeNow - xOffset) * xScale + insets.left;
-                    var y1 = (yOffset - cursor.ambient) * yScale + insets.top;
+                    var y1 = (yOffset - cursorAmbient) * yScale + insets.top;
 
                     // Decide whether the line is alive or dead
 
@@ -210,7 +224,7 @@ public class ZoneChart2021 extends AbstractZoneChart {
 
                         // It's dead, all right
                         // Paint the horizontal line in dead color and skew the x0 so the next part will be painted vertical
-                        var startColor = economizerSignalCache.signal2color(trailer.signal - 1, ECO_ALPHA);
+                        var startColor = economizerSignalCache.signal2color(trailerSignal - 1, ECO_ALPHA);
 
                         // End color differs from the start in alpha, not hue - this plays nicer with backgrounds
                         // Even though this is a memory allocation, it won't affect performance since [hopefully]
@@ -222,25 +236,26 @@ public class ZoneChart2021 extends AbstractZoneChart {
                         x0 = x1;
                     }
 
-                    var startColor = economizerSignalCache.signal2color(trailer.signal - 1, ECO_ALPHA);
-                    var endColor = economizerSignalCache.signal2color(cursor.signal - 1, ECO_ALPHA);
+                    var startColor = economizerSignalCache.signal2color(trailerSignal - 1, ECO_ALPHA);
+                    var endColor = economizerSignalCache.signal2color(cursorSignal - 1, ECO_ALPHA);
 
                     drawGradientLine(g2d, x0, y0, x1, y1, startColor, endColor, false);
                 }
 
                 timeTrailer = timeNow;
-                trailer = cursor;
+                trailerAmbient = cursorAmbient;
+                trailerSignal = cursorSignal;
             }
 
-            if (timeTrailer != null && now - timeTrailer > DEAD_TIMEOUT.toMillis()) {
+            if (count > 0 && now - timeTrailer > DEAD_TIMEOUT.toMillis()) {
 
                 // There's a gap on the right, let's fill it
 
                 var x0 = (timeTrailer - xOffset) * xScale + insets.left;
                 var x1 = (now - xOffset) * xScale + insets.left;
-                var y = (yOffset - trailer.ambient) * yScale + insets.top;
+                var y = (yOffset - trailerAmbient) * yScale + insets.top;
 
-                var startColor = economizerSignalCache.signal2color(trailer.signal - 1, ECO_ALPHA);
+                var startColor = economizerSignalCache.signal2color(trailerSignal - 1, ECO_ALPHA);
                 var endColor = getBackground();
 
                 drawGradientLine(g2d, x0, y, x1, y, startColor, endColor, false);
@@ -250,9 +265,10 @@ public class ZoneChart2021 extends AbstractZoneChart {
         }
     }
 
+    @SuppressWarnings("squid:S107")
     private void paintThermostatValues(Graphics2D g2d, Insets insets,
-                                       long now, double xScale, long xOffset, double yScale, double yOffset,
-                                       DataSet<ThermostatTintedValue> ds, ReadWriteLock lock) {
+                                       long now, long from, double xScale, long xOffset, double yScale, double yOffset,
+                                       TimeSeries ds, ReadWriteLock lock, int[] selection) {
 
         var lockNow = Instant.now().toEpochMilli();
 
@@ -261,22 +277,25 @@ public class ZoneChart2021 extends AbstractZoneChart {
 
             logger.debug("read/values lock acquired in {}ms", Instant.now().toEpochMilli() - lockNow);
 
-            Long timeTrailer = null;
-            ThermostatTintedValue trailer = null;
+            var count = ds.select(from, now, selection);
+            var timeTrailer = 0L;
+            var trailerValue = 0d;
+            var trailerTint = 0d;
 
-            for (var di = ds.entryIterator(); di.hasNext(); ) {
+            for (var offset = 0; offset < count; offset++) {
 
-                var entry = di.next();
-                var timeNow = entry.getKey();
-                var cursor = entry.getValue();
+                var timeNow = ds.getTime(selection[offset]);
+                var cursorValue = ds.getValue(VALUE, selection[offset]);
+                var cursorTint = ds.getValue(TINT, selection[offset]);
+                var cursorEmphasize = ds.getValue(EMPHASIZE, selection[offset]) > 0;
 
-                if (timeTrailer != null) {
+                if (offset > 0) {
 
                     var x0 = (timeTrailer - xOffset) * xScale + insets.left;
-                    var y0 = (yOffset - trailer.value) * yScale + insets.top;
+                    var y0 = (yOffset - trailerValue) * yScale + insets.top;
 
                     var x1 = (timeNow - xOffset) * xScale + insets.left;
-                    var y1 = (yOffset - cursor.value) * yScale + insets.top;
+                    var y1 = (yOffset - cursorValue) * yScale + insets.top;
 
                     // Decide whether the line is alive or dead
 
@@ -284,37 +303,38 @@ public class ZoneChart2021 extends AbstractZoneChart {
 
                         // It's dead, all right
                         // Paint the horizontal line in dead color and skew the x0 so the next part will be painted vertical
-                        var startColor = thermostatSignalCache.signal2color(trailer.tint - 1);
+                        var startColor = thermostatSignalCache.signal2color(trailerTint - 1);
 
                         // End color differs from the start in alpha, not hue - this plays nicer with backgrounds
                         // Even though this is a memory allocation, it won't affect performance since [hopefully]
                         // there'll be just a few dead drops
                         var endColor = new Color(startColor.getRed(), startColor.getGreen(), startColor.getBlue(), 0x40);
 
-                        drawGradientLine(g2d, x0, y0, x1, y0, startColor, endColor, cursor.emphasize);
+                        drawGradientLine(g2d, x0, y0, x1, y0, startColor, endColor, cursorEmphasize);
 
                         x0 = x1;
                     }
 
-                    var startColor = thermostatSignalCache.signal2color(trailer.tint - 1);
-                    var endColor = thermostatSignalCache.signal2color(cursor.tint - 1);
+                    var startColor = thermostatSignalCache.signal2color(trailerTint - 1);
+                    var endColor = thermostatSignalCache.signal2color(cursorTint - 1);
 
-                    drawGradientLine(g2d, x0, y0, x1, y1, startColor, endColor, cursor.emphasize);
+                    drawGradientLine(g2d, x0, y0, x1, y1, startColor, endColor, cursorEmphasize);
                 }
 
                 timeTrailer = timeNow;
-                trailer = cursor;
+                trailerValue = cursorValue;
+                trailerTint = cursorTint;
             }
 
-            if (timeTrailer != null && now - timeTrailer > DEAD_TIMEOUT.toMillis()) {
+            if (count > 0 && now - timeTrailer > DEAD_TIMEOUT.toMillis()) {
 
                 // There's a gap on the right, let's fill it
 
                 var x0 = (timeTrailer - xOffset) * xScale + insets.left;
                 var x1 = (now - xOffset) * xScale + insets.left;
-                var y = (yOffset - trailer.value) * yScale + insets.top;
+                var y = (yOffset - trailerValue) * yScale + insets.top;
 
-                var startColor = thermostatSignalCache.signal2color(trailer.tint - 1);
+                var startColor = thermostatSignalCache.signal2color(trailerTint - 1);
                 var endColor = getBackground();
 
                 drawGradientLine(g2d, x0, y, x1, y, startColor, endColor, false);
@@ -324,41 +344,41 @@ public class ZoneChart2021 extends AbstractZoneChart {
         }
     }
 
+    @SuppressWarnings("squid:S107")
     private void paintSetpoints(Graphics2D g2d, Insets insets,
-                                double xScale, long xOffset, double yScale, double yOffset,
-                                DataSet<Double> ds) {
+                                long now, long from, double xScale, long xOffset, double yScale, double yOffset,
+                                TimeSeries ds, int[] selection) {
 
-        paintSetpointLines(g2d, insets, xScale, xOffset, yScale, yOffset, ds, SETPOINT_COLOR);
+        paintSetpointLines(g2d, insets, now, from, xScale, xOffset, yScale, yOffset, ds, selection, SETPOINT_COLOR);
     }
+    @SuppressWarnings("squid:S107")
     private void paintTargets(Graphics2D g2d, Insets insets,
-                              double xScale, long xOffset, double yScale, double yOffset,
-                              DataSet<Double> ds) {
+                              long now, long from, double xScale, long xOffset, double yScale, double yOffset,
+                              TimeSeries ds, int[] selection) {
 
-        paintSetpointLines(g2d, insets, xScale, xOffset, yScale, yOffset, ds, TARGET_COLOR);
+        paintSetpointLines(g2d, insets, now, from, xScale, xOffset, yScale, yOffset, ds, selection, TARGET_COLOR);
     }
+    @SuppressWarnings("squid:S107")
     private void paintSetpointLines(Graphics2D g2d, Insets insets,
-                                    double xScale, long xOffset, double yScale, double yOffset,
-                                    DataSet<Double> ds,
+                                    long now, long from, double xScale, long xOffset, double yScale, double yOffset,
+                                    TimeSeries ds, int[] selection,
                                     Color baseColor) {
 
         var startColor = new Color(baseColor.getRed(), baseColor.getGreen(), baseColor.getBlue(), 64);
 
-        Long timeTrailer = null;
-
-        // VT: NOTE: This iterator is not protected by the read lock, the probability of concurrent access is much lower.
-        // If it starts blowing up, though...
+        var count = ds.select(from, now, selection);
+        var timeTrailer = 0L;
 
-        for (var di = ds.entryIterator(); di.hasNext();) {
+        for (var offset = 0; offset < count; offset++) {
 
-            var entry = di.next();
-            var timeNow = entry.getKey();
-            var cursor = entry.getValue();
+            var timeNow = ds.getTime(selection[offset]);
+            var cursor = ds.getValue(selection[offset]);
 
             double x0;
             double x1;
             var y = (yOffset - cursor) * yScale + insets.top;
 
-            if (timeTrailer == null) {
+            if (offset == 0) {
                 x0 = insets.left;
                 x1 = (timeNow - xOffset) * xScale + insets.left;
 
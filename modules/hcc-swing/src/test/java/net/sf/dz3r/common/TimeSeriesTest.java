@@ -0,0 +1,310 @@
+package net.sf.dz3r.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TimeSeriesTest {
+
+    @Test
+    void outOfOrderRejected() {
+
+        var ts = new TimeSeries(1, 10_000);
+
+        assertThat(ts.append(1000, false, 1)).isTrue();
+        assertThat(ts.append(999, false, 2)).isFalse();
+        assertThat(ts.append(999, true, 1)).isFalse();
+
+        // Same time is not going back in time
+        assertThat(ts.append(1000, false, 3)).isTrue();
+
+        assertThat(ts.size()).isEqualTo(2);
+        assertThat(ts.getValue(0)).isEqualTo(1);
+        assertThat(ts.getValue(1)).isEqualTo(3);
+    }
+
+    @Test
+    void wrongChannelCount() {
+
+        var ts = new TimeSeries(2, 10_000);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> ts.append(0, false, 1));
+    }
+
+    @Test
+    void merge() {
+
+        var ts = new TimeSeries(2, 10_000);
+
+        ts.append(0, true, 1, 10);
+        ts.append(100, true, 1, 10);
+
+        assertThat(ts.size()).isEqualTo(1);
+        assertThat(ts.getTime(0)).isEqualTo(100);
+
+        // Same first channel is not enough
+        ts.append(200, true, 1, 20);
+
+        assertThat(ts.size()).isEqualTo(2);
+        assertThat(ts.getValue(1, 1)).isEqualTo(20);
+
+        // Not merging if not asked to
+        ts.append(300, false, 1, 20);
+
+        assertThat(ts.size()).isEqualTo(3);
+        assertThat(ts.getTime(1)).isEqualTo(200);
+        assertThat(ts.getTime(2)).isEqualTo(300);
+    }
+
+    @Test
+    void mergeExpires() {
+
+        var ts = new TimeSeries(1, 1000);
+
+        ts.append(0, false, 5);
+        ts.append(500, false, 1);
+        ts.append(1200, true, 1);
+
+        // The merged sample moved forward in time far enough to push the first one out
+        assertThat(ts.size()).isEqualTo(1);
+        assertThat(ts.getTime(0)).isEqualTo(1200);
+        assertThat(ts.getValue(0)).isEqualTo(1);
+    }
+
+    @Test
+    void expiryAcrossWrap() {
+
+        var ts = new TimeSeries(1, 10_000);
+
+        // Never more than 12 samples retained, so the ring stays at its minimum capacity and wraps many times over
+        for (var offset = 0; offset < 100; offset++) {
+            ts.append(offset * 1000L, false, offset);
+        }
+
+        assertThat(ts.size()).isEqualTo(11);
+
+        for (var index = 0; index < ts.size(); index++) {
+            assertThat(ts.getTime(index)).isEqualTo((89 + index) * 1000L);
+            assertThat(ts.getValue(index)).isEqualTo(89 + index);
+        }
+
+        var indices = new int[16];
+
+        assertThat(Arrays.copyOf(indices, ts.select(0, 100_000, indices))).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+        ts.setExpirationInterval(2000);
+
+        assertThat(ts.size()).isEqualTo(3);
+        assertThat(ts.getTime(0)).isEqualTo(97_000);
+    }
+
+    @Test
+    void growWithNonZeroHead() {
+
+        var ts = new TimeSeries(1, 10_000);
+        var random = new Random(0);
+        var expected = new ArrayList<Double>();
+        var millis = 0L;
+        var appended = 0L;
+
+        // Move the head away from zero, and off the block boundaries
+        for (; appended < 37; appended++, millis += 1000) {
+            var value = random.nextDouble();
+            ts.append(millis, false, value);
+            expected.add(value);
+        }
+
+        // Then speed up so that the ring has to grow a few times while the head is in the middle of it
+        for (; appended < 237; appended++, millis += 50) {
+            var value = random.nextDouble();
+            ts.append(millis, false, value);
+            expected.add(value);
+        }
+
+        var headSeq = appended - ts.size();
+
+        assertThat(headSeq).isPositive();
+        assertThat(ts.size()).isGreaterThan(16);
+
+        for (var index = 0; index < ts.size(); index++) {
+            assertThat(ts.getValue(index)).as("value at %s", index).isEqualTo(expected.get((int) (headSeq + index)));
+        }
+
+        // The pyramid must have been rebuilt consistently
+        var indices = new int[8];
+
+        assertThat(Arrays.copyOf(indices, ts.select(0, millis, indices)))
+                .containsExactlyElementsOf(bruteForce(ts, headSeq, 0, millis, indices.length));
+    }
+
+    @Test
+    void selectAll() {
+
+        var ts = new TimeSeries(1, 100_000);
+
+        for (var offset = 0; offset < 10; offset++) {
+            ts.append(offset * 1000L, false, offset);
+        }
+
+        var indices = new int[16];
+
+        // One sample on either side of the range
+        assertThat(Arrays.copyOf(indices, ts.select(3500, 5500, indices))).containsExactly(3, 4, 5, 6);
+        assertThat(Arrays.copyOf(indices, ts.select(3000, 5000, indices))).containsExactly(2, 3, 4, 5, 6);
+        assertThat(ts.select(20_000, 30_000, indices)).isEqualTo(1);
+        assertThat(indices[0]).isEqualTo(9);
+    }
+
+    @Test
+    void selectAgainstBruteForce() {
+
+        var random = new Random(42);
+
+        for (var round = 0; round < 200; round++) {
+
+            var ts = new TimeSeries(1, 200_000);
+            var appended = 0L;
+            var millis = 0L;
+            var total = 50 + random.nextInt(3000);
+
+            for (; appended < total; appended++) {
+                // No ties, so there's only one right minimum and maximum in every block
+                ts.append(millis, false, random.nextDouble());
+                millis += 1 + random.nextInt(200);
+            }
+
+            var headSeq = appended - ts.size();
+            var from = (long) random.nextInt((int) millis);
+            var to = from + random.nextInt((int) (millis - from) + 1);
+            var indices = new int[8 + random.nextInt(200)];
+            var selected = Arrays.copyOf(indices, ts.select(from, to, indices));
+
+            assertThat(selected)
+                    .as("round %s, head %s, size %s, range %s..%s, buffer %s", round, headSeq, ts.size(), from, to, indices.length)
+                    .containsExactlyElementsOf(bruteForce(ts, headSeq, from, to, indices.length));
+            assertThat(selected).isSorted().doesNotHaveDuplicates();
+            assertThat(selected.length).isLessThanOrEqualTo(indices.length);
+        }
+    }
+
+    @Test
+    void selectKeepsPeaks() {
+
+        var ts = new TimeSeries(1, 1_000_000);
+        var random = new Random(1);
+        var peaks = new TreeSet<Integer>();
+
+        for (var offset = 0; offset < 10_000; offset++) {
+
+            var value = random.nextDouble();
+
+            // Spikes both ways, far enough apart not to share a block
+            if (offset % 1000 == 500) {
+                value = offset % 2000 == 500 ? 100 + offset : -100 - offset;
+                peaks.add(offset);
+            }
+
+            ts.append(offset * 10L, false, value);
+        }
+
+        // Downsampled to a chart 100 pixels wide
+        var indices = new int[200];
+        var selected = Arrays.copyOf(indices, ts.select(0, 100_000, indices));
+
+        assertThat(selected.length).isLessThan(ts.size());
+        assertThat(selected).isSorted().doesNotHaveDuplicates();
+        assertThat(selected).contains(peaks.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Compute the selection the straightforward way: find the range, split it into the same blocks
+     * {@link TimeSeries#select(long, long, int[])} uses, and find the minimum and the maximum in every block by scanning it.
+     *
+     * @param headSeq Sequence number of the oldest retained sample, blocks are aligned to sequence numbers.
+     */
+    private static List<Integer> bruteForce(TimeSeries ts, long headSeq, long from, long to, int length) {
+
+        var lo = 0;
+
+        while (lo < ts.size() && ts.getTime(lo) < from) {
+            lo++;
+        }
+
+        var hi = lo;
+
+        while (hi < ts.size() && ts.getTime(hi) <= to) {
+            hi++;
+        }
+
+        lo = Math.max(0, lo - 1);
+        hi = Math.min(ts.size(), hi + 1);
+
+        var result = new ArrayList<Integer>();
+
+        if (hi - lo <= length) {
+
+            for (var index = lo; index < hi; index++) {
+                result.add(index);
+            }
+
+            return result;
+        }
+
+        var n = hi - lo;
+        var level = 1;
+
+        while (2 * ((n >> level) + 3) > length) {
+            level++;
+        }
+
+        var blockSize = 1L << level;
+        var loSeq = headSeq + lo;
+        var hiSeq = headSeq + hi;
+        var firstFull = Math.min(hiSeq, (loSeq + blockSize - 1) / blockSize * blockSize);
+        var lastFull = Math.max(firstFull, hiSeq / blockSize * blockSize);
+
+        minMax(ts, loSeq - headSeq, firstFull - headSeq, result);
+
+        for (var start = firstFull; start < lastFull; start += blockSize) {
+            minMax(ts, start - headSeq, start + blockSize - headSeq, result);
+        }
+
+        minMax(ts, lastFull - headSeq, hiSeq - headSeq, result);
+
+        return result;
+    }
+
+    private static void minMax(TimeSeries ts, long start, long end, List<Integer> result) {
+
+        if (start >= end) {
+            return;
+        }
+
+        var min = (int) start;
+        var max = (int) start;
+
+        for (var index = (int) start; index < end; index++) {
+
+            if (ts.getValue(index) < ts.getValue(min)) {
+                min = index;
+            }
+
+            if (ts.getValue(index) > ts.getValue(max)) {
+                max = index;
+            }
+        }
+
+        result.add(Math.min(min, max));
+
+        if (min != max) {
+            result.add(Math.max(min, max));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package net.sf.dz3r.view.swing.sensor;
+
+import net.sf.dz3r.common.TestClock;
+import net.sf.dz3r.signal.Signal;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Makes sure the incrementally rendered chart looks the same as the one painted from scratch.
+ *
+ * Rendered into images, no display needed.
+ */
+class SensorChartTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private static final int WIDTH = 512;
+    private static final int HEIGHT = 128;
+
+    /**
+     * A power of two, so that whole pixel scrolling doesn't lose precision, and the incremental render
+     * is aligned with the full one whenever the time is a multiple of it.
+     */
+    private static final long MILLIS_PER_PIXEL = 1024;
+
+    private static final long CHART_LENGTH = WIDTH * MILLIS_PER_PIXEL;
+
+    /**
+     * Deliberately not a whole number of pixels, the scroll remainder has to be carried over between frames.
+     */
+    private static final Duration FRAME = Duration.ofSeconds(3);
+
+    /**
+     * Least common multiple of {@link #FRAME} and {@link #MILLIS_PER_PIXEL}.
+     */
+    private static final Duration CHECKPOINT = Duration.ofMillis(384_000);
+
+    private static final Duration RUN = Duration.ofHours(2);
+
+    /**
+     * Maximum per channel difference between pixels considered the same. Antialiased joins of segments
+     * painted in different passes blend differently than those painted in one pass; a missing or misplaced
+     * line is way further off the background.
+     */
+    private static final int TOLERANCE = 112;
+
+    /**
+     * Pixels per checkpoint allowed to differ anyway, for the same reason. It's usually a few; scrolling a pixel
+     * off is thousands, and not repainting the tail is dozens where the readings resume after a gap.
+     */
+    private static final int MISMATCH_BUDGET = 24;
+
+    @Test
+    void incrementalMatchesFull() {
+
+        var clock = new TestClock(Clock.fixed(START, ZoneOffset.UTC));
+        var incremental = new SensorChart(clock, CHART_LENGTH);
+        var signals = new ArrayList<Signal<Double, Void>>();
+
+        incremental.setSize(WIDTH, HEIGHT);
+
+        // Sets the chart width, the chart won't record anything until it is known
+        render(incremental);
+
+        var checkpoints = 0;
+
+        for (var offset = Duration.ZERO; offset.compareTo(RUN) <= 0; offset = offset.plus(FRAME)) {
+
+            for (var second = offset.minus(FRAME).plusSeconds(1); second.compareTo(offset) <= 0; second = second.plusSeconds(1)) {
+
+                if (second.isNegative() || isSilent(second)) {
+                    continue;
+                }
+
+                var signal = new Signal<Double, Void>(START.plus(second), reading(second));
+
+                signals.add(signal);
+                incremental.consumeSignal(signal);
+            }
+
+            clock.setOffset(offset);
+
+            var actual = render(incremental);
+
+            if (offset.toMillis() % CHECKPOINT.toMillis() != 0) {
+                continue;
+            }
+
+            var expected = render(replay(clock, signals));
+
+            assertThat(mismatches(expected, actual)).as("pixels mismatched at +%s", offset).isLessThanOrEqualTo(MISMATCH_BUDGET);
+
+            checkpoints++;
+        }
+
+        assertThat(checkpoints).isEqualTo((int) RUN.dividedBy(CHECKPOINT) + 1);
+    }
+
+    /**
+     * Make a chart that has seen the same signals, and has never been painted yet.
+     */
+    private static SensorChart replay(Clock clock, List<Signal<Double, Void>> signals) {
+
+        var chart = new SensorChart(clock, CHART_LENGTH);
+
+        chart.setSize(WIDTH, HEIGHT);
+        signals.forEach(chart::consumeSignal);
+
+        return chart;
+    }
+
+    private static BufferedImage render(SensorChart chart) {
+
+        var image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        var g = image.createGraphics();
+
+        try {
+            chart.paintComponent(g);
+        } finally {
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    /**
+     * Readings stop for a few minutes a couple of times, long enough to get dead segments painted.
+     */
+    private static boolean isSilent(Duration offset) {
+
+        var minutes = offset.toMinutes();
+
+        return (minutes >= 30 && minutes < 33) || (minutes >= 71 && minutes < 73);
+    }
+
+    /**
+     * A few cycles per chart length, so that the vertical limits settle down early, with some ripple on top.
+     */
+    private static double reading(Duration offset) {
+
+        var seconds = offset.toSeconds();
+
+        return 22 + 3 * Math.sin(2 * Math.PI * seconds / 120) + 0.2 * Math.sin(seconds * 0.37);
+    }
+
+    /**
+     * Count pixels that differ from both the pixel at the same position in the other image, and its neighbors.
+     */
+    private static int mismatches(BufferedImage expected, BufferedImage actual) {
+
+        var count = 0;
+
+        for (var y = 0; y < HEIGHT; y++) {
+            for (var x = 0; x < WIDTH; x++) {
+                if (!hasMatch(expected.getRGB(x, y), actual, x, y) || !hasMatch(actual.getRGB(x, y), expected, x, y)) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean hasMatch(int rgb, BufferedImage image, int x, int y) {
+
+        for (var dy = -1; dy <= 1; dy++) {
+            for (var dx = -1; dx <= 1; dx++) {
+
+                var nx = x + dx;
+                var ny = y + dy;
+
+                if (nx >= 0 && nx < WIDTH && ny >= 0 && ny < HEIGHT && isClose(rgb, image.getRGB(nx, ny))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isClose(int left, int right) {
+
+        for (var shift = 0; shift < 32; shift += 8) {
+            if (Math.abs(((left >> shift) & 0xFF) - ((right >> shift) & 0xFF)) > TOLERANCE) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
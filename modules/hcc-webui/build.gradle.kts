@@ -7,7 +7,12 @@ dependencies {
     implementation(libs.jackson.datatype.jsr310)
     implementation(libs.jmdns)
 
+    implementation(project(":modules:hcc-common"))
     implementation(project(":modules:hcc-data-source-api"))
     implementation(project(":modules:hcc-config"))
     implementation(project(":modules:hcc-director"))
+
+    testImplementation(libs.assertj.core)
+    testImplementation(libs.junit5.api)
+    testImplementation(libs.spring.standalone.test)
 }
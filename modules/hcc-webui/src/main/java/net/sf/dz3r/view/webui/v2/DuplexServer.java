@@ -0,0 +1,310 @@
+package net.sf.dz3r.view.webui.v2;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.util.concurrent.Queues;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Streaming counterpart of {@link WebUI}, listening on the duplex port.
+ *
+ * Clients connect with a WebSocket, receive a {@code snapshot} message with the complete system state,
+ * and then incremental {@code zone}, {@code sensor}, {@code unit}, and {@code instruments} messages as the state changes.
+ * Every client has its own outbound buffer of {@link #CLIENT_BUFFER} messages; a client that lets it fill up
+ * (is not reading fast enough) is disconnected with a {@link #CLOSE_SLOW_CONSUMER} close frame
+ * instead of slowing everyone else down.
+ *
+ * Clients may send {@code zone} commands, and get a {@code result} message for every command in response.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+class DuplexServer implements AutoCloseable {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * Maximum number of messages buffered for a client before it is considered too slow and disconnected.
+     */
+    static final int CLIENT_BUFFER = 256;
+
+    /**
+     * WebSocket close status for evicted clients ("policy violation").
+     */
+    static final int CLOSE_SLOW_CONSUMER = 1008;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final Supplier<Map<String, Object>> snapshotSupplier;
+    private final Function<String, Optional<Zone>> zoneResolver;
+
+    private final Set<Client> clients = new LinkedHashSet<>();
+    private final AtomicLong clientCounter = new AtomicLong();
+
+    private DisposableServer server;
+
+    /**
+     * Create an instance.
+     *
+     * @param snapshotSupplier Supplier of the full state to send to every client upon connection, by message section.
+     * @param zoneResolver Resolves zone names in commands to zones. Only zones exposed by the {@link WebUI} must be resolved.
+     */
+    DuplexServer(Supplier<Map<String, Object>> snapshotSupplier, Function<String, Optional<Zone>> zoneResolver) {
+        this.snapshotSupplier = snapshotSupplier;
+        this.zoneResolver = zoneResolver;
+    }
+
+    /**
+     * Start listening.
+     *
+     * @param interfaces Interfaces to listen on.
+     * @param port Port to listen on.
+     *
+     * @return Port actually listened on (differs from {@code port} if it was 0).
+     */
+    synchronized int start(String interfaces, int port) {
+
+        server = HttpServer
+                .create()
+                .host(interfaces)
+                .port(port)
+                .route(routes -> routes.ws("/", this::handle))
+                .bindNow();
+
+        logger.info("duplex port: {}", server.port());
+
+        return server.port();
+    }
+
+    /**
+     * Send an incremental update to all connected clients.
+     *
+     * @param type Message type.
+     * @param key Entity key.
+     * @param value Entity state.
+     */
+    void broadcast(String type, String key, Object value) {
+
+        var message = new LinkedHashMap<String, Object>();
+
+        message.put("type", type);
+        message.put("key", key);
+        message.put("value", value);
+
+        String text;
+
+        try {
+            // Rendered once for all clients
+            text = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException ex) {
+            logger.error("failed to render {}={}, dropped", type, key, ex);
+            return;
+        }
+
+        synchronized (clients) {
+            for (var client : clients) {
+                client.offer(text);
+            }
+        }
+    }
+
+    private Mono<Void> handle(WebsocketInbound in, WebsocketOutbound out) {
+
+        var client = new Client(clientCounter.incrementAndGet());
+
+        ThreadContext.push("duplex#" + client.id);
+
+        try {
+
+            // Register first so that no update is lost between the snapshot and the stream;
+            // a duplicate is harmless since every update carries the full entity state
+            synchronized (clients) {
+                clients.add(client);
+            }
+
+            logger.info("connected, {} clients total", clients.size());
+
+            var outbound = Flux
+                    .concat(Mono.fromCallable(this::renderSnapshot), client.sink.asFlux())
+                    .takeUntilOther(client.evicted.asMono());
+
+            var send = out
+                    .sendString(outbound)
+                    .then(Mono.defer(() -> client.isEvicted() ? out.sendClose(CLOSE_SLOW_CONSUMER, "slow consumer") : Mono.empty()));
+
+            var receive = in
+                    .receive()
+                    .asString()
+                    // Commands may block for a while, keep them off the event loop
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(command -> client.offer(execute(client, command)))
+                    .then();
+
+            return Mono
+                    .firstWithSignal(send, receive)
+                    .doFinally(signal -> disconnect(client));
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    private void disconnect(Client client) {
+
+        synchronized (clients) {
+            clients.remove(client);
+        }
+
+        logger.info("duplex#{}: disconnected{}, {} clients left", client.id, client.isEvicted() ? " (evicted)" : "", clients.size());
+    }
+
+    private String renderSnapshot() throws JsonProcessingException {
+
+        var message = new LinkedHashMap<String, Object>();
+
+        message.put("type", "snapshot");
+        message.putAll(snapshotSupplier.get());
+
+        return objectMapper.writeValueAsString(message);
+    }
+
+    /**
+     * Execute the command.
+     *
+     * Commands look like {@code {"id": "1", "command": "zone", "zone": "bedroom", "setpoint": 22.5, "enabled": true, "voting": true, "hold": false}},
+     * only {@code command} and {@code zone} are mandatory, absent settings are left unchanged.
+     *
+     * @return Rendered result message.
+     */
+    private String execute(Client client, String text) {
+
+        ThreadContext.push("duplex#" + client.id + ":execute");
+
+        String id = null;
+
+        try {
+
+            var command = objectMapper.readTree(text);
+
+            id = Optional.ofNullable(command.get("id")).map(JsonNode::asText).orElse(null);
+
+            var type = Optional.ofNullable(command.get("command")).map(JsonNode::asText).orElse(null);
+
+            if (!"zone".equals(type)) {
+                throw new IllegalArgumentException("unsupported command: " + type);
+            }
+
+            var name = Optional
+                    .ofNullable(command.get("zone"))
+                    .map(JsonNode::asText)
+                    .orElseThrow(() -> new IllegalArgumentException("zone name is missing"));
+            var zone = zoneResolver
+                    .apply(name)
+                    .orElseThrow(() -> new IllegalArgumentException("no such zone: " + name));
+
+            var current = zone.getSettings();
+            var settings = new ZoneSettings(
+                    Optional.ofNullable(command.get("enabled")).map(JsonNode::asBoolean).orElse(current.enabled),
+                    Optional.ofNullable(command.get("setpoint")).map(JsonNode::asDouble).orElse(current.setpoint),
+                    Optional.ofNullable(command.get("voting")).map(JsonNode::asBoolean).orElse(current.voting),
+                    Optional.ofNullable(command.get("hold")).map(JsonNode::asBoolean).orElse(current.hold),
+                    current.dumpPriority,
+                    current.economizerSettings);
+
+            logger.info("{}: {}", name, settings);
+
+            var result = zone.setSettingsSync(settings);
+
+            return renderResult(id, true, result);
+
+        } catch (Exception ex) {
+
+            logger.warn("command failed: {}", text, ex);
+            return renderResult(id, false, ex.getMessage());
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    private String renderResult(String id, boolean ok, Object result) {
+
+        var message = new LinkedHashMap<String, Object>();
+
+        message.put("type", "result");
+        message.put("id", id);
+        message.put("ok", ok);
+        message.put("result", result);
+
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to render result for " + id, ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private class Client {
+
+        final long id;
+
+        final Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<String>get(CLIENT_BUFFER).get());
+        final Sinks.One<Boolean> evicted = Sinks.one();
+
+        private volatile boolean isEvicted;
+
+        Client(long id) {
+            this.id = id;
+        }
+
+        synchronized void offer(String message) {
+
+            if (isEvicted) {
+                return;
+            }
+
+            var result = sink.tryEmitNext(message);
+
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                logger.warn("duplex#{}: {} messages behind, evicting", id, CLIENT_BUFFER);
+                isEvicted = true;
+                evicted.tryEmitValue(true);
+            } else if (result.isFailure() && result != Sinks.EmitResult.FAIL_CANCELLED) {
+                logger.debug("duplex#{}: emit failed: {}", id, result);
+            }
+        }
+
+        boolean isEvicted() {
+            return isEvicted;
+        }
+    }
+}
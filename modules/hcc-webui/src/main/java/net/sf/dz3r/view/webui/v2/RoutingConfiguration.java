@@ -31,9 +31,12 @@ public class RoutingConfiguration {
                 GET("/unit/{unit}").and(ACCEPT_JSON), webUI::getUnit).andRoute(
                 GET("/zones").and(ACCEPT_JSON), webUI::getZones).andRoute(
                 GET("/zone/{zone}").and(ACCEPT_JSON), webUI::getZone).andRoute(
+                GET("/cluster").and(ACCEPT_JSON), webUI::getCluster).andRoute(
 
                 GET("/uptime").and(ACCEPT_JSON), webUI::getUptime).andRoute(
                 GET("/version").and(ACCEPT_JSON), webUI::getVersion).andRoute(
+                // Scrapers ask for their own content type, not JSON
+                GET("/metrics"), webUI::getMetrics).andRoute(
 
                 // Mutators
 
@@ -0,0 +1,119 @@
+package net.sf.dz3r.view.webui.v2;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps rendered JSON representations of WebUI views, and renders them again only when the underlying state changes.
+ *
+ * Rendering is done with the same {@link ObjectMapper} configuration WebFlux uses by default, so the output
+ * is identical to what would have been produced by handing the objects to the response body.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2024
+ */
+class SnapshotCache {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final Map<String, Snapshot> key2snapshot = new ConcurrentHashMap<>();
+
+    /**
+     * Get the snapshot.
+     *
+     * @param key View key.
+     * @param version Object that changes (in terms of {@link Object#equals(Object)}) every time the view content changes.
+     * @param renderer Supplier of the view content. Called only if the version has changed since the last call.
+     *
+     * @return Snapshot with the current rendition.
+     */
+    Snapshot get(String key, Object version, Supplier<Object> renderer) {
+
+        var cached = key2snapshot.get(key);
+
+        if (cached != null && cached.version.equals(version)) {
+            return cached;
+        }
+
+        try {
+
+            var body = objectMapper.writeValueAsBytes(renderer.get());
+            var result = new Snapshot(version, body, computeETag(body));
+
+            logger.trace("{}: rendered version {}, {} bytes, ETag {}", key, version, body.length, result.etag);
+
+            // If a concurrent call rendered a newer version, it'll be rendered once again on the next call, no harm done
+            key2snapshot.put(key, result);
+
+            return result;
+
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to render " + key, ex);
+        }
+    }
+
+    /**
+     * Compute a strong ETag.
+     *
+     * Derived from content rather than the version, so that it survives restarts and identical content
+     * rendered after a change that didn't matter still matches.
+     */
+    private static String computeETag(byte[] body) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is mandatory, this can't be happening", ex);
+        }
+    }
+
+    /**
+     * Rendered view.
+     *
+     * @param version Version the view was rendered for.
+     * @param body Rendered JSON.
+     * @param etag Strong ETag for the {@link #body}, quoted.
+     */
+    record Snapshot(
+            Object version,
+            byte[] body,
+            String etag
+    ) {
+
+        /**
+         * Check the {@code If-None-Match} header value against this snapshot.
+         *
+         * @param ifNoneMatch Header value, possibly a list.
+         *
+         * @return {@code true} if the client already has this snapshot.
+         */
+        boolean matches(String ifNoneMatch) {
+
+            for (var candidate : ifNoneMatch.split(",")) {
+
+                var tag = candidate.trim();
+
+                // Weak comparison is what RFC 9110 prescribes for If-None-Match
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.homeclimatecontrol.hcc.Version;
 import com.homeclimatecontrol.hcc.meta.EndpointMeta;
 import net.sf.dz3r.common.DurationFormatter;
 import net.sf.dz3r.instrumentation.InstrumentCluster;
+import net.sf.dz3r.instrumentation.metrics.MetricsRegistry;
 import net.sf.dz3r.model.UnitDirector;
+import net.sf.dz3r.model.Zone;
 import net.sf.dz3r.runtime.GitProperties;
 import net.sf.dz3r.runtime.InstanceIdProvider;
 import net.sf.dz3r.runtime.config.model.TemperatureUnit;
@@ -15,6 +17,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
 import org.springframework.web.reactive.function.server.RouterFunctions;
@@ -35,13 +39,16 @@ import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.ToLongFunction;
 
 import static com.homeclimatecontrol.hcc.meta.EndpointMeta.Type.DIRECT;
 import static net.sf.dz3r.view.webui.v2.RoutingConfiguration.META_PATH;
@@ -64,6 +71,13 @@ public class WebUI implements AutoCloseable {
 
     private final Map<UnitDirector, UnitObserver> unit2observer = new TreeMap<>();
 
+    /**
+     * Rendered {@link #getZones(ServerRequest)}, {@link #getSensors(ServerRequest)}, and {@link #getUnits(ServerRequest)} responses.
+     */
+    private final SnapshotCache snapshotCache = new SnapshotCache();
+
+    private DuplexServer duplexServer;
+
     private JmDNS jmDNS;
 
     public WebUI(
@@ -77,22 +91,32 @@ public class WebUI implements AutoCloseable {
             InstrumentCluster ic,
             TemperatureUnit temperatureUnit) {
 
-        this.config = new Config(instance, configDigest, httpPort, duplexPort, interfaces, endpointMeta, directors, ic, temperatureUnit);
+        this(new Config(instance, configDigest, httpPort, duplexPort, interfaces, endpointMeta, directors, ic, temperatureUnit));
+
+        Flux.just(Instant.now())
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(this::run)
+                .subscribe();
+    }
+
+    /**
+     * Create an instance that doesn't start serving, for handlers to be called directly.
+     *
+     * @param config Configuration.
+     */
+    WebUI(Config config) {
+
+        this.config = config;
 
-        this.initSet.addAll(directors);
+        this.initSet.addAll(config.directors);
 
-        logger.info("port: {}", httpPort);
+        logger.info("port: {}", config.httpPort);
 
-        if (directors.isEmpty()) {
+        if (config.directors.isEmpty()) {
             logger.warn("empty init set, only diagnostic URLs will be available");
         } else {
-            logger.info("init set: {}", directors);
+            logger.info("init set: {}", config.directors);
         }
-
-        Flux.just(Instant.now())
-                .publishOn(Schedulers.boundedElastic())
-                .doOnNext(this::run)
-                .subscribe();
     }
 
     private void run(Instant startedAt) {
@@ -111,6 +135,8 @@ public class WebUI implements AutoCloseable {
             var server = HttpServer.create().host(config.interfaces).port(config.httpPort);
             DisposableServer disposableServer = server.handle(adapter).bind().block();
 
+            startDuplex();
+
             logger.info("started in {}ms", Duration.between(startedAt, Instant.now()).toMillis());
 
             advertise();
@@ -140,6 +166,80 @@ public class WebUI implements AutoCloseable {
         }
     }
 
+    /**
+     * Start the streaming server on the duplex port, and connect it to the same sources the observers are connected to.
+     */
+    private void startDuplex() {
+
+        ThreadContext.push("startDuplex");
+
+        try {
+
+            duplexServer = new DuplexServer(this::getDuplexSnapshot, this::resolveZone);
+
+            for (var director : initSet) {
+
+                var feed = director.getFeed();
+
+                feed.aggregateZoneFlux
+                        .subscribe(s -> duplexServer.broadcast("zone", s.payload, s));
+
+                feed.sensorFlux2zone
+                        .forEach((flux, zone) -> flux.subscribe(s -> duplexServer.broadcast("sensor", zone.getAddress(), s)));
+
+                feed.hvacDeviceFlux
+                        .subscribe(s -> duplexServer.broadcast("unit", director.getAddress(), s));
+            }
+
+            Optional.ofNullable(config.ic)
+                    .ifPresent(ic -> ic.getFlux().subscribe(s -> duplexServer.broadcast("instruments", null, s)));
+
+            duplexServer.start(config.interfaces, config.duplexPort);
+
+        } catch (Exception ex) {
+            logger.error("failed to start the duplex server, only HTTP will be available", ex);
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * @return Full system state for newly connected {@link DuplexServer} clients, in the same shape as HTTP responses.
+     */
+    private Map<String, Object> getDuplexSnapshot() {
+
+        var zones = new LinkedHashMap<String, Object>();
+        var sensors = new LinkedHashMap<String, Object>();
+        var units = new LinkedHashMap<String, Object>();
+
+        unit2observer.forEach((unit, observer) -> {
+
+            // One snapshot per unit, so that zones, sensors and the unit are consistent with each other
+            var snapshot = observer.getSnapshot();
+
+            zones.putAll(snapshot.getZones());
+            sensors.putAll(snapshot.getSensors());
+            units.put(unit.getAddress(), snapshot.getUnitStatus());
+        });
+
+        var result = new LinkedHashMap<String, Object>();
+
+        result.put("zones", zones);
+        result.put("sensors", sensors);
+        result.put("units", units);
+        result.put("instruments", Optional.ofNullable(config.ic).map(InstrumentCluster::getStatus).orElse(null));
+
+        return result;
+    }
+
+    private Optional<Zone> resolveZone(String name) {
+        return initSet
+                .stream()
+                .flatMap(d -> d.getFeed().sensorFlux2zone.values().stream())
+                .filter(z -> z.getAddress().equals(name))
+                .findFirst();
+    }
+
     private void advertise() {
         ThreadContext.push("mdns-advertise");
         try {
@@ -216,19 +316,21 @@ public class WebUI implements AutoCloseable {
     /**
      * Response handler for the zone set request.
      *
-     * @param ignoredRq ignored.
+     * @param rq Request object, checked for {@code If-None-Match}.
      *
      * @return Set of zone representations.
      */
-    public Mono<ServerResponse> getZones(ServerRequest ignoredRq) {
+    public Mono<ServerResponse> getZones(ServerRequest rq) {
         logger.info("GET /zones");
 
-        return ok()
-                .cacheControl(CacheControl.noCache())
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(Flux.fromIterable(unit2observer.values())
-                                .flatMap(UnitObserver::getZones),
-                        ZoneStatus.class);
+        return respond(rq, snapshotCache.get(
+                "zones",
+                getViewVersion(UnitObserver::getZoneVersion),
+                () -> {
+                    var result = new ArrayList<>();
+                    unit2observer.values().forEach(o -> result.addAll(o.getSnapshot().getZones().entrySet()));
+                    return result;
+                }));
     }
 
     /**
@@ -268,19 +370,21 @@ public class WebUI implements AutoCloseable {
     /**
      * Response handler for the sensor set request.
      *
-     * @param ignoredRq ignored.
+     * @param rq Request object, checked for {@code If-None-Match}.
      *
      * @return Set of sensor representations.
      */
-    public Mono<ServerResponse> getSensors(ServerRequest ignoredRq) {
+    public Mono<ServerResponse> getSensors(ServerRequest rq) {
         logger.info("GET /sensors");
 
-        return ok()
-                .cacheControl(CacheControl.noCache())
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(Flux.fromIterable(unit2observer.values())
-                                .flatMap(UnitObserver::getSensors),
-                        Signal.class);
+        return respond(rq, snapshotCache.get(
+                "sensors",
+                getViewVersion(UnitObserver::getSensorVersion),
+                () -> {
+                    var result = new ArrayList<>();
+                    unit2observer.values().forEach(o -> result.addAll(o.getSnapshot().getSensors().entrySet()));
+                    return result;
+                }));
     }
 
     /**
@@ -307,23 +411,57 @@ public class WebUI implements AutoCloseable {
     /**
      * Response handler for the unit set request.
      *
-     * @param ignoredRq ignored.
+     * @param rq Request object, checked for {@code If-None-Match}.
      *
      * @return Set of unit representations.
      */
-    public Mono<ServerResponse> getUnits(ServerRequest ignoredRq) {
+    public Mono<ServerResponse> getUnits(ServerRequest rq) {
         logger.info("GET /units");
 
-        var units = Flux.fromIterable(unit2observer.entrySet())
-                .map(kv -> new AbstractMap.SimpleEntry<>(
-                        kv.getKey().getAddress(),
-                        kv.getValue().getUnitStatus()))
-                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        return respond(rq, snapshotCache.get(
+                "units",
+                getViewVersion(UnitObserver::getUnitVersion),
+                () -> {
+                    var result = new LinkedHashMap<String, Object>();
+                    unit2observer.forEach((unit, observer) -> result.put(unit.getAddress(), observer.getUnitStatus()));
+                    return result;
+                }));
+    }
+
+    /**
+     * Get the version of a view across all observers.
+     *
+     * @param versionOf Per observer version accessor.
+     *
+     * @return Object that changes every time any of the observer versions changes.
+     */
+    private List<Long> getViewVersion(ToLongFunction<UnitObserver> versionOf) {
+        return unit2observer.values().stream().map(versionOf::applyAsLong).toList();
+    }
+
+    /**
+     * Respond with a cached snapshot, or with {@code 304 Not Modified} if the client already has it.
+     *
+     * @param rq Request to respond to.
+     * @param snapshot Snapshot to respond with.
+     *
+     * @return Response.
+     */
+    private Mono<ServerResponse> respond(ServerRequest rq, SnapshotCache.Snapshot snapshot) {
+
+        if (rq.headers().header(HttpHeaders.IF_NONE_MATCH).stream().anyMatch(snapshot::matches)) {
+            return ServerResponse
+                    .status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
 
         return ok()
+                .eTag(snapshot.etag())
                 .cacheControl(CacheControl.noCache())
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(units, Map.class);
+                .bodyValue(snapshot.body());
     }
 
     /**
@@ -363,6 +501,39 @@ public class WebUI implements AutoCloseable {
 
     private static final DurationFormatter uptimeFormatter = new DurationFormatter();
 
+    /**
+     * Get the cluster status.
+     *
+     * @param ignoredRq ignored.
+     *
+     * @return Last known status of every cluster node, including remote zones. Empty if this is not a cluster.
+     */
+    public Mono<ServerResponse> getCluster(ServerRequest ignoredRq) {
+        logger.info("GET /cluster");
+
+        var nodes = Optional.ofNullable(config.ic).map(ic -> ic.getStatus().nodes()).orElse(Map.of());
+        var result = new LinkedHashMap<String, Object>();
+
+        nodes.forEach((node, s) -> {
+
+            // Let's make the JSON order predictable
+            var status = new LinkedHashMap<>();
+
+            status.put("timestamp", s.timestamp);
+            status.put("status", s.status);
+            status.put("error", Optional.ofNullable(s.error).map(Throwable::getMessage).orElse(null));
+            status.put("directors", s.getValue() == null ? null : s.getValue().directors());
+            status.put("zones", s.getValue() == null ? null : s.getValue().zones());
+
+            result.put(node, status);
+        });
+
+        return ok()
+                .cacheControl(CacheControl.noStore())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(result);
+    }
+
     /**
      * Get uptime.
      *
@@ -410,8 +581,26 @@ public class WebUI implements AutoCloseable {
         }
     }
 
+    /**
+     * Get the runtime metrics.
+     *
+     * @param ignoredRq ignored.
+     *
+     * @return All registered metrics, in OpenMetrics text format.
+     */
+    public Mono<ServerResponse> getMetrics(ServerRequest ignoredRq) {
+        logger.debug("GET /metrics");
+
+        return ok()
+                .contentType(MediaType.parseMediaType(MetricsRegistry.CONTENT_TYPE))
+                .bodyValue(MetricsRegistry.getInstance().scrape());
+    }
+
     @Override
     public void close() throws IOException {
+        if (duplexServer != null) {
+            duplexServer.close();
+        }
         if (jmDNS != null) {
             jmDNS.unregisterAllServices();
             jmDNS.close();
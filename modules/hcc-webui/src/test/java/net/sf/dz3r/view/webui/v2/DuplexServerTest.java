@@ -0,0 +1,183 @@
+package net.sf.dz3r.view.webui.v2;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import net.sf.dz3r.model.Thermostat;
+import net.sf.dz3r.model.Zone;
+import net.sf.dz3r.model.ZoneSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplexServerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DuplexServer server;
+
+    @AfterEach
+    void close() {
+        server.close();
+    }
+
+    @Test
+    void snapshotThenDelta() {
+
+        server = new DuplexServer(() -> {
+
+            // The client is already registered, this update races the snapshot and must still come after it
+            server.broadcast("zone", "bedroom", Map.of("setpoint", 23));
+
+            return Map.of("zones", List.of("bedroom"));
+
+        }, name -> Optional.empty());
+
+        var port = server.start("localhost", 0);
+
+        var messages = HttpClient
+                .create()
+                .websocket()
+                .uri(uri(port))
+                .handle((in, out) -> in.receive().asString())
+                .map(this::parse)
+                .doOnNext(message -> {
+                    if ("snapshot".equals(message.get("type").asText())) {
+                        server.broadcast("sensor", "bedroom-sensor", Map.of("value", 20.5));
+                    }
+                })
+                .take(3)
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(messages).extracting(message -> message.get("type").asText()).containsExactly("snapshot", "zone", "sensor");
+        assertThat(messages.get(0).get("zones").get(0).asText()).isEqualTo("bedroom");
+        assertThat(messages.get(1).get("key").asText()).isEqualTo("bedroom");
+        assertThat(messages.get(1).get("value").get("setpoint").asInt()).isEqualTo(23);
+        assertThat(messages.get(2).get("key").asText()).isEqualTo("bedroom-sensor");
+    }
+
+    @Test
+    void commandResult() {
+
+        var zone = new Zone(new Thermostat("bedroom", 20d, 1, 0.001, 0, 0), new ZoneSettings(20d));
+
+        server = new DuplexServer(Map::of, name -> "bedroom".equals(name) ? Optional.of(zone) : Optional.empty());
+
+        var port = server.start("localhost", 0);
+
+        var commands = Flux.just(
+                "{\"id\": \"1\", \"command\": \"zone\", \"zone\": \"bedroom\", \"setpoint\": 24.5, \"hold\": true}",
+                "{\"id\": \"2\", \"command\": \"zone\", \"zone\": \"attic\", \"setpoint\": 18}",
+                "{\"id\": \"3\", \"command\": \"reboot\"}");
+
+        var results = HttpClient
+                .create()
+                .websocket()
+                .uri(uri(port))
+                .handle((in, out) -> in
+                        .receive()
+                        .asString()
+                        .mergeWith(out.sendString(commands).then().then(Mono.<String>empty())))
+                .map(this::parse)
+                .filter(message -> "result".equals(message.get("type").asText()))
+                .take(3)
+                .collectList()
+                .block(TIMEOUT);
+
+        assertThat(results).extracting(result -> result.get("id").asText()).containsExactly("1", "2", "3");
+        assertThat(results).extracting(result -> result.get("ok").asBoolean()).containsExactly(true, false, false);
+
+        assertThat(results.get(0).get("result").get("setpoint").asDouble()).isEqualTo(24.5);
+        assertThat(results.get(0).get("result").get("hold").asBoolean()).isTrue();
+        assertThat(results.get(1).get("result").asText()).isEqualTo("no such zone: attic");
+        assertThat(results.get(2).get("result").asText()).isEqualTo("unsupported command: reboot");
+
+        assertThat(zone.getSettings().setpoint).isEqualTo(24.5);
+        assertThat(zone.getSettings().hold).isTrue();
+    }
+
+    @Test
+    void slowConsumerEvicted() throws Exception {
+
+        server = new DuplexServer(Map::of, name -> Optional.empty());
+
+        var port = server.start("localhost", 0);
+
+        // Well under the client's maximum frame size, and enough of them to fill the socket buffers
+        // on both ends and the client buffer on the server several times over
+        var payload = "x".repeat(16 * 1024);
+        var messages = 8192;
+
+        var received = new AtomicInteger();
+        var connected = new CountDownLatch(1);
+        var reader = new BaseSubscriber<String>() {
+
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Just the snapshot, then stop reading
+                subscription.request(1);
+            }
+
+            @Override
+            protected void hookOnNext(String value) {
+                received.incrementAndGet();
+                connected.countDown();
+            }
+        };
+
+        var closeStatus = HttpClient
+                .create()
+                .websocket()
+                .uri(uri(port))
+                .handle((in, out) -> {
+                    in.receive().asString().subscribe(reader);
+                    return in.receiveCloseStatus();
+                })
+                .next()
+                .toFuture();
+
+        assertThat(connected.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)).as("snapshot received").isTrue();
+
+        for (var offset = 0; offset < messages; offset++) {
+            server.broadcast("sensor", "flood", payload);
+        }
+
+        // Catch up to get to the close frame
+        reader.request(Long.MAX_VALUE);
+
+        var status = closeStatus.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+        assertThat(status).extracting(WebSocketCloseStatus::code).isEqualTo(DuplexServer.CLOSE_SLOW_CONSUMER);
+        assertThat(received.get()).as("messages received").isLessThan(messages + 1);
+    }
+
+    private static String uri(int port) {
+        return "ws://localhost:" + port + "/";
+    }
+
+    private JsonNode parse(String text) {
+        try {
+            return objectMapper.readTree(text);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to parse " + text, ex);
+        }
+    }
+}
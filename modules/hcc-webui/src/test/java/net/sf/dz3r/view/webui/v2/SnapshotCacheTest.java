@@ -0,0 +1,90 @@
+package net.sf.dz3r.view.webui.v2;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotCacheTest {
+
+    private final SnapshotCache cache = new SnapshotCache();
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    @Test
+    void sameVersionNotRendered() {
+
+        var first = cache.get("zones", List.of(1L), () -> render("bedroom", 20));
+        var second = cache.get("zones", List.of(1L), () -> render("bedroom", 25));
+
+        assertThat(rendered.get()).isEqualTo(1);
+        assertThat(second).isSameAs(first);
+        assertThat(new String(second.body(), StandardCharsets.UTF_8)).isEqualTo("{\"bedroom\":20}");
+    }
+
+    @Test
+    void newVersionRendered() {
+
+        var first = cache.get("zones", List.of(1L), () -> render("bedroom", 20));
+        var second = cache.get("zones", List.of(2L), () -> render("bedroom", 25));
+
+        assertThat(rendered.get()).isEqualTo(2);
+        assertThat(new String(second.body(), StandardCharsets.UTF_8)).isEqualTo("{\"bedroom\":25}");
+        assertThat(second.etag()).isNotEqualTo(first.etag());
+    }
+
+    @Test
+    void keysSeparate() {
+
+        cache.get("zones", List.of(1L), () -> render("bedroom", 20));
+        cache.get("sensors", List.of(1L), () -> render("bedroom", 20));
+
+        assertThat(rendered.get()).isEqualTo(2);
+    }
+
+    @Test
+    void etagStable() {
+
+        var first = cache.get("zones", List.of(1L), () -> render("bedroom", 20));
+
+        // A change that didn't matter
+        var second = cache.get("zones", List.of(2L), () -> render("bedroom", 20));
+
+        // Another instance, as if after a restart
+        var third = new SnapshotCache().get("zones", List.of(1L), () -> render("bedroom", 20));
+
+        assertThat(rendered.get()).isEqualTo(3);
+        assertThat(first.etag()).matches("\"[0-9a-f]{32}\"");
+        assertThat(second.etag()).isEqualTo(first.etag());
+        assertThat(third.etag()).isEqualTo(first.etag());
+    }
+
+    @Test
+    void matches() {
+
+        var snapshot = cache.get("zones", List.of(1L), () -> render("bedroom", 20));
+        var etag = snapshot.etag();
+
+        assertThat(snapshot.matches(etag)).isTrue();
+        assertThat(snapshot.matches("W/" + etag)).isTrue();
+        assertThat(snapshot.matches("*")).isTrue();
+        assertThat(snapshot.matches("\"nope\", " + etag)).isTrue();
+        assertThat(snapshot.matches("\"nope\",W/" + etag + ",\"neither\"")).isTrue();
+
+        assertThat(snapshot.matches("\"nope\"")).isFalse();
+        assertThat(snapshot.matches("\"nope\", W/\"neither\"")).isFalse();
+
+        // Unquoted is not the same tag
+        assertThat(snapshot.matches(etag.substring(1, etag.length() - 1))).isFalse();
+    }
+
+    private Object render(String key, int value) {
+
+        rendered.incrementAndGet();
+
+        return Map.of(key, value);
+    }
+}
@@ -0,0 +1,74 @@
+package net.sf.dz3r.view.webui.v2;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.EntityResponse;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conditional {@code GET} handling for the cached views.
+ *
+ * The instance is not started, handlers are called directly.
+ */
+class WebUITest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final WebUI webUI = new WebUI(new WebUI.Config("test", "digest", 0, 0, "localhost", null, Set.of(), null, null));
+
+    @Test
+    void zones() {
+        assertConditional(webUI::getZones, "[]");
+    }
+
+    @Test
+    void sensors() {
+        assertConditional(webUI::getSensors, "[]");
+    }
+
+    @Test
+    void units() {
+        assertConditional(webUI::getUnits, "{}");
+    }
+
+    private static void assertConditional(Function<ServerRequest, Mono<ServerResponse>> handler, String body) {
+
+        var full = handler.apply(MockServerRequest.builder().build()).block(TIMEOUT);
+        var etag = full.headers().getETag();
+
+        assertThat(full.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(etag).isNotNull();
+        assertThat(full).isInstanceOf(EntityResponse.class);
+        assertThat(new String((byte[]) ((EntityResponse<?>) full).entity(), StandardCharsets.UTF_8)).isEqualTo(body);
+
+        var notModified = handler.apply(request(etag)).block(TIMEOUT);
+
+        assertThat(notModified.statusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.headers().getETag()).isEqualTo(etag);
+        assertThat(notModified).isNotInstanceOf(EntityResponse.class);
+
+        assertThat(handler.apply(request("W/" + etag)).block(TIMEOUT).statusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(handler.apply(request("\"stale\", " + etag)).block(TIMEOUT).statusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        var modified = handler.apply(request("\"stale\"")).block(TIMEOUT);
+
+        assertThat(modified.statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.headers().getETag()).isEqualTo(etag);
+        assertThat(new String((byte[]) ((EntityResponse<?>) modified).entity(), StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    private static ServerRequest request(String ifNoneMatch) {
+        return MockServerRequest.builder().header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch).build();
+    }
+}
@@ -18,10 +18,12 @@ include("modules:hcc-http-gae")
 include("modules:hcc-influxdb")
 include("modules:hcc-model")
 include("modules:hcc-mqtt")
+include("modules:hcc-mqtt-simulator")
 include("modules:hcc-raspberry-pi")
 include("modules:hcc-owapi")
 include("modules:hcc-scheduler")
 include("modules:hcc-scheduler-gcal-v3")
+include("modules:hcc-simulator")
 include("modules:hcc-swing")
 include("modules:hcc-webui")
 include("modules:hcc-xbee")